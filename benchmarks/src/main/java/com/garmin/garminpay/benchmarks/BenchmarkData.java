@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.garmin.garminpay.model.Address;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Synthetic data shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final GarminPayCardData CARD_DATA = GarminPayCardData.builder()
+        .pan("9999449825552964")
+        .cvv("123")
+        .expMonth(12)
+        .expYear(2030)
+        .name("John Doe")
+        .address(Address.builder()
+            .name("Billing Address")
+            .street1("123 Main St")
+            .city("Anytown")
+            .state("CO")
+            .postalCode("12345")
+            .countryCode("US")
+            .build())
+        .build();
+
+    static final String CALLBACK_URL = "https://issuer.example.com/garminpay/callback";
+
+    static final String DEEPLINK_URL = "https://connect.garmin.com/payment/directpush?pushToken=randomjws";
+
+    private BenchmarkData() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Generates a P-256 key pair encoded the same way the SDK encodes client keys for the key exchange.
+     *
+     * @return hex encoded public key at index 0 and private key at index 1
+     */
+    static String[] generateEncodedKeyPair() {
+        try {
+            ECKey key = new ECKeyGenerator(Curve.P_256).generate();
+            return new String[] {
+                String.valueOf(Hex.encodeHex(key.toPublicKey().getEncoded())),
+                String.valueOf(Hex.encodeHex(key.toPrivateKey().getEncoded()))
+            };
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Failed to generate benchmark key pair", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.garmin.garminpay.GarminPayClient;
+import com.garmin.garminpay.client.HttpClientSettings;
+import com.garmin.garminpay.utility.DaemonThreadFactory;
+import com.garmin.garminpay.utility.VirtualThreads;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of 10,000 concurrent blocking registrations through one GarminPayClient against a local WireMock stand-in.
+ * The "virtual" variant starts a virtual thread per registration and requires Java 21, the "platform" variant is the
+ * pre Java 21 equivalent of a bounded pool of platform threads. Both share the same connection pool, so the difference
+ * is the cost of parking the callers that wait for a connection or a response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ConcurrentRegistrationBenchmark {
+    private static final int REGISTRATIONS = 10_000;
+    private static final int PLATFORM_THREADS = 256;
+    private static final int CONNECTIONS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private StandInServer standInServer;
+    private GarminPayClient garminPayClient;
+    private ExecutorService executor;
+    private URI callbackUrl;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("The virtual thread variant requires Java 21 or later");
+        }
+
+        standInServer = new StandInServer(CONNECTIONS);
+        garminPayClient = new GarminPayClient("benchmarkClientId", "benchmarkClientSecret", standInServer.clientConfig()
+            .httpClientSettings(HttpClientSettings.builder()
+                .maxConnectionsPerRoute(CONNECTIONS)
+                .maxConnectionsTotal(CONNECTIONS)
+                .build())
+            .virtualThreads(virtual)
+            .build());
+        executor = virtual
+            ? VirtualThreads.newThreadPerTaskExecutor("benchmark-registration")
+            : Executors.newFixedThreadPool(PLATFORM_THREADS, new DaemonThreadFactory("benchmark-registration"));
+        callbackUrl = URI.create(BenchmarkData.CALLBACK_URL);
+
+        // Prime the token, root links and key agreement so they are not part of the measurement
+        garminPayClient.registerCard(BenchmarkData.CARD_DATA, callbackUrl);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        garminPayClient.close();
+        standInServer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REGISTRATIONS)
+    public void registerConcurrently() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REGISTRATIONS);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            executor.execute(() -> {
+                try {
+                    garminPayClient.registerCard(BenchmarkData.CARD_DATA, callbackUrl);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+
+        // A failed registration is much cheaper than a completed one, so failures would inflate the throughput
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + REGISTRATIONS + " registrations failed");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.garmin.garminpay.encryption.CardEncryptionContext;
+import com.garmin.garminpay.encryption.EncryptionService;
+
+import java.security.KeyPair;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cryptographic steps of a card registration: client key generation, the ECDH key agreement and JWE encryption.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionBenchmark {
+    private final EncryptionService encryptionService = new EncryptionService();
+    private final String keyId = UUID.randomUUID().toString();
+    private String serverPublicKey;
+    private String clientPrivateKey;
+    private KeyPair clientKeyPair;
+    private SecretKey secretKey;
+    private CardEncryptionContext encryptionContext;
+
+    @Setup
+    public void setUp() {
+        serverPublicKey = BenchmarkData.generateEncodedKeyPair()[0];
+        clientPrivateKey = BenchmarkData.generateEncodedKeyPair()[1];
+        clientKeyPair = encryptionService.generateClientKeyPair();
+        secretKey = encryptionService.generateKeyAgreement(serverPublicKey, clientPrivateKey);
+        encryptionContext = encryptionService.createEncryptionContext(secretKey, keyId);
+    }
+
+    /**
+     * EC key pair generation and public key encoding performed before every key exchange.
+     */
+    @Benchmark
+    public String generateClientKey() {
+        return Hex.encodeHexString(encryptionService.generateClientKeyPair().getPublic().getEncoded());
+    }
+
+    /**
+     * Key agreement from a hex encoded client private key, which is decoded and parsed on every call.
+     */
+    @Benchmark
+    public SecretKey generateKeyAgreement() {
+        return encryptionService.generateKeyAgreement(serverPublicKey, clientPrivateKey);
+    }
+
+    /**
+     * Key agreement from the generated client private key, the path taken by a key exchange.
+     */
+    @Benchmark
+    public SecretKey generateKeyAgreementFromKey() {
+        return encryptionService.generateKeyAgreement(serverPublicKey, clientKeyPair.getPrivate());
+    }
+
+    @Benchmark
+    public String encryptCardData() {
+        return encryptionService.encryptCardData(BenchmarkData.CARD_DATA, secretKey, keyId);
+    }
+
+    /**
+     * Encryption with the context a key agreement keeps, the path taken by a card registration.
+     */
+    @Benchmark
+    public String encryptCardDataWithContext() {
+        return encryptionContext.encrypt(BenchmarkData.CARD_DATA);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.garmin.garminpay.GarminPayClient;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end card registration through GarminPayClient against a local WireMock stand-in of the Garmin Pay API.
+ * The token, root links and key agreement are cached after the first call, so the numbers reflect steady state
+ * registrations: encryption, one paymentCards round trip and response handling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RegisterCardBenchmark {
+    private StandInServer standInServer;
+    private GarminPayClient garminPayClient;
+    private URI callbackUrl;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        standInServer = new StandInServer(64);
+        garminPayClient = new GarminPayClient("benchmarkClientId", "benchmarkClientSecret", standInServer.clientConfig().build());
+        callbackUrl = URI.create(BenchmarkData.CALLBACK_URL);
+
+        // Prime the token, root links and key agreement so they are not part of the measurement
+        garminPayClient.registerCard(BenchmarkData.CARD_DATA, callbackUrl);
+    }
+
+    @TearDown
+    public void tearDown() {
+        garminPayClient.close();
+        standInServer.stop();
+    }
+
+    @Benchmark
+    public RegisterCardResponse registerCard() {
+        return garminPayClient.registerCard(BenchmarkData.CARD_DATA, callbackUrl);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public RegisterCardResponse registerCardConcurrently() {
+        return garminPayClient.registerCard(BenchmarkData.CARD_DATA, callbackUrl);
+    }
+
+    @Benchmark
+    public RegisterCardResponse registerCardAsync() {
+        return garminPayClient.registerCardAsync(BenchmarkData.CARD_DATA, callbackUrl).join();
+    }
+}
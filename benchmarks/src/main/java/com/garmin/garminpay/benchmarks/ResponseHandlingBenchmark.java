@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.utility.ResponseHandlingUtil;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.support.ClassicResponseBuilder;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.net.URIBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Response handling steps of a card registration: DTO mapping, parsing, header lookups and deeplink building.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseHandlingBenchmark {
+    private final Header[] headers = {
+        new BasicHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString()),
+        new BasicHeader(HttpHeaders.DATE, "Thu, 17 Oct 2024 12:00:00 GMT"),
+        new BasicHeader("Server", "cloudflare"),
+        new BasicHeader("x-request-id", "0d5c8a1e-2f5e-4d0a-9c0e-8e5b5b0e3c1a"),
+        new BasicHeader("CF-RAY", "8d3c1c2a3b4c5d6e-DEN"),
+    };
+    private String registerCardBody;
+    private APIResponseDTO registerCardResponseDTO;
+    private URI callbackUrl;
+
+    @Setup
+    public void setUp() throws JsonProcessingException, URISyntaxException {
+        registerCardBody = new ObjectMapper().writeValueAsString(RegisterCardResponse.builder()
+            .deepLinkUrl(BenchmarkData.DEEPLINK_URL)
+            .pushId("a4c2f0e8-5b1d-4c8e-9f3a-7d6b2e1c0a9f")
+            .build());
+        registerCardResponseDTO = APIResponseDTO.builder()
+            .status(HttpStatus.SC_OK)
+            .content(registerCardBody)
+            .headers(headers)
+            .path("/paymentCards")
+            .build();
+        callbackUrl = new URI(BenchmarkData.CALLBACK_URL);
+    }
+
+    /**
+     * Body materialized as a String by the DTO and parsed again by ResponseHandlingUtil.
+     */
+    @Benchmark
+    public RegisterCardResponse mapAndParseContent() {
+        APIResponseDTO responseDTO = APIResponseDTO.fromHttpResponse(buildResponse(), "/paymentCards");
+        return ResponseHandlingUtil.parseResponse(responseDTO, RegisterCardResponse.class);
+    }
+
+    /**
+     * Body deserialized from the entity stream while the response is mapped.
+     */
+    @Benchmark
+    public RegisterCardResponse mapAndParseStreamed() {
+        APIResponseDTO responseDTO = APIResponseDTO.fromHttpResponse(
+            buildResponse(), "/paymentCards", ResponseHandlingUtil.readerFor(RegisterCardResponse.class)
+        );
+        return ResponseHandlingUtil.parseResponse(responseDTO, RegisterCardResponse.class);
+    }
+
+    @Benchmark
+    public RegisterCardResponse parseResponse() {
+        return ResponseHandlingUtil.parseResponse(registerCardResponseDTO, RegisterCardResponse.class);
+    }
+
+    /**
+     * The header lookups made for every response when logging and checking for maintenance mode.
+     */
+    @Benchmark
+    public void headerLookups(Blackhole blackhole) {
+        blackhole.consume(registerCardResponseDTO.findXRequestId());
+        blackhole.consume(registerCardResponseDTO.findCFRay());
+        blackhole.consume(registerCardResponseDTO.isMaintenanceMode());
+    }
+
+    /**
+     * Appends the pushId to the callback URL and the callback URL to the deeplink, as done after every registration.
+     */
+    @Benchmark
+    public String buildDeeplink() throws URISyntaxException {
+        URI newCallbackUrl = new URIBuilder(callbackUrl)
+            .addParameter("pushId", "a4c2f0e8-5b1d-4c8e-9f3a-7d6b2e1c0a9f").build();
+        return new URIBuilder(BenchmarkData.DEEPLINK_URL)
+            .addParameter("callbackURL", newCallbackUrl.toString()).build().toString();
+    }
+
+    private ClassicHttpResponse buildResponse() {
+        return ClassicResponseBuilder.create(HttpStatus.SC_OK)
+            .setEntity(registerCardBody, ContentType.APPLICATION_JSON)
+            .setHeaders(headers)
+            .build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.GarminPayClientConfig;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.HalLink;
+import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.RootResponse;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+
+/**
+ * Local WireMock stand-in of the Garmin Pay API answering the token, root, key exchange and card registration calls.
+ */
+final class StandInServer {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WireMockServer wireMockServer;
+    private final String baseUrl;
+
+    StandInServer(int containerThreads) throws JsonProcessingException {
+        wireMockServer = new WireMockServer(WireMockConfiguration.options()
+            .dynamicPort()
+            .containerThreads(containerThreads)
+            .disableRequestJournal());
+        wireMockServer.start();
+        baseUrl = "http://localhost:" + wireMockServer.port();
+        stubGarminPayApi();
+    }
+
+    /**
+     * Returns a config builder pointing the client at this server.
+     */
+    GarminPayClientConfig.GarminPayClientConfigBuilder clientConfig() {
+        return GarminPayClientConfig.builder()
+            .baseUrl(baseUrl)
+            .authUrl(baseUrl + "/oauth/token");
+    }
+
+    void stop() {
+        wireMockServer.stop();
+    }
+
+    private void stubGarminPayApi() throws JsonProcessingException {
+        Map<String, HalLink> links = new HashMap<>();
+        links.put("self", HalLink.builder().href(baseUrl).build());
+        links.put("health", HalLink.builder().href(baseUrl + "/health").build());
+        links.put("encryptionKeys", HalLink.builder().href(baseUrl + "/config/encryptionKeys").build());
+        links.put("paymentCards", HalLink.builder().href(baseUrl + "/paymentCards").build());
+
+        stubJson(post(urlPathEqualTo("/oauth/token")), HttpStatus.SC_OK, OAuthTokenResponse.builder()
+            .accessToken("benchmarkToken")
+            .expiresIn(3600L)
+            .build());
+
+        stubJson(get(urlPathEqualTo("/")), HttpStatus.SC_OK, RootResponse.builder()
+            .links(links)
+            .build());
+
+        stubJson(post(urlPathEqualTo("/config/encryptionKeys")), HttpStatus.SC_CREATED, ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(BenchmarkData.generateEncodedKeyPair()[0])
+            .createdTs(Instant.now().toString())
+            .build());
+
+        stubJson(post(urlPathEqualTo("/paymentCards")), HttpStatus.SC_OK, RegisterCardResponse.builder()
+            .deepLinkUrl(BenchmarkData.DEEPLINK_URL)
+            .pushId(UUID.randomUUID().toString())
+            .build());
+    }
+
+    private void stubJson(
+        MappingBuilder request, int status, Object body
+    ) throws JsonProcessingException {
+        wireMockServer.stubFor(request.willReturn(aResponse()
+            .withStatus(status)
+            .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+            .withHeader("x-request-id", UUID.randomUUID().toString())
+            .withHeader("CF-RAY", "benchmark-cf-ray")
+            .withBody(objectMapper.writeValueAsString(body))));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.micrometer;
+
+import com.garmin.garminpay.client.CircuitBreakerState;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.metrics.TokenRefreshReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Records Garmin Pay SDK metrics in a Micrometer {@link MeterRegistry}.
+ *
+ * <ul>
+ *     <li>{@code garminpay.http.requests} timer tagged with operation, status, outcome and exception</li>
+ *     <li>{@code garminpay.token.refreshes} timer tagged with reason, outcome and exception</li>
+ *     <li>{@code garminpay.token.rejections} counter of requests retried after their token was rejected, tagged with operation</li>
+ *     <li>{@code garminpay.root.refreshes} timer tagged with outcome and exception</li>
+ *     <li>{@code garminpay.maintenance.responses} counter tagged with operation</li>
+ *     <li>{@code garminpay.circuit.transitions} counter tagged with the state the circuit breaker changed to</li>
+ *     <li>{@code garminpay.circuit.rejections} counter of requests failed fast by an open circuit, tagged with operation</li>
+ *     <li>{@code garminpay.throttled.responses} counter of 429 responses, tagged with operation</li>
+ *     <li>{@code garminpay.ratelimiter.rejections} counter of requests failed by the client rate limiter, tagged with operation</li>
+ *     <li>{@code garminpay.concurrency.rejections} counter of requests shed by the adaptive concurrency limit, tagged with operation</li>
+ *     <li>{@code garminpay.bulkhead.rejections} counter of requests not given a bulkhead permit in time, tagged with operation</li>
+ *     <li>{@code garminpay.key.exchanges} timer tagged with outcome and exception</li>
+ *     <li>{@code garminpay.card.registrations} timer tagged with outcome and exception</li>
+ *     <li>{@code garminpay.connections.leased}, {@code .available}, {@code .pending} and {@code .max} gauges tagged with pool</li>
+ * </ul>
+ */
+public class MicrometerMetricsListener implements GarminPayMetricsListener {
+    private static final String NONE = "none";
+    private final MeterRegistry registry;
+
+    /**
+     * Creates a listener that records into the given registry.
+     *
+     * @param registry the registry meters are registered with
+     */
+    public MicrometerMetricsListener(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry, "registry");
+    }
+
+    @Override
+    public void onHttpResponse(GarminPayOperation operation, int status, long durationNanos) {
+        Timer.builder("garminpay.http.requests")
+            .description("HTTP requests sent to the Garmin Pay platform")
+            .tags(Tags.of("operation", tag(operation), "status", String.valueOf(status), "outcome", outcome(status), "exception", NONE))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onHttpFailure(GarminPayOperation operation, Throwable error, long durationNanos) {
+        Timer.builder("garminpay.http.requests")
+            .description("HTTP requests sent to the Garmin Pay platform")
+            .tags(Tags.of("operation", tag(operation), "status", NONE, "outcome", "ERROR", "exception", exception(error)))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onTokenRefresh(TokenRefreshReason reason, long durationNanos, Throwable error) {
+        Timer.builder("garminpay.token.refreshes")
+            .description("OAuth tokens requested from the Garmin Pay platform")
+            .tags(Tags.of("reason", tag(reason)).and(outcomeTags(error)))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onUnauthorizedRetry(GarminPayOperation operation) {
+        Counter.builder("garminpay.token.rejections")
+            .description("Requests retried with a new OAuth token after their token was rejected")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onRootLinksRefresh(long durationNanos, Throwable error) {
+        Timer.builder("garminpay.root.refreshes")
+            .description("Fetches of the Garmin Pay root links")
+            .tags(outcomeTags(error))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onMaintenanceMode(GarminPayOperation operation) {
+        Counter.builder("garminpay.maintenance.responses")
+            .description("Responses signaling that the Garmin Pay platform is in maintenance mode")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onCircuitBreakerStateChange(CircuitBreakerState state) {
+        Counter.builder("garminpay.circuit.transitions")
+            .description("State changes of the circuit breaker guarding requests to the Garmin Pay platform")
+            .tag("state", tag(state))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onCircuitBreakerRejection(GarminPayOperation operation) {
+        Counter.builder("garminpay.circuit.rejections")
+            .description("Requests failed fast without being sent because the circuit breaker was open")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onThrottledResponse(GarminPayOperation operation) {
+        Counter.builder("garminpay.throttled.responses")
+            .description("Requests the Garmin Pay platform answered with 429 Too Many Requests")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onRateLimiterRejection(GarminPayOperation operation) {
+        Counter.builder("garminpay.ratelimiter.rejections")
+            .description("Requests failed without being sent because the client rate limiter had no permit in time")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onConcurrencyLimitRejection(GarminPayOperation operation) {
+        Counter.builder("garminpay.concurrency.rejections")
+            .description("Requests shed without being sent because the adaptive concurrency limit was reached")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onBulkheadRejection(GarminPayOperation operation) {
+        Counter.builder("garminpay.bulkhead.rejections")
+            .description("Requests failed without being sent because their bulkhead had no permit within the max wait")
+            .tag("operation", tag(operation))
+            .register(registry)
+            .increment();
+    }
+
+    @Override
+    public void onKeyExchange(long durationNanos, Throwable error) {
+        Timer.builder("garminpay.key.exchanges")
+            .description("Key agreements established with the Garmin Pay platform")
+            .tags(outcomeTags(error))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onCardRegistration(long durationNanos, Throwable error) {
+        Timer.builder("garminpay.card.registrations")
+            .description("Cards registered with the Garmin Pay platform")
+            .tags(outcomeTags(error))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onConnectionPoolCreated(String poolName, Supplier<PoolStats> stats) {
+        registerPoolGauge("garminpay.connections.leased", "Connections leased from the pool", poolName, stats, PoolStats::getLeased);
+        registerPoolGauge("garminpay.connections.available", "Idle connections kept in the pool", poolName, stats, PoolStats::getAvailable);
+        registerPoolGauge("garminpay.connections.pending", "Requests waiting for a connection", poolName, stats, PoolStats::getPending);
+        registerPoolGauge("garminpay.connections.max", "Maximum connections of the pool", poolName, stats, PoolStats::getMax);
+    }
+
+    private void registerPoolGauge(String name, String description, String poolName, Supplier<PoolStats> stats,
+                                   ToDoubleFunction<PoolStats> value) {
+        // The SDK holds no other reference to the supplier, a weak reference would let the gauge go stale
+        Gauge.builder(name, stats, supplier -> value.applyAsDouble(supplier.get()))
+            .description(description)
+            .tag("pool", poolName)
+            .strongReference(true)
+            .register(registry);
+    }
+
+    private static Tags outcomeTags(Throwable error) {
+        return Tags.of("outcome", error == null ? "SUCCESS" : "ERROR", "exception", exception(error));
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return "SUCCESS";
+    }
+
+    private static String exception(Throwable error) {
+        return error == null ? NONE : error.getClass().getSimpleName();
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
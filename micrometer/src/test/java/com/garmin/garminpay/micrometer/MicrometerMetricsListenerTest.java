@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.micrometer;
+
+import com.garmin.garminpay.client.CircuitBreakerState;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.metrics.TokenRefreshReason;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MicrometerMetricsListenerTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final MicrometerMetricsListener listener = new MicrometerMetricsListener(registry);
+
+    @Test
+    void recordsHttpRequestsByOperationAndStatus() {
+        listener.onHttpResponse(GarminPayOperation.REGISTER_CARD, 200, TimeUnit.MILLISECONDS.toNanos(40));
+        listener.onHttpResponse(GarminPayOperation.REGISTER_CARD, 200, TimeUnit.MILLISECONDS.toNanos(60));
+        listener.onHttpResponse(GarminPayOperation.HEALTH, 503, TimeUnit.MILLISECONDS.toNanos(5));
+        listener.onHttpFailure(GarminPayOperation.TOKEN, new GarminPayApiException("timeout"), TimeUnit.MILLISECONDS.toNanos(5));
+
+        Timer registrations = registry.get("garminpay.http.requests")
+            .tags("operation", "register_card", "status", "200", "outcome", "SUCCESS")
+            .timer();
+        assertEquals(2, registrations.count());
+        assertEquals(100, registrations.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, registry.get("garminpay.http.requests").tags("operation", "health", "outcome", "SERVER_ERROR").timer().count());
+        assertEquals(1, registry.get("garminpay.http.requests")
+            .tags("operation", "token", "outcome", "ERROR", "exception", "GarminPayApiException")
+            .timer().count());
+    }
+
+    @Test
+    void recordsRefreshesAndRegistrations() {
+        listener.onTokenRefresh(TokenRefreshReason.PROACTIVE, 1, null);
+        listener.onUnauthorizedRetry(GarminPayOperation.EXCHANGE_KEYS);
+        listener.onRootLinksRefresh(1, null);
+        listener.onMaintenanceMode(GarminPayOperation.REGISTER_CARD);
+        listener.onCircuitBreakerStateChange(CircuitBreakerState.OPEN);
+        listener.onCircuitBreakerRejection(GarminPayOperation.HEALTH);
+        listener.onThrottledResponse(GarminPayOperation.REGISTER_CARD);
+        listener.onRateLimiterRejection(GarminPayOperation.TOKEN);
+        listener.onConcurrencyLimitRejection(GarminPayOperation.ROOT);
+        listener.onBulkheadRejection(GarminPayOperation.REGISTER_CARD);
+        listener.onKeyExchange(1, new IllegalStateException());
+        listener.onCardRegistration(1, null);
+
+        assertEquals(1, registry.get("garminpay.token.refreshes").tags("reason", "proactive", "outcome", "SUCCESS").timer().count());
+        assertEquals(1, registry.get("garminpay.token.rejections").tag("operation", "exchange_keys").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.root.refreshes").tag("outcome", "SUCCESS").timer().count());
+        assertEquals(1, registry.get("garminpay.maintenance.responses").tag("operation", "register_card").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.circuit.transitions").tag("state", "open").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.circuit.rejections").tag("operation", "health").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.throttled.responses").tag("operation", "register_card").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.ratelimiter.rejections").tag("operation", "token").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.concurrency.rejections").tag("operation", "root").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.bulkhead.rejections").tag("operation", "register_card").counter().count(), 0);
+        assertEquals(1, registry.get("garminpay.key.exchanges").tags("outcome", "ERROR", "exception", "IllegalStateException")
+            .timer().count());
+        assertEquals(1, registry.get("garminpay.card.registrations").tag("outcome", "SUCCESS").timer().count());
+    }
+
+    @Test
+    void samplesConnectionPoolGauges() {
+        AtomicInteger leased = new AtomicInteger(3);
+        listener.onConnectionPoolCreated("classic", () -> new PoolStats(leased.get(), 1, 2, 50));
+
+        assertEquals(3, registry.get("garminpay.connections.leased").tag("pool", "classic").gauge().value(), 0);
+        assertEquals(2, registry.get("garminpay.connections.available").tag("pool", "classic").gauge().value(), 0);
+        assertEquals(1, registry.get("garminpay.connections.pending").tag("pool", "classic").gauge().value(), 0);
+        assertEquals(50, registry.get("garminpay.connections.max").tag("pool", "classic").gauge().value(), 0);
+
+        leased.set(7);
+        assertEquals(7, registry.get("garminpay.connections.leased").tag("pool", "classic").gauge().value(), 0);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.opentelemetry;
+
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.TracingClient;
+import com.garmin.garminpay.model.SDKVersion;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+import java.net.URISyntaxException;
+import java.util.Objects;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+/**
+ * Traces Garmin Pay SDK operations and HTTP calls with OpenTelemetry.
+ *
+ * <ul>
+ *     <li>{@code garminpay.registerCard}, {@code garminpay.registerCards} and {@code garminpay.checkHealth} internal spans
+ *     around each SDK operation</li>
+ *     <li>a client span named after the method and operation, such as {@code POST paymentCards}, per HTTP call, tagged with
+ *     {@code http.request.method}, {@code url.full}, {@code http.response.status_code}, {@code garminpay.operation},
+ *     {@code garminpay.request_id} and {@code garminpay.cf_ray}</li>
+ * </ul>
+ * The context of every HTTP call is propagated to the Garmin Pay API in the W3C traceparent header, unless another
+ * propagator is given.
+ */
+public class OpenTelemetryTracer implements GarminPayTracer {
+    private static final String INSTRUMENTATION_NAME = "com.garmin.garminpay";
+    private static final TextMapSetter<ClassicHttpRequest> HEADER_SETTER = (request, key, value) -> {
+        if (request != null) {
+            request.setHeader(key, value);
+        }
+    };
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+
+    /**
+     * Creates a tracer that starts spans with the given OpenTelemetry instance and propagates W3C trace context.
+     *
+     * @param openTelemetry the OpenTelemetry instance spans are started with
+     */
+    public OpenTelemetryTracer(OpenTelemetry openTelemetry) {
+        this(openTelemetry, W3CTraceContextPropagator.getInstance());
+    }
+
+    /**
+     * Creates a tracer that starts spans with the given OpenTelemetry instance and propagates context with the given propagator.
+     *
+     * @param openTelemetry the OpenTelemetry instance spans are started with
+     * @param propagator    propagator adding the trace context headers to each request
+     */
+    public OpenTelemetryTracer(OpenTelemetry openTelemetry, TextMapPropagator propagator) {
+        this.tracer = Objects.requireNonNull(openTelemetry, "openTelemetry").getTracer(INSTRUMENTATION_NAME, SDKVersion.VERSION);
+        this.propagator = Objects.requireNonNull(propagator, "propagator");
+    }
+
+    @Override
+    public GarminPaySpan startOperation(String name) {
+        return new OpenTelemetrySpan(tracer.spanBuilder(name).setSpanKind(SpanKind.INTERNAL).startSpan());
+    }
+
+    @Override
+    public GarminPaySpan startHttpCall(GarminPayOperation operation, ClassicHttpRequest request) {
+        SpanBuilder spanBuilder = tracer.spanBuilder(request.getMethod() + " " + operation.getName())
+            .setSpanKind(SpanKind.CLIENT)
+            .setAttribute("http.request.method", request.getMethod());
+        try {
+            spanBuilder.setAttribute("url.full", request.getUri().toString());
+        } catch (URISyntaxException e) {
+            spanBuilder.setAttribute("url.path", request.getPath());
+        }
+        Span span = spanBuilder.startSpan();
+        propagator.inject(Context.current().with(span), request, HEADER_SETTER);
+        return new OpenTelemetrySpan(span);
+    }
+
+    private static final class OpenTelemetrySpan implements GarminPaySpan {
+        private final Span span;
+
+        private OpenTelemetrySpan(Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+            span.setAttribute(key, value);
+        }
+
+        @Override
+        public void setAttribute(String key, long value) {
+            span.setAttribute(key, value);
+            // Client spans of 4xx and 5xx responses are errors under the OpenTelemetry HTTP conventions
+            if (TracingClient.STATUS_CODE_ATTRIBUTE.equals(key) && value >= 400) {
+                span.setStatus(StatusCode.ERROR);
+            }
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, error.getClass().getSimpleName());
+        }
+
+        @Override
+        public Scope makeCurrent() {
+            io.opentelemetry.context.Scope scope = span.makeCurrent();
+            return scope::close;
+        }
+
+        @Override
+        public void end() {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.opentelemetry;
+
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.TracingClient;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+import java.util.List;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OpenTelemetryTracerTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+        .build();
+    private final OpenTelemetryTracer tracer = new OpenTelemetryTracer(
+        OpenTelemetrySdk.builder().setTracerProvider(tracerProvider).build()
+    );
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void httpCallsAreChildrenOfTheCurrentOperationAndPropagateTraceparent() {
+        ClassicHttpRequest request = ClassicRequestBuilder.post("https://api.fit-pay.com/paymentCards").build();
+
+        GarminPaySpan operation = tracer.startOperation("garminpay.registerCard");
+        try (GarminPaySpan.Scope scope = operation.makeCurrent()) {
+            GarminPaySpan httpCall = tracer.startHttpCall(GarminPayOperation.REGISTER_CARD, request);
+            httpCall.setAttribute(TracingClient.STATUS_CODE_ATTRIBUTE, 200);
+            httpCall.setAttribute(TracingClient.REQUEST_ID_ATTRIBUTE, "request-id");
+            httpCall.end();
+        }
+        operation.end();
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        SpanData httpSpan = spans.get(0);
+        SpanData operationSpan = spans.get(1);
+        assertEquals("POST paymentCards", httpSpan.getName());
+        assertEquals(SpanKind.CLIENT, httpSpan.getKind());
+        assertEquals(operationSpan.getSpanId(), httpSpan.getParentSpanId());
+        assertEquals("https://api.fit-pay.com/paymentCards", httpSpan.getAttributes().get(AttributeKey.stringKey("url.full")));
+        assertEquals("request-id", httpSpan.getAttributes().get(AttributeKey.stringKey(TracingClient.REQUEST_ID_ATTRIBUTE)));
+        assertEquals(StatusCode.UNSET, httpSpan.getStatus().getStatusCode());
+        assertEquals(
+            "00-" + httpSpan.getTraceId() + "-" + httpSpan.getSpanId() + "-01",
+            request.getFirstHeader("traceparent").getValue()
+        );
+    }
+
+    @Test
+    void errorResponsesAndFailuresMarkSpansAsErrors() {
+        GarminPaySpan serverError = tracer.startHttpCall(
+            GarminPayOperation.HEALTH, ClassicRequestBuilder.get("https://api.fit-pay.com/health").build()
+        );
+        serverError.setAttribute(TracingClient.STATUS_CODE_ATTRIBUTE, 503);
+        serverError.end();
+        GarminPaySpan failure = tracer.startOperation("garminpay.registerCard");
+        failure.recordException(new GarminPayApiException("timeout"));
+        failure.end();
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(StatusCode.ERROR, spans.get(0).getStatus().getStatusCode());
+        assertEquals(StatusCode.ERROR, spans.get(1).getStatus().getStatusCode());
+        assertEquals(1, spans.get(1).getEvents().size());
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.garmin.garminpay.GarminPayClientConfig;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.encryption.EncryptionService;
+import com.garmin.garminpay.exception.GarminPayEncryptionException;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.HalLink;
+import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.RootResponse;
+import com.garmin.garminpay.utility.DaemonThreadFactory;
+import com.garmin.garminpay.utility.GarminPayCodec;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.crypto.AESDecrypter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.SecretKey;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * In-process simulator of the Garmin Pay API for local and load testing, not for production use.
+ * It serves the root, health, OAuth token, encryption key exchange and payment card endpoints the SDK calls.
+ * Key exchanges perform a real ECDH key agreement and registered cards are decrypted and parsed, so a registration
+ * only succeeds when the client encrypted a valid card with the agreed key.
+ * Response latency, 500 errors, 401 rejections, token expiry and maintenance mode are simulated from the config.
+ */
+@Slf4j
+public final class GarminPaySimulator implements Closeable {
+    private static final String DEEPLINK_URL = "https://connect.garmin.com/payment/push/ios/provision";
+    private static final String JSON = "application/json";
+    private static final byte[] EMPTY = new byte[0];
+    private final GarminPaySimulatorConfig config;
+    private final GarminPayCodec codec = GarminPayCodec.getDefault();
+    private final EncryptionService encryptionService = new EncryptionService(codec);
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService responseScheduler;
+    private final String baseUrl;
+    private final byte[] rootResponse;
+    private final Map<String, Long> tokenExpiries = new ConcurrentHashMap<>();
+    private final Map<String, SecretKey> keyAgreements = new ConcurrentHashMap<>();
+    private final AtomicLong rayCounter = new AtomicLong();
+    private final LongAdder issuedTokens = new LongAdder();
+    private final LongAdder keyExchanges = new LongAdder();
+    private final LongAdder registeredCards = new LongAdder();
+    private final LongAdder rejectedCards = new LongAdder();
+    private volatile boolean maintenanceMode;
+
+    /**
+     * Starts a simulator with the default settings on a free port.
+     *
+     * @throws IOException if the simulator cannot listen on its port
+     */
+    public GarminPaySimulator() throws IOException {
+        this(GarminPaySimulatorConfig.builder().build());
+    }
+
+    /**
+     * Starts a simulator with the given settings.
+     *
+     * @param config settings of the simulator
+     * @throws IOException if the simulator cannot listen on its port
+     * @throws IllegalArgumentException if config is null, threads is less than 1, tokenExpiry is not positive or a rate is
+     *     outside 0 to 1
+     */
+    public GarminPaySimulator(@NonNull GarminPaySimulatorConfig config) throws IOException {
+        validate(config);
+        this.config = config;
+        this.maintenanceMode = config.isMaintenanceMode();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getPort()), 1024);
+        requestExecutor = Executors.newFixedThreadPool(config.getThreads(), new DaemonThreadFactory("garminpay-simulator"));
+        responseScheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("garminpay-simulator-delay"));
+        server.setExecutor(requestExecutor);
+        server.createContext("/", this::handle);
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+        rootResponse = write(RootResponse.builder().links(links()).build());
+        server.start();
+        log.debug("Garmin Pay simulator listening on {}", baseUrl);
+    }
+
+    /**
+     * Runs a simulator with the default settings until the process is stopped.
+     *
+     * @param args optional port to listen on, 8080 when not given
+     * @throws IOException if the simulator cannot listen on its port
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        GarminPaySimulator simulator = new GarminPaySimulator(GarminPaySimulatorConfig.builder().port(port).build());
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        log.info("Garmin Pay simulator listening on {}", simulator.getBaseUrl());
+    }
+
+    /**
+     * Returns the URL the simulator's root is served at.
+     *
+     * @return base URL such as http://localhost:8080
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Returns a client config builder pointing the client at this simulator.
+     *
+     * @return config builder with the base and auth URLs set
+     */
+    public GarminPayClientConfig.GarminPayClientConfigBuilder clientConfig() {
+        return GarminPayClientConfig.builder()
+            .baseUrl(baseUrl)
+            .authUrl(baseUrl + "/oauth/token");
+    }
+
+    /**
+     * Switches maintenance mode, in which every request is answered with 503 and the maintenance-mode header.
+     *
+     * @param maintenanceMode whether the simulator is in maintenance mode
+     */
+    public void setMaintenanceMode(boolean maintenanceMode) {
+        this.maintenanceMode = maintenanceMode;
+    }
+
+    /**
+     * Expires every issued token, the next request with one of them is answered with 401.
+     */
+    public void expireTokens() {
+        tokenExpiries.clear();
+    }
+
+    /**
+     * Returns the number of OAuth tokens issued.
+     *
+     * @return issued token count
+     */
+    public long getIssuedTokenCount() {
+        return issuedTokens.sum();
+    }
+
+    /**
+     * Returns the number of completed key exchanges.
+     *
+     * @return key exchange count
+     */
+    public long getKeyExchangeCount() {
+        return keyExchanges.sum();
+    }
+
+    /**
+     * Returns the number of cards decrypted and registered.
+     *
+     * @return registered card count
+     */
+    public long getRegisteredCardCount() {
+        return registeredCards.sum();
+    }
+
+    /**
+     * Returns the number of registrations rejected because their payload could not be decrypted or parsed.
+     *
+     * @return rejected card count
+     */
+    public long getRejectedCardCount() {
+        return rejectedCards.sum();
+    }
+
+    /**
+     * Stops the simulator, requests in flight are dropped.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requestExecutor.shutdownNow();
+        responseScheduler.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) {
+        GarminPayOperation operation = operation(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        SimulatedResponse response;
+        try {
+            response = respond(exchange, operation);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Simulator failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            response = error(500, "Simulator failure", e.getMessage());
+        }
+
+        LatencyDistribution latency = operation != null
+            ? config.getOperationLatencies().getOrDefault(operation, config.getLatency())
+            : LatencyDistribution.none();
+        long delayNanos = latency.sampleNanos();
+        SimulatedResponse result = response;
+        if (delayNanos > 0) {
+            responseScheduler.schedule(() -> send(exchange, result), delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            send(exchange, result);
+        }
+    }
+
+    private SimulatedResponse respond(HttpExchange exchange, GarminPayOperation operation) throws IOException {
+        if (operation == null) {
+            return error(404, "Not found", "No simulated endpoint at " + exchange.getRequestURI().getPath());
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        if (maintenanceMode) {
+            SimulatedResponse response = error(503, "Maintenance", "The Garmin Pay platform is undergoing maintenance");
+            response.maintenance = true;
+            return response;
+        }
+
+        if (operation == GarminPayOperation.TOKEN) {
+            if (!validCredentials(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                return error(401, "Unauthorized", "Invalid client credentials");
+            }
+        } else if (!validToken(exchange.getRequestHeaders().getFirst("Authorization")) || happens(config.getUnauthorizedRate())) {
+            return error(401, "Unauthorized", "Invalid or expired access token");
+        }
+        if (happens(config.getErrorRate())) {
+            return error(500, "Internal server error", "Simulated server error");
+        }
+
+        switch (operation) {
+            case TOKEN:
+                return issueToken();
+            case ROOT:
+                return new SimulatedResponse(200, rootResponse);
+            case HEALTH:
+                return json(200, HealthResponse.builder().healthStatus("UP").build());
+            case EXCHANGE_KEYS:
+                return exchangeKeys(body);
+            default:
+                return registerCard(body);
+        }
+    }
+
+    private SimulatedResponse issueToken() throws JsonProcessingException {
+        String token = randomId();
+        tokenExpiries.put(token, System.nanoTime() + config.getTokenExpiry().toNanos());
+        issuedTokens.increment();
+        return json(200, OAuthTokenResponse.builder()
+            .accessToken(token)
+            .expiresIn(config.getTokenExpiry().getSeconds())
+            .build());
+    }
+
+    private SimulatedResponse exchangeKeys(byte[] body) throws JsonProcessingException {
+        String clientPublicKey;
+        SecretKey keyAgreement;
+        KeyPair serverKeyPair = encryptionService.generateClientKeyPair();
+        try {
+            clientPublicKey = codec.readerFor(JsonNode.class).<JsonNode>readValue(body).path("clientPublicKey").asText(null);
+            if (clientPublicKey == null) {
+                return error(400, "Bad request", "clientPublicKey is required");
+            }
+            keyAgreement = encryptionService.generateKeyAgreement(clientPublicKey, serverKeyPair.getPrivate());
+        } catch (IOException | GarminPayEncryptionException e) {
+            return error(400, "Bad request", "Invalid clientPublicKey");
+        }
+
+        String keyId = randomId();
+        keyAgreements.put(keyId, keyAgreement);
+        keyExchanges.increment();
+        return json(201, ExchangeKeysResponse.builder()
+            .keyId(keyId)
+            .serverPublicKey(Hex.encodeHexString(serverKeyPair.getPublic().getEncoded()))
+            .active(true)
+            .createdTs(Instant.now().toString())
+            .build());
+    }
+
+    private SimulatedResponse registerCard(byte[] body) throws JsonProcessingException {
+        try {
+            String encryptedData = codec.readerFor(JsonNode.class).<JsonNode>readValue(body).path("encryptedData").asText(null);
+            if (encryptedData == null) {
+                throw new ParseException("encryptedData is required", 0);
+            }
+            JWEObject jwe = JWEObject.parse(encryptedData);
+            SecretKey keyAgreement = jwe.getHeader().getKeyID() != null ? keyAgreements.get(jwe.getHeader().getKeyID()) : null;
+            if (keyAgreement == null) {
+                rejectedCards.increment();
+                return error(400, "Bad request", "Unknown encryption key");
+            }
+            jwe.decrypt(new AESDecrypter(keyAgreement));
+            codec.readValue(jwe.getPayload().toString(), GarminPayCardData.class);
+        } catch (IOException | ParseException | JOSEException e) {
+            rejectedCards.increment();
+            return error(400, "Bad request", "Encrypted data could not be decrypted to card data");
+        }
+
+        registeredCards.increment();
+        return json(200, RegisterCardResponse.builder()
+            .deepLinkUrl(DEEPLINK_URL)
+            .pushId(randomId())
+            .build());
+    }
+
+    private boolean validCredentials(String authorization) {
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            return false;
+        }
+        if (config.getClientId() == null) {
+            return true;
+        }
+        String expected = config.getClientId() + ":" + config.getClientSecret();
+        try {
+            return expected.equals(new String(Base64.getDecoder().decode(authorization.substring(6)), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean validToken(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        String token = authorization.substring(7);
+        Long expiry = tokenExpiries.get(token);
+        if (expiry == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiry >= 0) {
+            tokenExpiries.remove(token);
+            return false;
+        }
+        return true;
+    }
+
+    private void send(HttpExchange exchange, SimulatedResponse response) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.getResponseHeaders().set("x-request-id", randomId());
+            exchange.getResponseHeaders().set("CF-RAY", Long.toHexString(rayCounter.incrementAndGet()) + "-SIM");
+            if (response.maintenance) {
+                exchange.getResponseHeaders().set("maintenance-mode", "true");
+            }
+            exchange.sendResponseHeaders(response.status, response.body.length == 0 ? -1 : response.body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response.body);
+            }
+        } catch (IOException e) {
+            log.debug("Simulator failed to send response", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private SimulatedResponse json(int status, Object body) throws JsonProcessingException {
+        return new SimulatedResponse(status, write(body));
+    }
+
+    private SimulatedResponse error(int status, String summary, String message) {
+        try {
+            return json(status, ErrorResponse.builder()
+                .status(status)
+                .summary(summary)
+                .message(message)
+                .createdTs(Instant.now().toString())
+                .build());
+        } catch (JsonProcessingException e) {
+            return new SimulatedResponse(status, EMPTY);
+        }
+    }
+
+    private byte[] write(Object body) throws JsonProcessingException {
+        return codec.writerFor(body.getClass()).writeValueAsBytes(body);
+    }
+
+    private Map<String, HalLink> links() {
+        Map<String, HalLink> links = new HashMap<>();
+        links.put("self", HalLink.builder().href(baseUrl).build());
+        links.put("health", HalLink.builder().href(baseUrl + "/health").build());
+        links.put("encryptionKeys", HalLink.builder().href(baseUrl + "/config/encryptionKeys").build());
+        links.put("paymentCards", HalLink.builder().href(baseUrl + "/paymentCards").build());
+        return links;
+    }
+
+    private static GarminPayOperation operation(String method, String path) {
+        boolean post = "POST".equals(method);
+        switch (path) {
+            case "/oauth/token":
+                return post ? GarminPayOperation.TOKEN : null;
+            case "/":
+                return post ? null : GarminPayOperation.ROOT;
+            case "/health":
+                return post ? null : GarminPayOperation.HEALTH;
+            case "/config/encryptionKeys":
+                return post ? GarminPayOperation.EXCHANGE_KEYS : null;
+            case "/paymentCards":
+                return post ? GarminPayOperation.REGISTER_CARD : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Random identifier for tokens, keys and responses, drawn without the lock of the SecureRandom behind UUID.randomUUID.
+     */
+    private static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static boolean happens(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        try (InputStream body = input) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = body.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    private static void validate(GarminPaySimulatorConfig config) {
+        if (config.getThreads() < 1) {
+            throw new IllegalArgumentException("Simulator threads must be at least 1");
+        }
+        if (config.getTokenExpiry() == null || config.getTokenExpiry().isNegative() || config.getTokenExpiry().isZero()) {
+            throw new IllegalArgumentException("Token expiry must be positive");
+        }
+        if (config.getLatency() == null) {
+            throw new IllegalArgumentException("Latency cannot be null");
+        }
+        if (config.getErrorRate() < 0 || config.getErrorRate() > 1
+            || config.getUnauthorizedRate() < 0 || config.getUnauthorizedRate() > 1) {
+            throw new IllegalArgumentException("Error and unauthorized rates must be between 0 and 1");
+        }
+    }
+
+    private static final class SimulatedResponse {
+        private final int status;
+        private final byte[] body;
+        private boolean maintenance;
+
+        private SimulatedResponse(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
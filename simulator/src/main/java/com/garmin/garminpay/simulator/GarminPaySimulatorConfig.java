@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.simulator;
+
+import com.garmin.garminpay.client.GarminPayOperation;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Settings of a {@link GarminPaySimulator}.
+ */
+@Value
+@Builder
+public class GarminPaySimulatorConfig {
+    /**
+     * Port the simulator listens on, 0 picks a free port.
+     */
+    @Builder.Default
+    int port = 0;
+
+    /**
+     * Number of threads handling requests. Delayed responses are sent from a scheduler and hold no request thread while waiting.
+     */
+    @Builder.Default
+    int threads = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Client ID accepted by the token endpoint, any client ID and secret are accepted when null.
+     */
+    String clientId;
+
+    /**
+     * Client secret accepted by the token endpoint together with clientId.
+     */
+    String clientSecret;
+
+    /**
+     * Lifetime of issued OAuth tokens, requests with an expired token are answered with 401.
+     */
+    @Builder.Default
+    Duration tokenExpiry = Duration.ofHours(1);
+
+    /**
+     * Delay of every response without an operation specific latency, responses are sent immediately by default.
+     */
+    @Builder.Default
+    LatencyDistribution latency = LatencyDistribution.none();
+
+    /**
+     * Delays of the responses of single operations, replacing the default latency.
+     */
+    @Singular("operationLatency")
+    Map<GarminPayOperation, LatencyDistribution> operationLatencies;
+
+    /**
+     * Fraction of requests, between 0 and 1, answered with a 500 error.
+     */
+    @Builder.Default
+    double errorRate = 0;
+
+    /**
+     * Fraction of requests with a valid token, between 0 and 1, answered with 401 as if the token had been revoked.
+     */
+    @Builder.Default
+    double unauthorizedRate = 0;
+
+    /**
+     * Whether the simulator starts in maintenance mode, it can be switched with {@link GarminPaySimulator#setMaintenanceMode}.
+     */
+    @Builder.Default
+    boolean maintenanceMode = false;
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.simulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution the simulated response delays are drawn from.
+ * Samples are taken on the simulator's request threads and must be thread safe.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+    /**
+     * Draws the delay of one response.
+     *
+     * @return delay in nanoseconds, 0 or less to respond immediately
+     */
+    long sampleNanos();
+
+    /**
+     * Responds without delay.
+     *
+     * @return distribution that always samples 0
+     */
+    static LatencyDistribution none() {
+        return () -> 0;
+    }
+
+    /**
+     * Delays every response by the same duration.
+     *
+     * @param delay the delay of every response
+     * @return fixed distribution
+     * @throws IllegalArgumentException if delay is null or negative
+     */
+    static LatencyDistribution fixed(Duration delay) {
+        long delayNanos = nonNegativeNanos(delay);
+        return () -> delayNanos;
+    }
+
+    /**
+     * Delays responses uniformly between min and max.
+     *
+     * @param min the shortest delay
+     * @param max the longest delay
+     * @return uniform distribution
+     * @throws IllegalArgumentException if min or max is null or negative, or max is less than min
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = nonNegativeNanos(min);
+        long maxNanos = nonNegativeNanos(max);
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("Max latency cannot be less than min latency");
+        }
+        return () -> minNanos == maxNanos ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+    }
+
+    /**
+     * Delays responses with a log-normal distribution, the usual shape of network latency with a long tail.
+     * A sigma of 0.5 puts the 99th percentile at about 3.2 times the median.
+     *
+     * @param median the median delay
+     * @param sigma  standard deviation of the delay's natural logarithm, larger values give a longer tail
+     * @return log-normal distribution
+     * @throws IllegalArgumentException if median is null or negative or sigma is negative
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        long medianNanos = nonNegativeNanos(median);
+        if (sigma < 0) {
+            throw new IllegalArgumentException("Latency sigma cannot be negative");
+        }
+        return () -> (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    static long nonNegativeNanos(Duration duration) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Latency cannot be null or negative");
+        }
+        return duration.toNanos();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.GarminPayClient;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayCredentialsException;
+import com.garmin.garminpay.exception.GarminPayMaintenanceException;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GarminPaySimulatorTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final URI CALLBACK_URL = URI.create("https://issuer.example.com/callback");
+    private static final GarminPayCardData CARD = GarminPayCardData.builder()
+        .pan("4111111111111111")
+        .cvv("123")
+        .expMonth(12)
+        .expYear(2099)
+        .build();
+    private GarminPaySimulator simulator;
+    private GarminPayClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void registersCardsEncryptedWithTheAgreedKey() throws IOException {
+        start(GarminPaySimulatorConfig.builder().clientId("clientId").clientSecret("clientSecret"));
+
+        RegisterCardResponse response = client.registerCard(CARD, CALLBACK_URL);
+        List<CompletableFuture<RegisterCardResponse>> registrations = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            registrations.add(client.registerCardAsync(CARD, CALLBACK_URL));
+        }
+        registrations.forEach(CompletableFuture::join);
+
+        assertTrue(response.getDeepLinkUrl().contains("callbackURL"));
+        assertTrue(client.checkHealthStatus());
+        assertEquals(51, simulator.getRegisteredCardCount());
+        assertEquals(1, simulator.getKeyExchangeCount());
+        assertEquals(1, simulator.getIssuedTokenCount());
+    }
+
+    @Test
+    void rejectsPayloadsItCannotDecrypt() throws IOException {
+        start(GarminPaySimulatorConfig.builder());
+
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            HttpPost tokenRequest = new HttpPost(simulator.getBaseUrl() + "/oauth/token");
+            tokenRequest.setHeader("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                "clientId:clientSecret".getBytes(StandardCharsets.UTF_8)));
+            String token = httpClient.execute(tokenRequest, response -> OBJECT_MAPPER.readTree(response.getEntity().getContent())
+                .get("access_token").asText());
+
+            assertEquals(400, postCard(httpClient, "Bearer " + token, "not-a-jwe"));
+            assertEquals(401, postCard(httpClient, "Bearer unknown", "not-a-jwe"));
+        }
+        assertEquals(1, simulator.getRejectedCardCount());
+        assertEquals(0, simulator.getRegisteredCardCount());
+    }
+
+    @Test
+    void rejectsWrongCredentials() throws IOException {
+        start(GarminPaySimulatorConfig.builder().clientId("otherClientId").clientSecret("clientSecret"));
+
+        assertThrows(GarminPayCredentialsException.class, () -> client.registerCard(CARD, CALLBACK_URL));
+    }
+
+    @Test
+    void expiredTokensAreRejectedAndRefreshed() throws IOException {
+        start(GarminPaySimulatorConfig.builder());
+        client.registerCard(CARD, CALLBACK_URL);
+
+        simulator.expireTokens();
+        client.registerCard(CARD, CALLBACK_URL);
+
+        assertEquals(2, simulator.getIssuedTokenCount());
+        assertEquals(2, simulator.getRegisteredCardCount());
+    }
+
+    @Test
+    void simulatesMaintenanceAndErrors() throws IOException {
+        start(GarminPaySimulatorConfig.builder().maintenanceMode(true));
+        assertThrows(GarminPayMaintenanceException.class, () -> client.registerCard(CARD, CALLBACK_URL));
+
+        // The client holds back requests for a while after a maintenance response, a new client sees the simulator recover
+        simulator.setMaintenanceMode(false);
+        client.close();
+        client = new GarminPayClient("clientId", "clientSecret", simulator.clientConfig().build());
+        client.registerCard(CARD, CALLBACK_URL);
+        simulator.close();
+        client.close();
+
+        start(GarminPaySimulatorConfig.builder().errorRate(1));
+        assertThrows(GarminPayApiException.class, () -> client.registerCard(CARD, CALLBACK_URL));
+    }
+
+    @Test
+    void delaysResponsesByOperation() throws IOException {
+        start(GarminPaySimulatorConfig.builder()
+            .operationLatency(GarminPayOperation.REGISTER_CARD, LatencyDistribution.fixed(Duration.ofMillis(200))));
+        client.registerCard(CARD, CALLBACK_URL);
+
+        long start = System.nanoTime();
+        client.registerCard(CARD, CALLBACK_URL);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void latencyDistributionsStayInRange() {
+        LatencyDistribution uniform = LatencyDistribution.uniform(Duration.ofMillis(5), Duration.ofMillis(10));
+        LatencyDistribution logNormal = LatencyDistribution.logNormal(Duration.ofMillis(20), 0.5);
+        for (int i = 0; i < 1_000; i++) {
+            long sample = uniform.sampleNanos();
+            assertTrue(sample >= TimeUnit.MILLISECONDS.toNanos(5) && sample <= TimeUnit.MILLISECONDS.toNanos(10));
+            assertTrue(logNormal.sampleNanos() > 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.uniform(Duration.ofMillis(10), Duration.ofMillis(5)));
+        assertEquals(0, LatencyDistribution.none().sampleNanos());
+    }
+
+    private int postCard(CloseableHttpClient httpClient, String authorization, String encryptedData) throws IOException {
+        HttpPost post = new HttpPost(simulator.getBaseUrl() + "/paymentCards");
+        post.setHeader("Authorization", authorization);
+        post.setEntity(new StringEntity("{\"encryptedData\":\"" + encryptedData + "\"}", ContentType.APPLICATION_JSON));
+        return httpClient.execute(post, HttpResponse::getCode);
+    }
+
+    private void start(GarminPaySimulatorConfig.GarminPaySimulatorConfigBuilder config) throws IOException {
+        simulator = new GarminPaySimulator(config.build());
+        client = new GarminPayClient("clientId", "clientSecret", simulator.clientConfig().build());
+    }
+}
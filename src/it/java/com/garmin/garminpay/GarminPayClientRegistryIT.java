@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.client.HttpClientSettings;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GarminPayClientRegistryIT extends BaseIT {
+    private static final int SLOW_REGISTRATION_MILLIS = 1500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @SneakyThrows
+    @Test
+    void tenantKeepsItsLimitAcrossEvictionSoOtherTenantsStillGetConnections() {
+        stubToken("clientIdA:clientSecretA", "token-a");
+        stubToken("clientIdB:clientSecretB", "token-b");
+        stubFor(post(urlPathEqualTo("/config/encryptionKeys"))
+            .willReturn(json(HttpStatus.SC_CREATED, ExchangeKeysResponse.builder()
+                .keyId(UUID.randomUUID().toString())
+                .active(true)
+                .serverPublicKey(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY)
+                .createdTs(Instant.now().toString())
+                .build())));
+        RegisterCardResponse registerCardResponse = RegisterCardResponse.builder().deepLinkUrl(DEEPLINK_URL).pushId("test").build();
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .willReturn(json(HttpStatus.SC_OK, registerCardResponse)));
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .withHeader(HttpHeaders.AUTHORIZATION, equalTo("Bearer token-a"))
+            .willReturn(json(HttpStatus.SC_OK, registerCardResponse).withFixedDelay(SLOW_REGISTRATION_MILLIS)));
+
+        // The pool could hold every request of tenant A if each of its clients had a limit of its own
+        GarminPayClientRegistry registry = new GarminPayClientRegistry(GarminPayClientRegistryConfig.builder()
+            .maxActiveTenants(2)
+            .maxConcurrentRequestsPerTenant(2)
+            .clientConfig(GarminPayClientConfig.builder()
+                .baseUrl(TESTING_URL)
+                .authUrl(TESTING_URL + "/oauth/token")
+                .httpClientSettings(HttpClientSettings.builder()
+                    .maxConnectionsPerRoute(4)
+                    .maxConnectionsTotal(4)
+                    .build())
+                .build())
+            .build());
+        try {
+            registry.register("issuer-a", "clientIdA", "clientSecretA");
+            registry.register("issuer-b", "clientIdB", "clientSecretB");
+            registry.register("issuer-c", "clientIdC", "clientSecretC");
+            GarminPayClient tenantB = registry.getClient("issuer-b");
+            tenantB.registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL).get(10, TimeUnit.SECONDS);
+
+            List<CompletableFuture<RegisterCardResponse>> slow = new ArrayList<>();
+            GarminPayClient evicted = registry.getClient("issuer-a");
+            for (int i = 0; i < 2; i++) {
+                slow.add(evicted.registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL));
+            }
+            registry.getClient("issuer-b");
+            registry.getClient("issuer-c");
+            registry.getClient("issuer-b");
+            GarminPayClient recreated = registry.getClient("issuer-a");
+            assertNotSame(evicted, recreated);
+            for (int i = 0; i < 2; i++) {
+                slow.add(recreated.registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL));
+            }
+
+            // Gives the re-created client time to fetch its token, root links and keys and queue its registrations
+            Thread.sleep(SLOW_REGISTRATION_MILLIS / 3);
+            long start = System.nanoTime();
+            assertSame(tenantB, registry.getClient("issuer-b"));
+            RegisterCardResponse response = tenantB
+                .registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL)
+                .get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals("test", response.getPushId());
+            assertTrue(elapsedMillis < SLOW_REGISTRATION_MILLIS / 2, "Tenant B waited " + elapsedMillis + " ms for a connection");
+            for (CompletableFuture<RegisterCardResponse> registration : slow) {
+                assertEquals("test", registration.get(10, TimeUnit.SECONDS).getPushId());
+            }
+        } finally {
+            registry.close();
+        }
+    }
+
+    @SneakyThrows
+    private void stubToken(String credentials, String accessToken) {
+        String basic = Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        stubFor(post(urlPathEqualTo("/oauth/token"))
+            .withHeader(HttpHeaders.AUTHORIZATION, equalTo("Basic " + basic))
+            .willReturn(json(HttpStatus.SC_OK, OAuthTokenResponse.builder().accessToken(accessToken).build())));
+    }
+
+    @SneakyThrows
+    private ResponseDefinitionBuilder json(int status, Object body) {
+        return aResponse()
+            .withStatus(status)
+            .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+            .withBody(objectMapper.writeValueAsString(body));
+    }
+}
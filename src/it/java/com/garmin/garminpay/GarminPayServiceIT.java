@@ -8,7 +8,16 @@ package com.garmin.garminpay;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.garmin.garminpay.GarminPayService;
+import com.garmin.garminpay.client.APIClient;
+import com.garmin.garminpay.client.AsyncAPIClient;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.RefreshableOauthClient;
 import com.garmin.garminpay.TestUtils;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.metrics.TokenRefreshReason;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.response.CardRegistrationResult;
 import com.garmin.garminpay.model.response.ExchangeKeysResponse;
 import com.garmin.garminpay.model.response.HealthResponse;
 import com.garmin.garminpay.model.response.OAuthTokenResponse;
@@ -16,16 +25,22 @@ import com.garmin.garminpay.model.response.RegisterCardResponse;
 import com.garmin.garminpay.proxy.GarminPayProxy;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 import lombok.SneakyThrows;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.pool.PoolStats;
 import org.junit.jupiter.api.Test;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
@@ -39,12 +54,28 @@ import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 final class GarminPayServiceIT extends BaseIT {
     private final GarminPayProxy garminPayProxy = new GarminPayProxy(BaseIT.client, TESTING_URL);
     private final GarminPayService garminPayService = new GarminPayService(garminPayProxy);
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RefreshableOauthClient asyncOauthClient = RefreshableOauthClient.builder()
+        .client(new APIClient())
+        .asyncClient(AsyncAPIClient.builder().build())
+        .credentials(("client_id:client_secret").getBytes(StandardCharsets.UTF_8))
+        .authUrl(TESTING_URL + "/oauth/token")
+        .build();
+    private final GarminPayProxy asyncGarminPayProxy = GarminPayProxy.builder()
+        .client(asyncOauthClient)
+        .asyncClient(asyncOauthClient)
+        .baseUrl(TESTING_URL)
+        .refreshExecutor(Runnable::run)
+        .build();
+    private final GarminPayService asyncGarminPayService = new GarminPayService(asyncGarminPayProxy);
 
     @SneakyThrows
     @Test
@@ -145,6 +176,9 @@ final class GarminPayServiceIT extends BaseIT {
                 .withHeader("CF-RAY", "testing-cf-ray")
                 .withBody(objectMapper.writeValueAsString(registerCardResponse))));
 
+        // Only count key exchanges made by this test
+        wireMockServer.resetRequests();
+
         RegisterCardResponse response = garminPayService.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
         garminPayService.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
 
@@ -169,7 +203,7 @@ final class GarminPayServiceIT extends BaseIT {
                 .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
                 .withBody(objectMapper.writeValueAsString(healthResponseUp))));
 
-        boolean healthStatus = garminPayService.checkHealthStatus();
+        boolean healthStatus = new HealthMonitor(garminPayProxy, Duration.ZERO).checkHealthStatus();
         assertTrue(healthStatus);
     }
 
@@ -185,7 +219,210 @@ final class GarminPayServiceIT extends BaseIT {
                 .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
                 .withBody(objectMapper.writeValueAsString(healthResponseDown))));
 
-        boolean healthStatus = garminPayService.checkHealthStatus();
+        boolean healthStatus = new HealthMonitor(garminPayProxy, Duration.ZERO).checkHealthStatus();
         assertFalse(healthStatus);
     }
+
+    @SneakyThrows
+    @Test
+    void canRegisterCardAsync() {
+        ExchangeKeysResponse eccEncryptionKey = ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY)
+            .createdTs(Instant.now().toString())
+            .build();
+
+        RegisterCardResponse registerCardResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(DEEPLINK_URL)
+            .pushId("test")
+            .build();
+
+        stubFor(post(urlPathEqualTo("/config/encryptionKeys"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_CREATED)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(eccEncryptionKey))));
+
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(registerCardResponse))));
+
+        RegisterCardResponse response = asyncGarminPayService
+            .registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL)
+            .get();
+
+        URI callbackUrl = new URIBuilder(TestUtils.TESTING_CALLBACK_URL).addParameter("pushId", registerCardResponse.getPushId()).build();
+        URI testAgainstUrl = new URIBuilder(registerCardResponse.getDeepLinkUrl())
+            .addParameter("callbackURL", callbackUrl.toString()).build();
+        assertEquals(testAgainstUrl.toString(), response.getDeepLinkUrl());
+        assertEquals(registerCardResponse.getPushId(), response.getPushId());
+    }
+
+    @SneakyThrows
+    @Test
+    void canRegisterCardBatch() {
+        ExchangeKeysResponse eccEncryptionKey = ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY)
+            .createdTs(Instant.now().toString())
+            .build();
+
+        RegisterCardResponse registerCardResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(DEEPLINK_URL)
+            .pushId("test")
+            .build();
+
+        stubFor(post(urlPathEqualTo("/config/encryptionKeys"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_CREATED)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(eccEncryptionKey))));
+
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(registerCardResponse))));
+
+        wireMockServer.resetRequests();
+
+        // The null card fails to encrypt and must not stop the rest of the batch
+        List<GarminPayCardData> cards = Arrays.asList(
+            TestUtils.TESTING_CARD_DATA, null, TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CARD_DATA
+        );
+        List<CardRegistrationResult> results = garminPayService.registerCards(cards, TestUtils.TESTING_CALLBACK_URL, 2);
+
+        assertEquals(cards.size(), results.size());
+        for (int index = 0; index < results.size(); index++) {
+            assertEquals(index, results.get(index).getIndex());
+        }
+        assertFalse(results.get(1).isSuccessful());
+        assertNull(results.get(1).getRegisterCardResponse());
+        assertInstanceOf(GarminPaySDKException.class, results.get(1).getException());
+
+        URI callbackUrl = new URIBuilder(TestUtils.TESTING_CALLBACK_URL).addParameter("pushId", registerCardResponse.getPushId()).build();
+        URI testAgainstUrl = new URIBuilder(registerCardResponse.getDeepLinkUrl())
+            .addParameter("callbackURL", callbackUrl.toString()).build();
+        for (int index : new int[] {0, 2, 3}) {
+            assertTrue(results.get(index).isSuccessful());
+            assertEquals(testAgainstUrl.toString(), results.get(index).getRegisterCardResponse().getDeepLinkUrl());
+        }
+
+        verify(exactly(1), postRequestedFor(urlPathEqualTo("/config/encryptionKeys")));
+        verify(exactly(3), postRequestedFor(urlPathEqualTo("/paymentCards")));
+    }
+
+    @SneakyThrows
+    @Test
+    void canHandleHealthStatusAsync() {
+        HealthResponse healthResponseUp = HealthResponse.builder()
+            .healthStatus("UP")
+            .build();
+
+        stubFor(get(urlPathEqualTo("/health"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(healthResponseUp))));
+
+        assertTrue(new HealthMonitor(asyncGarminPayProxy, Duration.ZERO).checkHealthStatusAsync().get());
+
+        stubFor(get(urlPathEqualTo("/health"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody("{}")));
+
+        assertFalse(new HealthMonitor(asyncGarminPayProxy, Duration.ZERO).checkHealthStatusAsync().get());
+    }
+
+    @SneakyThrows
+    @Test
+    void canReportMetrics() {
+        ExchangeKeysResponse eccEncryptionKey = ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY)
+            .createdTs(Instant.now().toString())
+            .build();
+
+        RegisterCardResponse registerCardResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(DEEPLINK_URL)
+            .pushId("test")
+            .build();
+
+        stubFor(post(urlPathEqualTo("/config/encryptionKeys"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_CREATED)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(eccEncryptionKey))));
+
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(registerCardResponse))));
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        List<Supplier<PoolStats>> pools = new CopyOnWriteArrayList<>();
+        GarminPayMetricsListener metricsListener = new GarminPayMetricsListener() {
+            @Override
+            public void onHttpResponse(GarminPayOperation operation, int status, long durationNanos) {
+                events.add(operation + ":" + status);
+            }
+
+            @Override
+            public void onTokenRefresh(TokenRefreshReason reason, long durationNanos, Throwable error) {
+                events.add("token:" + reason + ":" + (error == null));
+            }
+
+            @Override
+            public void onKeyExchange(long durationNanos, Throwable error) {
+                events.add("keys:" + (error == null));
+            }
+
+            @Override
+            public void onCardRegistration(long durationNanos, Throwable error) {
+                events.add("card:" + (error == null));
+            }
+
+            @Override
+            public void onConnectionPoolCreated(String poolName, Supplier<PoolStats> poolStats) {
+                pools.add(poolStats);
+            }
+        };
+
+        APIClient apiClient = APIClient.builder().metricsListener(metricsListener).build();
+        RefreshableOauthClient oauthClient = RefreshableOauthClient.builder()
+            .client(apiClient)
+            .asyncClient(AsyncAPIClient.builder().build())
+            .credentials(("client_id:client_secret").getBytes(StandardCharsets.UTF_8))
+            .authUrl(TESTING_URL + "/oauth/token")
+            .metricsListener(metricsListener)
+            .build();
+        GarminPayService service = GarminPayService.builder()
+            .garminPayProxy(GarminPayProxy.builder()
+                .client(oauthClient)
+                .asyncClient(oauthClient)
+                .baseUrl(TESTING_URL)
+                .refreshExecutor(Runnable::run)
+                .metricsListener(metricsListener)
+                .build())
+            .refreshExecutor(Runnable::run)
+            .metricsListener(metricsListener)
+            .build();
+
+        service.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        apiClient.close();
+
+        assertEquals(Arrays.asList(
+            "TOKEN:200", "token:EXPIRED:true", "ROOT:200", "EXCHANGE_KEYS:201", "keys:true", "REGISTER_CARD:200", "card:true"
+        ), events);
+        assertEquals(1, pools.size());
+        assertNotNull(pools.get(0).get());
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.client.HttpClientSettings;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.utility.VirtualThreads;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the packaged multi-release JAR in the java21 profile, so it sees the Java 21 layer that the classes directory
+ * used by the regular test run does not contain.
+ */
+final class MultiReleaseJarIT extends BaseIT {
+    private static final int REGISTRATIONS = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void loadsTheJava21Layer() {
+        assertTrue(VirtualThreads.isAvailable());
+    }
+
+    @SneakyThrows
+    @Test
+    void canRegisterCardsConcurrentlyFromVirtualThreads() {
+        ExchangeKeysResponse eccEncryptionKey = ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY)
+            .createdTs(Instant.now().toString())
+            .build();
+
+        RegisterCardResponse registerCardResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(DEEPLINK_URL)
+            .pushId("test")
+            .build();
+
+        stubFor(post(urlPathEqualTo("/config/encryptionKeys"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_CREATED)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(eccEncryptionKey))));
+
+        stubFor(post(urlPathEqualTo("/paymentCards"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .withBody(objectMapper.writeValueAsString(registerCardResponse))));
+
+        GarminPayClientConfig config = GarminPayClientConfig.builder()
+            .baseUrl(TESTING_URL)
+            .authUrl(TESTING_URL + "/oauth/token")
+            .httpClientSettings(HttpClientSettings.builder()
+                .connectionRequestTimeout(Duration.ofMinutes(1))
+                .build())
+            .virtualThreads(true)
+            .build();
+
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(REGISTRATIONS);
+        try (GarminPayClient garminPayClient = new GarminPayClient("testClientId", "testClientSecret", config)) {
+            ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("registration-it");
+            try {
+                for (int i = 0; i < REGISTRATIONS; i++) {
+                    executor.execute(() -> {
+                        try {
+                            garminPayClient.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                assertTrue(done.await(5, TimeUnit.MINUTES));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        assertEquals(0, failures.get());
+    }
+}
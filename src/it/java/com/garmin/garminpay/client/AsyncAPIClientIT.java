@@ -0,0 +1,304 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.BaseIT;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import lombok.SneakyThrows;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getAllServeEvents;
+import static com.github.tomakehurst.wiremock.client.WireMock.resetAllRequests;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class AsyncAPIClientIT extends BaseIT {
+    private static final String KEY_STORE = "localhost.p12";
+    private static final String KEY_STORE_PASSWORD = "changeit";
+
+    private final SSLContext trustingSslContext = createTrustingSslContext();
+    private final AsyncAPIClient http2Client = AsyncAPIClient.builder()
+        .settings(HttpClientSettings.builder().http2(true).build())
+        .sslContext(trustingSslContext)
+        .build();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        http2Client.close();
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void canMultiplexRequestsOverHttp2() {
+        stubFor(get(urlPathEqualTo("/multiplexed")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)));
+        resetAllRequests();
+
+        List<CompletableFuture<APIResponseDTO>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(http2Client.executeRequestAsync(ClassicRequestBuilder.get(TESTING_URL + "/multiplexed").build()));
+        }
+        responses.forEach(response -> assertEquals(HttpStatus.SC_OK, response.join().getStatus()));
+        assertEquals(HttpStatus.SC_OK, http2Client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/multiplexed").build()).getStatus());
+
+        List<ServeEvent> served = getAllServeEvents();
+        assertEquals(21, served.size());
+        served.forEach(event -> assertEquals("HTTP/2.0", event.getRequest().getProtocol()));
+    }
+
+    @Test
+    void canFallBackToHttp1WhenHostDoesNotNegotiateHttp2() throws Exception {
+        List<String> protocols = new CopyOnWriteArrayList<>();
+        HttpsServer http1Server = startHttpsServer(exchange -> {
+            protocols.add(exchange.getProtocol());
+            // The JDK server may drop idle keep-alive connections, which would fail the pooled request
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(HttpStatus.SC_OK, -1);
+            exchange.close();
+        });
+        try {
+            String url = "https://localhost:" + http1Server.getAddress().getPort() + "/health";
+            for (int i = 0; i < 2; i++) {
+                assertEquals(HttpStatus.SC_OK, http2Client.executeRequest(ClassicRequestBuilder.get(url).build()).getStatus());
+            }
+            assertEquals(2, protocols.size());
+            protocols.forEach(protocol -> assertEquals("HTTP/1.1", protocol));
+        } finally {
+            http1Server.stop(0);
+        }
+    }
+
+    @Test
+    void resendsPostRefusedOverHttp2AndProbesHostAgainLater() throws Exception {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        AtomicInteger handshakes = new AtomicInteger();
+        Set<InetSocketAddress> requestConnections = ConcurrentHashMap.newKeySet();
+        HttpsServer http1Server = startHttpsServer(handshakes, exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream response = exchange.getResponseBody()) {
+                requestConnections.add(exchange.getRemoteAddress());
+                bodies.add(new String(readAll(body), StandardCharsets.UTF_8));
+                exchange.sendResponseHeaders(HttpStatus.SC_CREATED, -1);
+            }
+        });
+        AsyncAPIClient reprobingClient = AsyncAPIClient.builder()
+            .settings(HttpClientSettings.builder()
+                .http2(true)
+                .http2ReprobeInterval(Duration.ofMillis(500))
+                .build())
+            .sslContext(trustingSslContext)
+            .build();
+        try {
+            String url = "https://localhost:" + http1Server.getAddress().getPort() + "/paymentCards";
+            // Connections that never sent a request are the refused HTTP/2 probes
+            assertEquals(HttpStatus.SC_CREATED, reprobingClient.executeRequest(postCard(url, 0)).getStatus());
+            assertEquals(1, handshakes.get() - requestConnections.size());
+
+            assertEquals(HttpStatus.SC_CREATED, reprobingClient.executeRequest(postCard(url, 1)).getStatus());
+            assertEquals(1, handshakes.get() - requestConnections.size());
+
+            Thread.sleep(600);
+            assertEquals(HttpStatus.SC_CREATED, reprobingClient.executeRequest(postCard(url, 2)).getStatus());
+            assertEquals(2, handshakes.get() - requestConnections.size());
+            assertEquals(Arrays.asList("{\"card\":0}", "{\"card\":1}", "{\"card\":2}"), bodies);
+        } finally {
+            reprobingClient.close();
+            http1Server.stop(0);
+        }
+    }
+
+    @Test
+    void blockingAndAsyncPoolsOpenTheirConnectionsWithTheGivenTlsContext() throws Exception {
+        HttpsServer server = startHttpsServer(exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream response = exchange.getResponseBody()) {
+                exchange.sendResponseHeaders(HttpStatus.SC_CREATED, -1);
+            }
+        });
+        // Only the given context trusts the certificate of the server
+        APIClient blockingClient = APIClient.builder().sslContext(trustingSslContext).build();
+        AsyncAPIClient asyncClient = AsyncAPIClient.builder().sslContext(trustingSslContext).build();
+        AsyncAPIClient defaultClient = AsyncAPIClient.builder().build();
+        try {
+            String url = "https://localhost:" + server.getAddress().getPort() + "/paymentCards";
+            assertEquals(HttpStatus.SC_CREATED, blockingClient.executeRequest(postCard(url, 0)).getStatus());
+            assertEquals(HttpStatus.SC_CREATED, asyncClient.executeRequest(postCard(url, 1)).getStatus());
+            assertThrows(GarminPayApiException.class, () -> defaultClient.executeRequest(postCard(url, 2)));
+        } finally {
+            blockingClient.close();
+            asyncClient.close();
+            defaultClient.close();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void fallsBackToHttp1ForCleartextHostWithoutResendingPost() throws IOException {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        HttpServer http1Server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        http1Server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream response = exchange.getResponseBody()) {
+                bodies.add(new String(readAll(body), StandardCharsets.UTF_8));
+                exchange.sendResponseHeaders(HttpStatus.SC_CREATED, -1);
+            }
+        });
+        http1Server.start();
+        try {
+            // Without TLS there is no negotiation, the close may have come after the request was written
+            String url = "http://localhost:" + http1Server.getAddress().getPort() + "/paymentCards";
+            assertThrows(GarminPayApiException.class, () -> http2Client.executeRequest(postCard(url, 0)));
+            assertTrue(bodies.isEmpty());
+
+            assertEquals(HttpStatus.SC_CREATED, http2Client.executeRequest(postCard(url, 1)).getStatus());
+            assertEquals(Collections.singletonList("{\"card\":1}"), bodies);
+        } finally {
+            http1Server.stop(0);
+        }
+    }
+
+    @Test
+    void interruptingBlockingRequestCancelsTheExchange() throws Exception {
+        stubFor(get(urlPathEqualTo("/slow")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(10_000)));
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create().build();
+        try (CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom().setConnectionManager(connectionManager).build()) {
+            AsyncAPIClient client = AsyncAPIClient.builder().httpAsyncClient(httpAsyncClient).build();
+
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            Thread caller = new Thread(() -> {
+                try {
+                    client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/slow").build());
+                } catch (RuntimeException e) {
+                    failure.set(e);
+                }
+            });
+            caller.start();
+            while (connectionManager.getTotalStats().getLeased() == 0) {
+                Thread.sleep(10);
+            }
+            caller.interrupt();
+            caller.join(5_000);
+            assertTrue(failure.get() instanceof GarminPaySDKException);
+
+            // The cancelled exchange gives its connection back long before the response would have arrived
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (connectionManager.getTotalStats().getLeased() > 0 && System.nanoTime() - deadline < 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, connectionManager.getTotalStats().getLeased());
+        }
+    }
+
+    private static ClassicHttpRequest postCard(String url, int card) {
+        return ClassicRequestBuilder.post(url)
+            .setEntity("{\"card\":" + card + "}", ContentType.APPLICATION_JSON)
+            .build();
+    }
+
+    /**
+     * Starts an HTTPS server that only speaks HTTP/1.1, trusted by clients opening their connections with the trusting context.
+     */
+    private HttpsServer startHttpsServer(HttpHandler handler) throws Exception {
+        return startHttpsServer(new AtomicInteger(), handler);
+    }
+
+    /**
+     * Starts an HTTPS server that only speaks HTTP/1.1 and counts the TLS connections it accepts.
+     */
+    private HttpsServer startHttpsServer(AtomicInteger handshakes, HttpHandler handler) throws Exception {
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(loadKeyStore(), KEY_STORE_PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
+            @Override
+            public void configure(HttpsParameters params) {
+                handshakes.incrementAndGet();
+                super.configure(params);
+            }
+        });
+        server.createContext("/", handler);
+        server.setExecutor(serverExecutor);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Creates a client context that trusts the certificate of the test HTTPS servers.
+     */
+    @SneakyThrows
+    private static SSLContext createTrustingSslContext() {
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(loadKeyStore());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    private static KeyStore loadKeyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = AsyncAPIClientIT.class.getResourceAsStream("/" + KEY_STORE)) {
+            keyStore.load(input, KEY_STORE_PASSWORD.toCharArray());
+        }
+        return keyStore;
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
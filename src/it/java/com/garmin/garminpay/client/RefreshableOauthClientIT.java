@@ -16,6 +16,16 @@ import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.response.ErrorResponse;
 import com.garmin.garminpay.model.response.OAuthTokenResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpHeaders;
@@ -24,10 +34,13 @@ import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.junit.jupiter.api.Test;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -165,5 +178,182 @@ final class RefreshableOauthClientIT extends BaseIT {
         assertThrows(GarminPayCredentialsException.class, () -> client.executeRequest(request));
     }
 
+    @SneakyThrows
+    @Test
+    void concurrentRequestsShareOneTokenRequest() {
+        Client baseClient = new APIClient();
+        RefreshableOauthClient client = new RefreshableOauthClient(baseClient, ("client_id:client_secret").getBytes(), TESTING_URL + "/oauth/token");
+        OAuthTokenResponse mockToken = OAuthTokenResponse.builder()
+            .accessToken("testToken")
+            .expiresIn(3600L)
+            .build();
+
+        stubFor(post(urlPathEqualTo("/oauth/token"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType())
+                .withBody(objectMapper.writeValueAsString(mockToken))
+                .withFixedDelay(100)
+            )
+        );
+
+        stubFor(get(urlPathEqualTo("/testing"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+            )
+        );
+        wireMockServer.resetRequests();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<APIResponseDTO>> responses = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/testing").build());
+            }));
+        }
+        start.countDown();
+
+        for (Future<APIResponseDTO> response : responses) {
+            assertEquals(HttpStatus.SC_OK, response.get().getStatus());
+        }
+        executor.shutdown();
+        verify(exactly(1), postRequestedFor(urlPathEqualTo("/oauth/token")));
+    }
+
+    @SneakyThrows
+    @Test
+    void blockingRequestsJoinAnAsyncTokenRequestInFlight() {
+        try (AsyncAPIClient asyncClient = AsyncAPIClient.builder().build()) {
+            RefreshableOauthClient client = RefreshableOauthClient.builder()
+                .client(new APIClient())
+                .asyncClient(asyncClient)
+                .credentials(("client_id:client_secret").getBytes())
+                .authUrl(TESTING_URL + "/oauth/token")
+                .refreshFraction(0.8)
+                .build();
+            OAuthTokenResponse mockToken = OAuthTokenResponse.builder()
+                .accessToken("testToken")
+                .expiresIn(3600L)
+                .build();
+
+            stubFor(post(urlPathEqualTo("/oauth/token"))
+                .willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType())
+                    .withBody(objectMapper.writeValueAsString(mockToken))
+                    .withFixedDelay(300)
+                )
+            );
+
+            stubFor(get(urlPathEqualTo("/testing"))
+                .willReturn(aResponse()
+                    .withStatus(HttpStatus.SC_OK)
+                )
+            );
+            wireMockServer.resetRequests();
 
+            CompletableFuture<APIResponseDTO> asyncResponse = client.executeRequestAsync(
+                ClassicRequestBuilder.get(TESTING_URL + "/testing").build()
+            );
+            APIResponseDTO blockingResponse = client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/testing").build());
+
+            assertEquals(HttpStatus.SC_OK, blockingResponse.getStatus());
+            assertEquals(HttpStatus.SC_OK, asyncResponse.get(5, TimeUnit.SECONDS).getStatus());
+            verify(exactly(1), postRequestedFor(urlPathEqualTo("/oauth/token")));
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void tokenIsRefreshedBeforeItExpires() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        Client baseClient = new APIClient();
+        RefreshableOauthClient client = RefreshableOauthClient.builder()
+            .client(baseClient)
+            .credentials(("client_id:client_secret").getBytes())
+            .authUrl(TESTING_URL + "/oauth/token")
+            .refreshFraction(0.5)
+            .refreshScheduler(scheduler)
+            .build();
+        OAuthTokenResponse mockToken = OAuthTokenResponse.builder()
+            .accessToken("testToken")
+            .expiresIn(2L)
+            .build();
+
+        stubFor(post(urlPathEqualTo("/oauth/token"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType())
+                .withBody(objectMapper.writeValueAsString(mockToken))
+            )
+        );
+
+        stubFor(get(urlPathEqualTo("/testing"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.SC_OK)
+            )
+        );
+        wireMockServer.resetRequests();
+
+        client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/testing").build());
+        verify(exactly(1), postRequestedFor(urlPathEqualTo("/oauth/token")));
+
+        // The refresh is scheduled at half of the two second lifetime without any further requests
+        Thread.sleep(1500);
+        scheduler.shutdownNow();
+        verify(exactly(2), postRequestedFor(urlPathEqualTo("/oauth/token")));
+    }
+
+    @SneakyThrows
+    @Test
+    void backgroundRefreshDoesNotHoldTheScheduler() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AsyncAPIClient asyncClient = AsyncAPIClient.builder().build();
+        RefreshableOauthClient client = RefreshableOauthClient.builder()
+            .client(new APIClient())
+            .asyncClient(asyncClient)
+            .credentials(("client_id:client_secret").getBytes())
+            .authUrl(TESTING_URL + "/oauth/token")
+            .refreshFraction(0.5)
+            .refreshScheduler(scheduler)
+            .build();
+        OAuthTokenResponse mockToken = OAuthTokenResponse.builder()
+            .accessToken("testToken")
+            .expiresIn(2L)
+            .build();
+        stubFor(post(urlPathEqualTo("/oauth/token"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType())
+                .withBody(objectMapper.writeValueAsString(mockToken))
+            )
+        );
+        stubFor(get(urlPathEqualTo("/testing")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)));
+
+        try {
+            client.executeRequest(ClassicRequestBuilder.get(TESTING_URL + "/testing").build());
+            wireMockServer.resetRequests();
+            stubFor(post(urlPathEqualTo("/oauth/token"))
+                .willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType())
+                    .withBody(objectMapper.writeValueAsString(mockToken))
+                    .withFixedDelay(1000)
+                )
+            );
+
+            // The slow background refresh starts after one second, other timers still run while it is in flight
+            Thread.sleep(1200);
+            scheduler.schedule(() -> { }, 0, TimeUnit.MILLISECONDS).get(200, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(1000);
+            verify(exactly(1), postRequestedFor(urlPathEqualTo("/oauth/token")));
+        } finally {
+            scheduler.shutdownNow();
+            asyncClient.close();
+        }
+    }
 }
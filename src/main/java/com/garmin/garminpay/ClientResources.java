@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.client.APIClient;
+import com.garmin.garminpay.client.AdaptiveConcurrencyClient;
+import com.garmin.garminpay.client.AsyncAPIClient;
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.client.HttpClientFactory;
+import com.garmin.garminpay.client.OperationBulkheadClient;
+import com.garmin.garminpay.client.OperationBulkheadSettings;
+import com.garmin.garminpay.utility.DaemonThreadFactory;
+import com.garmin.garminpay.utility.GarminPayCodec;
+import com.garmin.garminpay.utility.VirtualThreads;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The http clients, connection pools and threads behind a GarminPayClient. A GarminPayClient created directly owns its
+ * resources, the clients of a {@link GarminPayClientRegistry} share one set across every tenant.
+ */
+@Slf4j
+final class ClientResources {
+    private static final int REFRESH_THREADS = 4;
+    private static final int REFRESH_QUEUE_CAPACITY = 1024;
+
+    private final ScheduledExecutorService backgroundExecutor;
+    private final ExecutorService refreshExecutor;
+    private final ThreadFactory batchThreadFactory;
+    private final APIClient baseClient;
+    private final AsyncAPIClient asyncClient;
+    private final Client client;
+    private final AsyncClient limitedAsyncClient;
+    private final GarminPayCodec codec;
+
+    /**
+     * Creates the resources for the given config, the virtual thread setting must already be validated.
+     *
+     * @throws IllegalArgumentException if JSON acceleration is requested without an acceleration module on the classpath, or the
+     *                                  operation bulkheads allow more requests in flight than the connection pool holds per route
+     */
+    ClientResources(GarminPayClientConfig config) {
+        validateOperationBulkheads(config);
+        if (config.getObjectMapper() == null && !config.isJsonAcceleration()) {
+            codec = GarminPayCodec.getDefault();
+        } else {
+            ObjectMapper objectMapper = config.getObjectMapper() != null ? config.getObjectMapper() : new ObjectMapper();
+            codec = new GarminPayCodec(objectMapper, config.isJsonAcceleration());
+        }
+        // Only timers run on the scheduler thread, so a slow refresh of one tenant cannot delay the timers of the others
+        backgroundExecutor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("garminpay-background"));
+
+        // Refreshes of root links and key agreements block on I/O. Each is single-flight per tenant, so a few threads keep up,
+        // and a refresh rejected by a full queue is made on demand by the next request instead
+        if (config.isVirtualThreads()) {
+            refreshExecutor = VirtualThreads.newThreadPerTaskExecutor("garminpay-refresh");
+            batchThreadFactory = VirtualThreads.newThreadFactory("garminpay-batch");
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                REFRESH_THREADS, REFRESH_THREADS, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+                new DaemonThreadFactory("garminpay-refresh")
+            );
+            pool.allowCoreThreadTimeOut(true);
+            refreshExecutor = pool;
+            batchThreadFactory = new DaemonThreadFactory("garminpay-batch");
+        }
+
+        // Every default pool opens its connections with one context, so a connection of one pool resumes the TLS sessions of
+        // the others rather than making a full handshake
+        SSLContext sslContext = config.getHttpClient() == null || config.getHttpAsyncClient() == null
+            ? HttpClientFactory.createSslContext(config.getHttpClientSettings())
+            : null;
+        asyncClient = AsyncAPIClient.builder()
+            .httpAsyncClient(config.getHttpAsyncClient())
+            .settings(config.getHttpClientSettings())
+            .sslContext(sslContext)
+            .metricsListener(config.getMetricsListener())
+            .codec(codec)
+            .build();
+        Client blockingClient;
+        if (config.getHttpClientSettings().isHttp2() && config.getHttpClient() == null && config.getHttpAsyncClient() == null) {
+            // Blocking requests share the multiplexed HTTP/2 connections of the async client rather than holding a classic one each
+            baseClient = null;
+            blockingClient = asyncClient;
+        } else {
+            baseClient = APIClient.builder()
+                .httpClient(config.getHttpClient())
+                .settings(config.getHttpClientSettings())
+                .sslContext(sslContext)
+                .metricsListener(config.getMetricsListener())
+                .codec(codec)
+                .build();
+            blockingClient = baseClient;
+        }
+
+        // Directly around the http clients, so the limit sees only network round trips and is shared by every tenant
+        Client limitedClient = blockingClient;
+        AsyncClient limitedAsync = asyncClient;
+        if (config.getAdaptiveConcurrencySettings().isEnabled()) {
+            AdaptiveConcurrencyClient limiter = new AdaptiveConcurrencyClient(
+                blockingClient, asyncClient, config.getAdaptiveConcurrencySettings(), config.getMetricsListener()
+            );
+            limitedClient = limiter;
+            limitedAsync = limiter;
+        }
+
+        // Outside the adaptive limit, so a request held back by its operation's bulkhead is not counted as in flight
+        OperationBulkheadSettings bulkheadSettings = config.getOperationBulkheadSettings();
+        if (bulkheadSettings.isEnabled()) {
+            OperationBulkheadClient bulkheads = new OperationBulkheadClient(
+                limitedClient, limitedAsync, bulkheadSettings, backgroundExecutor, config.getMetricsListener()
+            );
+            limitedClient = bulkheads;
+            limitedAsync = bulkheads;
+        }
+        client = limitedClient;
+        limitedAsyncClient = limitedAsync;
+    }
+
+    /**
+     * A bulkhead only reserves capacity if each of its permits has a connection to use, so the limits must fit in the pools the
+     * SDK creates. With pools of their own, the caller is responsible for sizing them.
+     *
+     * @throws IllegalArgumentException if the sum of the operation limits exceeds the connections per route
+     */
+    static void validateOperationBulkheads(GarminPayClientConfig config) {
+        OperationBulkheadSettings bulkheadSettings = config.getOperationBulkheadSettings();
+        if (!bulkheadSettings.isEnabled() || config.getHttpClient() != null && config.getHttpAsyncClient() != null) {
+            return;
+        }
+        int reserved = bulkheadSettings.getMaxConcurrentRequests().values().stream().mapToInt(Integer::intValue).sum();
+        int perRoute = config.getHttpClientSettings().getMaxConnectionsPerRoute();
+        if (reserved > perRoute) {
+            throw new IllegalArgumentException("Operation bulkheads allow " + reserved + " requests in flight but the connection pool "
+                + "holds " + perRoute + " per route");
+        }
+    }
+
+    ScheduledExecutorService getBackgroundExecutor() {
+        return backgroundExecutor;
+    }
+
+    Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    ThreadFactory getBatchThreadFactory() {
+        return batchThreadFactory;
+    }
+
+    GarminPayCodec getCodec() {
+        return codec;
+    }
+
+    Client getBaseClient() {
+        return client;
+    }
+
+    AsyncClient getAsyncClient() {
+        return limitedAsyncClient;
+    }
+
+    /**
+     * Stops the background threads and closes the default http clients and their connection pools.
+     * A provided HttpClient or CloseableHttpAsyncClient is not closed.
+     */
+    void close() {
+        log.debug("Shutting down background executor");
+        backgroundExecutor.shutdownNow();
+        refreshExecutor.shutdownNow();
+        if (baseClient != null) {
+            try {
+                baseClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close default http client", e);
+            }
+        }
+        asyncClient.close();
+    }
+}
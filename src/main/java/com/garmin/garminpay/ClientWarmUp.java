@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.RefreshableOauthClient;
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.model.response.WarmUpReport;
+import com.garmin.garminpay.model.response.WarmUpStep;
+import com.garmin.garminpay.model.response.WarmUpTask;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Primes everything the first registration would otherwise pay for in series: the OAuth token, root links, key agreement,
+ * pooled connections and the code of the registration path. Steps run in order and warming up stops at the first failed
+ * step, failures are recorded in the report rather than thrown.
+ */
+@Slf4j
+final class ClientWarmUp {
+    private final RefreshableOauthClient oauthClient;
+    private final GarminPayProxy garminPayProxy;
+    private final GarminPayService garminPayService;
+    private final ThreadFactory connectionThreadFactory;
+    private final Executor registrationPathExecutor;
+
+    ClientWarmUp(
+        RefreshableOauthClient oauthClient, GarminPayProxy garminPayProxy, GarminPayService garminPayService,
+        ThreadFactory connectionThreadFactory, Executor registrationPathExecutor
+    ) {
+        this.oauthClient = oauthClient;
+        this.garminPayProxy = garminPayProxy;
+        this.garminPayService = garminPayService;
+        this.connectionThreadFactory = connectionThreadFactory;
+        this.registrationPathExecutor = registrationPathExecutor;
+    }
+
+    /**
+     * Warms up the blocking registration path and the connection pool it uses.
+     */
+    WarmUpReport warmUp(WarmUpSettings settings) {
+        long start = System.nanoTime();
+        List<WarmUpStep> steps = new ArrayList<>();
+        for (Step step : steps(settings)) {
+            WarmUpStep result;
+            long stepStart = System.nanoTime();
+            try {
+                step.action.run();
+                result = toResult(step, stepStart, null);
+            } catch (RuntimeException e) {
+                result = toResult(step, stepStart, e);
+            }
+            steps.add(result);
+            if (!result.isSuccessful()) {
+                break;
+            }
+        }
+        return toReport(steps, start);
+    }
+
+    /**
+     * Warms up the non-blocking registration path and the connection pool it uses, the encryption and URL building
+     * run on the registration path executor rather than on an I/O thread.
+     */
+    CompletableFuture<WarmUpReport> warmUpAsync(WarmUpSettings settings) {
+        long start = System.nanoTime();
+        // Steps run one after the other, each completion happens-before the next step adds its result
+        List<WarmUpStep> steps = new ArrayList<>();
+        CompletableFuture<Boolean> proceed = CompletableFuture.completedFuture(true);
+        for (Step step : steps(settings)) {
+            proceed = proceed.thenCompose(previousSucceeded -> {
+                if (!previousSucceeded) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                return runAsync(step).thenApply(result -> {
+                    steps.add(result);
+                    return result.isSuccessful();
+                });
+            });
+        }
+        return proceed.thenApply(completed -> toReport(steps, start));
+    }
+
+    private List<Step> steps(WarmUpSettings settings) {
+        int connections = settings.getConnections();
+        int iterations = settings.getEncryptionIterations();
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step(WarmUpTask.OAUTH_TOKEN, 1, oauthClient::ensureToken, oauthClient::ensureTokenAsync));
+        steps.add(new Step(WarmUpTask.ROOT_LINKS, 1, garminPayProxy::refreshRootLinks, garminPayProxy::refreshRootLinksAsync));
+        steps.add(new Step(WarmUpTask.KEY_AGREEMENT, 1,
+            garminPayService::warmUpKeyAgreement, garminPayService::warmUpKeyAgreementAsync));
+        if (connections > 0) {
+            steps.add(new Step(WarmUpTask.CONNECTIONS, connections,
+                () -> openConnections(connections), () -> openConnectionsAsync(connections)));
+        }
+        if (iterations > 0) {
+            steps.add(new Step(WarmUpTask.REGISTRATION_PATH, iterations,
+                () -> garminPayService.warmUpRegistrationPath(iterations),
+                () -> CompletableFuture.runAsync(() -> garminPayService.warmUpRegistrationPath(iterations), registrationPathExecutor)));
+        }
+        return steps;
+    }
+
+    /**
+     * Starts the health checks together so each one has to lease its own connection from the pool.
+     */
+    private void openConnections(int connections) {
+        ExecutorService workers = Executors.newFixedThreadPool(connections, connectionThreadFactory);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<?>> checks = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                checks.add(workers.submit(() -> {
+                    release.await();
+                    return garminPayProxy.getHealthStatus();
+                }));
+            }
+            release.countDown();
+
+            for (Future<?> check : checks) {
+                check.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                ? (RuntimeException) cause
+                : new GarminPaySDKException("Failed to open connection", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GarminPaySDKException("Warming up connections was interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Void> openConnectionsAsync(int connections) {
+        CompletableFuture<?>[] checks = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            checks[i] = garminPayProxy.getHealthStatusAsync();
+        }
+        return CompletableFuture.allOf(checks);
+    }
+
+    private static CompletableFuture<WarmUpStep> runAsync(Step step) {
+        long stepStart = System.nanoTime();
+        CompletableFuture<Void> action;
+        try {
+            action = step.asyncAction.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(toResult(step, stepStart, e));
+        }
+        return action.handle((ignored, error) -> toResult(step, stepStart, CompletionUtil.unwrap(error)));
+    }
+
+    private static WarmUpStep toResult(Step step, long stepStart, Throwable error) {
+        Duration duration = Duration.ofNanos(System.nanoTime() - stepStart);
+        GarminPayBaseException exception = null;
+        if (error != null) {
+            log.warn("Failed to warm up {} after {} ms", step.task, duration.toMillis());
+            exception = error instanceof GarminPayBaseException
+                ? (GarminPayBaseException) error
+                : new GarminPaySDKException("Failed to warm up " + step.task, error);
+        } else {
+            log.debug("Warmed up {} x{} in {} ms", step.task, step.count, duration.toMillis());
+        }
+        return WarmUpStep.builder()
+            .task(step.task)
+            .count(step.count)
+            .duration(duration)
+            .exception(exception)
+            .build();
+    }
+
+    private static WarmUpReport toReport(List<WarmUpStep> steps, long start) {
+        WarmUpReport report = WarmUpReport.builder()
+            .steps(new ArrayList<>(steps))
+            .duration(Duration.ofNanos(System.nanoTime() - start))
+            .build();
+        log.info("Warm-up {} in {} ms", report.isSuccessful() ? "completed" : "failed", report.getDuration().toMillis());
+        return report;
+    }
+
+    private static final class Step {
+        private final WarmUpTask task;
+        private final int count;
+        private final Runnable action;
+        private final Supplier<CompletableFuture<Void>> asyncAction;
+
+        Step(WarmUpTask task, int count, Runnable action, Supplier<CompletableFuture<Void>> asyncAction) {
+            this.task = task;
+            this.count = count;
+            this.action = action;
+            this.asyncAction = asyncAction;
+        }
+    }
+}
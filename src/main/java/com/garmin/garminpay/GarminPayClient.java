@@ -5,26 +5,55 @@
  */
 package com.garmin.garminpay;
 
+import java.io.Closeable;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.HttpClient;
 
-import com.garmin.garminpay.client.APIClient;
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.BulkheadClient;
+import com.garmin.garminpay.client.CircuitBreakerClient;
+import com.garmin.garminpay.client.CircuitBreakerState;
 import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.RateLimitingClient;
 import com.garmin.garminpay.client.RefreshableOauthClient;
+import com.garmin.garminpay.client.TracingClient;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
 import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.response.CardRegistrationResult;
+import com.garmin.garminpay.model.response.HealthSnapshot;
 import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.WarmUpReport;
 import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+import com.garmin.garminpay.utility.VirtualThreads;
 
 /**
  * This class serves as the main entrypoint when interacting with the GarminPay platform.
  */
 @Slf4j
-public class GarminPayClient {
-    private static final String BASE_URL = "https://api.fit-pay.com";
-    private static final String AUTH_URL = "https://auth.fit-pay.com";
+public class GarminPayClient implements Closeable {
     private final GarminPayService garminPayService;
+    private final RegistrationDeduplicator registrationDeduplicator;
+    private final ClientResources resources;
+    private final boolean ownsResources;
+    private final RefreshableOauthClient refreshableOauthClient;
+    private final CircuitBreakerClient circuitBreaker;
+    private final HealthMonitor healthMonitor;
+    private final ClientWarmUp clientWarmUp;
+    private final int batchConcurrency;
 
     /**
      * Creates a GarminPayClient with the given clientId and clientSecret.
@@ -33,7 +62,7 @@ public class GarminPayClient {
      * @param clientSecret the client secret given by Garmin Pay
      */
     public GarminPayClient(String clientId, String clientSecret) {
-        this(clientId, clientSecret, null);
+        this(clientId, clientSecret, GarminPayClientConfig.builder().build());
     }
 
     /**
@@ -46,19 +75,125 @@ public class GarminPayClient {
      * @throws IllegalArgumentException if clientID or clientSecret is NULL
      */
     public GarminPayClient(String clientId, String clientSecret, HttpClient httpClient) {
-        byte[] credentials = validateAndBuildCredentials(clientId, clientSecret);
+        this(clientId, clientSecret, GarminPayClientConfig.builder().httpClient(httpClient).build());
+    }
+
+    /**
+     * Creates a GarminPayClient with the given clientId, clientSecret and config.
+     *
+     * @param clientId     the client ID provided by the issuer
+     * @param clientSecret the client secret provided by the issuer
+     * @param config       optional settings for the client
+     * @throws IllegalArgumentException if clientID, clientSecret or config is NULL, virtual threads are requested before Java 21,
+     *                                  or HTTP/2 is requested for a base or auth URL that does not use https
+     */
+    public GarminPayClient(String clientId, String clientSecret, @NonNull GarminPayClientConfig config) {
+        this(validateAndBuildCredentials(clientId, clientSecret), config, null, null);
+    }
+
+    /**
+     * Creates a GarminPayClient over the given shared resources, or over resources of its own when null.
+     * With a tenant bulkhead, requests are sent through it, so every client of the tenant shares its limit.
+     */
+    GarminPayClient(
+        byte[] credentials, @NonNull GarminPayClientConfig config, ClientResources sharedResources, BulkheadClient tenantBulkhead
+    ) {
+        batchConcurrency = validateBatchConcurrency(config.getBatchConcurrency());
+        Duration healthCheckInterval = validateHealthCheckInterval(config.getHealthCheckInterval());
+        validateVirtualThreads(config.isVirtualThreads());
+        validateHttp2(config);
 
         log.debug("Creating clients, proxy and service classes");
-        Client baseClient = new APIClient(httpClient);
-        Client refreshableOauthClient = new RefreshableOauthClient(baseClient, credentials, AUTH_URL);
+        ownsResources = sharedResources == null;
+        resources = ownsResources ? new ClientResources(config) : sharedResources;
+        ScheduledExecutorService backgroundExecutor = resources.getBackgroundExecutor();
+        Executor refreshExecutor = resources.getRefreshExecutor();
+        ThreadFactory batchThreadFactory = resources.getBatchThreadFactory();
+
+        Client baseClient;
+        AsyncClient baseAsyncClient;
+        if (tenantBulkhead != null) {
+            baseClient = tenantBulkhead;
+            baseAsyncClient = tenantBulkhead;
+        } else if (config.getTracer() != GarminPayTracer.NOOP) {
+            TracingClient tracingClient = new TracingClient(resources.getBaseClient(), resources.getAsyncClient(), config.getTracer());
+            baseClient = tracingClient;
+            baseAsyncClient = tracingClient;
+        } else {
+            baseClient = resources.getBaseClient();
+            baseAsyncClient = resources.getAsyncClient();
+        }
 
-        GarminPayProxy garminPayProxy = new GarminPayProxy(refreshableOauthClient, BASE_URL);
+        GarminPayMetricsListener metricsListener = config.getMetricsListener();
+        if (config.getRateLimiterSettings().isEnabled()) {
+            // In front of the token requests too, and ahead of the bulkhead so waiting requests hold no permit
+            RateLimitingClient rateLimiter = new RateLimitingClient(
+                baseClient, baseAsyncClient, config.getRateLimiterSettings(), backgroundExecutor, metricsListener
+            );
+            baseClient = rateLimiter;
+            baseAsyncClient = rateLimiter;
+        }
+        refreshableOauthClient = RefreshableOauthClient.builder()
+            .client(baseClient)
+            .asyncClient(baseAsyncClient)
+            .credentials(credentials)
+            .authUrl(config.getAuthUrl())
+            .refreshFraction(config.getTokenRefreshFraction())
+            .refreshScheduler(backgroundExecutor)
+            .metricsListener(metricsListener)
+            .codec(resources.getCodec())
+            .build();
 
-        garminPayService = new GarminPayService(garminPayProxy);
+        Client proxyClient = refreshableOauthClient;
+        AsyncClient proxyAsyncClient = refreshableOauthClient;
+        if (config.getCircuitBreakerSettings().isEnabled()) {
+            circuitBreaker = new CircuitBreakerClient(
+                refreshableOauthClient, refreshableOauthClient, config.getCircuitBreakerSettings(), metricsListener
+            );
+            proxyClient = circuitBreaker;
+            proxyAsyncClient = circuitBreaker;
+        } else {
+            circuitBreaker = null;
+        }
+
+        GarminPayProxy garminPayProxy = GarminPayProxy.builder()
+            .client(proxyClient)
+            .asyncClient(proxyAsyncClient)
+            .baseUrl(config.getBaseUrl())
+            .rootLinkTtl(config.getRootLinkTtl())
+            .refreshExecutor(refreshExecutor)
+            .metricsListener(metricsListener)
+            .codec(resources.getCodec())
+            .build();
+
+        garminPayService = GarminPayService.builder()
+            .garminPayProxy(garminPayProxy)
+            .refreshExecutor(refreshExecutor)
+            .metricsListener(metricsListener)
+            .batchThreadFactory(batchThreadFactory)
+            .codec(resources.getCodec())
+            .tracer(config.getTracer())
+            .build();
+        registrationDeduplicator = config.getRegistrationDeduplicationSettings().isEnabled()
+            ? new RegistrationDeduplicator(garminPayService, config.getRegistrationDeduplicationSettings())
+            : null;
+
+        clientWarmUp = new ClientWarmUp(
+            refreshableOauthClient, garminPayProxy, garminPayService, batchThreadFactory, refreshExecutor
+        );
+
+        if (healthCheckInterval != null) {
+            healthMonitor = new HealthMonitor(garminPayProxy, healthCheckInterval.multipliedBy(2), config.getTracer());
+            healthMonitor.start(backgroundExecutor, healthCheckInterval);
+        } else {
+            healthMonitor = new HealthMonitor(garminPayProxy, Duration.ZERO, config.getTracer());
+        }
     }
 
     /**
      * Takes a card data object and registers it with the Garmin Pay platform.
+     * With registration de-duplication enabled, repeats of an in-flight or recent registration of the same card and callback URL
+     * return its response instead of registering the card again.
      *
      * @param garminCardDataObject The card data object to register
      * @param  callbackUrl The URI that GCM will call after provisioning
@@ -73,20 +208,277 @@ public class GarminPayClient {
             );
         }
         log.debug("Calling register card service");
+        if (registrationDeduplicator != null) {
+            return registrationDeduplicator.registerCard(garminCardDataObject, callbackUrl);
+        }
         return garminPayService.registerCard(garminCardDataObject, callbackUrl);
     }
 
+    /**
+     * Takes a card data object and registers it with the Garmin Pay platform without blocking the calling thread.
+     * The OAuth token, API links and key exchange are resolved as non-blocking stages when they are not cached.
+     *
+     * @param garminCardDataObject The card data object to register
+     * @param  callbackUrl The URI that GCM will call after provisioning
+     * @return future completed with a RegisterCardResponse containing deep link URLs for iOS and Android,
+     *     or exceptionally with a GarminPayBaseException
+     * @throws IllegalArgumentException if callbackUrl is NULL
+     */
+    public CompletableFuture<RegisterCardResponse> registerCardAsync(GarminPayCardData garminCardDataObject, URI callbackUrl) {
+        if (callbackUrl == null) {
+            log.warn("Provided callback URL was invalid");
+            throw new IllegalArgumentException(
+                "Callback URL cannot be null"
+            );
+        }
+        log.debug("Calling async register card service");
+        if (registrationDeduplicator != null) {
+            return registrationDeduplicator.registerCardAsync(garminCardDataObject, callbackUrl);
+        }
+        return garminPayService.registerCardAsync(garminCardDataObject, callbackUrl);
+    }
+
+    /**
+     * Registers a batch of cards with the Garmin Pay platform, running up to the configured batch concurrency in parallel.
+     * One key agreement and OAuth token are shared across the batch and a failed card does not stop the rest of the batch.
+     *
+     * @param garminCardDataObjects The card data objects to register
+     * @param callbackUrl The URI that GCM will call after provisioning each card
+     * @return one CardRegistrationResult per card, in the order the cards were given
+     * @throws IllegalArgumentException if garminCardDataObjects or callbackUrl is NULL
+     */
+    public List<CardRegistrationResult> registerCards(Collection<GarminPayCardData> garminCardDataObjects, URI callbackUrl) {
+        return registerCards(garminCardDataObjects, callbackUrl, batchConcurrency);
+    }
+
+    /**
+     * Registers a stream of cards with the Garmin Pay platform, running up to the configured batch concurrency in parallel.
+     *
+     * @param garminCardDataObjects The card data objects to register
+     * @param callbackUrl The URI that GCM will call after provisioning each card
+     * @return one CardRegistrationResult per card, in the order the cards were given
+     * @throws IllegalArgumentException if garminCardDataObjects or callbackUrl is NULL
+     * @see #registerCards(Collection, URI)
+     */
+    public List<CardRegistrationResult> registerCards(Stream<GarminPayCardData> garminCardDataObjects, URI callbackUrl) {
+        if (garminCardDataObjects == null) {
+            throw new IllegalArgumentException("Card data cannot be null");
+        }
+        return registerCards(garminCardDataObjects::iterator, callbackUrl, batchConcurrency);
+    }
+
+    /**
+     * Registers a batch of cards with the Garmin Pay platform, running up to maxConcurrency registrations in parallel.
+     *
+     * @param garminCardDataObjects The card data objects to register
+     * @param callbackUrl The URI that GCM will call after provisioning each card
+     * @param maxConcurrency The maximum number of registrations in flight at once
+     * @return one CardRegistrationResult per card, in the order the cards were given
+     * @throws IllegalArgumentException if garminCardDataObjects or callbackUrl is NULL or maxConcurrency is less than 1
+     * @see #registerCards(Collection, URI)
+     */
+    public List<CardRegistrationResult> registerCards(
+        Collection<GarminPayCardData> garminCardDataObjects, URI callbackUrl, int maxConcurrency
+    ) {
+        return registerCards((Iterable<GarminPayCardData>) garminCardDataObjects, callbackUrl, maxConcurrency);
+    }
+
+    private List<CardRegistrationResult> registerCards(Iterable<GarminPayCardData> garminCardDataObjects, URI callbackUrl,
+                                                       int maxConcurrency) {
+        if (garminCardDataObjects == null) {
+            throw new IllegalArgumentException("Card data cannot be null");
+        }
+        if (callbackUrl == null) {
+            log.warn("Provided callback URL was invalid");
+            throw new IllegalArgumentException(
+                "Callback URL cannot be null"
+            );
+        }
+        log.debug("Calling batch register card service");
+        return garminPayService.registerCards(garminCardDataObjects, callbackUrl, validateBatchConcurrency(maxConcurrency));
+    }
+
     /**
      * Checks the health status of the Garmin Pay platform.
+     * With a health check interval configured the latest background check result is returned while it is fresh,
+     * otherwise the platform is checked with the blocking http client, sharing the request with concurrent blocking checks.
      *
      * @return Boolean, true if the platform is healthy, false otherwise
      */
     public Boolean checkHealthStatus() {
         log.debug("Calling check health status service");
-        return garminPayService.checkHealthStatus();
+        return healthMonitor.checkHealthStatus();
+    }
+
+    /**
+     * Checks the health status of the Garmin Pay platform without blocking the calling thread.
+     *
+     * @return future completed with true if the platform is healthy, false otherwise
+     * @see #checkHealthStatus()
+     */
+    public CompletableFuture<Boolean> checkHealthStatusAsync() {
+        log.debug("Calling async check health status service");
+        return healthMonitor.checkHealthStatusAsync();
+    }
+
+    /**
+     * Returns the result of the latest health check without checking the platform.
+     *
+     * @return the latest HealthSnapshot, null if the health has not been checked yet
+     */
+    public HealthSnapshot getHealthSnapshot() {
+        return healthMonitor.getSnapshot();
+    }
+
+    /**
+     * Registers a listener notified with the first health check result and whenever the platform health changes.
+     *
+     * @param listener the listener to notify
+     * @throws IllegalArgumentException if listener is NULL
+     */
+    public void addHealthStatusListener(@NonNull HealthStatusListener listener) {
+        healthMonitor.addListener(listener);
+    }
+
+    /**
+     * Warms up the client with the default {@link WarmUpSettings} before traffic arrives.
+     *
+     * @return WarmUpReport of what was warmed and how long each step took
+     * @see #warmUp(WarmUpSettings)
+     */
+    public WarmUpReport warmUp() {
+        return warmUp(WarmUpSettings.builder().build());
+    }
+
+    /**
+     * Warms up the client so the first registration does not pay for the OAuth token, root links, key agreement,
+     * TLS handshakes and class loading in series. Opens the configured number of pooled connections and encrypts synthetic
+     * card data without sending it so the registration path is compiled. Stops at the first step that fails,
+     * failures are recorded in the report rather than thrown.
+     *
+     * @param settings how many connections to open and synthetic cards to encrypt
+     * @return WarmUpReport of what was warmed and how long each step took
+     * @throws IllegalArgumentException if settings is NULL or a count is negative
+     */
+    public WarmUpReport warmUp(@NonNull WarmUpSettings settings) {
+        log.debug("Warming up client");
+        return clientWarmUp.warmUp(validateWarmUpSettings(settings));
+    }
+
+    /**
+     * Warms up the client for non-blocking registrations with the default {@link WarmUpSettings}.
+     *
+     * @return future completed with a WarmUpReport of what was warmed and how long each step took
+     * @see #warmUpAsync(WarmUpSettings)
+     */
+    public CompletableFuture<WarmUpReport> warmUpAsync() {
+        return warmUpAsync(WarmUpSettings.builder().build());
+    }
+
+    /**
+     * Warms up the client for non-blocking registrations without blocking the calling thread.
+     * Connections are opened in the pool used by {@link #registerCardAsync(GarminPayCardData, URI)}.
+     *
+     * @param settings how many connections to open and synthetic cards to encrypt
+     * @return future completed with a WarmUpReport of what was warmed and how long each step took
+     * @throws IllegalArgumentException if settings is NULL or a count is negative
+     * @see #warmUp(WarmUpSettings)
+     */
+    public CompletableFuture<WarmUpReport> warmUpAsync(@NonNull WarmUpSettings settings) {
+        log.debug("Warming up client asynchronously");
+        return clientWarmUp.warmUpAsync(validateWarmUpSettings(settings));
+    }
+
+    /**
+     * Returns the state of the circuit breaker that fails requests fast while the Garmin Pay platform is in maintenance mode
+     * or failing, always CLOSED when the circuit breaker is disabled.
+     *
+     * @return the current circuit breaker state
+     */
+    public CircuitBreakerState getCircuitBreakerState() {
+        return circuitBreaker != null ? circuitBreaker.getState() : CircuitBreakerState.CLOSED;
+    }
+
+    /**
+     * Creates the bulkhead that limits every client of one tenant of a {@link GarminPayClientRegistry} to maxConcurrentRequests
+     * requests in flight, in front of the tracing of its requests.
+     * It sits below the token refresh, so token and key exchange requests are exempt rather than queued behind the
+     * registrations that wait on them.
+     */
+    static BulkheadClient createTenantBulkhead(ClientResources resources, GarminPayClientConfig config, int maxConcurrentRequests) {
+        Client client = resources.getBaseClient();
+        AsyncClient asyncClient = resources.getAsyncClient();
+        if (config.getTracer() != GarminPayTracer.NOOP) {
+            TracingClient tracingClient = new TracingClient(client, asyncClient, config.getTracer());
+            client = tracingClient;
+            asyncClient = tracingClient;
+        }
+        return BulkheadClient.builder()
+            .client(client)
+            .asyncClient(asyncClient)
+            .maxConcurrentRequests(maxConcurrentRequests)
+            .exemptOperations(EnumSet.of(GarminPayOperation.TOKEN, GarminPayOperation.EXCHANGE_KEYS))
+            .build();
+    }
+
+    /**
+     * Stops the background tasks used to keep cached Garmin Pay state fresh and closes the default http clients
+     * and their connection pools. A provided HttpClient or CloseableHttpAsyncClient is not closed.
+     * A client obtained from a {@link GarminPayClientRegistry} shares its connection pools with the other tenants,
+     * closing it only stops its own background token refresh and it can still be used, refreshing its token on demand.
+     */
+    @Override
+    public void close() {
+        refreshableOauthClient.stopProactiveRefresh();
+        if (ownsResources) {
+            resources.close();
+        }
+    }
+
+    private static int validateBatchConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Batch concurrency must be at least 1");
+        }
+        return maxConcurrency;
+    }
+
+    private static WarmUpSettings validateWarmUpSettings(WarmUpSettings settings) {
+        if (settings.getConnections() < 0 || settings.getEncryptionIterations() < 0) {
+            throw new IllegalArgumentException("Warm-up connections and encryption iterations cannot be negative");
+        }
+        return settings;
+    }
+
+    static void validateVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads && !VirtualThreads.isAvailable()) {
+            log.warn("Virtual threads were requested but are not available on this JVM");
+            throw new IllegalArgumentException("Virtual threads require Java 21 or later");
+        }
+    }
+
+    /**
+     * HTTP/2 is negotiated during the TLS handshake, a plain http host that only speaks HTTP/1.1 cannot refuse it before
+     * the first request is sent.
+     */
+    static void validateHttp2(GarminPayClientConfig config) {
+        if (config.getHttpAsyncClient() == null && config.getHttpClientSettings().isHttp2()
+            && !(isHttps(config.getBaseUrl()) && isHttps(config.getAuthUrl()))) {
+            throw new IllegalArgumentException("HTTP/2 requires https base and auth URLs");
+        }
+    }
+
+    private static boolean isHttps(String url) {
+        return url.regionMatches(true, 0, "https://", 0, "https://".length());
+    }
+
+    private static Duration validateHealthCheckInterval(Duration healthCheckInterval) {
+        if (healthCheckInterval != null && (healthCheckInterval.isZero() || healthCheckInterval.isNegative())) {
+            throw new IllegalArgumentException("Health check interval must be positive");
+        }
+        return healthCheckInterval;
     }
 
-    private byte[] validateAndBuildCredentials(String clientId, String clientSecret) {
+    static byte[] validateAndBuildCredentials(String clientId, String clientSecret) {
         log.debug("Validating client credentials");
 
         if (clientId == null || clientId.trim().isEmpty() || clientSecret == null || clientSecret.trim().isEmpty()) {
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+
+import com.garmin.garminpay.client.AdaptiveConcurrencySettings;
+import com.garmin.garminpay.client.CircuitBreakerSettings;
+import com.garmin.garminpay.client.HttpClientSettings;
+import com.garmin.garminpay.client.OperationBulkheadSettings;
+import com.garmin.garminpay.client.RateLimiterSettings;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+
+/**
+ * Optional settings used when creating a {@link GarminPayClient}.
+ */
+@Value
+@Builder
+public class GarminPayClientConfig {
+    /**
+     * Base URL of the Garmin Pay API, only changed to point the client at a stand-in server.
+     */
+    @Builder.Default
+    String baseUrl = "https://api.fit-pay.com";
+
+    /**
+     * URL of the Garmin Pay OAuth token endpoint, only changed to point the client at a stand-in server.
+     */
+    @Builder.Default
+    String authUrl = "https://auth.fit-pay.com";
+
+    /**
+     * The httpClient to use for requests, a default client is created when null.
+     * Custom HttpClient proxy shall only be of type {@link java.net.Proxy.Type#HTTP}.
+     */
+    HttpClient httpClient;
+
+    /**
+     * The httpAsyncClient to use for non-blocking requests, a default client is created on first use when null.
+     */
+    CloseableHttpAsyncClient httpAsyncClient;
+
+    /**
+     * Connection pool, timeout and TLS settings for the default http clients, ignored for provided clients.
+     */
+    @Builder.Default
+    HttpClientSettings httpClientSettings = HttpClientSettings.builder().build();
+
+    /**
+     * How long Garmin Pay root links are cached before they are fetched again.
+     */
+    @Builder.Default
+    Duration rootLinkTtl = Duration.ofHours(1);
+
+    /**
+     * Fraction of the OAuth token lifetime after which a new token is requested in the background.
+     */
+    @Builder.Default
+    double tokenRefreshFraction = 0.75;
+
+    /**
+     * The maximum number of card registrations executed in parallel by a batch registration.
+     */
+    @Builder.Default
+    int batchConcurrency = 8;
+
+    /**
+     * Settings of the circuit breaker that fails requests fast while the platform is in maintenance mode or failing,
+     * disabled by default.
+     */
+    @Builder.Default
+    CircuitBreakerSettings circuitBreakerSettings = CircuitBreakerSettings.builder().build();
+
+    /**
+     * Settings of the per operation rate limiter that also honors 429 responses and Retry-After headers, disabled by default.
+     */
+    @Builder.Default
+    RateLimiterSettings rateLimiterSettings = RateLimiterSettings.builder().build();
+
+    /**
+     * Settings of the limit of requests in flight that adapts to the platform's response times, disabled by default.
+     */
+    @Builder.Default
+    AdaptiveConcurrencySettings adaptiveConcurrencySettings = AdaptiveConcurrencySettings.builder().build();
+
+    /**
+     * Settings of the per operation bulkheads that keep capacity for each operation of the shared connection pool,
+     * disabled by default.
+     */
+    @Builder.Default
+    OperationBulkheadSettings operationBulkheadSettings = OperationBulkheadSettings.builder().build();
+
+    /**
+     * Settings of the de-duplication of repeated registrations of the same card, disabled by default.
+     */
+    @Builder.Default
+    RegistrationDeduplicationSettings registrationDeduplicationSettings = RegistrationDeduplicationSettings.builder().build();
+
+    /**
+     * How often the platform health is checked in the background, health checks are served from the latest result
+     * while it is younger than twice this interval. Health is only checked on demand when null.
+     */
+    Duration healthCheckInterval;
+
+    /**
+     * Runs batch registration workers and background refreshes on virtual threads, requires Java 21 or later.
+     */
+    @Builder.Default
+    boolean virtualThreads = false;
+
+    /**
+     * The mapper whose configuration and modules are used to serialize requests and deserialize responses, the SDK's own
+     * mapper is used when null. The mapper is copied, later changes to it are not seen by the client.
+     */
+    ObjectMapper objectMapper;
+
+    /**
+     * Whether JSON serialization is accelerated with the Blackbird module, or the Afterburner module on Java 8.
+     * The module must be on the classpath, disabled by default.
+     */
+    @Builder.Default
+    boolean jsonAcceleration = false;
+
+    /**
+     * Receives latency, outcome and connection pool metrics of the client, metrics are discarded by default.
+     */
+    @Builder.Default
+    GarminPayMetricsListener metricsListener = GarminPayMetricsListener.NOOP;
+
+    /**
+     * Starts a span per card registration, health check and HTTP call and propagates the trace to the Garmin Pay API,
+     * nothing is traced by default.
+     */
+    @Builder.Default
+    GarminPayTracer tracer = GarminPayTracer.NOOP;
+}
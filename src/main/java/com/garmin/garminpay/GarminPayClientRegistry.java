@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import com.garmin.garminpay.client.BulkheadClient;
+
+/**
+ * Hosts the GarminPayClients of many tenants, each with its own clientId and clientSecret, over one shared http client,
+ * connection pool and set of background threads.
+ * Only the credentials of registered tenants are kept permanently. The OAuth token, root links and key agreement of a tenant
+ * live in its client, which is created on first use and kept for the most recently used tenants up to the configured maximum.
+ * An evicted tenant's client stops refreshing its token in the background and is re-created with cold state on its next
+ * use. A caller still holding the evicted client can keep using it.
+ * Each tenant has at most the configured number of requests in flight across all of its clients, evicted ones included,
+ * so one tenant's batch cannot starve the others of pooled connections.
+ */
+@Slf4j
+public final class GarminPayClientRegistry implements Closeable {
+    private final GarminPayClientConfig clientConfig;
+    private final int maxActiveTenants;
+    private final int maxConcurrentRequestsPerTenant;
+    private final ClientResources resources;
+    private final Map<String, byte[]> credentials = new ConcurrentHashMap<>();
+    private final ReentrantLock clientsLock = new ReentrantLock();
+    private final LinkedHashMap<String, GarminPayClient> clients = new LinkedHashMap<>(16, 0.75f, true);
+    // Kept per registered tenant rather than per client, so re-creating an evicted client does not add to the tenant's limit
+    private final Map<String, BulkheadClient> bulkheads = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a registry with the default settings.
+     */
+    public GarminPayClientRegistry() {
+        this(GarminPayClientRegistryConfig.builder().build());
+    }
+
+    /**
+     * Creates a registry with the given settings.
+     *
+     * @param config settings of the registry and of the clients of every tenant
+     * @throws IllegalArgumentException if config is NULL, a limit is less than 1, a health check interval is set or virtual
+     *     threads are requested before Java 21
+     */
+    public GarminPayClientRegistry(@NonNull GarminPayClientRegistryConfig config) {
+        if (config.getClientConfig() == null) {
+            throw new IllegalArgumentException("Client config cannot be null");
+        }
+        if (config.getMaxActiveTenants() < 1 || config.getMaxConcurrentRequestsPerTenant() < 1) {
+            throw new IllegalArgumentException("Max active tenants and max concurrent requests per tenant must be at least 1");
+        }
+        if (config.getClientConfig().getHealthCheckInterval() != null) {
+            throw new IllegalArgumentException("Background health checks are not supported for registry tenants");
+        }
+        GarminPayClient.validateVirtualThreads(config.getClientConfig().isVirtualThreads());
+        GarminPayClient.validateHttp2(config.getClientConfig());
+        this.clientConfig = config.getClientConfig();
+        this.maxActiveTenants = config.getMaxActiveTenants();
+        this.maxConcurrentRequestsPerTenant = config.getMaxConcurrentRequestsPerTenant();
+        this.resources = new ClientResources(clientConfig);
+    }
+
+    /**
+     * Registers the credentials of a tenant, replacing any earlier credentials of the same tenant.
+     * No request is made until the tenant's client is first used.
+     *
+     * @param tenantId     identifier the tenant's client is looked up by
+     * @param clientId     the client ID provided to the tenant by Garmin Pay
+     * @param clientSecret the client secret provided to the tenant by Garmin Pay
+     * @throws IllegalArgumentException if tenantId is NULL or clientId or clientSecret is NULL or empty
+     */
+    public void register(@NonNull String tenantId, String clientId, String clientSecret) {
+        byte[] previous = credentials.put(tenantId, GarminPayClient.validateAndBuildCredentials(clientId, clientSecret));
+        if (previous != null) {
+            log.debug("Replacing credentials of tenant {}", tenantId);
+            Arrays.fill(previous, (byte) 0);
+            evict(tenantId);
+        }
+    }
+
+    /**
+     * Removes a tenant and closes its client, a caller still holding the client can finish its requests.
+     *
+     * @param tenantId identifier of the tenant to remove
+     * @return true if the tenant was registered
+     */
+    public boolean unregister(@NonNull String tenantId) {
+        byte[] removed = credentials.remove(tenantId);
+        evict(tenantId);
+        bulkheads.remove(tenantId);
+        if (removed == null) {
+            return false;
+        }
+        Arrays.fill(removed, (byte) 0);
+        return true;
+    }
+
+    /**
+     * Returns the client of a registered tenant, creating it if the tenant is not active.
+     * The client shares the registry's connection pool and must not be used after the registry is closed.
+     *
+     * @param tenantId identifier of the tenant
+     * @return the tenant's GarminPayClient
+     * @throws IllegalArgumentException if the tenant is not registered
+     * @throws IllegalStateException if the registry is closed
+     */
+    public GarminPayClient getClient(@NonNull String tenantId) {
+        GarminPayClient evicted = null;
+        clientsLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("GarminPayClientRegistry is closed");
+            }
+            GarminPayClient client = clients.get(tenantId);
+            if (client != null) {
+                return client;
+            }
+
+            byte[] tenantCredentials = credentials.get(tenantId);
+            if (tenantCredentials == null) {
+                throw new IllegalArgumentException("Tenant " + tenantId + " is not registered");
+            }
+            log.debug("Creating client of tenant {}", tenantId);
+            BulkheadClient bulkhead = bulkheads.computeIfAbsent(
+                tenantId, id -> GarminPayClient.createTenantBulkhead(resources, clientConfig, maxConcurrentRequestsPerTenant)
+            );
+            client = new GarminPayClient(tenantCredentials.clone(), clientConfig, resources, bulkhead);
+            clients.put(tenantId, client);
+
+            if (clients.size() > maxActiveTenants) {
+                Iterator<Map.Entry<String, GarminPayClient>> eldest = clients.entrySet().iterator();
+                Map.Entry<String, GarminPayClient> entry = eldest.next();
+                log.debug("Evicting least recently used tenant {}", entry.getKey());
+                evicted = entry.getValue();
+                eldest.remove();
+            }
+            return client;
+        } finally {
+            clientsLock.unlock();
+            if (evicted != null) {
+                evicted.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tenants whose client is currently kept.
+     *
+     * @return the number of active tenants
+     */
+    public int getActiveTenantCount() {
+        clientsLock.lock();
+        try {
+            return clients.size();
+        } finally {
+            clientsLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the clients of every tenant, stops the shared background threads and closes the default http clients and their
+     * connection pools. A provided HttpClient or CloseableHttpAsyncClient is not closed.
+     */
+    @Override
+    public void close() {
+        List<GarminPayClient> active;
+        clientsLock.lock();
+        try {
+            closed = true;
+            active = new ArrayList<>(clients.values());
+            clients.clear();
+        } finally {
+            clientsLock.unlock();
+        }
+        active.forEach(GarminPayClient::close);
+        resources.close();
+    }
+
+    private void evict(String tenantId) {
+        GarminPayClient evicted;
+        clientsLock.lock();
+        try {
+            evicted = clients.remove(tenantId);
+        } finally {
+            clientsLock.unlock();
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+}
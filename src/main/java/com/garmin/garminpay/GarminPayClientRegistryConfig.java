@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Optional settings of a {@link GarminPayClientRegistry}.
+ */
+@Value
+@Builder
+public class GarminPayClientRegistryConfig {
+    /**
+     * Settings shared by the clients of every tenant, including the http clients and connection pool settings.
+     * Background health checks are not supported for tenants, so the health check interval must not be set.
+     */
+    @Builder.Default
+    GarminPayClientConfig clientConfig = GarminPayClientConfig.builder().build();
+
+    /**
+     * The maximum number of tenants whose token and key agreement are kept, the least recently used are evicted first.
+     */
+    @Builder.Default
+    int maxActiveTenants = 100;
+
+    /**
+     * The maximum number of requests of a single tenant in flight at once, so one tenant cannot take the whole
+     * shared connection pool. Should be lower than the pool's max connections per route. Token and key exchange requests
+     * are not limited.
+     */
+    @Builder.Default
+    int maxConcurrentRequestsPerTenant = 10;
+}
@@ -7,38 +7,85 @@ package com.garmin.garminpay;
 
 import com.garmin.garminpay.encryption.EncryptionService;
 import com.garmin.garminpay.exception.GarminPayBaseException;
-import com.garmin.garminpay.exception.GarminPayEncryptionException;
 import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.Address;
 import com.garmin.garminpay.model.GarminPayCardData;
-import com.garmin.garminpay.model.response.ExchangeKeysResponse;
-import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.CardRegistrationResult;
 import com.garmin.garminpay.model.response.RegisterCardResponse;
 import com.garmin.garminpay.proxy.GarminPayProxy;
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.jwk.Curve;
-import com.nimbusds.jose.jwk.ECKey;
-import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+import com.garmin.garminpay.utility.CompletionUtil;
+import com.garmin.garminpay.utility.DaemonThreadFactory;
+import com.garmin.garminpay.utility.GarminPayCodec;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.time.Instant;
-import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
-import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Hex;
 import org.apache.hc.core5.net.URIBuilder;
 
 @Slf4j
 final class GarminPayService {
-    private static final int OVERDUE_HOURS_THRESHOLD = 4;
+    // Synthetic card used to exercise the registration path during warm-up, it is encrypted but never sent
+    private static final GarminPayCardData WARM_UP_CARD = GarminPayCardData.builder()
+        .pan("4111111111111111")
+        .cvv("000")
+        .expMonth(12)
+        .expYear(2099)
+        .name("Warm Up")
+        .address(Address.builder()
+            .name("Warm Up")
+            .street1("1 Warm Up St")
+            .city("Olathe")
+            .state("KS")
+            .postalCode("66062")
+            .countryCode("US")
+            .build())
+        .build();
+    private static final String WARM_UP_DEEPLINK_URL = "https://connect.garmin.com/payment/push/ios/provision";
+    private static final URI WARM_UP_CALLBACK_URL = URI.create("https://localhost/garminpay/warm-up");
+    static final String REGISTER_CARD_SPAN = "garminpay.registerCard";
+    static final String REGISTER_CARDS_SPAN = "garminpay.registerCards";
     private final GarminPayProxy garminPayProxy;
-    private final EncryptionService encryptionService = new EncryptionService();
-    private ExchangeKeysResponse exchangeKeysObject = null;
-    private SecretKey secretKey = null;
+    private final EncryptionService encryptionService;
+    private final KeyAgreementManager keyAgreementManager;
+    private final GarminPayMetricsListener metricsListener;
+    private final ThreadFactory batchThreadFactory;
+    private final GarminPayTracer tracer;
 
     GarminPayService(GarminPayProxy garminPayProxy) {
+        this(garminPayProxy, null, null, null, null, null);
+    }
+
+    // Unset dependencies fall back to the common pool, daemon batch threads, the default codec and no metrics or tracing
+    @Builder(access = AccessLevel.PACKAGE)
+    private GarminPayService(
+        GarminPayProxy garminPayProxy, Executor refreshExecutor, GarminPayMetricsListener metricsListener,
+        ThreadFactory batchThreadFactory, GarminPayCodec codec, GarminPayTracer tracer
+    ) {
+        this.tracer = tracer != null ? tracer : GarminPayTracer.NOOP;
         this.garminPayProxy = garminPayProxy;
+        this.metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
+        this.batchThreadFactory = batchThreadFactory != null ? batchThreadFactory : new DaemonThreadFactory("garminpay-batch");
+        this.encryptionService = new EncryptionService(codec != null ? codec : GarminPayCodec.getDefault());
+        this.keyAgreementManager = new KeyAgreementManager(
+            garminPayProxy, encryptionService, refreshExecutor != null ? refreshExecutor : ForkJoinPool.commonPool(), this.metricsListener
+        );
     }
 
     /**
@@ -49,106 +96,201 @@ final class GarminPayService {
      * @return RegisterCardResponse containing deepLinkUrl with the corresponding push identifier
      */
     public RegisterCardResponse registerCard(GarminPayCardData garminPayCardData, URI callbackUrl) {
-        garminPayProxy.refreshRootLinks(); // Refresh root links for proxy
+        long start = System.nanoTime();
+        GarminPaySpan span = tracer.startOperation(REGISTER_CARD_SPAN);
+        try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+            KeyMaterial keyMaterial = keyAgreementManager.getKeyMaterial();
+
+            RegisterCardResponse registerCardResponse = garminPayProxy.registerCard(
+                keyMaterial.getEncryptionContext().encrypt(garminPayCardData)
+            );
 
-        if (this.exchangeKeysObject == null || isTimestampOverdue(this.exchangeKeysObject.getCreatedTs())) {
-            refreshKeys(); // secretKey is set in here as well
+            RegisterCardResponse response = addCallbackUrl(registerCardResponse, callbackUrl);
+            metricsListener.onCardRegistration(System.nanoTime() - start, null);
+            return response;
+        } catch (RuntimeException e) {
+            metricsListener.onCardRegistration(System.nanoTime() - start, e);
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
         }
-        log.debug("Proceeding with valid keys");
-
-        RegisterCardResponse registerCardResponse = garminPayProxy.registerCard(
-            encryptionService.encryptCardData(
-                garminPayCardData,
-                secretKey,
-                exchangeKeysObject.getKeyId()
-            )
-        );
+    }
 
-        if (registerCardResponse.getDeepLinkUrl() == null) {
-            log.warn("Response from Garmin Pay did not return expected deeplink URL (they were null or empty)");
-            throw new GarminPaySDKException("Expected deeplink URLs were null or empty");
+    /**
+     * Registers a card with the Garmin Pay platform without blocking on the token, key exchange or registration calls.
+     *
+     * @param garminPayCardData Card to be registered
+     * @param callbackUrl URL to be called when the registration is complete
+     * @return future completed with the RegisterCardResponse, or exceptionally with a GarminPayBaseException
+     */
+    public CompletableFuture<RegisterCardResponse> registerCardAsync(GarminPayCardData garminPayCardData, URI callbackUrl) {
+        long start = System.nanoTime();
+        GarminPaySpan span = tracer.startOperation(REGISTER_CARD_SPAN);
+        CompletableFuture<KeyMaterial> keyMaterialFuture;
+        try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+            keyMaterialFuture = keyAgreementManager.getKeyMaterialAsync();
         }
+        return keyMaterialFuture
+            .thenCompose(keyMaterial -> {
+                // The key exchange may complete on an I/O thread, the registration call is still traced under this operation
+                try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+                    return garminPayProxy.registerCardAsync(keyMaterial.getEncryptionContext().encrypt(garminPayCardData));
+                }
+            })
+            .thenApply(registerCardResponse -> addCallbackUrl(registerCardResponse, callbackUrl))
+            .whenComplete((response, error) -> {
+                metricsListener.onCardRegistration(System.nanoTime() - start, CompletionUtil.unwrap(error));
+                if (error != null) {
+                    span.recordException(CompletionUtil.unwrap(error));
+                }
+                span.end();
+            });
+    }
 
-        try {
-            log.debug("Adding pushId to callback URL");
-            URI newCallbackUrl = new URIBuilder(callbackUrl)
-                .addParameter("pushId", registerCardResponse.getPushId()).build();
+    /**
+     * Registers a batch of cards with at most maxConcurrency registrations in flight at once.
+     * The key agreement and OAuth token are resolved once up front and shared by every registration,
+     * a failed registration is recorded in its result and does not stop the rest of the batch.
+     * Cards are pulled from the iterator only as registrations complete, so no more than maxConcurrency cards are held
+     * at once and a lazily produced stream of cards is never loaded in full.
+     *
+     * @param cards Cards to be registered
+     * @param callbackUrl URL to be called when each registration is complete
+     * @param maxConcurrency maximum number of registrations executed in parallel
+     * @return one result per card, in the order the cards were given
+     * @throws GarminPayBaseException if the shared key agreement could not be established
+     */
+    public List<CardRegistrationResult> registerCards(
+        Iterable<GarminPayCardData> cards, URI callbackUrl, int maxConcurrency
+    ) {
+        Iterator<GarminPayCardData> remaining = cards.iterator();
+        List<CardRegistrationResult> results = new ArrayList<>();
+        if (!remaining.hasNext()) {
+            return results;
+        }
 
-            log.debug("Adding callback URL to deeplink URL");
-            URI newDeepLinkUrl = new URIBuilder(registerCardResponse.getDeepLinkUrl())
-                .addParameter("callbackURL", newCallbackUrl.toString()).build();
+        GarminPaySpan span = tracer.startOperation(REGISTER_CARDS_SPAN);
+        ExecutorService workers = null;
+        try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+            // Establish the token and key agreement before fanning out so the batch does not start with a burst of refreshes
+            keyAgreementManager.getKeyMaterial();
 
-            registerCardResponse.setDeepLinkUrl(newDeepLinkUrl.toString());
-            return registerCardResponse;
-        } catch (URISyntaxException e) {
-            log.warn("Failed to build deeplink URL");
-            throw new GarminPaySDKException("Failed to build new deeplink URL", e);
+            log.debug("Registering batch of cards with up to {} workers", maxConcurrency);
+            // Threads are only started as registrations are submitted, a small batch never starts maxConcurrency of them
+            workers = Executors.newFixedThreadPool(maxConcurrency, batchThreadFactory);
+            CompletionService<CardRegistrationResult> registrations = new ExecutorCompletionService<>(workers);
+            int inFlight = 0;
+            while (remaining.hasNext()) {
+                if (inFlight == maxConcurrency) {
+                    storeResult(results, awaitRegistration(registrations));
+                    inFlight--;
+                }
+
+                GarminPayCardData card = remaining.next();
+                int index = results.size();
+                results.add(null);
+                registrations.submit(() -> {
+                    try (GarminPaySpan.Scope workerScope = span.makeCurrent()) {
+                        return register(index, card, callbackUrl);
+                    }
+                });
+                inFlight++;
+            }
+            for (; inFlight > 0; inFlight--) {
+                storeResult(results, awaitRegistration(registrations));
+            }
+            span.setAttribute("garminpay.batch.size", results.size());
+            return results;
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            span.end();
         }
     }
 
     /**
-     * Checks the health status of the Garmin Pay platform.
-     *
-     * @return boolean indicating if the health status is "UP"
+     * Negotiates the key agreement ahead of the first registration.
      */
-    public boolean checkHealthStatus() {
-        log.debug("Checking health status of Garmin Pay platform");
-        try {
-            HealthResponse healthResponse = garminPayProxy.getHealthStatus();
-            return healthResponse.getStatusCode() >= 200 && healthResponse.getStatusCode() < 300;
-        } catch (GarminPayBaseException e) {
-            log.warn("Failed to check health status of Garmin Pay platform");
-            return false;
+    void warmUpKeyAgreement() {
+        keyAgreementManager.getKeyMaterial();
+    }
+
+    /**
+     * Non-blocking variant of {@link #warmUpKeyAgreement()}.
+     */
+    CompletableFuture<Void> warmUpKeyAgreementAsync() {
+        return keyAgreementManager.getKeyMaterialAsync().thenApply(keyMaterial -> null);
+    }
+
+    /**
+     * Encrypts a synthetic card and builds a deeplink for it the given number of times without sending anything,
+     * so the serializers, cipher and URL building used by every registration are loaded and compiled up front.
+     */
+    void warmUpRegistrationPath(int iterations) {
+        KeyMaterial keyMaterial = keyAgreementManager.getKeyMaterial();
+        for (int i = 0; i < iterations; i++) {
+            keyMaterial.getEncryptionContext().encrypt(WARM_UP_CARD);
+            addCallbackUrl(RegisterCardResponse.builder()
+                .deepLinkUrl(WARM_UP_DEEPLINK_URL)
+                .pushId(Integer.toString(i))
+                .build(), WARM_UP_CALLBACK_URL);
         }
     }
 
-    // Does not check validity of keys when they are received
-    private void refreshKeys() {
-        // Generate a new key
-        log.debug("Refreshing key agreement with GarminPay");
-        String clientPublicKey;
-        String clientPrivateKey;
+    private CardRegistrationResult register(int index, GarminPayCardData card, URI callbackUrl) {
+        CardRegistrationResult.CardRegistrationResultBuilder result = CardRegistrationResult.builder().index(index);
         try {
-            ECKey key;
-            ECKeyGenerator generator = new ECKeyGenerator(Curve.P_256);
-            key = generator.generate();
-
-            clientPublicKey = String.valueOf(Hex.encodeHex(key.toPublicKey().getEncoded()));
-            clientPrivateKey = String.valueOf(Hex.encodeHex(key.toPrivateKey().getEncoded()));
-        } catch (JOSEException e) {
-            log.warn("Failed to generate key");
-            throw new GarminPayEncryptionException("Failed to generate client key", e);
+            return result.registerCardResponse(registerCard(card, callbackUrl)).build();
+        } catch (RuntimeException e) {
+            log.warn("Failed to register card {} of batch", index);
+            GarminPayBaseException exception = e instanceof GarminPayBaseException
+                ? (GarminPayBaseException) e
+                : new GarminPaySDKException("Failed to register card", e);
+            return result.exception(exception).build();
         }
+    }
 
-        // Exchange keys
-        exchangeKeysObject = garminPayProxy.exchangeKeys(clientPublicKey);
+    private static CardRegistrationResult awaitRegistration(CompletionService<CardRegistrationResult> registrations) {
+        try {
+            return registrations.take().get();
+        } catch (ExecutionException e) {
+            // register records every RuntimeException in its result, only an Error gets here
+            throw new GarminPaySDKException("Failed to register card", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GarminPaySDKException("Batch card registration was interrupted", e);
+        }
+    }
 
-        // Obtain shared secret
-        secretKey = encryptionService.generateKeyAgreement(
-            exchangeKeysObject.getServerPublicKey(),
-            clientPrivateKey
-        );
+    private static void storeResult(List<CardRegistrationResult> results, CardRegistrationResult result) {
+        results.set(result.getIndex(), result);
     }
 
-    /**
-     * Checks a UTC timestamp to see if it is 4 or more hours overdue.
-     *
-     * @param createdTs UTC timestamp to be checked
-     * @return true if the timestamp is overdue, false otherwise
-     */
-    private boolean isTimestampOverdue(String createdTs) {
-        log.debug("Checking if key creation timestamp is 4 or more hours overdue");
+    private RegisterCardResponse addCallbackUrl(RegisterCardResponse registerCardResponse, URI callbackUrl) {
+        if (registerCardResponse.getDeepLinkUrl() == null) {
+            log.warn("Response from Garmin Pay did not return expected deeplink URL (they were null or empty)");
+            throw new GarminPaySDKException("Expected deeplink URLs were null or empty");
+        }
 
         try {
-            long hoursBetween = ChronoUnit.HOURS.between(
-                Instant.parse(createdTs),
-                Instant.now()
-            );
-            log.debug("Existing key is {} hours overdue", hoursBetween);
-            return hoursBetween >= OVERDUE_HOURS_THRESHOLD;
-        } catch (DateTimeParseException e) {
-            log.warn("Could not parse key creation timestamp: {} marking key as overdue", createdTs);
-            return true;
+            log.debug("Adding pushId to callback URL");
+            URI newCallbackUrl = new URIBuilder(callbackUrl)
+                .addParameter("pushId", registerCardResponse.getPushId()).build();
+
+            log.debug("Adding callback URL to deeplink URL");
+            URI newDeepLinkUrl = new URIBuilder(registerCardResponse.getDeepLinkUrl())
+                .addParameter("callbackURL", newCallbackUrl.toString()).build();
+
+            registerCardResponse.setDeepLinkUrl(newDeepLinkUrl.toString());
+            return registerCardResponse;
+        } catch (URISyntaxException e) {
+            log.warn("Failed to build deeplink URL");
+            throw new GarminPaySDKException("Failed to build new deeplink URL", e);
         }
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.HealthSnapshot;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves health checks of the Garmin Pay platform from the most recent check result.
+ * Blocking checks are sent with the blocking client and concurrent blocking callers share one request, non-blocking checks
+ * and background polling share a single non-blocking request. When polling is started a background task keeps the result
+ * fresh so callers never wait on the platform. Results older than the maximum age are checked again on demand.
+ * Every check sent to the platform is traced with an operation span, results served from the cache are not.
+ */
+@Slf4j
+final class HealthMonitor {
+    static final String CHECK_HEALTH_SPAN = "garminpay.checkHealth";
+
+    private final GarminPayProxy garminPayProxy;
+    private final GarminPayTracer tracer;
+    private final long maxAgeNanos;
+    private final List<HealthStatusListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<CompletableFuture<HealthSnapshot>> inFlight = new AtomicReference<>();
+    private final ReentrantLock checkLock = new ReentrantLock();
+    private volatile CachedSnapshot cached;
+
+    /**
+     * Creates a monitor whose results are reused for up to maxAge, a zero maxAge only shares concurrent checks.
+     */
+    HealthMonitor(GarminPayProxy garminPayProxy, Duration maxAge) {
+        this(garminPayProxy, maxAge, GarminPayTracer.NOOP);
+    }
+
+    /**
+     * Creates a monitor whose results are reused for up to maxAge and whose checks are traced with the given tracer.
+     */
+    HealthMonitor(GarminPayProxy garminPayProxy, Duration maxAge, GarminPayTracer tracer) {
+        this.garminPayProxy = garminPayProxy;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.tracer = tracer;
+    }
+
+    /**
+     * Starts polling the platform on the scheduler, beginning immediately.
+     */
+    void start(ScheduledExecutorService scheduler, Duration interval) {
+        log.debug("Polling Garmin Pay health status every {}", interval);
+        scheduler.scheduleWithFixedDelay(this::poll, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    void addListener(HealthStatusListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the most recent check result without checking the platform.
+     *
+     * @return the latest snapshot, null if no check has completed yet
+     */
+    HealthSnapshot getSnapshot() {
+        CachedSnapshot current = cached;
+        return current != null ? current.snapshot : null;
+    }
+
+    /**
+     * Returns whether the platform is healthy, from the most recent result if it is fresh enough.
+     *
+     * @return true if the platform is healthy, false otherwise
+     */
+    boolean checkHealthStatus() {
+        CachedSnapshot observed = cached;
+        if (isFresh(observed)) {
+            return observed.snapshot.isHealthy();
+        }
+
+        checkLock.lock();
+        try {
+            CachedSnapshot latest = cached;
+            if (latest != observed) {
+                log.debug("Health status was checked by another caller");
+                return latest.snapshot.isHealthy();
+            }
+
+            log.debug("Checking health status of Garmin Pay platform");
+            long start = System.nanoTime();
+            GarminPaySpan span = tracer.startOperation(CHECK_HEALTH_SPAN);
+            HealthResponse healthResponse = null;
+            GarminPayBaseException error = null;
+            try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+                healthResponse = garminPayProxy.getHealthStatus();
+            } catch (GarminPayBaseException e) {
+                span.recordException(e);
+                error = e;
+            } catch (RuntimeException e) {
+                span.recordException(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+            return record(healthResponse, error, start).isHealthy();
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #checkHealthStatus()}.
+     *
+     * @return future completed with true if the platform is healthy, false otherwise
+     */
+    CompletableFuture<Boolean> checkHealthStatusAsync() {
+        HealthSnapshot fresh = freshSnapshot();
+        if (fresh != null) {
+            return CompletableFuture.completedFuture(fresh.isHealthy());
+        }
+        return check().thenApply(HealthSnapshot::isHealthy);
+    }
+
+    /**
+     * Checks the platform, joining the check already in flight if there is one.
+     */
+    CompletableFuture<HealthSnapshot> check() {
+        while (true) {
+            CompletableFuture<HealthSnapshot> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+
+            CompletableFuture<HealthSnapshot> check = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, check)) {
+                log.debug("Checking health status of Garmin Pay platform");
+                long start = System.nanoTime();
+                GarminPaySpan span = tracer.startOperation(CHECK_HEALTH_SPAN);
+                CompletableFuture<HealthResponse> response;
+                try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+                    response = garminPayProxy.getHealthStatusAsync();
+                } catch (RuntimeException e) {
+                    response = new CompletableFuture<>();
+                    response.completeExceptionally(e);
+                }
+                response.whenComplete((healthResponse, error) -> {
+                    if (error != null) {
+                        span.recordException(CompletionUtil.unwrap(error));
+                    }
+                    span.end();
+                    complete(check, healthResponse, error, start);
+                });
+                return check;
+            }
+        }
+    }
+
+    private void complete(CompletableFuture<HealthSnapshot> check, HealthResponse healthResponse, Throwable error, long start) {
+        Throwable cause = CompletionUtil.unwrap(error);
+        if (cause != null && !(cause instanceof GarminPayBaseException)) {
+            inFlight.set(null);
+            check.completeExceptionally(cause);
+            return;
+        }
+
+        HealthSnapshot snapshot = record(healthResponse, (GarminPayBaseException) cause, start);
+        inFlight.set(null);
+        check.complete(snapshot);
+    }
+
+    /**
+     * Stores the result of a check as the latest snapshot and notifies listeners if the health changed.
+     */
+    private HealthSnapshot record(HealthResponse healthResponse, GarminPayBaseException cause, long start) {
+        long now = System.nanoTime();
+        HealthSnapshot.HealthSnapshotBuilder snapshot = HealthSnapshot.builder()
+            .checkedAt(Instant.now())
+            .latency(Duration.ofNanos(now - start));
+        if (cause == null) {
+            int statusCode = healthResponse.getStatusCode();
+            snapshot.statusCode(statusCode).healthy(statusCode >= 200 && statusCode < 300);
+        } else {
+            log.warn("Failed to check health status of Garmin Pay platform");
+            if (cause instanceof GarminPayApiException) {
+                snapshot.statusCode(((GarminPayApiException) cause).getStatus());
+            }
+            snapshot.exception(cause);
+        }
+
+        HealthSnapshot current = snapshot.build();
+        CachedSnapshot previous = cached;
+        cached = new CachedSnapshot(current, now);
+
+        if (previous == null || previous.snapshot.isHealthy() != current.isHealthy()) {
+            notifyListeners(previous != null ? previous.snapshot : null, current);
+        }
+        return current;
+    }
+
+    private void notifyListeners(HealthSnapshot previous, HealthSnapshot current) {
+        log.info("Garmin Pay platform is {}", current.isHealthy() ? "healthy" : "unhealthy");
+        for (HealthStatusListener listener : listeners) {
+            try {
+                listener.onHealthStatusChange(previous, current);
+            } catch (RuntimeException e) {
+                log.warn("Health status listener failed", e);
+            }
+        }
+    }
+
+    private HealthSnapshot freshSnapshot() {
+        CachedSnapshot current = cached;
+        return isFresh(current) ? current.snapshot : null;
+    }
+
+    private boolean isFresh(CachedSnapshot snapshot) {
+        return snapshot != null && System.nanoTime() - snapshot.nanos < maxAgeNanos;
+    }
+
+    private void poll() {
+        // An exception would cancel the scheduled task, failures are already recorded in the snapshot
+        try {
+            check().whenComplete((snapshot, error) -> {
+                if (error != null) {
+                    log.warn("Background health check of Garmin Pay platform failed", error);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Background health check of Garmin Pay platform failed", e);
+        }
+    }
+
+    /**
+     * Snapshot paired with the monotonic time it was taken, published together.
+     */
+    private static final class CachedSnapshot {
+        private final HealthSnapshot snapshot;
+        private final long nanos;
+
+        CachedSnapshot(HealthSnapshot snapshot, long nanos) {
+            this.snapshot = snapshot;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.model.response.HealthSnapshot;
+
+/**
+ * Notified when the health of the Garmin Pay platform changes between healthy and unhealthy.
+ * Called on SDK threads, implementations must be fast and must not block.
+ */
+@FunctionalInterface
+public interface HealthStatusListener {
+    /**
+     * Called with the first health check result and whenever a check result differs from the previous one.
+     *
+     * @param previous the previous check result, null for the first check
+     * @param current  the check result that changed the health status
+     */
+    void onHealthStatusChange(HealthSnapshot previous, HealthSnapshot current);
+}
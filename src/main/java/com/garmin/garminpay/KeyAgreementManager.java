@@ -0,0 +1,298 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.encryption.CardEncryptionContext;
+import com.garmin.garminpay.encryption.EncryptionService;
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.SecretKey;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Owns the key agreement with the Garmin Pay platform.
+ * Readers only perform a volatile read of the current {@link KeyMaterial}, a single caller negotiates a new key
+ * when the current one has expired and keys close to expiring are replaced in the background.
+ */
+@Slf4j
+final class KeyAgreementManager {
+    private static final long MAX_KEY_AGE_MILLIS = Duration.ofHours(4).toMillis();
+    private static final long REFRESH_AHEAD_MILLIS = Duration.ofMinutes(10).toMillis();
+    private final GarminPayProxy garminPayProxy;
+    private final EncryptionService encryptionService;
+    private final Executor refreshExecutor;
+    private final GarminPayMetricsListener metricsListener;
+    private final AtomicReference<KeyMaterial> current = new AtomicReference<>();
+    private final AtomicBoolean refreshAheadRunning = new AtomicBoolean(false);
+    private final AtomicReference<CompletableFuture<KeyMaterial>> refreshInFlight = new AtomicReference<>();
+
+    KeyAgreementManager(GarminPayProxy garminPayProxy, EncryptionService encryptionService, Executor refreshExecutor) {
+        this(garminPayProxy, encryptionService, refreshExecutor, GarminPayMetricsListener.NOOP);
+    }
+
+    KeyAgreementManager(
+        GarminPayProxy garminPayProxy, EncryptionService encryptionService, Executor refreshExecutor,
+        GarminPayMetricsListener metricsListener
+    ) {
+        this.garminPayProxy = garminPayProxy;
+        this.encryptionService = encryptionService;
+        this.refreshExecutor = refreshExecutor;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Returns key material that is valid for encryption, negotiating a new key agreement if needed.
+     *
+     * @return the current key material
+     */
+    KeyMaterial getKeyMaterial() {
+        KeyMaterial keyMaterial = current.get();
+        long now = System.currentTimeMillis();
+
+        if (keyMaterial == null || keyMaterial.isExpired(now)) {
+            return refresh(keyMaterial);
+        }
+
+        if (keyMaterial.isRefreshDue(now)) {
+            scheduleRefreshAhead(keyMaterial);
+        }
+        log.debug("Proceeding with valid keys");
+        return keyMaterial;
+    }
+
+    /**
+     * Returns key material that is valid for encryption without blocking, negotiating a new key agreement if needed.
+     *
+     * @return future completed with the current key material
+     */
+    CompletableFuture<KeyMaterial> getKeyMaterialAsync() {
+        KeyMaterial keyMaterial = current.get();
+        long now = System.currentTimeMillis();
+
+        if (keyMaterial == null || keyMaterial.isExpired(now)) {
+            return refreshAsync(keyMaterial);
+        }
+
+        if (keyMaterial.isRefreshDue(now)) {
+            scheduleRefreshAhead(keyMaterial);
+        }
+        return CompletableFuture.completedFuture(keyMaterial);
+    }
+
+    /**
+     * Non-blocking variant of {@link #refresh(KeyMaterial)}.
+     */
+    private CompletableFuture<KeyMaterial> refreshAsync(KeyMaterial observed) {
+        while (true) {
+            KeyMaterial latest = current.get();
+            if (latest != observed && latest != null && !latest.isExpired(System.currentTimeMillis())) {
+                return CompletableFuture.completedFuture(latest);
+            }
+
+            CompletableFuture<KeyMaterial> inFlight = refreshInFlight.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+
+            CompletableFuture<KeyMaterial> refresh = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, refresh)) {
+                log.debug("Refreshing key agreement with GarminPay asynchronously");
+                long start = System.nanoTime();
+                try {
+                    ClientKey clientKey = generateClientKey();
+                    garminPayProxy.exchangeKeysAsync(clientKey.publicKey)
+                        .thenApply(exchangeKeysResponse -> toKeyMaterial(exchangeKeysResponse, clientKey))
+                        .whenComplete((refreshed, error) -> {
+                            metricsListener.onKeyExchange(System.nanoTime() - start, CompletionUtil.unwrap(error));
+                            if (error != null) {
+                                fail(refresh, error);
+                            } else {
+                                publish(refresh, refreshed);
+                            }
+                        });
+                } catch (RuntimeException e) {
+                    metricsListener.onKeyExchange(System.nanoTime() - start, e);
+                    fail(refresh, e);
+                }
+                return refresh;
+            }
+        }
+    }
+
+    /**
+     * Negotiates a new key agreement unless another caller replaced the observed key while this one waited.
+     * Blocking and non-blocking callers share one key exchange, a caller finding an exchange in flight waits for its key.
+     */
+    private KeyMaterial refresh(KeyMaterial observed) {
+        while (true) {
+            KeyMaterial latest = current.get();
+            if (latest != observed && latest != null && !latest.isExpired(System.currentTimeMillis())) {
+                log.debug("Key agreement was refreshed by another caller");
+                return latest;
+            }
+
+            CompletableFuture<KeyMaterial> inFlight = refreshInFlight.get();
+            if (inFlight != null) {
+                log.debug("Waiting for the key exchange in flight");
+                try {
+                    return inFlight.join();
+                } catch (CompletionException e) {
+                    Throwable cause = CompletionUtil.unwrap(e);
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+                }
+            }
+
+            CompletableFuture<KeyMaterial> refresh = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, refresh)) {
+                try {
+                    KeyMaterial refreshed = exchangeKeys();
+                    publish(refresh, refreshed);
+                    return refreshed;
+                } catch (RuntimeException e) {
+                    fail(refresh, e);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores new key material before clearing the exchange in flight, so a caller that finds no exchange in flight always
+     * finds the new key.
+     */
+    private void publish(CompletableFuture<KeyMaterial> refresh, KeyMaterial refreshed) {
+        current.set(refreshed);
+        refreshInFlight.compareAndSet(refresh, null);
+        refresh.complete(refreshed);
+    }
+
+    private void fail(CompletableFuture<KeyMaterial> refresh, Throwable error) {
+        refreshInFlight.compareAndSet(refresh, null);
+        refresh.completeExceptionally(error);
+    }
+
+    private void scheduleRefreshAhead(KeyMaterial observed) {
+        if (!refreshAheadRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        log.debug("Key agreement is close to expiring, refreshing in the background");
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(observed);
+                } catch (GarminPayBaseException e) {
+                    log.warn("Background refresh of key agreement failed, current key will be used until it expires", e);
+                } finally {
+                    refreshAheadRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Background refresh of key agreement was rejected", e);
+            refreshAheadRunning.set(false);
+        }
+    }
+
+    // Does not check validity of keys when they are received
+    private KeyMaterial exchangeKeys() {
+        long start = System.nanoTime();
+        try {
+            // Generate a new key
+            log.debug("Refreshing key agreement with GarminPay");
+            ClientKey clientKey = generateClientKey();
+
+            // Exchange keys
+            ExchangeKeysResponse exchangeKeysResponse = garminPayProxy.exchangeKeys(clientKey.publicKey);
+
+            KeyMaterial keyMaterial = toKeyMaterial(exchangeKeysResponse, clientKey);
+            metricsListener.onKeyExchange(System.nanoTime() - start, null);
+            return keyMaterial;
+        } catch (RuntimeException e) {
+            metricsListener.onKeyExchange(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private ClientKey generateClientKey() {
+        KeyPair keyPair = encryptionService.generateClientKeyPair();
+        // Only the public key is sent to Garmin Pay, the private key is used for the key agreement as is
+        return new ClientKey(Hex.encodeHexString(keyPair.getPublic().getEncoded()), keyPair.getPrivate());
+    }
+
+    private KeyMaterial toKeyMaterial(ExchangeKeysResponse exchangeKeysResponse, ClientKey clientKey) {
+        // Obtain shared secret
+        SecretKey secretKey = encryptionService.generateKeyAgreement(
+            exchangeKeysResponse.getServerPublicKey(),
+            clientKey.privateKey
+        );
+
+        return buildKeyMaterial(exchangeKeysResponse, secretKey);
+    }
+
+    /**
+     * Keys expire 4 hours after creation or at the server expiration timestamp, whichever is first.
+     * A key whose creation timestamp cannot be parsed is treated as already expired.
+     */
+    private KeyMaterial buildKeyMaterial(ExchangeKeysResponse exchangeKeysResponse, SecretKey secretKey) {
+        CardEncryptionContext encryptionContext = encryptionService.createEncryptionContext(secretKey, exchangeKeysResponse.getKeyId());
+        Long createdAt = parseEpochMillis(exchangeKeysResponse.getCreatedTs());
+        if (createdAt == null) {
+            log.warn("Could not parse key creation timestamp: {} marking key as overdue", exchangeKeysResponse.getCreatedTs());
+            return new KeyMaterial(exchangeKeysResponse.getKeyId(), encryptionContext, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        long expiresAt = createdAt + MAX_KEY_AGE_MILLIS;
+        Long serverExpiresAt = parseEpochMillis(exchangeKeysResponse.getExpirationTs());
+        if (serverExpiresAt != null) {
+            expiresAt = Math.min(expiresAt, serverExpiresAt);
+        }
+
+        long refreshAhead = Math.min(REFRESH_AHEAD_MILLIS, Math.max(0, expiresAt - createdAt) / 2);
+        log.debug("Key {} expires at {}", exchangeKeysResponse.getKeyId(), Instant.ofEpochMilli(expiresAt));
+        return new KeyMaterial(exchangeKeysResponse.getKeyId(), encryptionContext, expiresAt, expiresAt - refreshAhead);
+    }
+
+    private static Long parseEpochMillis(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            log.debug("Could not parse key timestamp: {}", timestamp);
+            return null;
+        }
+    }
+
+    /**
+     * Client key pair used for a single key exchange, with the public key hex encoded for the request.
+     */
+    private static final class ClientKey {
+        private final String publicKey;
+        private final PrivateKey privateKey;
+
+        ClientKey(String publicKey, PrivateKey privateKey) {
+            this.publicKey = publicKey;
+            this.privateKey = privateKey;
+        }
+    }
+}
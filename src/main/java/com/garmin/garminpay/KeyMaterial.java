@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.encryption.CardEncryptionContext;
+
+import lombok.Value;
+
+/**
+ * Immutable snapshot of a key agreement with the Garmin Pay platform.
+ * The keyId and the encryption context built from its shared secret are always published together so readers never see
+ * a mismatched pair.
+ */
+@Value
+class KeyMaterial {
+    /**
+     * The server keyId the secret key was agreed with.
+     */
+    String keyId;
+
+    /**
+     * Encrypts card data with the shared secret agreed for keyId.
+     */
+    CardEncryptionContext encryptionContext;
+
+    /**
+     * Epoch millis after which the key can no longer be used.
+     */
+    long expiresAtMillis;
+
+    /**
+     * Epoch millis after which a replacement key should be negotiated in the background.
+     */
+    long refreshAtMillis;
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    boolean isRefreshDue(long nowMillis) {
+        return nowMillis >= refreshAtMillis;
+    }
+}
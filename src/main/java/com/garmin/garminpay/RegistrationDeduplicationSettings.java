@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings of the de-duplication of repeated registrations of the same card and callback URL.
+ */
+@Value
+@Builder
+public class RegistrationDeduplicationSettings {
+    /**
+     * Whether repeated registrations are de-duplicated, disabled by default.
+     */
+    @Builder.Default
+    boolean enabled = false;
+
+    /**
+     * How long a successful registration is returned for repeats of the same card and callback URL.
+     */
+    @Builder.Default
+    Duration window = Duration.ofSeconds(5);
+
+    /**
+     * The maximum number of successful registrations remembered, the oldest are forgotten first.
+     */
+    @Builder.Default
+    int maxEntries = 10_000;
+}
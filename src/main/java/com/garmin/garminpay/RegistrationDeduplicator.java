@@ -0,0 +1,274 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.exception.GarminPayEncryptionException;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * De-duplicates registrations of the same card and callback URL in front of {@link GarminPayService}.
+ * A registration that arrives while the same one is in flight joins it, and a repeat within the window after a successful
+ * registration gets the same deeplink and pushId without encrypting or sending the card again. Failures are shared with
+ * the registrations that joined them but are not remembered.
+ * Registrations are keyed by an HMAC of the PAN, expiry and callback URL under a random key that never leaves this instance,
+ * only the key and the RegisterCardResponse are held, never card data.
+ */
+@Slf4j
+final class RegistrationDeduplicator {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getEncoder().withoutPadding();
+
+    private final GarminPayService garminPayService;
+    private final long windowNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final ThreadLocal<Mac> mac;
+    private final Map<String, CompletableFuture<RegisterCardResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock completedLock = new ReentrantLock();
+    private final LinkedHashMap<String, Completed> completed = new LinkedHashMap<>();
+
+    RegistrationDeduplicator(GarminPayService garminPayService, RegistrationDeduplicationSettings settings) {
+        this(garminPayService, settings, System::nanoTime);
+    }
+
+    RegistrationDeduplicator(GarminPayService garminPayService, RegistrationDeduplicationSettings settings, LongSupplier nanoClock) {
+        if (settings.getMaxEntries() < 0) {
+            throw new IllegalArgumentException("Registration de-duplication max entries cannot be negative");
+        }
+        this.garminPayService = garminPayService;
+        this.windowNanos = settings.getWindow().toNanos();
+        this.maxEntries = settings.getMaxEntries();
+        this.nanoClock = nanoClock;
+
+        byte[] salt = new byte[32];
+        new SecureRandom().nextBytes(salt);
+        SecretKeySpec hmacKey = new SecretKeySpec(salt, HMAC_ALGORITHM);
+        Arrays.fill(salt, (byte) 0);
+        this.mac = ThreadLocal.withInitial(() -> newMac(hmacKey));
+    }
+
+    /**
+     * Registers a card unless the same card and callback URL is in flight or was registered within the window.
+     *
+     * @see GarminPayService#registerCard(GarminPayCardData, URI)
+     */
+    RegisterCardResponse registerCard(GarminPayCardData garminPayCardData, URI callbackUrl) {
+        String key = key(garminPayCardData, callbackUrl);
+        RegisterCardResponse recent = recent(key);
+        if (recent != null) {
+            return copy(recent);
+        }
+
+        CompletableFuture<RegisterCardResponse> registration = new CompletableFuture<>();
+        CompletableFuture<RegisterCardResponse> existing = claim(key, registration);
+        if (existing != null) {
+            log.debug("Joining in-flight registration of the same card");
+            try {
+                return copy(existing.join());
+            } catch (CompletionException e) {
+                Throwable cause = CompletionUtil.unwrap(e);
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
+        }
+
+        try {
+            RegisterCardResponse response = garminPayService.registerCard(garminPayCardData, callbackUrl);
+            complete(key, registration, response, null);
+            return response;
+        } catch (RuntimeException e) {
+            complete(key, registration, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #registerCard(GarminPayCardData, URI)}.
+     *
+     * @see GarminPayService#registerCardAsync(GarminPayCardData, URI)
+     */
+    CompletableFuture<RegisterCardResponse> registerCardAsync(GarminPayCardData garminPayCardData, URI callbackUrl) {
+        String key = key(garminPayCardData, callbackUrl);
+        RegisterCardResponse recent = recent(key);
+        if (recent != null) {
+            return CompletableFuture.completedFuture(copy(recent));
+        }
+
+        CompletableFuture<RegisterCardResponse> registration = new CompletableFuture<>();
+        CompletableFuture<RegisterCardResponse> existing = claim(key, registration);
+        if (existing != null) {
+            log.debug("Joining in-flight async registration of the same card");
+            return existing.thenApply(RegistrationDeduplicator::copy);
+        }
+
+        CompletableFuture<RegisterCardResponse> response;
+        try {
+            response = garminPayService.registerCardAsync(garminPayCardData, callbackUrl);
+        } catch (RuntimeException e) {
+            complete(key, registration, null, e);
+            throw e;
+        }
+        return response.whenComplete((registered, error) -> complete(key, registration, registered, CompletionUtil.unwrap(error)));
+    }
+
+    /**
+     * Returns the response of a successful registration of the key within the window, null if there is none.
+     */
+    private RegisterCardResponse recent(String key) {
+        RegisterCardResponse recent = remembered(key);
+        if (recent != null) {
+            log.debug("Returning recent registration of the same card");
+        }
+        return recent;
+    }
+
+    /**
+     * Makes the registration the in-flight one for the key, returning the registration to join instead if there is one.
+     */
+    private CompletableFuture<RegisterCardResponse> claim(String key, CompletableFuture<RegisterCardResponse> registration) {
+        CompletableFuture<RegisterCardResponse> existing = inFlight.putIfAbsent(key, registration);
+        if (existing != null) {
+            return existing;
+        }
+
+        // A registration of the same card may have completed between the lookup and claiming the key
+        RegisterCardResponse recent = recent(key);
+        if (recent != null) {
+            inFlight.remove(key, registration);
+            registration.complete(recent);
+            return registration;
+        }
+        return null;
+    }
+
+    /**
+     * Remembers a successful response before the registration stops being in flight, so a repeat always finds one of them.
+     */
+    private void complete(String key, CompletableFuture<RegisterCardResponse> registration, RegisterCardResponse response,
+                          Throwable error) {
+        if (error != null) {
+            inFlight.remove(key, registration);
+            registration.completeExceptionally(error);
+            return;
+        }
+
+        RegisterCardResponse shared = copy(response);
+        remember(key, shared);
+        inFlight.remove(key, registration);
+        registration.complete(shared);
+    }
+
+    private RegisterCardResponse remembered(String key) {
+        completedLock.lock();
+        try {
+            Completed entry = completed.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoClock.getAsLong() - entry.nanos >= windowNanos) {
+                completed.remove(key);
+                return null;
+            }
+            return entry.response;
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private void remember(String key, RegisterCardResponse response) {
+        if (maxEntries == 0 || windowNanos <= 0) {
+            return;
+        }
+
+        completedLock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            // Entries are in insertion order and share one window, so expired entries are always at the head
+            Iterator<Completed> entries = completed.values().iterator();
+            while (entries.hasNext() && now - entries.next().nanos >= windowNanos) {
+                entries.remove();
+            }
+
+            completed.remove(key);
+            completed.put(key, new Completed(response, now));
+            if (completed.size() > maxEntries) {
+                Iterator<String> oldest = completed.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private String key(@NonNull GarminPayCardData garminPayCardData, URI callbackUrl) {
+        byte[] pan = garminPayCardData.getPan().getBytes(StandardCharsets.UTF_8);
+        try {
+            Mac hmac = mac.get();
+            hmac.update(pan);
+            hmac.update((byte) 0);
+            hmac.update(String.valueOf(garminPayCardData.getExpMonth()).getBytes(StandardCharsets.UTF_8));
+            hmac.update((byte) 0);
+            hmac.update(String.valueOf(garminPayCardData.getExpYear()).getBytes(StandardCharsets.UTF_8));
+            hmac.update((byte) 0);
+            hmac.update(String.valueOf(callbackUrl).getBytes(StandardCharsets.UTF_8));
+            return BASE64.encodeToString(hmac.doFinal());
+        } finally {
+            Arrays.fill(pan, (byte) 0);
+        }
+    }
+
+    private static Mac newMac(SecretKeySpec hmacKey) {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(hmacKey);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            log.warn("Unable to create {} engine", HMAC_ALGORITHM);
+            throw new GarminPayEncryptionException("Unable to create cryptographic engine", e);
+        }
+    }
+
+    /**
+     * RegisterCardResponse is mutable, every caller gets its own copy of a shared response.
+     */
+    private static RegisterCardResponse copy(RegisterCardResponse response) {
+        return RegisterCardResponse.builder()
+            .deepLinkUrl(response.getDeepLinkUrl())
+            .pushId(response.getPushId())
+            .build();
+    }
+
+    private static final class Completed {
+        private final RegisterCardResponse response;
+        private final long nanos;
+
+        Completed(RegisterCardResponse response, long nanos) {
+            this.response = response;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings of warming up a GarminPayClient before traffic arrives.
+ */
+@Value
+@Builder
+public class WarmUpSettings {
+    /**
+     * The number of pooled connections to open to the Garmin Pay API, none are opened when 0.
+     */
+    @Builder.Default
+    int connections = 4;
+
+    /**
+     * The number of synthetic cards encrypted so the registration path is compiled, none when 0.
+     */
+    @Builder.Default
+    int encryptionIterations = 1_000;
+}
@@ -5,23 +5,31 @@
  */
 package com.garmin.garminpay.client;
 
+import java.io.Closeable;
 import java.io.IOException;
+import javax.net.ssl.SSLContext;
 
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.HttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.message.BasicHeader;
 
 import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
 import com.garmin.garminpay.model.SDKVersion;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.utility.GarminPayCodec;
 
 @Slf4j
-public class APIClient implements Client {
+public class APIClient implements Client, Closeable {
     private final HttpClient httpClient;
     private final BasicHeader versionHeader;
+    private final boolean ownsHttpClient;
+    private final GarminPayMetricsListener metricsListener;
+    private final GarminPayCodec codec;
 
     /**
      * Constructs a new APIClient with default settings.
@@ -33,15 +41,44 @@ public class APIClient implements Client {
     /**
      * Constructs a new APIClient with a custom HttpClient or the default if null.
      * Custom HttpClient proxy shall only be of type {@link java.net.Proxy.Type#HTTP}.
+     * The default HttpClient is a pooled client built from the default {@link HttpClientSettings}.
      *
      * @param httpClient the httpClient to use for requests
      */
     public APIClient(HttpClient httpClient) {
+        this(httpClient, null, null, null, null);
+    }
+
+    /**
+     * Constructs a new APIClient from {@code builder()}, unset dependencies fall back to their defaults.
+     * Custom HttpClient proxy shall only be of type {@link java.net.Proxy.Type#HTTP}.
+     *
+     * @param httpClient      the httpClient to use for requests, a pooled client is built from settings when null
+     * @param settings        pool, timeout and TLS settings for the default HttpClient, ignored for a custom HttpClient,
+     *                        the default settings if null
+     * @param sslContext      context the default HttpClient opens TLS connections with, ignored for a custom HttpClient,
+     *                        a new context is created from settings if null
+     * @param metricsListener listener notified of every request and of the default connection pool, may be null
+     * @param codec           codec used to deserialize response bodies, the default codec if null
+     */
+    @Builder
+    protected APIClient(
+        HttpClient httpClient, HttpClientSettings settings, SSLContext sslContext, GarminPayMetricsListener metricsListener,
+        GarminPayCodec codec
+    ) {
+        metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
         if (httpClient != null) {
             this.httpClient = httpClient;
+            this.ownsHttpClient = false;
         } else {
-            this.httpClient = HttpClients.createDefault();
+            settings = settings != null ? settings : HttpClientSettings.builder().build();
+            this.httpClient = HttpClientFactory.createHttpClient(
+                settings, metricsListener, sslContext != null ? sslContext : HttpClientFactory.createSslContext(settings)
+            );
+            this.ownsHttpClient = true;
         }
+        this.metricsListener = metricsListener;
+        this.codec = codec != null ? codec : GarminPayCodec.getDefault();
         this.versionHeader = new BasicHeader("X-GP-SDK-Version", SDKVersion.VERSION);
     }
 
@@ -55,14 +92,37 @@ public class APIClient implements Client {
      */
     @Override
     public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    /**
+     * Executes the given HTTP request and returns the response.
+     * A successful response body is deserialized into the context's response type directly from the response stream,
+     * error response bodies are kept as bounded content for error parsing and logging.
+     *
+     * @param request the HTTP request to execute
+     * @param context the operation and expected response type of the request
+     * @return the API response
+     * @throws GarminPayApiException if an error occurs during request execution
+     */
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
         log.debug("Executing a {} request to path {}", request.getMethod(), request.getPath());
         // Adds version header to request
         request.addHeader(versionHeader);
         log.debug("Added version header: {}", versionHeader);
 
+        long start = System.nanoTime();
         try {
-            return httpClient.execute(request, response -> APIResponseDTO.fromHttpResponse(response, request.getPath()));
+            APIResponseDTO response = context.getResponseType() == null
+                ? httpClient.execute(request, httpResponse -> APIResponseDTO.fromHttpResponse(httpResponse, request.getPath()))
+                : httpClient.execute(request, httpResponse -> APIResponseDTO.fromHttpResponse(
+                    httpResponse, request.getPath(), codec.readerFor(context.getResponseType())
+                ));
+            metricsListener.onHttpResponse(context.getOperation(), response.getStatus(), System.nanoTime() - start);
+            return response;
         } catch (IOException e) {
+            metricsListener.onHttpFailure(context.getOperation(), e, System.nanoTime() - start);
             log.warn("Encountered an error while executing a {} request to path {}. Encountered exception message: {}",
                 request.getMethod(), request.getPath(), e.getMessage());
             ErrorResponse errorResponse = ErrorResponse.builder()
@@ -71,6 +131,21 @@ public class APIClient implements Client {
                 .build();
 
             throw new GarminPayApiException("GarminPay failed to execute request", errorResponse);
+        } catch (RuntimeException e) {
+            metricsListener.onHttpFailure(context.getOperation(), e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the default HttpClient and its connection pool, a custom HttpClient is left open for its owner to close.
+     *
+     * @throws IOException if the HttpClient fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsHttpClient && httpClient instanceof CloseableHttpClient) {
+            ((CloseableHttpClient) httpClient).close();
         }
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayOverloadException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Client decorator that caps the requests in flight at a limit adapted to the round trip times it observes.
+ * Each response's round trip time is compared with the long-term average: while responses stay within the tolerance the
+ * limit grows, as they slow down beyond it the limit shrinks in proportion, and a 429 or 5xx response or an I/O failure
+ * cuts it at once. A request arriving while the limit is reached is shed with a GarminPayOverloadException instead of
+ * queueing, so callers see a slow platform as fast failures rather than as a growing backlog of waiting threads.
+ * Requests of the exempt operations, by default OAuth token and key exchange requests, are never shed, so a limit filled
+ * with card registrations cannot stop the token refresh those registrations wait on.
+ */
+@Slf4j
+public final class AdaptiveConcurrencyClient implements Client, AsyncClient {
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_RTT_WINDOW = 600;
+    private static final double LONG_RTT_DECAY = 0.95;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final GarminPayMetricsListener metricsListener;
+    private final LongSupplier nanoClock;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final Set<GarminPayOperation> exemptOperations;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private double estimatedLimit;
+    private double longRttNanos;
+    private volatile int limit;
+
+    /**
+     * Creates an adaptive concurrency limiter around the given clients.
+     *
+     * @param client          Client requests are sent with while under the limit
+     * @param asyncClient     AsyncClient non-blocking requests are sent with while under the limit, may be null
+     * @param settings        initial, lowest and highest limit and the round trip time tolerance
+     * @param metricsListener listener notified of shed requests
+     * @throws IllegalArgumentException if an argument or the exempt operations are null, the limits are not ordered
+     *     1 &lt;= min &lt;= initial &lt;= max or the tolerance is less than 1
+     */
+    public AdaptiveConcurrencyClient(
+        @NonNull Client client, AsyncClient asyncClient, @NonNull AdaptiveConcurrencySettings settings,
+        @NonNull GarminPayMetricsListener metricsListener
+    ) {
+        this(client, asyncClient, settings, metricsListener, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyClient(
+        Client client, AsyncClient asyncClient, AdaptiveConcurrencySettings settings, GarminPayMetricsListener metricsListener,
+        LongSupplier nanoClock
+    ) {
+        if (settings.getMinLimit() < 1 || settings.getInitialLimit() < settings.getMinLimit()
+            || settings.getMaxLimit() < settings.getInitialLimit()) {
+            throw new IllegalArgumentException("Adaptive concurrency limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (!(settings.getRttTolerance() >= 1)) {
+            throw new IllegalArgumentException("Adaptive concurrency round trip time tolerance must be at least 1");
+        }
+        if (settings.getExemptOperations() == null) {
+            throw new IllegalArgumentException("Adaptive concurrency exempt operations cannot be null");
+        }
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.metricsListener = metricsListener;
+        this.nanoClock = nanoClock;
+        this.minLimit = settings.getMinLimit();
+        this.maxLimit = settings.getMaxLimit();
+        this.rttTolerance = settings.getRttTolerance();
+        this.exemptOperations = settings.getExemptOperations().isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(EnumSet.copyOf(settings.getExemptOperations()));
+        this.estimatedLimit = settings.getInitialLimit();
+        this.limit = settings.getInitialLimit();
+    }
+
+    /**
+     * Returns the number of requests currently allowed in flight.
+     *
+     * @return the current limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of requests currently in flight.
+     *
+     * @return requests sent and not yet completed
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        int inFlightAtStart = acquire(context);
+        long start = nanoClock.getAsLong();
+        APIResponseDTO response;
+        try {
+            response = client.executeRequest(request, context);
+        } catch (RuntimeException e) {
+            onError(e);
+            throw e;
+        }
+        onResponse(response, start, inFlightAtStart);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("AdaptiveConcurrencyClient was created without an AsyncClient");
+        }
+
+        CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+        int inFlightAtStart;
+        try {
+            inFlightAtStart = acquire(context);
+        } catch (GarminPayOverloadException e) {
+            response.completeExceptionally(e);
+            return response;
+        }
+
+        long start = nanoClock.getAsLong();
+        CompletableFuture<APIResponseDTO> sent;
+        try {
+            sent = asyncClient.executeRequestAsync(request, context);
+        } catch (RuntimeException e) {
+            onError(e);
+            response.completeExceptionally(e);
+            return response;
+        }
+        sent.whenComplete((result, error) -> {
+            if (error != null) {
+                onError(CompletionUtil.unwrap(error));
+                response.completeExceptionally(error);
+            } else {
+                onResponse(result, start, inFlightAtStart);
+                response.complete(result);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Takes a place in flight, returning the number of requests in flight including this one.
+     *
+     * @throws GarminPayOverloadException if the limit is reached and the request's operation is not exempt
+     */
+    private int acquire(RequestContext context) {
+        if (exemptOperations.contains(context.getOperation())) {
+            return inFlight.incrementAndGet();
+        }
+        while (true) {
+            int current = inFlight.get();
+            int currentLimit = limit;
+            if (current >= currentLimit) {
+                log.debug("Concurrency limit of {} requests reached, {} request was not sent", currentLimit, context.getOperation());
+                metricsListener.onConcurrencyLimitRejection(context.getOperation());
+                throw new GarminPayOverloadException(
+                    "GarminPay concurrency limit of " + currentLimit + " requests in flight reached, the "
+                        + context.getOperation().getName() + " request was not sent.",
+                    currentLimit
+                );
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void onResponse(APIResponseDTO response, long start, int inFlightAtStart) {
+        long rttNanos = nanoClock.getAsLong() - start;
+        inFlight.decrementAndGet();
+        if (response.getStatus() == HttpStatus.SC_TOO_MANY_REQUESTS || response.getStatus() >= HttpStatus.SC_SERVER_ERROR) {
+            backOff();
+        } else {
+            sample(Math.max(1, rttNanos), inFlightAtStart);
+        }
+    }
+
+    private void onError(Throwable error) {
+        inFlight.decrementAndGet();
+        // Failures of the http client, such as I/O errors and timeouts, carry no status
+        if (error instanceof GarminPayApiException && ((GarminPayApiException) error).getStatus() == 0) {
+            backOff();
+        }
+    }
+
+    private void sample(long rttNanos, int inFlightAtStart) {
+        lock.lock();
+        try {
+            if (longRttNanos == 0) {
+                longRttNanos = rttNanos;
+            } else {
+                longRttNanos += (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+            }
+            // After a slow period the average lags far behind fast responses, decay it so the limit can grow back
+            if (longRttNanos > 2 * rttNanos) {
+                longRttNanos *= LONG_RTT_DECAY;
+            }
+            // A lightly loaded client says nothing about how many requests the platform can take
+            if (inFlightAtStart < estimatedLimit / 2) {
+                return;
+            }
+
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void backOff() {
+        lock.lock();
+        try {
+            update(estimatedLimit * BACKOFF_RATIO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        int next = (int) estimatedLimit;
+        if (next != limit) {
+            log.debug("Concurrency limit changed from {} to {}", limit, next);
+            limit = next;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings of the adaptive limit of requests in flight to the Garmin Pay platform.
+ */
+@Value
+@Builder
+public class AdaptiveConcurrencySettings {
+    /**
+     * Whether requests in flight are limited, the limit is shared by every tenant of a GarminPayClientRegistry.
+     */
+    @Builder.Default
+    boolean enabled = false;
+
+    /**
+     * The limit before any response has been observed.
+     */
+    @Builder.Default
+    int initialLimit = 20;
+
+    /**
+     * The lowest the limit is lowered to, however slow the platform gets.
+     */
+    @Builder.Default
+    int minLimit = 2;
+
+    /**
+     * The highest the limit is raised to, however fast the platform is.
+     */
+    @Builder.Default
+    int maxLimit = 200;
+
+    /**
+     * How many times slower than the long-term average a response may be before the limit is lowered.
+     */
+    @Builder.Default
+    double rttTolerance = 1.5;
+
+    /**
+     * Operations whose requests are sent even while the limit is reached, by default the OAuth token and key exchange
+     * requests every other request waits on. They still count as in flight.
+     */
+    @Builder.Default
+    Set<GarminPayOperation> exemptOperations = Collections.unmodifiableSet(
+        EnumSet.of(GarminPayOperation.TOKEN, GarminPayOperation.EXCHANGE_KEYS)
+    );
+}
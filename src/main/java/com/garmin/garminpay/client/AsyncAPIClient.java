@@ -0,0 +1,377 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.net.ssl.SSLContext;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.io.CloseMode;
+
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.SDKVersion;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.utility.GarminPayCodec;
+
+/**
+ * AsyncClient backed by a {@link CloseableHttpAsyncClient}.
+ * When no client is provided a default one is created on first use and closed with this client. With
+ * {@code HttpClientSettings.http2} the default client multiplexes requests over HTTP/2, and blocking requests can be
+ * sent through it too, so they share its connections.
+ */
+@Slf4j
+public class AsyncAPIClient implements Client, AsyncClient, Closeable {
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+        "GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"
+    ));
+
+    private final BasicHeader versionHeader;
+    private final boolean ownsHttpAsyncClient;
+    private final HttpClientSettings settings;
+    private final SSLContext sslContext;
+    private final GarminPayMetricsListener metricsListener;
+    private final GarminPayCodec codec;
+    private final ReentrantLock createLock = new ReentrantLock();
+    private final Map<String, Long> http1Hosts = new ConcurrentHashMap<>();
+    private final Set<String> http2Hosts = ConcurrentHashMap.newKeySet();
+    private volatile CloseableHttpAsyncClient httpAsyncClient;
+    private volatile CloseableHttpAsyncClient http1AsyncClient;
+
+    /**
+     * Constructs a new AsyncAPIClient from {@code builder()}, unset dependencies fall back to their defaults.
+     * A custom client is started if needed but is not closed by this client.
+     *
+     * @param httpAsyncClient the httpAsyncClient to use for requests, a pooled client is built from settings on first use when null
+     * @param settings        pool, timeout and TLS settings for the default client, ignored for a custom client, the default
+     *                        settings if null
+     * @param sslContext      context the default clients open TLS connections with, shared by the HTTP/2 client and its
+     *                        HTTP/1.1 fallback, ignored for a custom client, a new context is created from settings if null
+     * @param metricsListener listener notified of every request and of the default connection pool, may be null
+     * @param codec           codec used to deserialize response bodies, the default codec if null
+     */
+    @Builder
+    protected AsyncAPIClient(
+        CloseableHttpAsyncClient httpAsyncClient, HttpClientSettings settings, SSLContext sslContext,
+        GarminPayMetricsListener metricsListener, GarminPayCodec codec
+    ) {
+        this.httpAsyncClient = httpAsyncClient;
+        this.settings = settings != null ? settings : HttpClientSettings.builder().build();
+        this.sslContext = httpAsyncClient != null || sslContext != null
+            ? sslContext
+            : HttpClientFactory.createSslContext(this.settings);
+        this.metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
+        this.codec = codec != null ? codec : GarminPayCodec.getDefault();
+        this.ownsHttpAsyncClient = httpAsyncClient == null;
+        this.versionHeader = new BasicHeader("X-GP-SDK-Version", SDKVersion.VERSION);
+        if (httpAsyncClient != null) {
+            httpAsyncClient.start();
+        }
+    }
+
+    /**
+     * Executes the given HTTP request and blocks until the response arrives, so blocking requests can share the
+     * multiplexed connections of an HTTP/2 client.
+     * Adds the version header to each request.
+     *
+     * @param request the HTTP request to execute
+     * @return the API response
+     * @throws GarminPayApiException if an error occurs during request execution
+     */
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    /**
+     * Executes the given HTTP request and blocks until the response arrives.
+     *
+     * @param request the HTTP request to execute
+     * @param context the operation and expected response type of the request
+     * @return the API response
+     * @throws GarminPayApiException if an error occurs during request execution
+     * @throws GarminPaySDKException if the thread is interrupted while waiting for the response, which cancels the request
+     */
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        CompletableFuture<APIResponseDTO> response = executeRequestAsync(request, context);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GarminPaySDKException("Interrupted while waiting for " + context.getOperation().getName() + " response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GarminPaySDKException("GarminPay failed to execute request", cause);
+        }
+    }
+
+    /**
+     * Executes the given HTTP request without blocking and returns the response.
+     * Adds the version header to each request.
+     *
+     * @param request the HTTP request to execute
+     * @return future completed with the API response, or exceptionally with a GarminPayApiException
+     */
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    /**
+     * Executes the given HTTP request without blocking and returns the response.
+     * A successful response body is deserialized into the context's response type directly from the received bytes.
+     *
+     * @param request the HTTP request to execute
+     * @param context the operation and expected response type of the request
+     * @return future completed with the API response, or exceptionally with a GarminPayApiException
+     */
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        log.debug("Executing an async {} request to path {}", request.getMethod(), request.getPath());
+        // Adds version header to request
+        request.setHeader(versionHeader);
+
+        CompletableFuture<APIResponseDTO> result = new CompletableFuture<>();
+        SimpleHttpRequest simpleRequest;
+        try {
+            simpleRequest = toSimpleRequest(request);
+        } catch (IOException | URISyntaxException e) {
+            result.completeExceptionally(requestFailed(request, e));
+            return result;
+        }
+
+        ObjectReader bodyReader = context.getResponseType() != null ? codec.readerFor(context.getResponseType()) : null;
+        if (!ownsHttpAsyncClient || !settings.isHttp2()) {
+            execute(getHttpAsyncClient(), simpleRequest, request, context, bodyReader, result, null);
+            return result;
+        }
+
+        String host = simpleRequest.getScheme() + "://" + simpleRequest.getAuthority();
+        if (isDowngraded(host)) {
+            execute(getHttp1AsyncClient(), simpleRequest, request, context, bodyReader, result, null);
+        } else {
+            execute(getHttpAsyncClient(), simpleRequest, request, context, bodyReader, result, host);
+        }
+        return result;
+    }
+
+    /**
+     * Executes a request with the given client, completing the result.
+     *
+     * @param http2Host the host of a request sent with the HTTP/2 client, or null
+     */
+    private void execute(
+        CloseableHttpAsyncClient client, SimpleHttpRequest simpleRequest, ClassicHttpRequest request, RequestContext context,
+        ObjectReader bodyReader, CompletableFuture<APIResponseDTO> result, String http2Host
+    ) {
+        long start = System.nanoTime();
+        Future<SimpleHttpResponse> exchange = client.execute(simpleRequest, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                if (http2Host != null && http2Hosts.add(http2Host)) {
+                    log.debug("{} speaks HTTP/2", http2Host);
+                }
+                try {
+                    APIResponseDTO responseDTO = bodyReader == null
+                        ? APIResponseDTO.fromSimpleHttpResponse(response, request.getPath())
+                        : APIResponseDTO.fromSimpleHttpResponse(response, request.getPath(), bodyReader);
+                    metricsListener.onHttpResponse(context.getOperation(), responseDTO.getStatus(), System.nanoTime() - start);
+                    result.complete(responseDTO);
+                } catch (RuntimeException e) {
+                    metricsListener.onHttpFailure(context.getOperation(), e, System.nanoTime() - start);
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (http2Host != null && e instanceof ProtocolNegotiationException) {
+                    // TLS failed before anything was sent, so any request can be sent again
+                    fallBack(http2Host, request, context, bodyReader, result, e, start, true);
+                    return;
+                }
+                if (http2Host != null && isCleartext(http2Host) && e instanceof ConnectionClosedException
+                    && !http2Hosts.contains(http2Host)) {
+                    // Without TLS there is no negotiation and the server may have read the request before closing
+                    fallBack(http2Host, request, context, bodyReader, result, e, start, IDEMPOTENT_METHODS.contains(request.getMethod()));
+                    return;
+                }
+                metricsListener.onHttpFailure(context.getOperation(), e, System.nanoTime() - start);
+                result.completeExceptionally(requestFailed(request, e));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Sends further requests to a host over HTTP/1.1 after it failed to negotiate HTTP/2, and sends the refused request again
+     * over HTTP/1.1 if it cannot have been processed by the host.
+     *
+     * @param resend whether the refused request is sent again, false when the host may already have processed it
+     */
+    private void fallBack(
+        String host, ClassicHttpRequest request, RequestContext context, ObjectReader bodyReader,
+        CompletableFuture<APIResponseDTO> result, Exception negotiationFailure, long start, boolean resend
+    ) {
+        if (http1Hosts.put(host, System.nanoTime() + settings.getHttp2ReprobeInterval().toNanos()) == null) {
+            log.info("{} did not negotiate HTTP/2, falling back to HTTP/1.1 for {}. Negotiation failure: {}",
+                host, settings.getHttp2ReprobeInterval(), negotiationFailure.getMessage());
+        }
+        if (!resend) {
+            metricsListener.onHttpFailure(context.getOperation(), negotiationFailure, System.nanoTime() - start);
+            result.completeExceptionally(requestFailed(request, negotiationFailure));
+            return;
+        }
+        try {
+            // Built again, as the HTTP/2 exchange may have changed the headers of the refused request
+            execute(getHttp1AsyncClient(), toSimpleRequest(request), request, context, bodyReader, result, null);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            result.completeExceptionally(e instanceof RuntimeException ? e : requestFailed(request, e));
+        }
+    }
+
+    /**
+     * Closes the underlying CloseableHttpAsyncClient if it was created by this client.
+     */
+    @Override
+    public void close() {
+        CloseableHttpAsyncClient client = httpAsyncClient;
+        if (ownsHttpAsyncClient && client != null) {
+            log.debug("Closing default async http client");
+            client.close(CloseMode.GRACEFUL);
+        }
+        CloseableHttpAsyncClient http1Client = http1AsyncClient;
+        if (http1Client != null) {
+            log.debug("Closing HTTP/1.1 fallback async http client");
+            http1Client.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    private CloseableHttpAsyncClient getHttpAsyncClient() {
+        CloseableHttpAsyncClient client = httpAsyncClient;
+        if (client == null) {
+            // A lock rather than synchronized so virtual threads waiting on the first creation do not pin their carrier
+            createLock.lock();
+            try {
+                client = httpAsyncClient;
+                if (client == null) {
+                    log.debug("Creating default async http client");
+                    client = settings.isHttp2()
+                        ? HttpClientFactory.createHttp2AsyncClient(settings, sslContext)
+                        : HttpClientFactory.createHttpAsyncClient(settings, metricsListener, sslContext);
+                    client.start();
+                    httpAsyncClient = client;
+                }
+            } finally {
+                createLock.unlock();
+            }
+        }
+        return client;
+    }
+
+    private CloseableHttpAsyncClient getHttp1AsyncClient() {
+        CloseableHttpAsyncClient client = http1AsyncClient;
+        if (client == null) {
+            createLock.lock();
+            try {
+                client = http1AsyncClient;
+                if (client == null) {
+                    log.debug("Creating HTTP/1.1 fallback async http client");
+                    client = HttpClientFactory.createHttpAsyncClient(settings, metricsListener, sslContext);
+                    client.start();
+                    http1AsyncClient = client;
+                }
+            } finally {
+                createLock.unlock();
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Returns whether a host is sent its requests over HTTP/1.1, clearing the downgrade once the re-probe interval has passed.
+     */
+    private boolean isDowngraded(String host) {
+        Long until = http1Hosts.get(host);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        if (http1Hosts.remove(host, until)) {
+            log.debug("Trying HTTP/2 with {} again", host);
+        }
+        return false;
+    }
+
+    private static boolean isCleartext(String host) {
+        return host.startsWith("http://");
+    }
+
+    private static SimpleHttpRequest toSimpleRequest(ClassicHttpRequest request) throws IOException, URISyntaxException {
+        SimpleHttpRequest simpleRequest = SimpleHttpRequest.create(request.getMethod(), request.getUri());
+        simpleRequest.setHeaders(request.getHeaders());
+
+        HttpEntity entity = request.getEntity();
+        if (entity != null) {
+            ContentType contentType = entity.getContentType() != null ? ContentType.parse(entity.getContentType()) : null;
+            simpleRequest.setBody(EntityUtils.toByteArray(entity), contentType);
+        }
+        return simpleRequest;
+    }
+
+    private static GarminPayApiException requestFailed(ClassicHttpRequest request, Exception e) {
+        log.warn("Encountered an error while executing an async {} request to path {}. Encountered exception message: {}",
+            request.getMethod(), request.getPath(), e.getMessage());
+        ErrorResponse errorResponse = ErrorResponse.builder()
+            .path(request.getPath())
+            .message("HttpAsyncClient failed to execute request: " + e.getMessage())
+            .build();
+
+        return new GarminPayApiException("GarminPay failed to execute request", errorResponse);
+    }
+}
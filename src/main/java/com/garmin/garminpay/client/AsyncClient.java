@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.util.concurrent.CompletableFuture;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+public interface AsyncClient {
+
+    /**
+     * Executes a request without blocking the calling thread.
+     *
+     * @param request request to be executed, any entity must be repeatable
+     * @return future completed with the response DTO, or exceptionally if the request could not be executed
+     */
+    CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request);
+
+    /**
+     * Executes a request described by the given context without blocking.
+     * By default the context is ignored and the request is executed with {@link #executeRequestAsync(ClassicHttpRequest)}.
+     *
+     * @param request request to be executed, any entity must be repeatable
+     * @param context the operation and expected response type of the request
+     * @return future completed with the response DTO, or exceptionally if the request could not be executed
+     */
+    default CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        return executeRequestAsync(request);
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.exception.GarminPayOverloadException;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+/**
+ * Client decorator that limits the number of requests in flight through it.
+ * Blocking requests wait for a permit in arrival order and non-blocking requests are queued and sent as permits are
+ * released, without holding a thread while they wait. Giving each caller its own bulkhead over a shared connection pool
+ * keeps one caller's burst from taking every pooled connection. With a max wait, a request that has not been given a
+ * permit in time fails with a GarminPayOverloadException instead of waiting on. Requests of exempt operations, such as the
+ * token requests that every other request waits on, are sent straight through without a permit.
+ */
+@Slf4j
+public final class BulkheadClient implements Client, AsyncClient {
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final ScheduledExecutorService scheduler;
+    private final GarminPayMetricsListener metricsListener;
+    private final Set<GarminPayOperation> exemptOperations;
+    private final Queue<Waiter> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    /**
+     * Creates a bulkhead around the given clients from {@code builder()}. Without a max wait requests wait for a permit as
+     * long as it takes.
+     *
+     * @param client                Client requests are sent with once they hold a permit
+     * @param asyncClient           AsyncClient non-blocking requests are sent with once they hold a permit, may be null
+     * @param maxConcurrentRequests the number of requests allowed in flight at once
+     * @param maxWait               how long a request may wait for a permit, null to wait as long as it takes
+     * @param scheduler             executor the wait of queued non-blocking requests is timed on, may be null without a max wait
+     * @param metricsListener       listener notified of requests that were not given a permit in time, may be null
+     * @param exemptOperations      operations whose requests are sent without a permit, may be null
+     * @throws IllegalArgumentException if client is null, maxConcurrentRequests is less than 1, maxWait is negative or a max
+     *     wait is given without a scheduler
+     */
+    @Builder
+    private BulkheadClient(
+        @NonNull Client client, AsyncClient asyncClient, int maxConcurrentRequests, Duration maxWait,
+        ScheduledExecutorService scheduler, GarminPayMetricsListener metricsListener, Set<GarminPayOperation> exemptOperations
+    ) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Bulkhead max concurrent requests must be at least 1");
+        }
+        if (maxWait != null && (maxWait.isNegative() || scheduler == null)) {
+            throw new IllegalArgumentException("Bulkhead max wait cannot be negative and requires a scheduler");
+        }
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.maxWaitNanos = maxWait != null ? maxWait.toNanos() : -1;
+        this.scheduler = scheduler;
+        this.metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
+        this.exemptOperations = exemptOperations == null || exemptOperations.isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(EnumSet.copyOf(exemptOperations));
+    }
+
+    /**
+     * Returns the number of requests that can start without waiting.
+     *
+     * @return the number of free permits
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        if (exemptOperations.contains(context.getOperation())) {
+            return client.executeRequest(request, context);
+        }
+
+        try {
+            if (maxWaitNanos < 0) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw overloaded(context);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GarminPaySDKException("Interrupted while waiting to send " + context.getOperation().getName() + " request", e);
+        }
+
+        try {
+            return client.executeRequest(request, context);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("BulkheadClient was created without an AsyncClient");
+        }
+        if (exemptOperations.contains(context.getOperation())) {
+            return asyncClient.executeRequestAsync(request, context);
+        }
+
+        CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+        Waiter waiter = new Waiter(request, context, response);
+        if (waiting.isEmpty() && permits.tryAcquire()) {
+            waiter.send();
+        } else {
+            log.debug("Queueing {} request until a permit is released", context.getOperation().getName());
+            waiting.add(waiter);
+            if (maxWaitNanos >= 0) {
+                waiter.startTimeout();
+            }
+            drain();
+        }
+        return response;
+    }
+
+    private void release() {
+        permits.release();
+        drain();
+    }
+
+    /**
+     * Hands free permits to queued requests. A permit taken while another thread emptied the queue, or for a request
+     * that timed out, is given back and the queue checked again, so a request queued concurrently with a release is
+     * never stranded. Only one thread drains at a time: a release while it drains, including one from a request that
+     * completed synchronously inside {@code send}, asks it for another pass instead of draining recursively.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requested = 1;
+        do {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Waiter next = waiting.poll();
+                if (next == null || !next.claim()) {
+                    permits.release();
+                    continue;
+                }
+                next.send();
+            }
+            requested = drainRequests.addAndGet(-requested);
+        } while (requested != 0);
+    }
+
+    private GarminPayOverloadException overloaded(RequestContext context) {
+        log.debug("Bulkhead of {} requests is full, {} request was not sent", maxConcurrentRequests, context.getOperation());
+        metricsListener.onBulkheadRejection(context.getOperation());
+        return new GarminPayOverloadException(
+            "GarminPay bulkhead of " + maxConcurrentRequests + " requests in flight is full, the "
+                + context.getOperation().getName() + " request was not sent.",
+            maxConcurrentRequests
+        );
+    }
+
+    /**
+     * A queued non-blocking request, given either a permit or its timeout, whichever claims it first.
+     */
+    private final class Waiter {
+        private final ClassicHttpRequest request;
+        private final RequestContext context;
+        private final CompletableFuture<APIResponseDTO> response;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile Future<?> timeout;
+
+        Waiter(ClassicHttpRequest request, RequestContext context, CompletableFuture<APIResponseDTO> response) {
+            this.request = request;
+            this.context = context;
+            this.response = response;
+        }
+
+        boolean claim() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            Future<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return true;
+        }
+
+        void startTimeout() {
+            try {
+                timeout = scheduler.schedule(() -> {
+                    if (claimed.compareAndSet(false, true)) {
+                        response.completeExceptionally(overloaded(context));
+                    }
+                }, maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Unable to time the wait of {} request, it waits for a permit as long as it takes", context.getOperation());
+            }
+        }
+
+        /**
+         * Sends a request that holds a permit, releasing the permit once it completes.
+         */
+        void send() {
+            CompletableFuture<APIResponseDTO> sent;
+            try {
+                sent = asyncClient.executeRequestAsync(request, context);
+            } catch (RuntimeException e) {
+                release();
+                response.completeExceptionally(e);
+                return;
+            }
+            sent.whenComplete((result, error) -> {
+                release();
+                if (error != null) {
+                    response.completeExceptionally(error);
+                } else {
+                    response.complete(result);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayMaintenanceException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Client decorator that stops sending requests while the Garmin Pay platform is in maintenance mode or failing.
+ * A maintenance response opens the circuit at once and consecutive 5xx responses or I/O failures open it once they reach
+ * the failure threshold. While open, requests fail fast without any network I/O. After the open duration a single request
+ * is let through as a probe, its outcome closes the circuit or opens it again.
+ * The circuit is shared by every request sent through this client, blocking and non-blocking.
+ */
+@Slf4j
+public final class CircuitBreakerClient implements Client, AsyncClient {
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final GarminPayMetricsListener metricsListener;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Circuit> circuit = new AtomicReference<>(Circuit.CLOSED);
+
+    /**
+     * Creates a circuit breaker around the given clients.
+     *
+     * @param client          Client requests are sent with while the circuit is closed
+     * @param asyncClient     AsyncClient non-blocking requests are sent with while the circuit is closed, may be null
+     * @param settings        failure threshold and open duration of the circuit
+     * @param metricsListener listener notified of state changes and rejected requests
+     */
+    public CircuitBreakerClient(
+        @NonNull Client client, AsyncClient asyncClient, @NonNull CircuitBreakerSettings settings,
+        @NonNull GarminPayMetricsListener metricsListener
+    ) {
+        this(client, asyncClient, settings, metricsListener, System::nanoTime);
+    }
+
+    CircuitBreakerClient(
+        Client client, AsyncClient asyncClient, CircuitBreakerSettings settings, GarminPayMetricsListener metricsListener,
+        LongSupplier nanoClock
+    ) {
+        if (settings.getFailureThreshold() < 1) {
+            throw new IllegalArgumentException("Circuit breaker failure threshold must be at least 1");
+        }
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.failureThreshold = settings.getFailureThreshold();
+        this.openDurationNanos = settings.getOpenDuration().toNanos();
+        this.metricsListener = metricsListener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the current state of the circuit. An open circuit whose open duration has passed is reported as open
+     * until the next request probes the platform.
+     *
+     * @return the current state
+     */
+    public CircuitBreakerState getState() {
+        return circuit.get().state;
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        boolean probe = acquire(request, context);
+        APIResponseDTO response;
+        try {
+            response = client.executeRequest(request, context);
+        } catch (RuntimeException e) {
+            onError(probe, e);
+            throw e;
+        }
+        onResponse(probe, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("CircuitBreakerClient was created without an AsyncClient");
+        }
+
+        boolean probe;
+        try {
+            probe = acquire(request, context);
+        } catch (GarminPayApiException e) {
+            CompletableFuture<APIResponseDTO> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+
+        CompletableFuture<APIResponseDTO> response;
+        try {
+            response = asyncClient.executeRequestAsync(request, context);
+        } catch (RuntimeException e) {
+            onError(probe, e);
+            throw e;
+        }
+        return response.whenComplete((completed, error) -> {
+            if (error != null) {
+                onError(probe, CompletionUtil.unwrap(error));
+            } else {
+                onResponse(probe, completed);
+            }
+        });
+    }
+
+    /**
+     * Lets a request through, returning true when it is the probe of a half-open circuit.
+     *
+     * @throws GarminPayApiException when the circuit is open, a GarminPayMaintenanceException if it opened for maintenance
+     */
+    private boolean acquire(ClassicHttpRequest request, RequestContext context) {
+        while (true) {
+            Circuit current = circuit.get();
+            if (current.state == CircuitBreakerState.CLOSED) {
+                return false;
+            }
+
+            // A half-open probe that never reported back is replaced after another open duration
+            long now = nanoClock.getAsLong();
+            if (now - current.sinceNanos < openDurationNanos) {
+                throw rejected(current, request, context);
+            }
+
+            Circuit halfOpen = current.transition(CircuitBreakerState.HALF_OPEN, now);
+            if (circuit.compareAndSet(current, halfOpen)) {
+                log.info("Garmin Pay circuit breaker is half-open, probing platform with {} request", context.getOperation());
+                metricsListener.onCircuitBreakerStateChange(CircuitBreakerState.HALF_OPEN);
+                return true;
+            }
+        }
+    }
+
+    private void onResponse(boolean probe, APIResponseDTO response) {
+        if (response.isMaintenanceMode()) {
+            open(true, response.getStatus());
+        } else if (response.getStatus() >= HttpStatus.SC_SERVER_ERROR) {
+            onFailure(probe, response.getStatus());
+        } else {
+            onSuccess(probe);
+        }
+    }
+
+    private void onError(boolean probe, Throwable error) {
+        if (error instanceof GarminPayMaintenanceException) {
+            open(true, ((GarminPayMaintenanceException) error).getStatus());
+        } else if (error instanceof GarminPayApiException && isPlatformFailure(((GarminPayApiException) error).getStatus())) {
+            onFailure(probe, ((GarminPayApiException) error).getStatus());
+        } else if (probe) {
+            // The platform answered, or the request failed before reaching it, either way the probe must not hold the circuit
+            onSuccess(true);
+        }
+    }
+
+    private void onFailure(boolean probe, int status) {
+        while (true) {
+            Circuit current = circuit.get();
+            Circuit next;
+            if (probe && current.state == CircuitBreakerState.HALF_OPEN) {
+                next = current.open(false, status, nanoClock.getAsLong());
+            } else if (!probe && current.state == CircuitBreakerState.CLOSED) {
+                int failures = current.failures + 1;
+                next = failures >= failureThreshold
+                    ? current.open(false, status, nanoClock.getAsLong())
+                    : new Circuit(CircuitBreakerState.CLOSED, failures, 0L, false, status);
+            } else {
+                // Results of requests sent before the circuit opened do not change an open circuit or a running probe
+                return;
+            }
+
+            if (circuit.compareAndSet(current, next)) {
+                if (next.state == CircuitBreakerState.OPEN) {
+                    log.warn("Garmin Pay circuit breaker opened after {} failed requests, last status: {}", next.failures, status);
+                    metricsListener.onCircuitBreakerStateChange(CircuitBreakerState.OPEN);
+                }
+                return;
+            }
+        }
+    }
+
+    private void onSuccess(boolean probe) {
+        while (true) {
+            Circuit current = circuit.get();
+            boolean closes = probe && current.state == CircuitBreakerState.HALF_OPEN;
+            boolean resets = !probe && current.state == CircuitBreakerState.CLOSED && current.failures > 0;
+            if (!closes && !resets) {
+                return;
+            }
+
+            if (circuit.compareAndSet(current, Circuit.CLOSED)) {
+                if (closes) {
+                    log.info("Garmin Pay circuit breaker closed, platform has recovered");
+                    metricsListener.onCircuitBreakerStateChange(CircuitBreakerState.CLOSED);
+                }
+                return;
+            }
+        }
+    }
+
+    private void open(boolean maintenance, int status) {
+        while (true) {
+            Circuit current = circuit.get();
+            Circuit next = current.open(maintenance, status, nanoClock.getAsLong());
+            if (circuit.compareAndSet(current, next)) {
+                if (current.state != CircuitBreakerState.OPEN) {
+                    log.warn("Garmin Pay circuit breaker opened, platform is in maintenance mode");
+                    metricsListener.onCircuitBreakerStateChange(CircuitBreakerState.OPEN);
+                }
+                return;
+            }
+        }
+    }
+
+    private GarminPayApiException rejected(Circuit current, ClassicHttpRequest request, RequestContext context) {
+        log.debug("Garmin Pay circuit breaker is {}, {} request was not sent", current.state, context.getOperation());
+        metricsListener.onCircuitBreakerRejection(context.getOperation());
+
+        if (current.maintenance) {
+            return new GarminPayMaintenanceException(
+                "GarminPay platform is currently undergoing maintenance, try again in a little while. The request was not sent.",
+                ErrorResponse.builder().status(current.status).path(request.getPath()).build()
+            );
+        }
+        // The status of the failure that opened the circuit, 0 when it was an I/O failure or timeout
+        return new GarminPayApiException(
+            "GarminPay platform is currently unavailable, try again in a little while. The request was not sent.",
+            ErrorResponse.builder().status(current.status).path(request.getPath()).build()
+        );
+    }
+
+    private static boolean isPlatformFailure(int status) {
+        // Failures without a response, such as I/O errors and timeouts, carry no status
+        return status == 0 || status >= HttpStatus.SC_SERVER_ERROR;
+    }
+
+    /**
+     * Immutable snapshot of the circuit, replaced as a whole so a state is never read with another state's counters.
+     */
+    private static final class Circuit {
+        private static final Circuit CLOSED = new Circuit(CircuitBreakerState.CLOSED, 0, 0L, false, 0);
+        private final CircuitBreakerState state;
+        private final int failures;
+        private final long sinceNanos;
+        private final boolean maintenance;
+        private final int status;
+
+        Circuit(CircuitBreakerState state, int failures, long sinceNanos, boolean maintenance, int status) {
+            this.state = state;
+            this.failures = failures;
+            this.sinceNanos = sinceNanos;
+            this.maintenance = maintenance;
+            this.status = status;
+        }
+
+        Circuit open(boolean openedForMaintenance, int openedWithStatus, long now) {
+            return new Circuit(CircuitBreakerState.OPEN, failures + 1, now, openedForMaintenance, openedWithStatus);
+        }
+
+        Circuit transition(CircuitBreakerState next, long now) {
+            return new Circuit(next, failures, now, maintenance, status);
+        }
+    }
+}
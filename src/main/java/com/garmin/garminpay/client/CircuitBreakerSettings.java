@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings of the circuit breaker that stops requests while the Garmin Pay platform is in maintenance mode or failing.
+ */
+@Value
+@Builder
+public class CircuitBreakerSettings {
+    /**
+     * Whether requests are guarded by the circuit breaker.
+     */
+    @Builder.Default
+    boolean enabled = false;
+
+    /**
+     * The number of consecutive 5xx responses or I/O failures that opens the circuit, a maintenance response opens it at once.
+     */
+    @Builder.Default
+    int failureThreshold = 5;
+
+    /**
+     * How long the circuit stays open before a single probe request is let through.
+     */
+    @Builder.Default
+    Duration openDuration = Duration.ofSeconds(30);
+}
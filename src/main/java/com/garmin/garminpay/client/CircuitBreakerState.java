@@ -0,0 +1,26 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+/**
+ * State of the circuit breaker guarding requests to the Garmin Pay platform.
+ */
+public enum CircuitBreakerState {
+    /**
+     * Requests are sent to the platform.
+     */
+    CLOSED,
+
+    /**
+     * The platform is in maintenance mode or failing, requests fail fast without being sent.
+     */
+    OPEN,
+
+    /**
+     * A single probe request is in flight to find out whether the platform has recovered, other requests fail fast.
+     */
+    HALF_OPEN
+}
@@ -19,4 +19,18 @@ public interface Client {
      */
     APIResponseDTO executeRequest(ClassicHttpRequest request);
 
+    /**
+     * Executes a request described by the given context.
+     * Implementations may deserialize a successful body into the context's response type while it is streamed
+     * instead of materializing it as content, and may use the operation to measure or limit requests.
+     * By default the context is ignored and the request is executed with {@link #executeRequest(ClassicHttpRequest)}.
+     *
+     * @param request request to be executed
+     * @param context the operation and expected response type of the request
+     * @return response DTO object containing status, body, etc.
+     */
+    default APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        return executeRequest(request);
+    }
+
 }
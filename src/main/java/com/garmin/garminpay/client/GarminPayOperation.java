@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+/**
+ * The Garmin Pay API operation a request belongs to, named after the link it is made against.
+ */
+public enum GarminPayOperation {
+    TOKEN("token"),
+    ROOT("self"),
+    HEALTH("health"),
+    EXCHANGE_KEYS("encryptionKeys"),
+    REGISTER_CARD("paymentCards"),
+    OTHER("other");
+
+    private final String name;
+
+    GarminPayOperation(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the operation, the link relation for operations made against a root link.
+     *
+     * @return operation name
+     */
+    public String getName() {
+        return name;
+    }
+}
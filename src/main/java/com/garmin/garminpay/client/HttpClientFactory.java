@@ -0,0 +1,306 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.net.SocketAddress;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.ssl.ApplicationProtocol;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+
+/**
+ * Builds the default pooled http clients used by the SDK from {@link HttpClientSettings}.
+ */
+@Slf4j
+public final class HttpClientFactory {
+
+    private HttpClientFactory() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Creates a pooled classic HttpClient.
+     *
+     * @param settings pool, timeout and TLS settings
+     * @return a new CloseableHttpClient that must be closed by the caller
+     */
+    public static CloseableHttpClient createHttpClient(HttpClientSettings settings) {
+        return createHttpClient(settings, GarminPayMetricsListener.NOOP);
+    }
+
+    /**
+     * Creates a pooled classic HttpClient and registers its connection pool with the metrics listener.
+     *
+     * @param settings        pool, timeout and TLS settings
+     * @param metricsListener listener the connection pool is registered with
+     * @return a new CloseableHttpClient that must be closed by the caller
+     */
+    public static CloseableHttpClient createHttpClient(HttpClientSettings settings, GarminPayMetricsListener metricsListener) {
+        return createHttpClient(settings, metricsListener, createSslContext(settings));
+    }
+
+    /**
+     * Creates a pooled classic HttpClient whose connections are opened with the given SSLContext, and registers its
+     * connection pool with the metrics listener.
+     *
+     * @param settings        pool, timeout and TLS settings, the TLS session settings are those of the given context
+     * @param metricsListener listener the connection pool is registered with
+     * @param sslContext      context TLS connections are opened with, pools sharing it can resume each other's sessions
+     * @return a new CloseableHttpClient that must be closed by the caller
+     */
+    public static CloseableHttpClient createHttpClient(
+        HttpClientSettings settings, GarminPayMetricsListener metricsListener, SSLContext sslContext
+    ) {
+        log.debug("Creating pooled HttpClient with {} connections per route and {} total",
+            settings.getMaxConnectionsPerRoute(), settings.getMaxConnectionsTotal());
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+                .setSslContext(sslContext)
+                .build())
+            .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+            .setMaxConnTotal(settings.getMaxConnectionsTotal())
+            .setDefaultConnectionConfig(createConnectionConfig(settings))
+            .setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(true)
+                .setSoTimeout(toTimeout(settings.getResponseTimeout()))
+                .build())
+            .build();
+        metricsListener.onConnectionPoolCreated("classic", connectionManager::getTotalStats);
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(createRequestConfig(settings))
+            .evictExpiredConnections()
+            .evictIdleConnections(toTimeValue(settings.getIdleConnectionEviction()))
+            .build();
+    }
+
+    /**
+     * Creates a pooled CloseableHttpAsyncClient, the client is not started.
+     *
+     * @param settings pool, timeout and TLS settings
+     * @return a new CloseableHttpAsyncClient that must be started and closed by the caller
+     */
+    public static CloseableHttpAsyncClient createHttpAsyncClient(HttpClientSettings settings) {
+        return createHttpAsyncClient(settings, GarminPayMetricsListener.NOOP);
+    }
+
+    /**
+     * Creates a pooled CloseableHttpAsyncClient and registers its connection pool with the metrics listener,
+     * the client is not started.
+     *
+     * @param settings        pool, timeout and TLS settings
+     * @param metricsListener listener the connection pool is registered with
+     * @return a new CloseableHttpAsyncClient that must be started and closed by the caller
+     */
+    public static CloseableHttpAsyncClient createHttpAsyncClient(
+        HttpClientSettings settings, GarminPayMetricsListener metricsListener
+    ) {
+        return createHttpAsyncClient(settings, metricsListener, createSslContext(settings));
+    }
+
+    /**
+     * Creates a pooled CloseableHttpAsyncClient whose connections are opened with the given SSLContext, and registers its
+     * connection pool with the metrics listener, the client is not started.
+     *
+     * @param settings        pool, timeout and TLS settings, the TLS session settings are those of the given context
+     * @param metricsListener listener the connection pool is registered with
+     * @param sslContext      context TLS connections are opened with, pools sharing it can resume each other's sessions
+     * @return a new CloseableHttpAsyncClient that must be started and closed by the caller
+     */
+    public static CloseableHttpAsyncClient createHttpAsyncClient(
+        HttpClientSettings settings, GarminPayMetricsListener metricsListener, SSLContext sslContext
+    ) {
+        log.debug("Creating pooled HttpAsyncClient with {} connections per route and {} total",
+            settings.getMaxConnectionsPerRoute(), settings.getMaxConnectionsTotal());
+
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+            .setTlsStrategy(ClientTlsStrategyBuilder.create()
+                .setSslContext(sslContext)
+                .build())
+            .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+            .setMaxConnTotal(settings.getMaxConnectionsTotal())
+            .setDefaultConnectionConfig(createConnectionConfig(settings))
+            .build();
+        metricsListener.onConnectionPoolCreated("async", connectionManager::getTotalStats);
+
+        return HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(createRequestConfig(settings))
+            .evictExpiredConnections()
+            .evictIdleConnections(toTimeValue(settings.getIdleConnectionEviction()))
+            .build();
+    }
+
+    /**
+     * Creates a CloseableHttpAsyncClient that multiplexes requests over one HTTP/2 connection per host, the client is not
+     * started. Over TLS the connection is only established if the host selects HTTP/2 with ALPN.
+     *
+     * @param settings timeout and TLS settings, the pool sizes do not apply
+     * @return a new CloseableHttpAsyncClient that must be started and closed by the caller
+     */
+    public static CloseableHttpAsyncClient createHttp2AsyncClient(HttpClientSettings settings) {
+        return createHttp2AsyncClient(settings, createSslContext(settings));
+    }
+
+    /**
+     * Creates a CloseableHttpAsyncClient that multiplexes requests over one HTTP/2 connection per host and opens its
+     * connections with the given SSLContext, the client is not started.
+     *
+     * @param settings   timeout settings, the pool sizes and TLS session settings do not apply
+     * @param sslContext context TLS connections are opened with, clients sharing it can resume each other's sessions
+     * @return a new CloseableHttpAsyncClient that must be started and closed by the caller
+     */
+    public static CloseableHttpAsyncClient createHttp2AsyncClient(HttpClientSettings settings, SSLContext sslContext) {
+        log.debug("Creating multiplexed HTTP/2 HttpAsyncClient");
+
+        return H2AsyncClientBuilder.create()
+            .setTlsStrategy(new StrictAlpnTlsStrategy(ClientTlsStrategyBuilder.create()
+                .setSslContext(sslContext)
+                .build()))
+            .setH2Config(H2Config.custom()
+                .setPushEnabled(false)
+                .build())
+            .setDefaultConnectionConfig(createConnectionConfig(settings))
+            .setDefaultRequestConfig(createRequestConfig(settings))
+            .evictIdleConnections(toTimeValue(settings.getIdleConnectionEviction()))
+            .build();
+    }
+
+    private static ConnectionConfig createConnectionConfig(HttpClientSettings settings) {
+        return ConnectionConfig.custom()
+            .setConnectTimeout(toTimeout(settings.getConnectTimeout()))
+            .setSocketTimeout(toTimeout(settings.getResponseTimeout()))
+            .setTimeToLive(toTimeValue(settings.getConnectionTimeToLive()))
+            .setValidateAfterInactivity(toTimeValue(settings.getValidateAfterInactivity()))
+            .build();
+    }
+
+    private static RequestConfig createRequestConfig(HttpClientSettings settings) {
+        return RequestConfig.custom()
+            .setConnectionRequestTimeout(toTimeout(settings.getConnectionRequestTimeout()))
+            .setResponseTimeout(toTimeout(settings.getResponseTimeout()))
+            .build();
+    }
+
+    /**
+     * Creates the SSLContext the default pools open their connections with. Every connection opened with one context can
+     * resume the TLS sessions of the others, so the pools of a client should share one.
+     * The context is a new instance of the JDK's default context rather than SSLContext.getDefault() itself, so tuning its
+     * session cache leaves the other TLS clients of the JVM alone. The JDK loads its keystore and truststore from the
+     * javax.net.ssl system properties, as for the default context.
+     *
+     * @param settings TLS session cache settings
+     * @return a new SSLContext
+     * @throws GarminPaySDKException if the JDK's default context is unavailable
+     */
+    public static SSLContext createSslContext(HttpClientSettings settings) {
+        SSLContext sslContext;
+        try {
+            sslContext = SSLContext.getInstance("Default");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GarminPaySDKException("Unable to create the TLS context of the http client", e);
+        }
+
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        if (sessionContext != null) {
+            sessionContext.setSessionCacheSize(settings.getTlsSessionCacheSize());
+            sessionContext.setSessionTimeout((int) settings.getTlsSessionTimeout().getSeconds());
+        }
+        return sslContext;
+    }
+
+    /**
+     * Fails the TLS handshake with a {@link ProtocolNegotiationException} when the host does not select HTTP/2 with ALPN.
+     * The HTTP/2 client would otherwise send the preface and the request to a host that cannot read them.
+     */
+    private static final class StrictAlpnTlsStrategy implements TlsStrategy {
+        private final TlsStrategy delegate;
+
+        StrictAlpnTlsStrategy(TlsStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void upgrade(
+            TransportSecurityLayer tlsSession, NamedEndpoint endpoint, Object attachment, Timeout handshakeTimeout,
+            FutureCallback<TransportSecurityLayer> callback
+        ) {
+            delegate.upgrade(tlsSession, endpoint, attachment, handshakeTimeout, new FutureCallback<TransportSecurityLayer>() {
+                @Override
+                public void completed(TransportSecurityLayer result) {
+                    TlsDetails tlsDetails = result.getTlsDetails();
+                    String protocol = tlsDetails != null ? tlsDetails.getApplicationProtocol() : null;
+                    if (ApplicationProtocol.HTTP_2.id.equals(protocol)) {
+                        callback.completed(result);
+                    } else if (protocol == null || protocol.isEmpty()) {
+                        callback.failed(new ProtocolNegotiationException("ALPN: missing application protocol"));
+                    } else {
+                        callback.failed(new ProtocolNegotiationException("ALPN: unexpected application protocol '" + protocol + "'"));
+                    }
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    callback.failed(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    callback.cancelled();
+                }
+            });
+        }
+
+        @Override
+        @Deprecated
+        public boolean upgrade(
+            TransportSecurityLayer tlsSession, HttpHost host, SocketAddress localAddress, SocketAddress remoteAddress,
+            Object attachment, Timeout handshakeTimeout
+        ) {
+            return delegate.upgrade(tlsSession, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+        }
+    }
+
+    private static Timeout toTimeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue toTimeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Connection pool, timeout and TLS settings used when the SDK creates its default http clients.
+ * The defaults are sized for high-throughput provisioning against a single Garmin Pay host.
+ */
+@Value
+@Builder
+public class HttpClientSettings {
+    /**
+     * The maximum number of pooled connections per route (host).
+     */
+    @Builder.Default
+    int maxConnectionsPerRoute = 50;
+
+    /**
+     * The maximum number of pooled connections across all routes.
+     */
+    @Builder.Default
+    int maxConnectionsTotal = 200;
+
+    /**
+     * The maximum lifetime of a pooled connection, after which it is closed instead of reused.
+     */
+    @Builder.Default
+    Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * How long a pooled connection may stay idle before it is evicted by a background thread.
+     */
+    @Builder.Default
+    Duration idleConnectionEviction = Duration.ofSeconds(30);
+
+    /**
+     * How long a pooled connection may stay idle before it is validated again before being reused.
+     */
+    @Builder.Default
+    Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * The maximum time to establish a new connection.
+     */
+    @Builder.Default
+    Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * The maximum time to wait for a response once a request has been sent.
+     */
+    @Builder.Default
+    Duration responseTimeout = Duration.ofSeconds(30);
+
+    /**
+     * The maximum time to wait for a connection to be leased from the pool.
+     */
+    @Builder.Default
+    Duration connectionRequestTimeout = Duration.ofSeconds(10);
+
+    /**
+     * The number of TLS sessions cached for resumption, avoiding full handshakes when new connections are opened.
+     * The cache belongs to the TLS context shared by the default connection pools of a client.
+     */
+    @Builder.Default
+    int tlsSessionCacheSize = 1000;
+
+    /**
+     * How long cached TLS sessions may be resumed.
+     */
+    @Builder.Default
+    Duration tlsSessionTimeout = Duration.ofHours(1);
+
+    /**
+     * Whether requests are multiplexed over one HTTP/2 connection per host instead of holding a pooled HTTP/1.1 connection each.
+     * Blocking requests are then sent with the async client as well. A host that does not negotiate HTTP/2 with ALPN is sent
+     * its requests over pooled HTTP/1.1 connections until the {@link #http2ReprobeInterval} has passed. A plain http host that
+     * closes the connection instead is too, but the request that found out is only sent again if its method is idempotent.
+     */
+    @Builder.Default
+    boolean http2 = false;
+
+    /**
+     * How long a host that did not negotiate HTTP/2 is sent its requests over HTTP/1.1 before HTTP/2 is tried again.
+     */
+    @Builder.Default
+    Duration http2ReprobeInterval = Duration.ofMinutes(10);
+}
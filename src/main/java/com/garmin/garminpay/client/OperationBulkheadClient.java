@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+/**
+ * Client decorator that gives each limited Garmin Pay operation its own {@link BulkheadClient}, so a batch of card
+ * registrations filling its bulkhead leaves the connections of the other operations free and a token refresh or key
+ * exchange never queues behind it. Requests of operations without a limit are sent straight through.
+ */
+@Slf4j
+public final class OperationBulkheadClient implements Client, AsyncClient {
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final Map<GarminPayOperation, BulkheadClient> bulkheads = new EnumMap<>(GarminPayOperation.class);
+
+    /**
+     * Creates the bulkheads of the limited operations around the given clients.
+     *
+     * @param client          Client requests are sent with once they hold a permit
+     * @param asyncClient     AsyncClient non-blocking requests are sent with once they hold a permit, may be null
+     * @param settings        limits and max waits of each operation
+     * @param scheduler       executor the wait of queued non-blocking requests is timed on
+     * @param metricsListener listener notified of requests that were not given a permit in time
+     * @throws IllegalArgumentException if an argument is null, a limit is less than 1 or a max wait is negative
+     */
+    public OperationBulkheadClient(
+        @NonNull Client client, AsyncClient asyncClient, @NonNull OperationBulkheadSettings settings,
+        @NonNull ScheduledExecutorService scheduler, @NonNull GarminPayMetricsListener metricsListener
+    ) {
+        this.client = client;
+        this.asyncClient = asyncClient;
+        for (Map.Entry<GarminPayOperation, Integer> limit : settings.getMaxConcurrentRequests().entrySet()) {
+            if (limit.getKey() == null || limit.getValue() == null) {
+                throw new IllegalArgumentException("Bulkhead operations and limits cannot be null");
+            }
+            Duration maxWait = settings.getMaxWaits().getOrDefault(limit.getKey(), settings.getDefaultMaxWait());
+            log.debug("Limiting {} requests to {} in flight", limit.getKey().getName(), limit.getValue());
+            bulkheads.put(limit.getKey(), BulkheadClient.builder()
+                .client(client)
+                .asyncClient(asyncClient)
+                .maxConcurrentRequests(limit.getValue())
+                .maxWait(maxWait)
+                .scheduler(scheduler)
+                .metricsListener(metricsListener)
+                .build());
+        }
+    }
+
+    /**
+     * Returns the number of requests of an operation that can start without waiting.
+     *
+     * @param operation the operation
+     * @return the number of free permits, or Integer.MAX_VALUE if the operation is not limited
+     */
+    public int getAvailablePermits(@NonNull GarminPayOperation operation) {
+        BulkheadClient bulkhead = bulkheads.get(operation);
+        return bulkhead != null ? bulkhead.getAvailablePermits() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        BulkheadClient bulkhead = bulkheads.get(context.getOperation());
+        return bulkhead != null ? bulkhead.executeRequest(request, context) : client.executeRequest(request, context);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("OperationBulkheadClient was created without an AsyncClient");
+        }
+        BulkheadClient bulkhead = bulkheads.get(context.getOperation());
+        return bulkhead != null ? bulkhead.executeRequestAsync(request, context) : asyncClient.executeRequestAsync(request, context);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Settings of the per operation bulkheads in front of the shared connection pool.
+ */
+@Value
+@Builder
+public class OperationBulkheadSettings {
+    /**
+     * Whether requests pass through the per operation bulkheads.
+     */
+    @Builder.Default
+    boolean enabled = false;
+
+    /**
+     * Requests in flight allowed for each operation, operations without a limit are not held back.
+     */
+    @Singular("limit")
+    Map<GarminPayOperation, Integer> maxConcurrentRequests;
+
+    /**
+     * How long a request of each operation may wait for a permit, operations without a max wait use the default.
+     */
+    @Singular("maxWait")
+    Map<GarminPayOperation, Duration> maxWaits;
+
+    /**
+     * How long a request may wait for a permit when its operation has no max wait, null waits as long as it takes.
+     */
+    @Builder.Default
+    Duration defaultMaxWait = Duration.ofSeconds(10);
+}
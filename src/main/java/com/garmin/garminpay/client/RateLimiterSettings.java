@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Settings of the client-side rate limiter in front of the Garmin Pay platform.
+ */
+@Value
+@Builder
+public class RateLimiterSettings {
+    /**
+     * Whether requests pass through the rate limiter.
+     */
+    @Builder.Default
+    boolean enabled = false;
+
+    /**
+     * Permits per second of each operation, operations without a rate are not limited but still pause for Retry-After.
+     */
+    @Singular("rate")
+    Map<GarminPayOperation, Double> rates;
+
+    /**
+     * How many seconds of permits an idle operation saves up, at least one permit is always kept.
+     */
+    @Builder.Default
+    Duration burst = Duration.ofSeconds(1);
+
+    /**
+     * How long a request may wait for a permit, zero fails at once with a GarminPayRateLimitException.
+     */
+    @Builder.Default
+    Duration maxWait = Duration.ZERO;
+
+    /**
+     * How long an operation pauses after a 429 response without a Retry-After header.
+     */
+    @Builder.Default
+    Duration defaultRetryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Factor the rate of an operation is multiplied by on each 429 response.
+     */
+    @Builder.Default
+    double throttledRateFactor = 0.5;
+
+    /**
+     * How long a reduced rate takes to climb back to the configured rate.
+     */
+    @Builder.Default
+    Duration recoveryPeriod = Duration.ofSeconds(30);
+}
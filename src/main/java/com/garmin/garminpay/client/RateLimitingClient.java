@@ -0,0 +1,375 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.exception.GarminPayRateLimitException;
+import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.ErrorResponse;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Client decorator that keeps each Garmin Pay operation under its configured rate with a token bucket.
+ * A request over the rate waits for a permit up to the configured max wait, blocking requests sleep and non-blocking
+ * requests are scheduled without holding a thread, and fails with a GarminPayRateLimitException when the wait would be
+ * longer. A 429 or 503 response pauses its operation for the Retry-After the platform asked for, and a 429 response also
+ * cuts the operation's rate, which then climbs back to the configured rate over the recovery period.
+ */
+@Slf4j
+public final class RateLimitingClient implements Client, AsyncClient {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double MIN_RATE_FRACTION = 0.01;
+
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final ScheduledExecutorService scheduler;
+    private final GarminPayMetricsListener metricsListener;
+    private final LongSupplier nanoClock;
+    private final long maxWaitNanos;
+    private final long defaultRetryAfterNanos;
+    private final double throttledRateFactor;
+    private final long recoveryNanos;
+    private final Map<GarminPayOperation, Bucket> buckets = new EnumMap<>(GarminPayOperation.class);
+
+    /**
+     * Creates a rate limiter around the given clients.
+     *
+     * @param client          Client requests are sent with once they hold a permit
+     * @param asyncClient     AsyncClient non-blocking requests are sent with once they hold a permit, may be null
+     * @param settings        rates, burst, max wait and throttling behavior of the limiter
+     * @param scheduler       executor non-blocking requests wait on for their permit
+     * @param metricsListener listener notified of throttled responses and rejected requests
+     * @throws IllegalArgumentException if an argument is null, a rate is not positive, a duration is negative, the recovery
+     *     period is not positive or the throttled rate factor is not greater than 0 and at most 1
+     */
+    public RateLimitingClient(
+        @NonNull Client client, AsyncClient asyncClient, @NonNull RateLimiterSettings settings,
+        @NonNull ScheduledExecutorService scheduler, @NonNull GarminPayMetricsListener metricsListener
+    ) {
+        this(client, asyncClient, settings, scheduler, metricsListener, System::nanoTime);
+    }
+
+    RateLimitingClient(
+        Client client, AsyncClient asyncClient, RateLimiterSettings settings, ScheduledExecutorService scheduler,
+        GarminPayMetricsListener metricsListener, LongSupplier nanoClock
+    ) {
+        validate(settings);
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.scheduler = scheduler;
+        this.metricsListener = metricsListener;
+        this.nanoClock = nanoClock;
+        this.maxWaitNanos = settings.getMaxWait().toNanos();
+        this.defaultRetryAfterNanos = settings.getDefaultRetryAfter().toNanos();
+        this.throttledRateFactor = settings.getThrottledRateFactor();
+        this.recoveryNanos = settings.getRecoveryPeriod().toNanos();
+
+        long now = nanoClock.getAsLong();
+        for (GarminPayOperation operation : GarminPayOperation.values()) {
+            Double rate = settings.getRates().get(operation);
+            buckets.put(operation, new Bucket(rate != null ? rate : 0, settings.getBurst(), now));
+        }
+    }
+
+    /**
+     * Returns the permits per second an operation is currently allowed, lower than configured while it recovers from a
+     * 429 response.
+     *
+     * @param operation the operation
+     * @return permits per second, or positive infinity if the operation is not limited
+     */
+    public double getRate(@NonNull GarminPayOperation operation) {
+        return buckets.get(operation).currentRate(nanoClock.getAsLong());
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        Bucket bucket = buckets.get(context.getOperation());
+        long start = nanoClock.getAsLong();
+        long wait = bucket.reserve(start);
+        if (wait > maxWaitNanos) {
+            throw rejected(request, context, wait);
+        }
+
+        // A pause that began while this request waited for its permit is waited out as well
+        while (wait > 0) {
+            sleep(wait, context);
+            long now = nanoClock.getAsLong();
+            wait = bucket.pausedFor(now);
+            if (now + wait - start > maxWaitNanos) {
+                throw rejected(request, context, wait);
+            }
+        }
+
+        APIResponseDTO response = client.executeRequest(request, context);
+        onResponse(bucket, context, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("RateLimitingClient was created without an AsyncClient");
+        }
+
+        CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+        Bucket bucket = buckets.get(context.getOperation());
+        long start = nanoClock.getAsLong();
+        long wait = bucket.reserve(start);
+        if (wait > maxWaitNanos) {
+            response.completeExceptionally(rejected(request, context, wait));
+        } else if (wait > 0) {
+            schedule(request, context, bucket, start, wait, response);
+        } else {
+            send(request, context, bucket, response);
+        }
+        return response;
+    }
+
+    private void schedule(
+        ClassicHttpRequest request, RequestContext context, Bucket bucket, long start, long wait,
+        CompletableFuture<APIResponseDTO> response
+    ) {
+        log.debug("Delaying {} request by {} ms for a rate limit permit", context.getOperation(), TimeUnit.NANOSECONDS.toMillis(wait));
+        Runnable resume = () -> {
+            long now = nanoClock.getAsLong();
+            long paused = bucket.pausedFor(now);
+            if (paused == 0) {
+                send(request, context, bucket, response);
+            } else if (now + paused - start > maxWaitNanos) {
+                response.completeExceptionally(rejected(request, context, paused));
+            } else {
+                schedule(request, context, bucket, start, paused, response);
+            }
+        };
+        try {
+            scheduler.schedule(resume, wait, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            response.completeExceptionally(
+                new GarminPaySDKException("Unable to schedule " + context.getOperation().getName() + " request", e)
+            );
+        }
+    }
+
+    private void send(ClassicHttpRequest request, RequestContext context, Bucket bucket, CompletableFuture<APIResponseDTO> response) {
+        CompletableFuture<APIResponseDTO> sent;
+        try {
+            sent = asyncClient.executeRequestAsync(request, context);
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+            return;
+        }
+        sent.whenComplete((result, error) -> {
+            if (error != null) {
+                response.completeExceptionally(error);
+            } else {
+                onResponse(bucket, context, result);
+                response.complete(result);
+            }
+        });
+    }
+
+    private void onResponse(Bucket bucket, RequestContext context, APIResponseDTO response) {
+        boolean tooManyRequests = response.getStatus() == HttpStatus.SC_TOO_MANY_REQUESTS;
+        if (!tooManyRequests && response.getStatus() != HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            return;
+        }
+
+        Duration retryAfter = response.findRetryAfter();
+        if (retryAfter == null && !tooManyRequests) {
+            return;
+        }
+        long retryAfterNanos = retryAfter != null ? retryAfter.toNanos() : defaultRetryAfterNanos;
+        log.warn("Garmin Pay platform asked to retry {} requests after {} ms, status: {}",
+            context.getOperation(), TimeUnit.NANOSECONDS.toMillis(retryAfterNanos), response.getStatus()
+        );
+        bucket.pause(nanoClock.getAsLong(), retryAfterNanos, tooManyRequests);
+        if (tooManyRequests) {
+            metricsListener.onThrottledResponse(context.getOperation());
+        }
+    }
+
+    private GarminPayRateLimitException rejected(ClassicHttpRequest request, RequestContext context, long wait) {
+        log.debug("Rate limit of {} requests reached, the request was not sent", context.getOperation());
+        metricsListener.onRateLimiterRejection(context.getOperation());
+        return new GarminPayRateLimitException(
+            "GarminPay client rate limit reached, try again in a little while. The request was not sent.",
+            ErrorResponse.builder().status(HttpStatus.SC_TOO_MANY_REQUESTS).path(request.getPath()).build(),
+            Duration.ofNanos(wait)
+        );
+    }
+
+    private static void sleep(long nanos, RequestContext context) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GarminPaySDKException("Interrupted while waiting to send " + context.getOperation().getName() + " request", e);
+        }
+    }
+
+    private static void validate(RateLimiterSettings settings) {
+        for (Map.Entry<GarminPayOperation, Double> rate : settings.getRates().entrySet()) {
+            if (rate.getKey() == null || rate.getValue() == null || !(rate.getValue() > 0) || rate.getValue().isInfinite()) {
+                throw new IllegalArgumentException("Rate limiter rates must be positive permits per second");
+            }
+        }
+        if (settings.getBurst() == null || settings.getBurst().isNegative()
+            || settings.getMaxWait() == null || settings.getMaxWait().isNegative()
+            || settings.getDefaultRetryAfter() == null || settings.getDefaultRetryAfter().isNegative()) {
+            throw new IllegalArgumentException("Rate limiter burst, max wait and default retry after cannot be null or negative");
+        }
+        if (settings.getRecoveryPeriod() == null || settings.getRecoveryPeriod().isNegative() || settings.getRecoveryPeriod().isZero()) {
+            throw new IllegalArgumentException("Rate limiter recovery period must be positive");
+        }
+        if (!(settings.getThrottledRateFactor() > 0) || settings.getThrottledRateFactor() > 1) {
+            throw new IllegalArgumentException("Rate limiter throttled rate factor must be greater than 0 and at most 1");
+        }
+    }
+
+    /**
+     * Token bucket of one operation. Reservations may take the bucket below zero, later reservations then wait for the
+     * permits already promised to be refilled first.
+     */
+    private final class Bucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final double configuredRate;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+        private long pausedUntil;
+        private boolean throttled;
+        private double throttledRate;
+        private long throttledAt;
+
+        Bucket(double configuredRate, Duration burst, long now) {
+            this.configuredRate = configuredRate;
+            this.capacity = Math.max(1, configuredRate * burst.toNanos() / NANOS_PER_SECOND);
+            this.tokens = capacity;
+            this.refilledAt = now;
+            this.pausedUntil = now;
+        }
+
+        /**
+         * Returns how long a request must wait for its permit, taking the permit only if that is within the max wait.
+         */
+        long reserve(long now) {
+            lock.lock();
+            try {
+                long paused = Math.max(0, pausedUntil - now);
+                if (configuredRate == 0) {
+                    return paused;
+                }
+
+                double rate = rate(now);
+                refill(now, rate);
+                long wait = paused + (tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate * NANOS_PER_SECOND));
+                if (wait <= maxWaitNanos) {
+                    tokens -= 1;
+                }
+                return wait;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long pausedFor(long now) {
+            lock.lock();
+            try {
+                return Math.max(0, pausedUntil - now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Holds back the operation until the Retry-After has passed, after which one request goes out and the rest follow
+         * at the operation's rate. A 429 response cuts the rate once per pause, responses to requests already in flight
+         * when the pause began do not cut it again.
+         */
+        void pause(long now, long retryAfterNanos, boolean cutRate) {
+            lock.lock();
+            try {
+                boolean alreadyPaused = pausedUntil - now > 0;
+                if (now + retryAfterNanos - pausedUntil > 0) {
+                    pausedUntil = now + retryAfterNanos;
+                }
+                if (configuredRate == 0) {
+                    return;
+                }
+
+                double rate = rate(now);
+                refill(now, rate);
+                tokens = Math.min(tokens, 1);
+                if (pausedUntil - refilledAt > 0) {
+                    refilledAt = pausedUntil;
+                }
+                if (cutRate && !alreadyPaused) {
+                    throttledRate = Math.max(rate * throttledRateFactor, configuredRate * MIN_RATE_FRACTION);
+                    throttledAt = now;
+                    throttled = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double currentRate(long now) {
+            if (configuredRate == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            lock.lock();
+            try {
+                return rate(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double rate(long now) {
+            if (!throttled) {
+                return configuredRate;
+            }
+            long elapsed = now - throttledAt;
+            if (elapsed >= recoveryNanos) {
+                throttled = false;
+                return configuredRate;
+            }
+            return throttledRate + (configuredRate - throttledRate) * elapsed / recoveryNanos;
+        }
+
+        private void refill(long now, double rate) {
+            if (now - refilledAt > 0) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / NANOS_PER_SECOND);
+                refilledAt = now;
+            }
+        }
+    }
+}
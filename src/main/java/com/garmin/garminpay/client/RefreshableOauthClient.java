@@ -6,15 +6,26 @@
 package com.garmin.garminpay.client;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.exception.GarminPayBaseException;
 import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.metrics.TokenRefreshReason;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.request.OAuthTokenRequest;
 import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.utility.CompletionUtil;
+import com.garmin.garminpay.utility.GarminPayCodec;
 import com.garmin.garminpay.utility.ResponseHandlingUtil;
 
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
@@ -24,42 +35,98 @@ import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.message.BasicHeader;
 
+/**
+ * Client decorator that authenticates requests with an OAuth token.
+ * The token is cached until it expires, concurrent refreshes are coalesced into a single token request and,
+ * when a scheduler is provided, the token is refreshed in the background before it expires. With an AsyncClient the
+ * background refresh is non-blocking, so the scheduler thread is only held while the token request is started.
+ * Requests can be executed asynchronously when an {@link AsyncClient} is provided, sharing the same token.
+ */
 @Slf4j
-public class RefreshableOauthClient extends APIClient {
+public class RefreshableOauthClient implements Client, AsyncClient {
+    private static final double DEFAULT_REFRESH_FRACTION = 0.75;
+    // Tokens are treated as expired slightly early to allow for clock skew and request latency
+    private static final long EXPIRY_SKEW_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final RequestContext TOKEN_CONTEXT = RequestContext.builder()
+        .operation(GarminPayOperation.TOKEN)
+        .responseType(OAuthTokenResponse.class)
+        .build();
     private final Client wrappedClient;
+    private final AsyncClient wrappedAsyncClient;
     private final byte[] credentials;
     private final String authUrl;
-    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-    private String authToken;
+    private final double refreshFraction;
+    private final ScheduledExecutorService refreshScheduler;
+    private final GarminPayMetricsListener metricsListener;
+    private final GarminPayCodec codec;
+    private final AtomicReference<AuthToken> authToken = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<AuthToken>> refreshInFlight = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> scheduledRefresh = new AtomicReference<>();
+    private volatile boolean proactiveRefreshStopped;
 
     /**
      * Constructs a RefreshableOauthClient decorator for making HTTP calls with oauth refresh logic.
+     * Tokens are only refreshed when they have expired or are rejected.
      *
      * @param client      the base client to apply the decorator too
      * @param credentials user credentials to use when authenticating
      * @param authUrl     URL to use when authenticating
      */
     public RefreshableOauthClient(Client client, byte[] credentials, String authUrl) {
+        this(client, null, credentials, authUrl, null, null, null, null);
+    }
+
+    /**
+     * Constructs a RefreshableOauthClient decorator from {@code builder()}, unset dependencies fall back to their defaults.
+     *
+     * @param client           the base client to apply the decorator too
+     * @param asyncClient      the base async client to apply the decorator too, async requests are unsupported when null
+     * @param credentials      user credentials to use when authenticating
+     * @param authUrl          URL to use when authenticating
+     * @param refreshFraction  fraction of the token lifetime after which a new token is requested, between 0 and 1, 0.75 if null
+     * @param refreshScheduler scheduler used for proactive refreshes, tokens are only refreshed on demand when null
+     * @param metricsListener  listener notified of token refreshes and 401 retries, may be null
+     * @param codec            codec used to write token requests and read token responses, the default codec if null
+     * @throws IllegalArgumentException if refreshFraction is not greater than 0 and at most 1
+     */
+    @Builder
+    protected RefreshableOauthClient(
+        Client client, AsyncClient asyncClient, byte[] credentials, String authUrl, Double refreshFraction,
+        ScheduledExecutorService refreshScheduler, GarminPayMetricsListener metricsListener, GarminPayCodec codec
+    ) {
+        double fraction = refreshFraction != null ? refreshFraction : DEFAULT_REFRESH_FRACTION;
+        if (!(fraction > 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Token refresh fraction must be greater than 0 and at most 1");
+        }
         this.wrappedClient = client;
+        this.wrappedAsyncClient = asyncClient;
         this.credentials = credentials;
         this.authUrl = authUrl;
+        this.refreshFraction = fraction;
+        this.refreshScheduler = refreshScheduler;
+        this.metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
+        this.codec = codec != null ? codec : GarminPayCodec.getDefault();
     }
 
     @Override
     public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
         log.debug("Adding authentication headers to request before execution");
 
-        if (this.authToken == null) {
+        AuthToken token = authToken.get();
+        if (token == null || token.isExpired(System.currentTimeMillis())) {
             log.info("Generating new auth token");
-            refreshToken();
+            token = refreshToken(token, TokenRefreshReason.EXPIRED);
         }
 
         // Add new header containing auth token
-        Header authHeader = new BasicHeader(HttpHeaders.AUTHORIZATION, "Bearer " + this.authToken, true);
-        request.addHeader(authHeader);
+        request.addHeader(token.toHeader());
 
-        APIResponseDTO response = wrappedClient.executeRequest(request);
+        APIResponseDTO response = wrappedClient.executeRequest(request, context);
         log.debug("Received response from {} method to {}, status: {}, x-request-id: {}, CF-RAY: {}",
             request.getMethod(), request.getPath(),
             response.getStatus(), response.findXRequestId(), response.findCFRay()
@@ -67,27 +134,224 @@ public class RefreshableOauthClient extends APIClient {
 
         if (response.getStatus() == 401) { // If 401, execute retry flow
             log.debug("Invalid OAuth token, refreshing");
-            this.refreshToken();
+            token = this.refreshToken(token, TokenRefreshReason.REJECTED);
 
-            request.setHeader(new BasicHeader(HttpHeaders.AUTHORIZATION, "Bearer " + this.authToken, true));
+            request.setHeader(token.toHeader());
 
             log.debug("Executing original request with new OAuth token");
-            return wrappedClient.executeRequest(request);
+            metricsListener.onUnauthorizedRetry(context.getOperation());
+            return wrappedClient.executeRequest(request, context);
         }
 
         return response;
     }
 
-    private void refreshToken() {
+    /**
+     * Executes a request without blocking, fetching or refreshing the OAuth token as non-blocking stages.
+     *
+     * @param request request to be executed
+     * @return future completed with the response DTO
+     * @throws IllegalStateException if this client was created without an AsyncClient
+     */
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    /**
+     * Executes a request without blocking, fetching or refreshing the OAuth token as non-blocking stages.
+     *
+     * @param request request to be executed
+     * @param context the operation and expected response type of the request
+     * @return future completed with the response DTO
+     * @throws IllegalStateException if this client was created without an AsyncClient
+     */
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (wrappedAsyncClient == null) {
+            throw new IllegalStateException("RefreshableOauthClient was created without an AsyncClient");
+        }
+        log.debug("Adding authentication headers to async request before execution");
+
+        AuthToken current = authToken.get();
+        CompletableFuture<AuthToken> token = current == null || current.isExpired(System.currentTimeMillis())
+            ? refreshTokenAsync(current, TokenRefreshReason.EXPIRED)
+            : CompletableFuture.completedFuture(current);
+
+        return token.thenCompose(usedToken -> {
+            request.setHeader(usedToken.toHeader());
+            return wrappedAsyncClient.executeRequestAsync(request, context).thenCompose(response -> {
+                if (response.getStatus() != 401) {
+                    return CompletableFuture.completedFuture(response);
+                }
+
+                log.debug("Invalid OAuth token on async request, refreshing");
+                return refreshTokenAsync(usedToken, TokenRefreshReason.REJECTED).thenCompose(newToken -> {
+                    request.setHeader(newToken.toHeader());
+                    log.debug("Executing original async request with new OAuth token");
+                    metricsListener.onUnauthorizedRetry(context.getOperation());
+                    return wrappedAsyncClient.executeRequestAsync(request, context);
+                });
+            });
+        });
+    }
+
+    /**
+     * Fetches an OAuth token unless a valid one is already cached, so the next request does not wait for it.
+     *
+     * @throws GarminPayBaseException if the token could not be fetched
+     */
+    public void ensureToken() {
+        AuthToken token = authToken.get();
+        if (token == null || token.isExpired(System.currentTimeMillis())) {
+            refreshToken(token, TokenRefreshReason.EXPIRED);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #ensureToken()}.
+     *
+     * @return future completed once a valid token is cached, or exceptionally with a GarminPayBaseException
+     * @throws IllegalStateException if this client was created without an AsyncClient
+     */
+    public CompletableFuture<Void> ensureTokenAsync() {
+        if (wrappedAsyncClient == null) {
+            throw new IllegalStateException("RefreshableOauthClient was created without an AsyncClient");
+        }
+
+        AuthToken token = authToken.get();
+        if (token != null && !token.isExpired(System.currentTimeMillis())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return refreshTokenAsync(token, TokenRefreshReason.EXPIRED).thenApply(refreshed -> null);
+    }
+
+    /**
+     * Cancels the scheduled background refresh and schedules no further ones, tokens are still refreshed on demand.
+     */
+    public void stopProactiveRefresh() {
+        proactiveRefreshStopped = true;
+        ScheduledFuture<?> refresh = scheduledRefresh.getAndSet(null);
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #refreshToken(AuthToken, TokenRefreshReason)}.
+     */
+    private CompletableFuture<AuthToken> refreshTokenAsync(AuthToken observed, TokenRefreshReason reason) {
+        while (true) {
+            AuthToken latest = authToken.get();
+            if (latest != observed && latest != null && !latest.isExpired(System.currentTimeMillis())) {
+                return CompletableFuture.completedFuture(latest);
+            }
+
+            CompletableFuture<AuthToken> inFlight = refreshInFlight.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+
+            CompletableFuture<AuthToken> refresh = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, refresh)) {
+                log.debug("Refreshing OAuth token asynchronously");
+                long start = System.nanoTime();
+                try {
+                    wrappedAsyncClient.executeRequestAsync(buildOAuthRequest(), TOKEN_CONTEXT)
+                        .thenApply(this::toAuthToken)
+                        .whenComplete((refreshed, error) -> {
+                            metricsListener.onTokenRefresh(reason, System.nanoTime() - start, CompletionUtil.unwrap(error));
+                            if (error != null) {
+                                fail(refresh, error);
+                            } else {
+                                publish(refresh, refreshed);
+                            }
+                        });
+                } catch (RuntimeException e) {
+                    metricsListener.onTokenRefresh(reason, System.nanoTime() - start, e);
+                    fail(refresh, e);
+                }
+                return refresh;
+            }
+        }
+    }
+
+    /**
+     * Requests a new token unless another caller already replaced the observed token while this one waited.
+     * Blocking and non-blocking callers share one token request, a caller finding a refresh in flight waits for its token.
+     * The previous token keeps being served to other callers until the new token is stored.
+     */
+    private AuthToken refreshToken(AuthToken observed, TokenRefreshReason reason) {
+        while (true) {
+            AuthToken latest = authToken.get();
+            if (latest != observed && latest != null && !latest.isExpired(System.currentTimeMillis())) {
+                log.debug("OAuth token was refreshed by another caller");
+                return latest;
+            }
+
+            CompletableFuture<AuthToken> inFlight = refreshInFlight.get();
+            if (inFlight != null) {
+                log.debug("Waiting for the OAuth token refresh in flight");
+                try {
+                    return inFlight.join();
+                } catch (CompletionException e) {
+                    Throwable cause = CompletionUtil.unwrap(e);
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+                }
+            }
+
+            CompletableFuture<AuthToken> refresh = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, refresh)) {
+                try {
+                    AuthToken refreshed = requestToken(reason);
+                    publish(refresh, refreshed);
+                    return refreshed;
+                } catch (RuntimeException e) {
+                    fail(refresh, e);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a refreshed token before clearing the refresh in flight, so a caller that finds no refresh in flight always
+     * finds the new token.
+     */
+    private void publish(CompletableFuture<AuthToken> refresh, AuthToken refreshed) {
+        authToken.set(refreshed);
+        refreshInFlight.compareAndSet(refresh, null);
+        scheduleProactiveRefresh(refreshed);
+        refresh.complete(refreshed);
+    }
+
+    private void fail(CompletableFuture<AuthToken> refresh, Throwable error) {
+        refreshInFlight.compareAndSet(refresh, null);
+        refresh.completeExceptionally(error);
+    }
+
+    private AuthToken requestToken(TokenRefreshReason reason) {
         log.debug("Refreshing OAuth token");
-        ClassicHttpRequest request = this.buildOAuthRequest();
-        APIResponseDTO responseDTO = this.wrappedClient.executeRequest(request);
+        long start = System.nanoTime();
+        try {
+            ClassicHttpRequest request = this.buildOAuthRequest();
+            APIResponseDTO responseDTO = this.wrappedClient.executeRequest(request, TOKEN_CONTEXT);
+
+            AuthToken refreshed = toAuthToken(responseDTO);
+            metricsListener.onTokenRefresh(reason, System.nanoTime() - start, null);
+            return refreshed;
+        } catch (RuntimeException e) {
+            metricsListener.onTokenRefresh(reason, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
 
-        OAuthTokenResponse oAuthTokenResponse = ResponseHandlingUtil.parseResponse(responseDTO, OAuthTokenResponse.class);
+    private AuthToken toAuthToken(APIResponseDTO responseDTO) {
+        OAuthTokenResponse oAuthTokenResponse = ResponseHandlingUtil.parseResponse(responseDTO, OAuthTokenResponse.class, codec);
 
-        // Read in the response and set the new token
+        // Read in the response and build the new token
         if (oAuthTokenResponse != null && oAuthTokenResponse.getAccessToken() != null) {
-            this.authToken = oAuthTokenResponse.getAccessToken();
+            return AuthToken.from(oAuthTokenResponse, System.currentTimeMillis());
         } else {
             log.warn("Refresh token request executed but the token was null. status: {}, x-request-id: {}, CF-RAY: {}",
                 responseDTO.getStatus(), responseDTO.findXRequestId(), responseDTO.findCFRay()
@@ -96,6 +360,49 @@ public class RefreshableOauthClient extends APIClient {
         }
     }
 
+    private void scheduleProactiveRefresh(AuthToken token) {
+        if (refreshScheduler == null || proactiveRefreshStopped || token.getLifetimeMillis() == null) {
+            return;
+        }
+
+        long delayMillis = (long) (token.getLifetimeMillis() * refreshFraction);
+        log.debug("Scheduling OAuth token refresh in {} ms", delayMillis);
+        try {
+            ScheduledFuture<?> refresh = refreshScheduler.schedule(() -> proactiveRefresh(token), delayMillis, TimeUnit.MILLISECONDS);
+
+            ScheduledFuture<?> previous = scheduledRefresh.getAndSet(refresh);
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            // Proactive refresh may have been stopped while this refresh was being scheduled
+            if (proactiveRefreshStopped) {
+                refresh.cancel(false);
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("Background refresh of OAuth token was rejected", e);
+        }
+    }
+
+    /**
+     * Refreshes the token from the scheduler thread. With an AsyncClient the request is only started there, so the scheduler
+     * is not held for the round trip.
+     */
+    private void proactiveRefresh(AuthToken token) {
+        if (wrappedAsyncClient == null) {
+            try {
+                refreshToken(token, TokenRefreshReason.PROACTIVE);
+            } catch (GarminPayBaseException e) {
+                log.warn("Background refresh of OAuth token failed, token will be refreshed on next use", e);
+            }
+            return;
+        }
+        refreshTokenAsync(token, TokenRefreshReason.PROACTIVE).whenComplete((refreshed, error) -> {
+            if (error != null) {
+                log.warn("Background refresh of OAuth token failed, token will be refreshed on next use", CompletionUtil.unwrap(error));
+            }
+        });
+    }
+
     private ClassicHttpRequest buildOAuthRequest() {
         log.debug("Building OAuth request");
         String encodedCredentials = Base64.getEncoder().encodeToString(credentials);
@@ -106,7 +413,7 @@ public class RefreshableOauthClient extends APIClient {
 
         String serializedRequestBody;
         try {
-            serializedRequestBody = objectMapper.writeValueAsString(requestModel);
+            serializedRequestBody = codec.writeValueAsString(requestModel);
         } catch (JsonProcessingException e) {
             log.warn("Failed to serialize OAuth token request when refreshing token");
             throw new GarminPaySDKException("Failed to serialize request when generating a new OAuth token");
@@ -121,4 +428,41 @@ public class RefreshableOauthClient extends APIClient {
             .addHeader(authHeader)
             .build();
     }
+
+    /**
+     * Immutable OAuth token and the time it expires.
+     */
+    private static final class AuthToken {
+        private final Header header;
+        private final Long lifetimeMillis;
+        private final long expiresAtMillis;
+
+        private AuthToken(String accessToken, Long lifetimeMillis, long expiresAtMillis) {
+            this.header = new BasicHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken, true);
+            this.lifetimeMillis = lifetimeMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        static AuthToken from(OAuthTokenResponse response, long issuedAtMillis) {
+            if (response.getExpiresIn() == null || response.getExpiresIn() <= 0) {
+                // Without a lifetime the token is used until it is rejected
+                return new AuthToken(response.getAccessToken(), null, Long.MAX_VALUE);
+            }
+            long lifetimeMillis = TimeUnit.SECONDS.toMillis(response.getExpiresIn());
+            long usableLifetime = lifetimeMillis - Math.min(EXPIRY_SKEW_MILLIS, lifetimeMillis / 10);
+            return new AuthToken(response.getAccessToken(), lifetimeMillis, issuedAtMillis + usableLifetime);
+        }
+
+        Header toHeader() {
+            return header;
+        }
+
+        Long getLifetimeMillis() {
+            return lifetimeMillis;
+        }
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
 }
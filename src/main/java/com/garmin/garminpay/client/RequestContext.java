@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Describes a request to the clients executing it: the operation it belongs to and the expected response body type.
+ */
+@Value
+@Builder
+public class RequestContext {
+    /**
+     * Context used for requests executed without one.
+     */
+    public static final RequestContext DEFAULT = RequestContext.builder().build();
+
+    /**
+     * The Garmin Pay operation the request belongs to.
+     */
+    @Builder.Default
+    GarminPayOperation operation = GarminPayOperation.OTHER;
+
+    /**
+     * Type of a successful response body, or null to keep the body as content.
+     */
+    Class<?> responseType;
+}
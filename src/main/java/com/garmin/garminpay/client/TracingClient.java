@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+import com.garmin.garminpay.utility.CompletionUtil;
+
+import java.util.concurrent.CompletableFuture;
+import lombok.NonNull;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+/**
+ * Client decorator that traces every request it sends with a span of the given tracer.
+ * The trace propagation headers are added to the request and the span is tagged with the response status and the
+ * x-request-id and CF-RAY headers, so a slow call can be matched with the Garmin Pay platform's own records.
+ */
+public final class TracingClient implements Client, AsyncClient {
+    /**
+     * Span attribute holding the operation the request belongs to.
+     */
+    public static final String OPERATION_ATTRIBUTE = "garminpay.operation";
+
+    /**
+     * Span attribute holding the response status code.
+     */
+    public static final String STATUS_CODE_ATTRIBUTE = "http.response.status_code";
+
+    /**
+     * Span attribute holding the x-request-id header of the response.
+     */
+    public static final String REQUEST_ID_ATTRIBUTE = "garminpay.request_id";
+
+    /**
+     * Span attribute holding the CF-RAY header of the response.
+     */
+    public static final String CF_RAY_ATTRIBUTE = "garminpay.cf_ray";
+
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final GarminPayTracer tracer;
+
+    /**
+     * Creates a tracing decorator around the given clients.
+     *
+     * @param client      Client requests are sent with
+     * @param asyncClient AsyncClient non-blocking requests are sent with, may be null
+     * @param tracer      tracer starting the span of every request
+     * @throws IllegalArgumentException if client or tracer is null
+     */
+    public TracingClient(@NonNull Client client, AsyncClient asyncClient, @NonNull GarminPayTracer tracer) {
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request) {
+        return executeRequest(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public APIResponseDTO executeRequest(ClassicHttpRequest request, RequestContext context) {
+        GarminPaySpan span = startSpan(request, context);
+        try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+            APIResponseDTO response = client.executeRequest(request, context);
+            tagResponse(span, response);
+            return response;
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request) {
+        return executeRequestAsync(request, RequestContext.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<APIResponseDTO> executeRequestAsync(ClassicHttpRequest request, RequestContext context) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("TracingClient was created without an AsyncClient");
+        }
+
+        GarminPaySpan span = startSpan(request, context);
+        CompletableFuture<APIResponseDTO> sent;
+        try (GarminPaySpan.Scope scope = span.makeCurrent()) {
+            sent = asyncClient.executeRequestAsync(request, context);
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.end();
+            throw e;
+        }
+
+        // Completed with the unwrapped outcome of the request so callers see the same errors as without tracing
+        CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+        sent.whenComplete((result, error) -> {
+            if (error != null) {
+                span.recordException(CompletionUtil.unwrap(error));
+                span.end();
+                response.completeExceptionally(error);
+            } else {
+                tagResponse(span, result);
+                span.end();
+                response.complete(result);
+            }
+        });
+        return response;
+    }
+
+    private GarminPaySpan startSpan(ClassicHttpRequest request, RequestContext context) {
+        GarminPaySpan span = tracer.startHttpCall(context.getOperation(), request);
+        span.setAttribute(OPERATION_ATTRIBUTE, context.getOperation().getName());
+        return span;
+    }
+
+    private static void tagResponse(GarminPaySpan span, APIResponseDTO response) {
+        span.setAttribute(STATUS_CODE_ATTRIBUTE, response.getStatus());
+        if (!"null".equals(response.findXRequestId())) {
+            span.setAttribute(REQUEST_ID_ATTRIBUTE, response.findXRequestId());
+        }
+        if (!"null".equals(response.findCFRay())) {
+            span.setAttribute(CF_RAY_ATTRIBUTE, response.findCFRay());
+        }
+    }
+}
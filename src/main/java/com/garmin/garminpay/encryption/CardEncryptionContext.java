@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.encryption;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.garmin.garminpay.exception.GarminPayEncryptionException;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.AESEncrypter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import javax.crypto.SecretKey;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Encrypts card data as compact A256GCMKW / A256GCM JWEs for a single key agreement.
+ * The encrypter and the JWE header are built once per key agreement rather than per card, the encryption itself is left
+ * to Nimbus JOSE.
+ * The serialized card data and the payload copy handed to Nimbus are zeroed after every encryption. The per card content
+ * encryption key is not: Nimbus generates it inside a SecretKeySpec, which cannot be destroyed and copies its bytes on
+ * every access, and the JCA cipher keeps its own expanded copy. Both become unreachable once the card is encrypted and
+ * are left to the garbage collector.
+ * Every card is serialized into a buffer of its own rather than into one reused per thread. A thread-local buffer saves
+ * an allocation of a few hundred bytes only on long-lived platform threads, next to a key wrap and an AES-GCM pass per
+ * card, while virtual threads would allocate it for every card anyway and keep it until the thread ends. Nimbus needs
+ * the payload in an array of its exact length, which the buffer hands over without copying when the card fills it.
+ * Instances are immutable and safe to share between threads.
+ */
+@Slf4j
+public final class CardEncryptionContext {
+    private static final int PLAINTEXT_CAPACITY = 512;
+
+    /**
+     * The server keyId the secret key was agreed with.
+     */
+    @Getter
+    private final String keyId;
+    private final AESEncrypter encrypter;
+    private final JWEHeader header;
+    private final ObjectWriter cardWriter;
+
+    CardEncryptionContext(SecretKey secretKey, String keyId, ObjectWriter cardWriter) {
+        try {
+            this.encrypter = new AESEncrypter(secretKey);
+        } catch (JOSEException e) {
+            log.warn("Unable to create encrypter for the agreed key");
+            throw new GarminPayEncryptionException("Unable to encrypt card data with provided secret key");
+        }
+        this.keyId = keyId;
+        this.header = new JWEHeader.Builder(JWEAlgorithm.A256GCMKW, EncryptionMethod.A256GCM)
+            .contentType("application/jwe")
+            .keyID(keyId)
+            .build();
+        this.cardWriter = cardWriter;
+    }
+
+    /**
+     * Encrypts a CardData object for end to end payload encryption.
+     * The plaintext is zeroed before returning, the content encryption key is not, see the class documentation.
+     *
+     * @param garminPayCardData The CardData for card registration
+     * @return string representing the JWE of cardData
+     */
+    public String encrypt(@NonNull GarminPayCardData garminPayCardData) {
+        log.debug("Encrypting card data");
+        SensitiveDataBuffer plaintext = new SensitiveDataBuffer(PLAINTEXT_CAPACITY);
+        byte[] payload = null;
+        try {
+            serializeCardData(garminPayCardData, plaintext);
+            payload = plaintext.detach();
+
+            JWEObject jwe = new JWEObject(header, new Payload(payload));
+            jwe.encrypt(encrypter);
+            return jwe.serialize();
+        } catch (JOSEException e) {
+            log.warn("Unable to encrypt card data");
+            throw new GarminPayEncryptionException("Unable to encrypt card data with provided secret key");
+        } finally {
+            plaintext.wipe();
+            if (payload != null) {
+                Arrays.fill(payload, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Serializes the card straight into the plaintext buffer rather than into an intermediate String.
+     */
+    private void serializeCardData(GarminPayCardData garminPayCardData, SensitiveDataBuffer plaintext) {
+        try {
+            log.debug("Serializing card data");
+            cardWriter.writeValue(plaintext, garminPayCardData);
+        } catch (IOException e) {
+            log.warn("Unable to serialize card data");
+            throw new GarminPayEncryptionException("Could not map or serialize card data");
+        }
+    }
+}
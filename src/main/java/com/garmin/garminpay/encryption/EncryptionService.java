@@ -5,27 +5,24 @@
  */
 package com.garmin.garminpay.encryption;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.nimbusds.jose.EncryptionMethod;
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWEAlgorithm;
-import com.nimbusds.jose.JWEHeader;
-import com.nimbusds.jose.JWEObject;
-import com.nimbusds.jose.Payload;
-import com.nimbusds.jose.crypto.AESEncrypter;
 import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
 
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.spec.ECGenParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.garmin.garminpay.exception.GarminPayEncryptionException;
 import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.utility.GarminPayCodec;
 
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -37,8 +34,47 @@ import javax.crypto.SecretKey;
 
 @Slf4j
 public final class EncryptionService {
-    private static final JWEAlgorithm ALGORITHM = JWEAlgorithm.A256GCMKW;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final String CLIENT_KEY_CURVE = "secp256r1";
+
+    // JCA engines are not thread safe, each thread keeps its own instance instead of repeating the provider lookup per call
+    private static final ThreadLocal<KeyFactory> KEY_FACTORY = ThreadLocal.withInitial(
+        () -> newEngine(() -> KeyFactory.getInstance("EC", BouncyCastleProviderSingleton.getInstance()))
+    );
+    private static final ThreadLocal<KeyAgreement> KEY_AGREEMENT = ThreadLocal.withInitial(
+        () -> newEngine(() -> KeyAgreement.getInstance("ECDH", BouncyCastleProviderSingleton.getInstance()))
+    );
+    private static final ThreadLocal<KeyPairGenerator> KEY_PAIR_GENERATOR = ThreadLocal.withInitial(() -> newEngine(() -> {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(CLIENT_KEY_CURVE));
+        return generator;
+    }));
+    private final GarminPayCodec codec;
+
+    /**
+     * Creates an EncryptionService that serializes card data with the default codec.
+     */
+    public EncryptionService() {
+        this(GarminPayCodec.getDefault());
+    }
+
+    /**
+     * Creates an EncryptionService that serializes card data and encryption headers with the given codec.
+     *
+     * @param codec codec used to serialize card data and encryption headers
+     */
+    public EncryptionService(@NonNull GarminPayCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Generates a P-256 client key pair for a key exchange.
+     *
+     * @return the generated key pair
+     */
+    public KeyPair generateClientKeyPair() {
+        log.debug("Generating client key pair");
+        return KEY_PAIR_GENERATOR.get().generateKeyPair();
+    }
 
     /**
      * Creates a shared secret or "key agreement" between the server public and client private keys.
@@ -48,13 +84,24 @@ public final class EncryptionService {
      * @return SecretKey object that represents a keyAgreement between the two keys
      */
     public SecretKey generateKeyAgreement(@NonNull String serverPublicKey, @NonNull String clientPrivateKey) {
+        return generateKeyAgreement(serverPublicKey, getPrivateKey(clientPrivateKey));
+    }
+
+    /**
+     * Creates a shared secret or "key agreement" between the server public key and a client private key
+     * generated by {@link #generateClientKeyPair()}, without encoding the private key.
+     *
+     * @param serverPublicKey  server public key represented as a String
+     * @param clientPrivateKey client private key
+     * @return SecretKey object that represents a keyAgreement between the two keys
+     */
+    public SecretKey generateKeyAgreement(@NonNull String serverPublicKey, @NonNull PrivateKey clientPrivateKey) {
         log.debug("Generating key agreement from provided keys");
         try {
             Key publicKey = getPublicKey(serverPublicKey);
-            Key privateKey = getPrivateKey(clientPrivateKey);
 
-            KeyAgreement keyAgreement = KeyAgreement.getInstance("ECDH", BouncyCastleProviderSingleton.getInstance());
-            keyAgreement.init(privateKey);
+            KeyAgreement keyAgreement = KEY_AGREEMENT.get();
+            keyAgreement.init(clientPrivateKey);
             keyAgreement.doPhase(publicKey, true);
 
             return keyAgreement.generateSecret("AES");
@@ -64,8 +111,20 @@ public final class EncryptionService {
         }
     }
 
+    /**
+     * Creates a context that encrypts card data with the given key agreement, reused for every card encrypted with it.
+     *
+     * @param secretKey secret key for encrypting sensitive data
+     * @param keyId Server keyId to be encrypted
+     * @return encryption context bound to the secret key and keyId
+     */
+    public CardEncryptionContext createEncryptionContext(@NonNull SecretKey secretKey, @NonNull String keyId) {
+        return new CardEncryptionContext(secretKey, keyId, codec.writerFor(GarminPayCardData.class));
+    }
+
     /**
      * Encrypts a CardData object for end to end payload encryption.
+     * Callers encrypting several cards with the same key should reuse a context from {@link #createEncryptionContext}.
      *
      * @param garminPayCardData  The CardData for card registration
      * @param secretKey secret key for encrypting sensitive data
@@ -75,44 +134,7 @@ public final class EncryptionService {
     public String encryptCardData(
         @NonNull GarminPayCardData garminPayCardData, @NonNull SecretKey secretKey, @NonNull String keyId
     ) {
-        log.debug("Encrypting card data");
-        try {
-            AESEncrypter encryptor = new AESEncrypter(secretKey);
-
-            String serializedCardData = serializeCardData(garminPayCardData);
-            Payload payload = new Payload(serializedCardData);
-
-            log.debug("Building jwe object");
-            JWEObject jwe = new JWEObject(
-                new JWEHeader.Builder(ALGORITHM, EncryptionMethod.A256GCM)
-                    .contentType("application/jwe")
-                    .keyID(keyId)
-                    .build(),
-                payload);
-
-            jwe.encrypt(encryptor);
-            return jwe.serialize();
-        } catch (JOSEException e) {
-            log.warn("Unable to encrypt card data");
-            throw new GarminPayEncryptionException("Unable to encrypt card data with provided secret key");
-        }
-    }
-
-    /**
-     * Serializes a CardData object and returns it.
-     *
-     * @param garminPayCardData The CardData to serialize
-     * @return String of serialized CardData object
-     */
-    private String serializeCardData(GarminPayCardData garminPayCardData) {
-        try {
-            // map and serialize CardData object
-            log.debug("Serializing card data");
-            return mapper.writeValueAsString(garminPayCardData);
-        } catch (JsonProcessingException e) {
-            log.warn("Unable to serialize card data");
-            throw new GarminPayEncryptionException("Could not map or serialize card data");
-        }
+        return createEncryptionContext(secretKey, keyId).encrypt(garminPayCardData);
     }
 
     /**
@@ -124,11 +146,9 @@ public final class EncryptionService {
     private Key getPublicKey(String publicKey) {
         log.debug("Getting public key from provided key");
         try {
-            KeyFactory kf = KeyFactory.getInstance("EC", BouncyCastleProviderSingleton.getInstance());
-
             X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Hex.decodeHex(publicKey.toCharArray()));
-            return kf.generatePublic(keySpec);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | DecoderException e) {
+            return KEY_FACTORY.get().generatePublic(keySpec);
+        } catch (InvalidKeySpecException | DecoderException e) {
             log.warn("Unable to get public key from provided key");
             throw new GarminPayEncryptionException("Unable to decrypt public key");
         }
@@ -140,16 +160,28 @@ public final class EncryptionService {
      * @param privateKey private key represented by a character array
      * @return Java Security Key
      */
-    private Key getPrivateKey(String privateKey) {
-        log.debug("Getting public key from provided key");
+    private PrivateKey getPrivateKey(String privateKey) {
+        log.debug("Getting private key from provided key");
         try {
-            KeyFactory kf = KeyFactory.getInstance("EC", BouncyCastleProviderSingleton.getInstance());
-
             PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Hex.decodeHex(privateKey.toCharArray()));
-            return kf.generatePrivate(keySpec);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | DecoderException e) {
+            return KEY_FACTORY.get().generatePrivate(keySpec);
+        } catch (InvalidKeySpecException | DecoderException e) {
             log.warn("Unable to get private key from provided key");
             throw new GarminPayEncryptionException("Unable to decrypt private key");
         }
     }
+
+    private static <T> T newEngine(EngineSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (GeneralSecurityException e) {
+            log.warn("Unable to create cryptographic engine");
+            throw new GarminPayEncryptionException("Unable to create cryptographic engine", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EngineSupplier<T> {
+        T get() throws GeneralSecurityException;
+    }
 }
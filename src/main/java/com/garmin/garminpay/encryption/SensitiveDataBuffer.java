@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.encryption;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for the serialized data of one card, zeroed once its bytes have been handed over.
+ * Unlike {@link java.io.ByteArrayOutputStream} it also zeroes the array it replaces when it grows,
+ * so no copy of the written bytes is left behind for the garbage collector.
+ */
+final class SensitiveDataBuffer extends OutputStream {
+    private byte[] buffer;
+    private int count;
+
+    SensitiveDataBuffer(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * Returns the backing array, only the first {@link #size()} bytes are written.
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Hands the written bytes over in an array of their exact length and empties the buffer.
+     * A full backing array is handed over as is, otherwise the bytes are copied and the backing array is zeroed.
+     */
+    byte[] detach() {
+        if (count == buffer.length) {
+            byte[] written = buffer;
+            buffer = new byte[0];
+            count = 0;
+            return written;
+        }
+        byte[] written = Arrays.copyOf(buffer, count);
+        wipe();
+        return written;
+    }
+
+    /**
+     * Zeroes the written bytes and empties the buffer for its next use.
+     */
+    void wipe() {
+        Arrays.fill(buffer, 0, count, (byte) 0);
+        count = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= buffer.length) {
+            return;
+        }
+        byte[] grown = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        Arrays.fill(buffer, 0, count, (byte) 0);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a request is shed without being sent because the adaptive concurrency limit of requests in
+ * flight to the Garmin Pay platform has been reached, or because a bulkhead gave it no permit within its max wait.
+ */
+@Getter
+public final class GarminPayOverloadException extends GarminPaySDKException {
+
+    /**
+     * The concurrency limit in effect when the request was shed.
+     */
+    private final int limit;
+
+    /**
+     * Constructs a new GarminPayOverloadException with the specified detail message.
+     *
+     * @param message The detail message explaining the reason for the exception.
+     * @param limit   The concurrency limit in effect when the request was shed.
+     */
+    public GarminPayOverloadException(String message, int limit) {
+        super(message);
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.exception;
+
+import com.garmin.garminpay.model.response.ErrorResponse;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when the Garmin Pay platform throttled a request with a 429 response, or the client's rate limiter
+ * did not send it because no permit would be available in time.
+ */
+@Getter
+public final class GarminPayRateLimitException extends GarminPayApiException {
+
+    /**
+     * How long to wait before sending the request again, null when the platform did not say.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new GarminPayRateLimitException with the specified detail message.
+     *
+     * @param message       the detail message.
+     * @param errorResponse error response returned from the API.
+     * @param retryAfter    how long to wait before retrying, may be null.
+     */
+    public GarminPayRateLimitException(String message, ErrorResponse errorResponse, Duration retryAfter) {
+        super(message, errorResponse);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.metrics;
+
+import com.garmin.garminpay.client.CircuitBreakerState;
+import com.garmin.garminpay.client.GarminPayOperation;
+
+import java.util.function.Supplier;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Receives measurements from the SDK's client, proxy and service layers.
+ * Every method has a no-op default so implementations only override what they record.
+ * Methods are called on request and background threads and must be thread safe, fast and must not throw.
+ * Durations are in nanoseconds and errors are null when the measured step succeeded.
+ */
+public interface GarminPayMetricsListener {
+    /**
+     * Listener that records nothing, used when no listener is configured.
+     */
+    GarminPayMetricsListener NOOP = new GarminPayMetricsListener() { };
+
+    /**
+     * Called when an HTTP request completed with a response, whatever its status.
+     *
+     * @param operation     the operation the request belongs to
+     * @param status        the response status code
+     * @param durationNanos time from sending the request until the response was read
+     */
+    default void onHttpResponse(GarminPayOperation operation, int status, long durationNanos) {
+    }
+
+    /**
+     * Called when an HTTP request failed without a usable response, for example on an I/O error or timeout.
+     *
+     * @param operation     the operation the request belongs to
+     * @param error         the failure
+     * @param durationNanos time from sending the request until it failed
+     */
+    default void onHttpFailure(GarminPayOperation operation, Throwable error, long durationNanos) {
+    }
+
+    /**
+     * Called when a new OAuth token was requested.
+     *
+     * @param reason        why the token was requested
+     * @param durationNanos time taken to obtain the token
+     * @param error         the failure, null if a token was obtained
+     */
+    default void onTokenRefresh(TokenRefreshReason reason, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called when a request is retried because its OAuth token was rejected.
+     *
+     * @param operation the operation of the retried request
+     */
+    default void onUnauthorizedRetry(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when the Garmin Pay root links were fetched.
+     *
+     * @param durationNanos time taken to fetch the links
+     * @param error         the failure, null if the links were stored
+     */
+    default void onRootLinksRefresh(long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called when a response signals that the Garmin Pay platform is in maintenance mode.
+     *
+     * @param operation the operation of the request that received the response
+     */
+    default void onMaintenanceMode(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when the circuit breaker guarding requests to the platform changes state.
+     *
+     * @param state the new state
+     */
+    default void onCircuitBreakerStateChange(CircuitBreakerState state) {
+    }
+
+    /**
+     * Called when a request fails fast without being sent because the circuit breaker is open.
+     *
+     * @param operation the operation of the rejected request
+     */
+    default void onCircuitBreakerRejection(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when the Garmin Pay platform answered a request with a 429 Too Many Requests response.
+     *
+     * @param operation the operation of the throttled request
+     */
+    default void onThrottledResponse(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when a request fails without being sent because the rate limiter had no permit for it within the max wait.
+     *
+     * @param operation the operation of the rejected request
+     */
+    default void onRateLimiterRejection(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when a request is shed without being sent because the adaptive concurrency limit was reached.
+     *
+     * @param operation the operation of the shed request
+     */
+    default void onConcurrencyLimitRejection(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when a request fails without being sent because its bulkhead gave it no permit within the max wait.
+     *
+     * @param operation the operation of the rejected request
+     */
+    default void onBulkheadRejection(GarminPayOperation operation) {
+    }
+
+    /**
+     * Called when a key exchange, including client key generation and the key agreement, completed.
+     *
+     * @param durationNanos time taken to establish the key agreement
+     * @param error         the failure, null if the key agreement was established
+     */
+    default void onKeyExchange(long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called when a card registration completed.
+     *
+     * @param durationNanos time taken to register the card, including any token, link or key refresh it waited on
+     * @param error         the failure, null if the card was registered
+     */
+    default void onCardRegistration(long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called once when the SDK creates a connection pool, so its usage can be sampled.
+     *
+     * @param poolName name of the pool
+     * @param stats    supplies current leased, pending, available and maximum connection counts
+     */
+    default void onConnectionPoolCreated(String poolName, Supplier<PoolStats> stats) {
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.metrics;
+
+/**
+ * Why an OAuth token was requested.
+ */
+public enum TokenRefreshReason {
+    /**
+     * No token was cached or the cached token had expired.
+     */
+    EXPIRED,
+
+    /**
+     * The cached token was rejected with a 401.
+     */
+    REJECTED,
+
+    /**
+     * The token was refreshed in the background before it expired.
+     */
+    PROACTIVE
+}
@@ -5,28 +5,91 @@
  */
 package com.garmin.garminpay.model.dto;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 
 import com.garmin.garminpay.exception.GarminPaySDKException;
 
 import java.io.IOException;
-import java.util.Arrays;
-
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 @Value
-@Builder
 @Slf4j
 public class APIResponseDTO {
+    // Error bodies are only retained for error parsing and logging, so larger bodies are truncated
+    private static final int MAX_ERROR_CONTENT_LENGTH = 64 * 1024;
+
     int status;
     String content;
     Header[] headers;
     String path;
 
+    /**
+     * The successful response body already deserialized into the requested type, null when only content is available.
+     */
+    Object body;
+
+    // Response metadata read once from the headers when the DTO is built, as it is logged and checked for every response
+    @Getter(AccessLevel.NONE)
+    String xRequestId;
+    @Getter(AccessLevel.NONE)
+    String cfRay;
+    @Getter(AccessLevel.NONE)
+    boolean maintenanceMode;
+    @Getter(AccessLevel.NONE)
+    String retryAfter;
+
+    @Builder
+    private APIResponseDTO(int status, String content, Header[] headers, String path, Object body) {
+        this.status = status;
+        this.content = content;
+        this.headers = headers;
+        this.path = path;
+        this.body = body;
+
+        String requestId = "null";
+        String ray = "null";
+        boolean maintenance = false;
+        String retry = null;
+        if (headers != null) {
+            boolean requestIdFound = false;
+            boolean rayFound = false;
+            for (Header header : headers) {
+                String name = header.getName();
+                if (!requestIdFound && "x-request-id".equalsIgnoreCase(name)) {
+                    requestId = header.getValue();
+                    requestIdFound = true;
+                } else if (!rayFound && "CF-RAY".equalsIgnoreCase(name)) {
+                    ray = header.getValue();
+                    rayFound = true;
+                } else if ("maintenance-mode".equalsIgnoreCase(name) && "true".equalsIgnoreCase(header.getValue())) {
+                    maintenance = true;
+                } else if (retry == null && "Retry-After".equalsIgnoreCase(name)) {
+                    retry = header.getValue();
+                }
+            }
+        }
+        this.xRequestId = requestId;
+        this.cfRay = ray;
+        this.maintenanceMode = maintenance;
+        this.retryAfter = retry;
+    }
+
     /**
      * Converts a ClassicHttpResponse object to an APIResponseDTO object.
      *
@@ -50,48 +113,142 @@ public class APIResponseDTO {
     }
 
     /**
-     * Filters headers of a response object to find and return the CF-RAY field if it exists.
+     * Converts a ClassicHttpResponse object to an APIResponseDTO object, deserializing a successful response body
+     * directly from the entity stream without materializing it as a String.
+     * Only error responses keep their content, truncated to a bounded length.
+     *
+     * @param response The response to build the DTO from
+     * @param path The path used by the API
+     * @param bodyReader The reader used to deserialize a successful response body
+     * @return An APIResponseDTO object
+     */
+    public static APIResponseDTO fromHttpResponse(ClassicHttpResponse response, String path, ObjectReader bodyReader) {
+        log.debug("Mapping {} http response to DTO with streamed body", path);
+        APIResponseDTOBuilder builder = APIResponseDTO.builder()
+            .status(response.getCode())
+            .headers(response.getHeaders())
+            .path(path);
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return builder.build();
+        }
+
+        try {
+            if (isSuccessful(response.getCode())) {
+                try (InputStream content = entity.getContent()) {
+                    return builder.body(bodyReader.readValue(content)).build();
+                } catch (JsonProcessingException e) {
+                    log.warn("Found an acceptable response status code but encountered unknown response body. status: {}, path: {}",
+                        response.getCode(), path);
+                    throw new GarminPaySDKException("Failed to parse response entity.");
+                }
+            }
+            return builder.content(EntityUtils.toString(entity, MAX_ERROR_CONTENT_LENGTH)).build();
+        } catch (ParseException | IOException e) {
+            log.warn("Failed to parse http response to DTO", e);
+            throw new GarminPaySDKException("Failed to build APIResponseDTO from ClassicHttpResponse");
+        }
+    }
+
+    /**
+     * Converts a SimpleHttpResponse object from an async request to an APIResponseDTO object.
+     *
+     * @param response The response to build the DTO from
+     * @param path The path used by the API
+     * @return An APIResponseDTO object
+     */
+    public static APIResponseDTO fromSimpleHttpResponse(SimpleHttpResponse response, String path) {
+        log.debug("Mapping {} async http response to DTO", path);
+        return APIResponseDTO.builder()
+            .status(response.getCode())
+            .content(response.getBodyText())
+            .headers(response.getHeaders())
+            .path(path)
+            .build();
+    }
+
+    /**
+     * Converts a SimpleHttpResponse object from an async request to an APIResponseDTO object,
+     * deserializing a successful response body directly from the received bytes without decoding it to a String.
+     *
+     * @param response The response to build the DTO from
+     * @param path The path used by the API
+     * @param bodyReader The reader used to deserialize a successful response body
+     * @return An APIResponseDTO object
+     */
+    public static APIResponseDTO fromSimpleHttpResponse(SimpleHttpResponse response, String path, ObjectReader bodyReader) {
+        byte[] bodyBytes = response.getBodyBytes();
+        if (!isSuccessful(response.getCode()) || bodyBytes == null) {
+            return fromSimpleHttpResponse(response, path);
+        }
+
+        log.debug("Mapping {} async http response to DTO with deserialized body", path);
+        try {
+            return APIResponseDTO.builder()
+                .status(response.getCode())
+                .headers(response.getHeaders())
+                .path(path)
+                .body(bodyReader.readValue(bodyBytes))
+                .build();
+        } catch (IOException e) {
+            log.warn("Found an acceptable response status code but encountered unknown response body. status: {}, path: {}",
+                response.getCode(), path);
+            throw new GarminPaySDKException("Failed to parse response entity.");
+        }
+    }
+
+    private static boolean isSuccessful(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    /**
+     * Returns the CF-RAY header of the response if it exists.
      *
      * @return CF-RAY id
      */
     public String findCFRay() {
-        if (headers != null) {
-            return Arrays.stream(headers)
-                .filter(header -> "CF-RAY".equalsIgnoreCase(header.getName()))
-                .map(Header::getValue)
-                .findFirst()
-                .orElse("null");
-        }
-        return "null";
+        return cfRay;
     }
 
     /**
-     * Filters headers of a response object to find and return the x-request-id field if it exists.
+     * Returns the x-request-id header of the response if it exists.
      *
      * @return x-request-id
      */
     public String findXRequestId() {
-        if (headers != null) {
-            return Arrays.stream(headers)
-                .filter(header -> "x-request-id".equalsIgnoreCase(header.getName()))
-                .map(Header::getValue)
-                .findFirst()
-                .orElse("null");
-        }
-        return "null";
+        return xRequestId;
     }
 
     /**
-     * Matches headers of a response object to find and return the maintenance-mode field if it exists.
+     * Returns whether the response carries a maintenance-mode header set to true.
      *
      * @return boolean representing active maintenance
      */
     public boolean isMaintenanceMode() {
-        if (headers != null) {
-            return Arrays.stream(headers)
-                .anyMatch(header -> "maintenance-mode".equalsIgnoreCase(header.getName())
-                && "true".equalsIgnoreCase(header.getValue()));
+        return maintenanceMode;
+    }
+
+    /**
+     * Returns how long the response asks the client to wait before retrying, from a Retry-After header given either
+     * in seconds or as an HTTP date.
+     *
+     * @return the delay, zero for a date in the past, or null if the header is missing or invalid
+     */
+    public Duration findRetryAfter() {
+        if (retryAfter == null) {
+            return null;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(Instant.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ex) {
+                log.debug("Ignoring invalid Retry-After header: {}", value);
+                return null;
+            }
         }
-        return false;
     }
 }
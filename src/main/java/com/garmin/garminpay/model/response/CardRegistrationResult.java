@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.model.response;
+
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of registering a single card as part of a batch.
+ */
+@Value
+@Builder
+public class CardRegistrationResult {
+    /**
+     * Position of the card in the submitted batch.
+     */
+    int index;
+
+    /**
+     * The registration response containing the deeplink URL, null when the registration failed.
+     */
+    RegisterCardResponse registerCardResponse;
+
+    /**
+     * The reason the registration failed, null when the registration succeeded.
+     */
+    GarminPayBaseException exception;
+
+    /**
+     * Whether the card was registered.
+     *
+     * @return true if the registration succeeded, false otherwise
+     */
+    public boolean isSuccessful() {
+        return exception == null;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.model.response;
+
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import java.time.Duration;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of a single health check of the Garmin Pay platform.
+ */
+@Value
+@Builder
+public class HealthSnapshot {
+    /**
+     * Whether the platform reported a healthy status.
+     */
+    boolean healthy;
+
+    /**
+     * HTTP status of the health response, 0 when the check failed without a response.
+     */
+    int statusCode;
+
+    /**
+     * When the check completed.
+     */
+    Instant checkedAt;
+
+    /**
+     * How long the check took.
+     */
+    Duration latency;
+
+    /**
+     * The reason the check failed, null when the platform responded.
+     */
+    GarminPayBaseException exception;
+}
@@ -19,4 +19,10 @@ public class OAuthTokenResponse {
      */
     @JsonProperty("access_token")
     String accessToken;
+
+    /**
+     * The lifetime in seconds of the access token.
+     */
+    @JsonProperty("expires_in")
+    Long expiresIn;
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.model.response;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * What was warmed by warming up a GarminPayClient and how long each step took.
+ * Warming up stops at the first failed step, the steps after it are not part of the report.
+ */
+@Value
+@Builder
+public class WarmUpReport {
+    /**
+     * The steps that ran, in order.
+     */
+    List<WarmUpStep> steps;
+
+    /**
+     * How long warming up took in total.
+     */
+    Duration duration;
+
+    /**
+     * Whether every step succeeded.
+     *
+     * @return true if warming up completed, false if a step failed
+     */
+    public boolean isSuccessful() {
+        return steps.stream().allMatch(WarmUpStep::isSuccessful);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.model.response;
+
+import com.garmin.garminpay.exception.GarminPayBaseException;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of a single step of warming up a GarminPayClient.
+ */
+@Value
+@Builder
+public class WarmUpStep {
+    /**
+     * What was warmed.
+     */
+    WarmUpTask task;
+
+    /**
+     * How many times the step was performed, such as the number of connections opened.
+     */
+    int count;
+
+    /**
+     * How long the step took.
+     */
+    Duration duration;
+
+    /**
+     * The reason the step failed, null when the step succeeded.
+     */
+    GarminPayBaseException exception;
+
+    /**
+     * Whether the step succeeded.
+     *
+     * @return true if the step succeeded, false otherwise
+     */
+    public boolean isSuccessful() {
+        return exception == null;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.model.response;
+
+/**
+ * The steps of warming up a GarminPayClient, in the order they run.
+ */
+public enum WarmUpTask {
+    /**
+     * Fetching the OAuth token, including the TLS handshake with the auth server.
+     */
+    OAUTH_TOKEN,
+
+    /**
+     * Fetching the root links of the Garmin Pay API, including the TLS handshake with the API.
+     */
+    ROOT_LINKS,
+
+    /**
+     * Generating the client key pair and exchanging it with the platform, which also loads the cryptographic provider.
+     */
+    KEY_AGREEMENT,
+
+    /**
+     * Opening pooled connections to the Garmin Pay API with concurrent health checks.
+     */
+    CONNECTIONS,
+
+    /**
+     * Encrypting synthetic card data and building deeplinks for it, so the serialization, encryption and URL building
+     * paths are loaded and compiled. Nothing is sent to the platform.
+     */
+    REGISTRATION_PATH
+}
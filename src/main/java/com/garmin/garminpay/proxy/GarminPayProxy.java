@@ -6,11 +6,14 @@
 package com.garmin.garminpay.proxy;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.client.AsyncClient;
 import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.RequestContext;
 import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayBaseException;
 import com.garmin.garminpay.exception.GarminPaySDKException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.request.CreateECCEncryptionKeyRequest;
 import com.garmin.garminpay.model.request.CreatePaymentCardRequest;
@@ -19,29 +22,62 @@ import com.garmin.garminpay.model.response.HalLink;
 import com.garmin.garminpay.model.response.HealthResponse;
 import com.garmin.garminpay.model.response.RegisterCardResponse;
 import com.garmin.garminpay.model.response.RootResponse;
+import com.garmin.garminpay.utility.CompletionUtil;
+import com.garmin.garminpay.utility.GarminPayCodec;
 
 import static com.garmin.garminpay.utility.ResponseHandlingUtil.parseResponse;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 
 /**
  * GarminPayProxy class responsible for calling the Garmin Pay API.
+ * Root links are cached for a configurable TTL and refreshed in the background shortly before they expire.
+ * Non-blocking variants of each call are available when the proxy is created with an {@link AsyncClient}.
  */
 @Slf4j
 public final class GarminPayProxy {
     private static final String[] EXPECTED_LINK_RELS = new String[]{"self", "health", "encryptionKeys", "paymentCards"};
+    private static final Duration DEFAULT_ROOT_LINK_TTL = Duration.ofHours(1);
+    // Once cached links reach this fraction of their TTL a background refresh is started
+    private static final double REFRESH_AHEAD_FRACTION = 0.8;
+    private static final RequestContext ROOT_CONTEXT = requestContext(GarminPayOperation.ROOT, RootResponse.class);
+    private static final RequestContext HEALTH_CONTEXT = requestContext(GarminPayOperation.HEALTH, HealthResponse.class);
+    private static final RequestContext EXCHANGE_KEYS_CONTEXT
+        = requestContext(GarminPayOperation.EXCHANGE_KEYS, ExchangeKeysResponse.class);
+    private static final RequestContext REGISTER_CARD_CONTEXT
+        = requestContext(GarminPayOperation.REGISTER_CARD, RegisterCardResponse.class);
     private final Client client;
-    private final ObjectMapper objectMapper;
-    private Map<String, HalLink> links = new HashMap<>();
+    private final AsyncClient asyncClient;
+    private final long rootLinkTtlNanos;
+    private final long refreshAheadNanos;
+    private final Executor refreshExecutor;
+    private final GarminPayMetricsListener metricsListener;
+    private final GarminPayCodec codec;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean refreshAheadRunning = new AtomicBoolean(false);
+    private final AtomicReference<CompletableFuture<RootLinks>> asyncRefresh = new AtomicReference<>();
+    private volatile RootLinks rootLinks;
 
 
     /**
@@ -51,11 +87,37 @@ public final class GarminPayProxy {
      * @param baseUrl URL to use for base Garmin Pay endpoints
      */
     public GarminPayProxy(Client client, String baseUrl) {
+        this(client, null, baseUrl, null, null, null, null);
+    }
+
+    /**
+     * GarminPayProxy constructor behind {@code builder()}, unset dependencies fall back to their defaults.
+     *
+     * @param client          Client to be used for executing requests
+     * @param asyncClient     AsyncClient to be used for executing non-blocking requests, may be null
+     * @param baseUrl         URL to use for base Garmin Pay endpoints
+     * @param rootLinkTtl     how long root links are cached before they must be fetched again, an hour if null
+     * @param refreshExecutor executor used to refresh root links ahead of their expiry, the common pool if null
+     * @param metricsListener listener notified of root link refreshes and maintenance mode responses, may be null
+     * @param codec           codec used to write request bodies and read response bodies, the default codec if null
+     */
+    @Builder
+    private GarminPayProxy(
+        Client client, AsyncClient asyncClient, String baseUrl, Duration rootLinkTtl, Executor refreshExecutor,
+        GarminPayMetricsListener metricsListener, GarminPayCodec codec
+    ) {
         this.client = client;
-        this.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.asyncClient = asyncClient;
+        this.rootLinkTtlNanos = (rootLinkTtl != null ? rootLinkTtl : DEFAULT_ROOT_LINK_TTL).toNanos();
+        this.refreshAheadNanos = (long) (rootLinkTtlNanos * REFRESH_AHEAD_FRACTION);
+        this.refreshExecutor = refreshExecutor != null ? refreshExecutor : ForkJoinPool.commonPool();
+        this.metricsListener = metricsListener != null ? metricsListener : GarminPayMetricsListener.NOOP;
+        this.codec = codec != null ? codec : GarminPayCodec.getDefault();
 
-        // Set self link for future use
-        this.links.put("self", HalLink.builder().href(baseUrl).build());
+        // Set self link for future use, the remaining links are fetched on first use
+        Map<String, HalLink> initialLinks = new HashMap<>();
+        initialLinks.put("self", HalLink.builder().href(baseUrl).build());
+        this.rootLinks = new RootLinks(initialLinks, null);
     }
 
     /**
@@ -66,12 +128,10 @@ public final class GarminPayProxy {
      */
     public RootResponse getRootEndpoint() {
         log.debug("Retrieving root endpoint");
-        ClassicHttpRequest request = ClassicRequestBuilder
-            .get(links.get("self").getHref())
-            .build();
-        APIResponseDTO response = client.executeRequest(request);
+        APIResponseDTO response = client.executeRequest(buildRootRequest(), ROOT_CONTEXT);
+        recordMaintenanceMode(GarminPayOperation.ROOT, response);
 
-        return parseResponse(response, RootResponse.class);
+        return parseResponse(response, RootResponse.class, codec);
     }
 
     /**
@@ -83,21 +143,22 @@ public final class GarminPayProxy {
     public HealthResponse getHealthStatus() {
         log.debug("Retrieving health status");
 
-        HalLink link = links.get("health");
-        if (link == null || link.getHref() == null) {
-            refreshRootLinks();
-        }
+        APIResponseDTO response = executeOnLink(HEALTH_CONTEXT, GarminPayProxy::buildHealthRequest);
 
-        ClassicHttpRequest request = ClassicRequestBuilder
-            .get(links.get("health").getHref())
-            .build();
-        APIResponseDTO response = client.executeRequest(request);
+        return toHealthResponse(response);
+    }
 
-        HealthResponse healthResponse = parseResponse(response, HealthResponse.class);
-        return HealthResponse.builder()
-            .healthStatus(healthResponse.getHealthStatus())
-            .statusCode(response.getStatus())
-            .build();
+    /**
+     * Retrieves the health status of the Garmin Pay API without blocking.
+     *
+     * @return future completed with the health status of the Garmin Pay API, or exceptionally with a GarminPayApiException.
+     * @throws IllegalStateException if the proxy was created without an AsyncClient
+     */
+    public CompletableFuture<HealthResponse> getHealthStatusAsync() {
+        log.debug("Retrieving health status asynchronously");
+
+        return executeOnLinkAsync(HEALTH_CONTEXT, GarminPayProxy::buildHealthRequest)
+            .thenApply(this::toHealthResponse);
     }
 
     /**
@@ -110,24 +171,23 @@ public final class GarminPayProxy {
     public ExchangeKeysResponse exchangeKeys(String publicKey) {
         log.debug("Exchanging keys");
 
-        HalLink link = links.get("encryptionKeys");
-        if (link == null || link.getHref() == null) {
-            refreshRootLinks();
-        }
-
-        CreateECCEncryptionKeyRequest requestModel = CreateECCEncryptionKeyRequest.builder()
-            .clientPublicKey(publicKey)
-            .build();
+        APIResponseDTO response = executeOnLink(EXCHANGE_KEYS_CONTEXT, href -> buildExchangeKeysRequest(href, publicKey));
 
-        ClassicHttpRequest request = ClassicRequestBuilder
-            .post(links.get("encryptionKeys").getHref())
-            .setEntity(createRequestEntity(requestModel))
-            .setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-            .build();
+        return parseResponse(response, ExchangeKeysResponse.class, codec);
+    }
 
-        APIResponseDTO response = client.executeRequest(request);
+    /**
+     * Registers a client public key with the Garmin Pay platform without blocking.
+     *
+     * @param publicKey A public ecc key encoded and represented as a string.
+     * @return future completed with the ExchangeKeysResponse, or exceptionally with a GarminPayApiException.
+     * @throws IllegalStateException if the proxy was created without an AsyncClient
+     */
+    public CompletableFuture<ExchangeKeysResponse> exchangeKeysAsync(String publicKey) {
+        log.debug("Exchanging keys asynchronously");
 
-        return parseResponse(response, ExchangeKeysResponse.class);
+        return executeOnLinkAsync(EXCHANGE_KEYS_CONTEXT, href -> buildExchangeKeysRequest(href, publicKey))
+            .thenApply(response -> parseResponse(response, ExchangeKeysResponse.class, codec));
     }
 
     /**
@@ -139,31 +199,74 @@ public final class GarminPayProxy {
     public RegisterCardResponse registerCard(String encryptedCardData) {
         log.debug("Registering card");
 
-        HalLink link = links.get("paymentCards");
-        if (link == null || link.getHref() == null) {
-            refreshRootLinks();
-        }
+        APIResponseDTO response = executeOnLink(REGISTER_CARD_CONTEXT, href -> buildRegisterCardRequest(href, encryptedCardData));
+
+        return parseResponse(response, RegisterCardResponse.class, codec);
+    }
+
+    /**
+     * Registers encrypted card data with the Garmin Pay platform without blocking.
+     *
+     * @param encryptedCardData Serialized and encrypted GarminPayCardDataObject
+     * @return future completed with the RegisterCardResponse, or exceptionally with a GarminPayApiException.
+     * @throws IllegalStateException if the proxy was created without an AsyncClient
+     */
+    public CompletableFuture<RegisterCardResponse> registerCardAsync(String encryptedCardData) {
+        log.debug("Registering card asynchronously");
+
+        return executeOnLinkAsync(REGISTER_CARD_CONTEXT, href -> buildRegisterCardRequest(href, encryptedCardData))
+            .thenApply(response -> parseResponse(response, RegisterCardResponse.class, codec));
+    }
+
+    private ClassicHttpRequest buildRootRequest() {
+        return ClassicRequestBuilder
+            .get(rootLinks.getHref("self"))
+            .build();
+    }
+
+    private static ClassicHttpRequest buildHealthRequest(String href) {
+        return ClassicRequestBuilder
+            .get(href)
+            .build();
+    }
+
+    private ClassicHttpRequest buildExchangeKeysRequest(String href, String publicKey) {
+        CreateECCEncryptionKeyRequest requestModel = CreateECCEncryptionKeyRequest.builder()
+            .clientPublicKey(publicKey)
+            .build();
+
+        return ClassicRequestBuilder
+            .post(href)
+            .setEntity(createRequestEntity(requestModel))
+            .setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+            .build();
+    }
 
+    private ClassicHttpRequest buildRegisterCardRequest(String href, String encryptedCardData) {
         CreatePaymentCardRequest requestModel = CreatePaymentCardRequest.builder()
             .encryptedData(encryptedCardData)
             .build();
 
-        ClassicHttpRequest request = ClassicRequestBuilder
-            .post(links.get("paymentCards").getHref())
+        return ClassicRequestBuilder
+            .post(href)
             .setEntity(createRequestEntity(requestModel))
             .setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
             .build();
+    }
 
-        APIResponseDTO response = client.executeRequest(request);
-
-        return parseResponse(response, RegisterCardResponse.class);
+    private HealthResponse toHealthResponse(APIResponseDTO response) {
+        HealthResponse healthResponse = parseResponse(response, HealthResponse.class, codec);
+        return HealthResponse.builder()
+            .healthStatus(healthResponse.getHealthStatus())
+            .statusCode(response.getStatus())
+            .build();
     }
 
     private <T> StringEntity createRequestEntity(T requestModel) {
         log.debug("Creating request entity");
         String serializedRequestBody;
         try {
-            serializedRequestBody = objectMapper.writeValueAsString(requestModel);
+            serializedRequestBody = codec.writeValueAsString(requestModel);
         } catch (JsonProcessingException e) {
             log.warn("Failed to serialize request body");
             throw new GarminPaySDKException(
@@ -175,19 +278,280 @@ public final class GarminPayProxy {
     }
 
     /**
-     * Refreshes the links to be used by proxy methods.
+     * Refreshes the links to be used by proxy methods, regardless of how old the cached links are.
      */
     public void refreshRootLinks() {
+        refreshLock.lock();
+        try {
+            fetchRootLinks();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #refreshRootLinks()}, joining a root request that is already in flight.
+     *
+     * @return future completed once the links are refreshed, or exceptionally with a GarminPayBaseException
+     */
+    public CompletableFuture<Void> refreshRootLinksAsync() {
+        return refreshRootLinksAsync(rootLinks).thenApply(links -> null);
+    }
+
+    /**
+     * Executes a request against a cached link. If the link returns a 404 or 410 the root links are refreshed and,
+     * when the link has moved, the request is retried once against the new location.
+     */
+    private APIResponseDTO executeOnLink(RequestContext context, Function<String, ClassicHttpRequest> requestFactory) {
+        String rel = context.getOperation().getName();
+        RootLinks current = resolveRootLinks(rel);
+        String href = current.getHref(rel);
+        APIResponseDTO response = client.executeRequest(requestFactory.apply(href), context);
+
+        if (isMovedStatus(response.getStatus())) {
+            log.debug("Cached {} link returned status {}, refreshing root links", rel, response.getStatus());
+            String refreshedHref;
+            try {
+                refreshedHref = refreshRootLinks(current).getHref(rel);
+            } catch (GarminPayBaseException e) {
+                log.warn("Failed to refresh root links after {} link returned status {}", rel, response.getStatus());
+                return response;
+            }
+
+            if (!href.equals(refreshedHref)) {
+                log.debug("Link {} has moved, retrying request against refreshed link", rel);
+                response = client.executeRequest(requestFactory.apply(refreshedHref), context);
+            }
+        }
+
+        recordMaintenanceMode(context.getOperation(), response);
+        return response;
+    }
+
+    /**
+     * Non-blocking variant of {@link #executeOnLink(RequestContext, Function)}.
+     */
+    private CompletableFuture<APIResponseDTO> executeOnLinkAsync(
+        RequestContext context, Function<String, ClassicHttpRequest> requestFactory
+    ) {
+        if (asyncClient == null) {
+            throw new IllegalStateException("GarminPayProxy was created without an AsyncClient");
+        }
+
+        String rel = context.getOperation().getName();
+        return resolveRootLinksAsync(rel).thenCompose(current -> {
+            String href = current.getHref(rel);
+            return asyncClient.executeRequestAsync(requestFactory.apply(href), context).thenCompose(response -> {
+                if (!isMovedStatus(response.getStatus())) {
+                    return CompletableFuture.completedFuture(response);
+                }
+
+                log.debug("Cached {} link returned status {}, refreshing root links", rel, response.getStatus());
+                return refreshRootLinksAsync(current)
+                    .handle((refreshed, error) -> error == null ? refreshed : null)
+                    .thenCompose(refreshed -> {
+                        if (refreshed == null) {
+                            log.warn("Failed to refresh root links after {} link returned status {}", rel, response.getStatus());
+                            return CompletableFuture.completedFuture(response);
+                        }
+
+                        String refreshedHref = refreshed.getHref(rel);
+                        if (href.equals(refreshedHref)) {
+                            return CompletableFuture.completedFuture(response);
+                        }
+                        log.debug("Link {} has moved, retrying async request against refreshed link", rel);
+                        return asyncClient.executeRequestAsync(requestFactory.apply(refreshedHref), context);
+                    });
+            });
+        }).thenApply(response -> {
+            recordMaintenanceMode(context.getOperation(), response);
+            return response;
+        });
+    }
+
+    private void recordMaintenanceMode(GarminPayOperation operation, APIResponseDTO response) {
+        if (response.isMaintenanceMode()) {
+            metricsListener.onMaintenanceMode(operation);
+        }
+    }
+
+    private static RequestContext requestContext(GarminPayOperation operation, Class<?> responseType) {
+        return RequestContext.builder()
+            .operation(operation)
+            .responseType(responseType)
+            .build();
+    }
+
+    private static boolean isMovedStatus(int status) {
+        return status == HttpStatus.SC_NOT_FOUND || status == HttpStatus.SC_GONE;
+    }
+
+    /**
+     * Returns root links that contain the given rel, fetching them when they are missing or expired
+     * and starting a background refresh when they are close to expiring.
+     */
+    private RootLinks resolveRootLinks(String rel) {
+        RootLinks current = rootLinks;
+        long age = current.ageNanos();
+
+        if (current.getHref(rel) == null || age >= rootLinkTtlNanos) {
+            log.debug("Root links are missing or expired, refreshing before use");
+            return refreshRootLinks(current);
+        }
+
+        if (age >= refreshAheadNanos) {
+            scheduleRefreshAhead(current);
+        }
+        return current;
+    }
+
+    /**
+     * Refreshes root links unless another thread already replaced the observed links while this one waited.
+     */
+    private RootLinks refreshRootLinks(RootLinks observed) {
+        refreshLock.lock();
+        try {
+            RootLinks current = rootLinks;
+            if (current != observed && current.isFetched()) {
+                log.debug("Root links were refreshed by another caller");
+                return current;
+            }
+            return fetchRootLinks();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private CompletableFuture<RootLinks> resolveRootLinksAsync(String rel) {
+        RootLinks current = rootLinks;
+        long age = current.ageNanos();
+
+        if (current.getHref(rel) == null || age >= rootLinkTtlNanos) {
+            log.debug("Root links are missing or expired, refreshing asynchronously before use");
+            return refreshRootLinksAsync(current);
+        }
+
+        if (age >= refreshAheadNanos) {
+            scheduleRefreshAhead(current);
+        }
+        return CompletableFuture.completedFuture(current);
+    }
+
+    /**
+     * Non-blocking variant of {@link #refreshRootLinks(RootLinks)}, concurrent async refreshes share one root request.
+     */
+    private CompletableFuture<RootLinks> refreshRootLinksAsync(RootLinks observed) {
+        while (true) {
+            RootLinks current = rootLinks;
+            if (current != observed && current.isFetched()) {
+                return CompletableFuture.completedFuture(current);
+            }
+
+            CompletableFuture<RootLinks> inFlight = asyncRefresh.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+
+            CompletableFuture<RootLinks> refresh = new CompletableFuture<>();
+            if (asyncRefresh.compareAndSet(null, refresh)) {
+                log.debug("Refreshing root links asynchronously");
+                long start = System.nanoTime();
+                try {
+                    asyncClient.executeRequestAsync(buildRootRequest(), ROOT_CONTEXT)
+                        .thenApply(response -> {
+                            recordMaintenanceMode(GarminPayOperation.ROOT, response);
+                            return storeRootLinks(parseResponse(response, RootResponse.class, codec).getLinks());
+                        })
+                        .whenComplete((refreshed, error) -> {
+                            asyncRefresh.set(null);
+                            metricsListener.onRootLinksRefresh(System.nanoTime() - start, CompletionUtil.unwrap(error));
+                            if (error != null) {
+                                refresh.completeExceptionally(error);
+                            } else {
+                                refresh.complete(refreshed);
+                            }
+                        });
+                } catch (RuntimeException e) {
+                    asyncRefresh.set(null);
+                    metricsListener.onRootLinksRefresh(System.nanoTime() - start, e);
+                    refresh.completeExceptionally(e);
+                }
+                return refresh;
+            }
+        }
+    }
+
+    private void scheduleRefreshAhead(RootLinks observed) {
+        if (!refreshAheadRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        log.debug("Root links are close to expiring, refreshing in the background");
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshRootLinks(observed);
+                } catch (GarminPayBaseException e) {
+                    log.warn("Background refresh of root links failed, cached links will be used until they expire", e);
+                } finally {
+                    refreshAheadRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Background refresh of root links was rejected", e);
+            refreshAheadRunning.set(false);
+        }
+    }
+
+    private RootLinks fetchRootLinks() {
         log.debug("Refreshing root links");
-        Map<String, HalLink> responseLinks = getRootEndpoint().getLinks();
+        long start = System.nanoTime();
+        try {
+            RootLinks refreshed = storeRootLinks(getRootEndpoint().getLinks());
+            metricsListener.onRootLinksRefresh(System.nanoTime() - start, null);
+            return refreshed;
+        } catch (RuntimeException e) {
+            metricsListener.onRootLinksRefresh(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
 
-        boolean allExist = Arrays.stream(EXPECTED_LINK_RELS).allMatch(responseLinks::containsKey);
+    private RootLinks storeRootLinks(Map<String, HalLink> responseLinks) {
+        boolean allExist = responseLinks != null && Arrays.stream(EXPECTED_LINK_RELS).allMatch(responseLinks::containsKey);
 
         if (!allExist) {
             log.warn("Required links for GarminPay were not found");
             throw new GarminPayApiException("Missing required links for GarminPay, please contact the GarminPay team.");
-        } else {
-            this.links = new HashMap<>(responseLinks);
+        }
+
+        RootLinks refreshed = new RootLinks(new HashMap<>(responseLinks), System.nanoTime());
+        this.rootLinks = refreshed;
+        return refreshed;
+    }
+
+    /**
+     * Immutable snapshot of the root links and when they were fetched.
+     */
+    private static final class RootLinks {
+        private final Map<String, HalLink> links;
+        private final Long fetchedAtNanos;
+
+        RootLinks(Map<String, HalLink> links, Long fetchedAtNanos) {
+            this.links = Collections.unmodifiableMap(links);
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+
+        String getHref(String rel) {
+            HalLink link = links.get(rel);
+            return link == null ? null : link.getHref();
+        }
+
+        boolean isFetched() {
+            return fetchedAtNanos != null;
+        }
+
+        long ageNanos() {
+            return fetchedAtNanos == null ? Long.MAX_VALUE : System.nanoTime() - fetchedAtNanos;
         }
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.tracing;
+
+/**
+ * A span started by a {@link GarminPayTracer}.
+ * Methods must be thread safe, as the span of a non-blocking call is ended on the thread completing it.
+ */
+public interface GarminPaySpan {
+    /**
+     * Span that records nothing.
+     */
+    GarminPaySpan NOOP = new GarminPaySpan() { };
+
+    /**
+     * Sets a string attribute of the span.
+     *
+     * @param key   attribute name
+     * @param value attribute value
+     */
+    default void setAttribute(String key, String value) {
+    }
+
+    /**
+     * Sets a numeric attribute of the span.
+     *
+     * @param key   attribute name
+     * @param value attribute value
+     */
+    default void setAttribute(String key, long value) {
+    }
+
+    /**
+     * Records the failure of the traced step and marks the span as failed.
+     *
+     * @param error the failure
+     */
+    default void recordException(Throwable error) {
+    }
+
+    /**
+     * Makes this span the current span of the calling thread until the returned scope is closed.
+     *
+     * @return scope restoring the previous current span when closed
+     */
+    default Scope makeCurrent() {
+        return Scope.NOOP;
+    }
+
+    /**
+     * Ends the span.
+     */
+    default void end() {
+    }
+
+    /**
+     * Restores the previous current span when closed, closed on the thread that opened it.
+     */
+    interface Scope extends AutoCloseable {
+        /**
+         * Scope that restores nothing.
+         */
+        Scope NOOP = () -> { };
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.tracing;
+
+import com.garmin.garminpay.client.GarminPayOperation;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+
+/**
+ * Starts the spans of the SDK's operations and of the HTTP calls behind them.
+ * Every method has a no-op default so the SDK carries no tracing dependency, the standalone {@code opentelemetry}
+ * module provides an OpenTelemetry implementation.
+ * Methods are called on request threads and must be thread safe, fast and must not throw.
+ */
+public interface GarminPayTracer {
+    /**
+     * Tracer that starts no spans, used when no tracer is configured.
+     */
+    GarminPayTracer NOOP = new GarminPayTracer() { };
+
+    /**
+     * Starts the span of an SDK operation, such as a card registration, as a child of the caller's current span.
+     * HTTP calls started while the span is current become its children.
+     *
+     * @param name the name of the operation
+     * @return the started span, ended by the SDK when the operation completes
+     */
+    default GarminPaySpan startOperation(String name) {
+        return GarminPaySpan.NOOP;
+    }
+
+    /**
+     * Starts the span of an HTTP call as a child of the current span and adds the trace propagation headers,
+     * such as the W3C traceparent, to the request.
+     *
+     * @param operation the Garmin Pay operation the request belongs to
+     * @param request   the request about to be sent
+     * @return the started span, ended by the SDK when the response is read or the call fails
+     */
+    default GarminPaySpan startHttpCall(GarminPayOperation operation, ClassicHttpRequest request) {
+        return GarminPaySpan.NOOP;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.utility;
+
+import java.util.concurrent.CompletionException;
+
+public final class CompletionUtil {
+
+    private CompletionUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the cause of a CompletionException thrown by a dependent CompletableFuture stage, or the error itself.
+     *
+     * @param error the error a stage completed with, may be null
+     * @return the underlying error, null if error was null
+     */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
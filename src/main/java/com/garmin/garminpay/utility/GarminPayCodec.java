@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.utility;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.request.CreateECCEncryptionKeyRequest;
+import com.garmin.garminpay.model.request.CreatePaymentCardRequest;
+import com.garmin.garminpay.model.request.OAuthTokenRequest;
+import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.RootResponse;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serializes the requests and deserializes the responses of the Garmin Pay API with one configured ObjectMapper.
+ * The readers and writers of every API model are built up front, so calls skip the per call type lookups of
+ * readValue and writeValueAsString. A codec is immutable and shared by every client created with the same settings.
+ */
+@Slf4j
+public final class GarminPayCodec {
+    private static final List<String> ACCELERATION_MODULES = Arrays.asList(
+        "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+        "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    );
+    private static final List<Class<?>> READ_TYPES = Arrays.asList(
+        RootResponse.class, HealthResponse.class, ExchangeKeysResponse.class, RegisterCardResponse.class,
+        OAuthTokenResponse.class, ErrorResponse.class
+    );
+    private static final List<Class<?>> WRITE_TYPES = Arrays.asList(
+        OAuthTokenRequest.class, CreateECCEncryptionKeyRequest.class, CreatePaymentCardRequest.class, GarminPayCardData.class
+    );
+    private static final GarminPayCodec DEFAULT = new GarminPayCodec(new ObjectMapper(), false);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a codec over a copy of the given mapper, the caller's mapper is not modified.
+     * Unknown properties are always ignored, as the Garmin Pay API may add fields to its responses.
+     *
+     * @param objectMapper mapper whose configuration and modules the codec uses
+     * @param accelerated  whether to register the Blackbird module, or the Afterburner module when Blackbird is not available
+     * @throws IllegalArgumentException if objectMapper is null, or accelerated is true and neither module is on the classpath
+     */
+    public GarminPayCodec(@NonNull ObjectMapper objectMapper, boolean accelerated) {
+        this.objectMapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        if (accelerated) {
+            this.objectMapper.registerModule(accelerationModule());
+        }
+        READ_TYPES.forEach(this::readerFor);
+        WRITE_TYPES.forEach(this::writerFor);
+    }
+
+    /**
+     * Returns the codec used when no ObjectMapper is configured.
+     *
+     * @return the shared default codec
+     */
+    public static GarminPayCodec getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the reader of the given type.
+     *
+     * @param type the type to read
+     * @return a reader built once per type
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * Returns the writer of the given type.
+     *
+     * @param type the type to write
+     * @return a writer built once per type
+     */
+    public ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    /**
+     * Reads JSON content as the given type.
+     *
+     * @param content JSON to read
+     * @param type    the type to read
+     * @param <T>     the type to read
+     * @return the read value
+     * @throws JsonProcessingException if the content is not valid JSON of the type
+     */
+    public <T> T readValue(String content, Class<T> type) throws JsonProcessingException {
+        return readerFor(type).readValue(content);
+    }
+
+    /**
+     * Writes a value as JSON.
+     *
+     * @param value the value to write
+     * @return the JSON of the value
+     * @throws JsonProcessingException if the value cannot be written
+     */
+    public String writeValueAsString(@NonNull Object value) throws JsonProcessingException {
+        return writerFor(value.getClass()).writeValueAsString(value);
+    }
+
+    private static Module accelerationModule() {
+        for (String moduleClass : ACCELERATION_MODULES) {
+            try {
+                Module module = (Module) Class.forName(moduleClass).getDeclaredConstructor().newInstance();
+                log.debug("Accelerating JSON serialization with {}", module.getModuleName());
+                return module;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.trace("JSON acceleration module {} is not available", moduleClass, e);
+            }
+        }
+        log.warn("JSON acceleration was requested but neither the Blackbird nor the Afterburner module is on the classpath");
+        throw new IllegalArgumentException("JSON acceleration requires jackson-module-blackbird or jackson-module-afterburner");
+    }
+}
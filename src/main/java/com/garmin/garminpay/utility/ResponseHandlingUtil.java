@@ -6,11 +6,11 @@
 package com.garmin.garminpay.utility;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.garmin.garminpay.exception.GarminPayApiException;
 import com.garmin.garminpay.exception.GarminPayCredentialsException;
 import com.garmin.garminpay.exception.GarminPayMaintenanceException;
+import com.garmin.garminpay.exception.GarminPayRateLimitException;
 import com.garmin.garminpay.exception.GarminPaySDKException;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.response.ErrorResponse;
@@ -19,15 +19,24 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public final class ResponseHandlingUtil {
-    private static final ObjectMapper OBJECT_MAPPER
-        = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
     private ResponseHandlingUtil() {
         throw new IllegalStateException("Utility class");
     }
 
+    /**
+     * Returns a reader of the default codec for the specified response class type.
+     *
+     * @param responseClass The class type to read.
+     * @return A cached ObjectReader for the response class type.
+     * @see GarminPayCodec#readerFor(Class)
+     */
+    public static ObjectReader readerFor(Class<?> responseClass) {
+        return GarminPayCodec.getDefault().readerFor(responseClass);
+    }
+
     /**
      * Parses an APIResponseDTO into an object of the specified response class type.
+     * A body that was already deserialized while the response was read is returned without parsing the content again.
      *
      * @param responseDTO   The APIResponseDTO containing the data to be parsed.
      * @param responseClass The class type to which the responseDTO should be parsed.
@@ -35,12 +44,29 @@ public final class ResponseHandlingUtil {
      * @return An instance of the specified response class type, populated with data from responseDTO.
      */
     public static <T> T parseResponse(APIResponseDTO responseDTO, Class<T> responseClass) {
+        return parseResponse(responseDTO, responseClass, GarminPayCodec.getDefault());
+    }
+
+    /**
+     * Parses an APIResponseDTO into an object of the specified response class type with the given codec.
+     *
+     * @param responseDTO   The APIResponseDTO containing the data to be parsed.
+     * @param responseClass The class type to which the responseDTO should be parsed.
+     * @param codec         The codec used to read the response and error bodies.
+     * @param <T>           The type of the response object.
+     * @return An instance of the specified response class type, populated with data from responseDTO.
+     * @see #parseResponse(APIResponseDTO, Class)
+     */
+    public static <T> T parseResponse(APIResponseDTO responseDTO, Class<T> responseClass, GarminPayCodec codec) {
         log.debug("Parsing response from Client to class {}", responseClass.getName());
 
         // If status is in [200, 300) range, parse the desired response class and return it
         if (responseDTO.getStatus() >= 200 && responseDTO.getStatus() < 300) {
+            if (responseClass.isInstance(responseDTO.getBody())) {
+                return responseClass.cast(responseDTO.getBody());
+            }
             try {
-                return OBJECT_MAPPER.readValue(responseDTO.getContent(), responseClass);
+                return codec.readValue(responseDTO.getContent(), responseClass);
             } catch (JsonProcessingException e) {
                 log.warn("Found an acceptable response status code but encountered unknown response body."
                         + " status: {}, x-request-id: {}, CF-RAY: {}",
@@ -55,13 +81,18 @@ public final class ResponseHandlingUtil {
             handleGarminPayMaintenanceMode(responseDTO);
         }
 
+        // Check for throttling, so callers can back off instead of retrying at once
+        if (responseDTO.getStatus() == 429) {
+            handleGarminPayRateLimit(responseDTO, codec);
+        }
+
         // Check for authentication error
         if (responseDTO.getStatus() == 401) {
-            parseGarminPayAuthenticationError(responseDTO);
+            parseGarminPayAuthenticationError(responseDTO, codec);
         }
 
         // Parse as an error from GarminPay platform
-        parseGarminPayPlatformError(responseDTO);
+        parseGarminPayPlatformError(responseDTO, codec);
 
         // Flow will never reach this point as exceptions will have been thrown by this point
         return null;
@@ -86,12 +117,35 @@ public final class ResponseHandlingUtil {
         );
     }
 
-    private static void parseGarminPayAuthenticationError(APIResponseDTO responseDTO) {
+    private static void handleGarminPayRateLimit(APIResponseDTO responseDTO, GarminPayCodec codec) {
+        log.warn("GarminPay platform throttled the request. status: {}, Retry-After: {}, x-request-id: {}, CF-RAY: {}",
+            responseDTO.getStatus(), responseDTO.findRetryAfter(), responseDTO.findXRequestId(), responseDTO.findCFRay()
+        );
+        ErrorResponse errorResponse;
+        try {
+            errorResponse = codec.readValue(responseDTO.getContent(), ErrorResponse.class);
+            errorResponse.setCfRay(responseDTO.findCFRay());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.trace("Unable to parse error response for throttled request. Parse exception: ", e);
+            errorResponse = ErrorResponse.builder()
+                .status(responseDTO.getStatus())
+                .path(responseDTO.getPath())
+                .requestId(responseDTO.findXRequestId())
+                .cfRay(responseDTO.findCFRay())
+                .build();
+        }
+
+        throw new GarminPayRateLimitException(
+            "GarminPay platform rate limit exceeded, retry after the given delay", errorResponse, responseDTO.findRetryAfter()
+        );
+    }
+
+    private static void parseGarminPayAuthenticationError(APIResponseDTO responseDTO, GarminPayCodec codec) {
         try {
             log.warn("Request failed to authenticate with status: {}, x-request-id: {}, CF-RAY: {}",
                 responseDTO.getStatus(), responseDTO.findXRequestId(), responseDTO.findCFRay()
             );
-            ErrorResponse errorResponse = OBJECT_MAPPER.readValue(responseDTO.getContent(), ErrorResponse.class);
+            ErrorResponse errorResponse = codec.readValue(responseDTO.getContent(), ErrorResponse.class);
             errorResponse.setCfRay(responseDTO.findCFRay());
 
             throw new GarminPayCredentialsException(
@@ -114,12 +168,12 @@ public final class ResponseHandlingUtil {
         }
     }
 
-    private static void parseGarminPayPlatformError(APIResponseDTO responseDTO) {
+    private static void parseGarminPayPlatformError(APIResponseDTO responseDTO, GarminPayCodec codec) {
         try {
             log.warn("Response from GarminPay contained an invalid status code. status: {}, x-request-id: {}, CF-RAY: {}",
                 responseDTO.getStatus(), responseDTO.findXRequestId(), responseDTO.findCFRay()
             );
-            ErrorResponse errorResponse = OBJECT_MAPPER.readValue(responseDTO.getContent(), ErrorResponse.class);
+            ErrorResponse errorResponse = codec.readValue(responseDTO.getContent(), ErrorResponse.class);
             errorResponse.setCfRay(responseDTO.findCFRay());
             throw new GarminPayApiException("GarminPay platform returned an invalid status code", errorResponse);
         } catch (JsonProcessingException | IllegalArgumentException e) {
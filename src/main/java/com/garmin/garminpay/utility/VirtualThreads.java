@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.utility;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads for SDK work. This is the Java 8 implementation, where virtual threads are not available;
+ * the multi-release JAR replaces it with an implementation backed by {@code Thread.ofVirtual()} on Java 21 and later.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns whether virtual threads are available on the running JVM.
+     *
+     * @return true on Java 21 and later, false otherwise
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * Creates a factory of virtual threads named with the given prefix.
+     *
+     * @param namePrefix prefix used when naming created threads
+     * @return ThreadFactory creating virtual threads
+     * @throws UnsupportedOperationException if virtual threads are not available
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        throw unavailable();
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread named with the given prefix.
+     *
+     * @param namePrefix prefix used when naming created threads
+     * @return ExecutorService starting a virtual thread per task
+     * @throws UnsupportedOperationException if virtual threads are not available
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        throw unavailable();
+    }
+
+    private static UnsupportedOperationException unavailable() {
+        return new UnsupportedOperationException(
+            "Virtual threads require Java 21 or later, running on Java " + System.getProperty("java.specification.version")
+        );
+    }
+}
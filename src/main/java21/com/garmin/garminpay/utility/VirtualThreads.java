@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.utility;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads for SDK work. This is the Java 21 implementation, packaged under META-INF/versions/21
+ * of the multi-release JAR, it must keep the same public signatures as the Java 8 implementation.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns whether virtual threads are available on the running JVM.
+     *
+     * @return true on Java 21 and later, false otherwise
+     */
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Creates a factory of virtual threads named with the given prefix.
+     *
+     * @param namePrefix prefix used when naming created threads
+     * @return ThreadFactory creating virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        return Thread.ofVirtual().name(namePrefix + "-", 1).factory();
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread named with the given prefix.
+     *
+     * @param namePrefix prefix used when naming created threads
+     * @return ExecutorService starting a virtual thread per task
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(newThreadFactory(namePrefix));
+    }
+}
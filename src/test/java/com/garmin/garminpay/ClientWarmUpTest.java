@@ -0,0 +1,184 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.client.RefreshableOauthClient;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.OAuthTokenResponse;
+import com.garmin.garminpay.model.response.WarmUpReport;
+import com.garmin.garminpay.model.response.WarmUpStep;
+import com.garmin.garminpay.model.response.WarmUpTask;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.utility.DaemonThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.garmin.garminpay.TestUtils.TESTING_PLATFORM_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class ClientWarmUpTest {
+    private static final WarmUpSettings SETTINGS = WarmUpSettings.builder()
+        .connections(3)
+        .encryptionIterations(5)
+        .build();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private GarminPayService garminPayService;
+    private ClientWarmUp clientWarmUp;
+    private volatile int keyExchangeStatus;
+
+    @BeforeEach
+    void setUp() {
+        Client client = mock(Client.class);
+        AsyncClient asyncClient = mock(AsyncClient.class);
+        RefreshableOauthClient oauthClient = RefreshableOauthClient.builder()
+            .client(client)
+            .asyncClient(asyncClient)
+            .credentials("clientId:clientSecret".getBytes(StandardCharsets.UTF_8))
+            .authUrl(TESTING_PLATFORM_URL + "/oauth/token")
+            .build();
+        GarminPayProxy garminPayProxy = GarminPayProxy.builder()
+            .client(oauthClient)
+            .asyncClient(oauthClient)
+            .baseUrl(TESTING_PLATFORM_URL)
+            .refreshExecutor(Runnable::run)
+            .build();
+        garminPayService = GarminPayService.builder().garminPayProxy(garminPayProxy).refreshExecutor(Runnable::run).build();
+        clientWarmUp = new ClientWarmUp(
+            oauthClient, garminPayProxy, garminPayService, new DaemonThreadFactory("warm-up-test"), Runnable::run
+        );
+        keyExchangeStatus = HttpStatus.SC_CREATED;
+
+        when(client.executeRequest(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(asyncClient.executeRequestAsync(any(), any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(respond(invocation.getArgument(0))));
+    }
+
+    @Test
+    void warmUpPrimesEverythingTheFirstRegistrationNeeds() {
+        WarmUpReport report = clientWarmUp.warmUp(SETTINGS);
+
+        assertReportsEveryStep(report);
+        assertEquals(1, requestCount("/oauth/token"));
+        assertEquals(1, requestCount("/"));
+        assertEquals(1, requestCount("/config/encryptionKeys"));
+        assertEquals(3, requestCount("/health"));
+        assertEquals(0, requestCount("/paymentCards"));
+
+        garminPayService.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        assertEquals(1, requestCount("/oauth/token"));
+        assertEquals(1, requestCount("/"));
+        assertEquals(1, requestCount("/config/encryptionKeys"));
+        assertEquals(1, requestCount("/paymentCards"));
+    }
+
+    @Test
+    void asyncWarmUpPrimesEverythingTheFirstRegistrationNeeds() {
+        WarmUpReport report = clientWarmUp.warmUpAsync(SETTINGS).join();
+
+        assertReportsEveryStep(report);
+        assertEquals(1, requestCount("/oauth/token"));
+        assertEquals(1, requestCount("/"));
+        assertEquals(1, requestCount("/config/encryptionKeys"));
+        assertEquals(3, requestCount("/health"));
+
+        garminPayService.registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL).join();
+        assertEquals(1, requestCount("/oauth/token"));
+        assertEquals(1, requestCount("/config/encryptionKeys"));
+    }
+
+    @Test
+    void warmUpStopsAtTheFirstFailedStep() {
+        keyExchangeStatus = HttpStatus.SC_INTERNAL_SERVER_ERROR;
+
+        for (WarmUpReport report : Arrays.asList(clientWarmUp.warmUp(SETTINGS), clientWarmUp.warmUpAsync(SETTINGS).join())) {
+            assertFalse(report.isSuccessful());
+            assertEquals(
+                Arrays.asList(WarmUpTask.OAUTH_TOKEN, WarmUpTask.ROOT_LINKS, WarmUpTask.KEY_AGREEMENT),
+                tasks(report)
+            );
+            WarmUpStep failed = report.getSteps().get(2);
+            assertFalse(failed.isSuccessful());
+            assertInstanceOf(GarminPayApiException.class, failed.getException());
+        }
+        assertEquals(0, requestCount("/health"));
+    }
+
+    @Test
+    void stepsWithNothingToWarmAreSkipped() {
+        WarmUpReport report = clientWarmUp.warmUp(WarmUpSettings.builder()
+            .connections(0)
+            .encryptionIterations(0)
+            .build());
+
+        assertTrue(report.isSuccessful());
+        assertEquals(Arrays.asList(WarmUpTask.OAUTH_TOKEN, WarmUpTask.ROOT_LINKS, WarmUpTask.KEY_AGREEMENT), tasks(report));
+        assertEquals(0, requestCount("/health"));
+    }
+
+    private static void assertReportsEveryStep(WarmUpReport report) {
+        assertTrue(report.isSuccessful());
+        assertEquals(Arrays.asList(WarmUpTask.values()), tasks(report));
+        assertEquals(3, report.getSteps().get(3).getCount());
+        assertEquals(5, report.getSteps().get(4).getCount());
+        for (WarmUpStep step : report.getSteps()) {
+            assertNull(step.getException());
+            assertFalse(step.getDuration().isNegative());
+        }
+    }
+
+    private static List<WarmUpTask> tasks(WarmUpReport report) {
+        return report.getSteps().stream().map(WarmUpStep::getTask).collect(Collectors.toList());
+    }
+
+    private int requestCount(String path) {
+        AtomicInteger count = requestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private APIResponseDTO respond(ClassicHttpRequest request) {
+        String path = request.getPath();
+        requestCounts.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+
+        if ("/oauth/token".equals(path)) {
+            return TestUtils.jsonResponse(HttpStatus.SC_OK, OAuthTokenResponse.builder().accessToken("token").expiresIn(3600L).build());
+        }
+        if ("/health".equals(path)) {
+            return TestUtils.jsonResponse(HttpStatus.SC_OK, HealthResponse.builder().healthStatus("UP").build());
+        }
+        if ("/config/encryptionKeys".equals(path)) {
+            if (keyExchangeStatus != HttpStatus.SC_CREATED) {
+                return APIResponseDTO.builder().status(keyExchangeStatus).content("{}").build();
+            }
+            return TestUtils.exchangeKeysResponse();
+        }
+        if ("/paymentCards".equals(path)) {
+            return TestUtils.registerCardResponse();
+        }
+        return TestUtils.rootResponse();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GarminPayClientRegistryTest {
+    private final GarminPayClientRegistry registry = registry(2);
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void tenantClientIsReusedWhileActive() {
+        registry.register("issuer-a", "clientId", "clientSecret");
+
+        GarminPayClient client = registry.getClient("issuer-a");
+        assertSame(client, registry.getClient("issuer-a"));
+        assertEquals(1, registry.getActiveTenantCount());
+    }
+
+    @Test
+    void leastRecentlyUsedTenantIsEvicted() {
+        registry.register("issuer-a", "clientIdA", "clientSecretA");
+        registry.register("issuer-b", "clientIdB", "clientSecretB");
+        registry.register("issuer-c", "clientIdC", "clientSecretC");
+
+        GarminPayClient first = registry.getClient("issuer-a");
+        GarminPayClient second = registry.getClient("issuer-b");
+        registry.getClient("issuer-a");
+        registry.getClient("issuer-c");
+
+        assertEquals(2, registry.getActiveTenantCount());
+        assertSame(first, registry.getClient("issuer-a"));
+        assertNotSame(second, registry.getClient("issuer-b"));
+    }
+
+    @Test
+    void replacingCredentialsRecreatesTheClient() {
+        registry.register("issuer-a", "clientId", "clientSecret");
+        GarminPayClient client = registry.getClient("issuer-a");
+
+        registry.register("issuer-a", "clientId", "rotatedSecret");
+
+        assertNotSame(client, registry.getClient("issuer-a"));
+    }
+
+    @Test
+    void unregisteredTenantsAreRejected() {
+        registry.register("issuer-a", "clientId", "clientSecret");
+
+        assertTrue(registry.unregister("issuer-a"));
+        assertFalse(registry.unregister("issuer-a"));
+        assertEquals(0, registry.getActiveTenantCount());
+        assertThrows(IllegalArgumentException.class, () -> registry.getClient("issuer-a"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("issuer-a", "clientId", " "));
+    }
+
+    @Test
+    void closedRegistryRejectsLookups() {
+        registry.register("issuer-a", "clientId", "clientSecret");
+        registry.close();
+
+        assertThrows(IllegalStateException.class, () -> registry.getClient("issuer-a"));
+    }
+
+    @Test
+    void invalidConfigIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry(0));
+        assertThrows(IllegalArgumentException.class, () -> new GarminPayClientRegistry(GarminPayClientRegistryConfig.builder()
+            .maxConcurrentRequestsPerTenant(0)
+            .build()));
+        assertThrows(IllegalArgumentException.class, () -> new GarminPayClientRegistry(GarminPayClientRegistryConfig.builder()
+            .clientConfig(GarminPayClientConfig.builder().healthCheckInterval(Duration.ofSeconds(30)).build())
+            .build()));
+    }
+
+    private static GarminPayClientRegistry registry(int maxActiveTenants) {
+        return new GarminPayClientRegistry(GarminPayClientRegistryConfig.builder()
+            .maxActiveTenants(maxActiveTenants)
+            .build());
+    }
+}
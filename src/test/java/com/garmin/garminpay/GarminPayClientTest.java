@@ -5,14 +5,20 @@
  */
 package com.garmin.garminpay;
 
+import java.util.Collections;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import com.garmin.garminpay.GarminPayClient;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.HttpClientSettings;
+import com.garmin.garminpay.client.OperationBulkheadSettings;
 import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.utility.VirtualThreads;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 final class GarminPayClientTest {
     @Test
@@ -33,6 +39,18 @@ final class GarminPayClientTest {
         assertThrows(IllegalArgumentException.class, () -> garminPayClient.registerCard(cardData, null));
     }
 
+    @Test
+    void cannotRegisterCardsWithInvalidArguments() {
+        GarminPayClient garminPayClient = new GarminPayClient("testClientId", "testClientSecret");
+        GarminPayCardData cardData = GarminPayCardData.builder()
+            .pan("123")
+            .build();
+        assertThrows(IllegalArgumentException.class,
+            () -> garminPayClient.registerCards(Collections.singletonList(cardData), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> garminPayClient.registerCards(Collections.singletonList(cardData), TestUtils.TESTING_CALLBACK_URL, 0));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"", "   "})
     void cannotConstructWithInvalidClientId(String invalidClientId) {
@@ -44,4 +62,33 @@ final class GarminPayClientTest {
     void cannotConstructWithInvalidClientSecret(String invalidClientSecret) {
         assertThrows(IllegalArgumentException.class, () -> new GarminPayClient("testClientId", invalidClientSecret));
     }
+
+    @Test
+    void cannotUseVirtualThreadsBeforeJava21() {
+        assumeFalse(VirtualThreads.isAvailable());
+        GarminPayClientConfig config = GarminPayClientConfig.builder().virtualThreads(true).build();
+        assertThrows(IllegalArgumentException.class, () -> new GarminPayClient("testClientId", "testClientSecret", config));
+    }
+
+    @Test
+    void cannotUseHttp2WithoutTls() {
+        GarminPayClientConfig config = GarminPayClientConfig.builder()
+            .baseUrl("http://localhost:8080")
+            .httpClientSettings(HttpClientSettings.builder().http2(true).build())
+            .build();
+        assertThrows(IllegalArgumentException.class, () -> new GarminPayClient("testClientId", "testClientSecret", config));
+    }
+
+    @Test
+    void operationBulkheadsMustFitTheConnectionPool() {
+        GarminPayClientConfig config = GarminPayClientConfig.builder()
+            .httpClientSettings(HttpClientSettings.builder().maxConnectionsPerRoute(10).build())
+            .operationBulkheadSettings(OperationBulkheadSettings.builder()
+                .enabled(true)
+                .limit(GarminPayOperation.REGISTER_CARD, 9)
+                .limit(GarminPayOperation.TOKEN, 2)
+                .build())
+            .build();
+        assertThrows(IllegalArgumentException.class, () -> new GarminPayClient("testClientId", "testClientSecret", config));
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.CardRegistrationResult;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.junit.jupiter.api.Test;
+
+import static com.garmin.garminpay.TestUtils.TESTING_PLATFORM_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class GarminPayServiceTest {
+    private final AtomicInteger pulled = new AtomicInteger();
+    private final AtomicInteger registered = new AtomicInteger();
+
+    @Test
+    void batchPullsCardsOnlyAsRegistrationsComplete() {
+        Client client = mock(Client.class);
+        when(client.executeRequest(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        GarminPayService garminPayService = GarminPayService.builder()
+            .garminPayProxy(new GarminPayProxy(client, TESTING_PLATFORM_URL))
+            .refreshExecutor(Runnable::run)
+            .build();
+        int total = 50;
+        int maxConcurrency = 3;
+        AtomicInteger maxHeld = new AtomicInteger();
+
+        Iterator<GarminPayCardData> cards = new Iterator<GarminPayCardData>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < total;
+            }
+
+            @Override
+            public GarminPayCardData next() {
+                maxHeld.accumulateAndGet(pulled.incrementAndGet() - registered.get(), Math::max);
+                return TestUtils.TESTING_CARD_DATA;
+            }
+        };
+        List<CardRegistrationResult> results = garminPayService.registerCards(() -> cards, TestUtils.TESTING_CALLBACK_URL, maxConcurrency);
+
+        assertEquals(total, results.size());
+        for (int index = 0; index < total; index++) {
+            assertEquals(index, results.get(index).getIndex());
+            assertTrue(results.get(index).isSuccessful());
+        }
+        assertTrue(maxHeld.get() <= maxConcurrency, "Cards held at once: " + maxHeld.get());
+    }
+
+    @SneakyThrows
+    private APIResponseDTO respond(ClassicHttpRequest request) {
+        if ("/paymentCards".equals(request.getPath())) {
+            Thread.sleep(1);
+            registered.incrementAndGet();
+            return TestUtils.registerCardResponse();
+        }
+        if ("/config/encryptionKeys".equals(request.getPath())) {
+            return TestUtils.exchangeKeysResponse();
+        }
+        return TestUtils.rootResponse();
+    }
+}
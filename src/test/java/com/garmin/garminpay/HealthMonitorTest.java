@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.HealthResponse;
+import com.garmin.garminpay.model.response.HealthSnapshot;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.garmin.garminpay.TestUtils.TESTING_PLATFORM_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class HealthMonitorTest {
+    private final AtomicInteger healthCheckCount = new AtomicInteger();
+    private final List<CompletableFuture<APIResponseDTO>> pendingHealthChecks = new ArrayList<>();
+    private Client client;
+    private AsyncClient asyncClient;
+    private GarminPayProxy garminPayProxy;
+    private volatile int healthStatus;
+    private volatile boolean holdHealthChecks;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(Client.class);
+        asyncClient = mock(AsyncClient.class);
+        garminPayProxy = GarminPayProxy.builder()
+            .client(client)
+            .asyncClient(asyncClient)
+            .baseUrl(TESTING_PLATFORM_URL)
+            .refreshExecutor(Runnable::run)
+            .build();
+        healthStatus = HttpStatus.SC_OK;
+        holdHealthChecks = false;
+
+        when(client.executeRequest(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)).join());
+        when(asyncClient.executeRequestAsync(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+    }
+
+    @SneakyThrows
+    @Test
+    void concurrentBlockingChecksShareOneBlockingRequest() {
+        holdHealthChecks = true;
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ZERO);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = callers.submit(monitor::checkHealthStatus);
+            while (healthCheckCount.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<Boolean> second = callers.submit(monitor::checkHealthStatus);
+            Thread.sleep(50);
+            pendingHealthChecks.forEach(pending -> pending.complete(healthResponse(HttpStatus.SC_OK)));
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, healthCheckCount.get());
+            verify(asyncClient, never()).executeRequestAsync(any(), any());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentChecksShareOneRequest() {
+        holdHealthChecks = true;
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ZERO);
+
+        CompletableFuture<Boolean> first = monitor.checkHealthStatusAsync();
+        CompletableFuture<Boolean> second = monitor.checkHealthStatusAsync();
+        assertFalse(first.isDone());
+        assertEquals(1, healthCheckCount.get());
+
+        pendingHealthChecks.get(0).complete(healthResponse(HttpStatus.SC_OK));
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        holdHealthChecks = false;
+        // Without a maximum age the next check goes to the platform again
+        assertTrue(monitor.checkHealthStatus());
+        assertEquals(2, healthCheckCount.get());
+    }
+
+    @Test
+    void freshResultIsServedWithoutChecking() {
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ofMinutes(1));
+
+        assertTrue(monitor.checkHealthStatus());
+        HealthSnapshot snapshot = monitor.getSnapshot();
+        healthStatus = HttpStatus.SC_SERVICE_UNAVAILABLE;
+
+        assertTrue(monitor.checkHealthStatus());
+        assertTrue(monitor.checkHealthStatusAsync().join());
+        assertSame(snapshot, monitor.getSnapshot());
+        assertEquals(1, healthCheckCount.get());
+    }
+
+    @Test
+    void failedCheckIsRecordedAsUnhealthy() {
+        healthStatus = HttpStatus.SC_SERVICE_UNAVAILABLE;
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ofMinutes(1));
+
+        assertFalse(monitor.checkHealthStatus());
+
+        HealthSnapshot snapshot = monitor.getSnapshot();
+        assertFalse(snapshot.isHealthy());
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, snapshot.getStatusCode());
+        assertInstanceOf(GarminPayApiException.class, snapshot.getException());
+    }
+
+    @Test
+    void listenersAreNotifiedWhenHealthChanges() {
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ZERO);
+        List<HealthSnapshot[]> changes = new ArrayList<>();
+        monitor.addListener((previous, current) -> changes.add(new HealthSnapshot[] {previous, current}));
+        monitor.addListener((previous, current) -> {
+            throw new IllegalStateException("Listener failures do not affect the check");
+        });
+
+        assertTrue(monitor.checkHealthStatus());
+        assertTrue(monitor.checkHealthStatus());
+        healthStatus = HttpStatus.SC_SERVICE_UNAVAILABLE;
+        assertFalse(monitor.checkHealthStatus());
+
+        assertEquals(2, changes.size());
+        assertNull(changes.get(0)[0]);
+        assertTrue(changes.get(0)[1].isHealthy());
+        assertTrue(changes.get(1)[0].isHealthy());
+        assertFalse(changes.get(1)[1].isHealthy());
+    }
+
+    @Test
+    void checksSentToThePlatformAreTraced() {
+        List<String> started = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        AtomicInteger ended = new AtomicInteger();
+        GarminPayTracer tracer = new GarminPayTracer() {
+            @Override
+            public GarminPaySpan startOperation(String name) {
+                started.add(name);
+                return new GarminPaySpan() {
+                    @Override
+                    public void recordException(Throwable error) {
+                        errors.add(error);
+                    }
+
+                    @Override
+                    public void end() {
+                        ended.incrementAndGet();
+                    }
+                };
+            }
+        };
+        HealthMonitor monitor = new HealthMonitor(garminPayProxy, Duration.ofMinutes(1), tracer);
+
+        assertTrue(monitor.checkHealthStatus());
+        assertTrue(monitor.checkHealthStatusAsync().join());
+        assertEquals(1, started.size());
+
+        healthStatus = HttpStatus.SC_SERVICE_UNAVAILABLE;
+        assertFalse(monitor.check().join().isHealthy());
+
+        assertEquals(2, started.size());
+        assertEquals(HealthMonitor.CHECK_HEALTH_SPAN, started.get(1));
+        assertEquals(2, ended.get());
+        assertEquals(1, errors.size());
+        assertInstanceOf(GarminPayApiException.class, errors.get(0));
+    }
+
+    private CompletableFuture<APIResponseDTO> respond(ClassicHttpRequest request) {
+        if ("/health".equals(request.getPath())) {
+            healthCheckCount.incrementAndGet();
+            if (holdHealthChecks) {
+                CompletableFuture<APIResponseDTO> pending = new CompletableFuture<>();
+                pendingHealthChecks.add(pending);
+                return pending;
+            }
+            return CompletableFuture.completedFuture(healthResponse(healthStatus));
+        }
+
+        return CompletableFuture.completedFuture(TestUtils.rootResponse());
+    }
+
+    private APIResponseDTO healthResponse(int status) {
+        return TestUtils.jsonResponse(status, HealthResponse.builder().healthStatus("UP").build());
+    }
+}
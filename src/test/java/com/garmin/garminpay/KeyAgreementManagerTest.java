@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.encryption.EncryptionService;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.garmin.garminpay.TestUtils.TESTING_PLATFORM_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class KeyAgreementManagerTest {
+    private final AtomicInteger keyExchangeCount = new AtomicInteger();
+    private Client client;
+    private GarminPayProxy garminPayProxy;
+    private volatile Instant createdTs;
+    private volatile Instant expirationTs;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(Client.class);
+        garminPayProxy = new GarminPayProxy(client, TESTING_PLATFORM_URL);
+        createdTs = Instant.now();
+        expirationTs = null;
+
+        when(client.executeRequest(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+    }
+
+    @SneakyThrows
+    @Test
+    void concurrentCallersShareOneKeyExchange() {
+        KeyAgreementManager manager = new KeyAgreementManager(garminPayProxy, new EncryptionService(), Runnable::run);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<KeyMaterial>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return manager.getKeyMaterial();
+            }));
+        }
+        start.countDown();
+
+        KeyMaterial first = results.get(0).get();
+        for (Future<KeyMaterial> result : results) {
+            assertSame(first, result.get());
+        }
+        executor.shutdown();
+        assertEquals(1, keyExchangeCount.get());
+    }
+
+    @SneakyThrows
+    @Test
+    void blockingCallerJoinsAsyncKeyExchangeInFlight() {
+        AsyncClient asyncClient = mock(AsyncClient.class);
+        AtomicReference<ClassicHttpRequest> exchangeRequest = new AtomicReference<>();
+        CompletableFuture<APIResponseDTO> pendingExchange = new CompletableFuture<>();
+        when(asyncClient.executeRequestAsync(any(), any())).thenAnswer(invocation -> {
+            ClassicHttpRequest request = invocation.getArgument(0);
+            if ("/config/encryptionKeys".equals(request.getPath())) {
+                exchangeRequest.set(request);
+                return pendingExchange;
+            }
+            return CompletableFuture.completedFuture(respond(request));
+        });
+        GarminPayProxy proxy = GarminPayProxy.builder()
+            .client(client)
+            .asyncClient(asyncClient)
+            .baseUrl(TESTING_PLATFORM_URL)
+            .refreshExecutor(Runnable::run)
+            .build();
+        KeyAgreementManager manager = new KeyAgreementManager(proxy, new EncryptionService(), Runnable::run);
+
+        CompletableFuture<KeyMaterial> asyncKey = manager.getKeyMaterialAsync();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<KeyMaterial> blockingKey = executor.submit(manager::getKeyMaterial);
+            Thread.sleep(50);
+            assertFalse(blockingKey.isDone());
+
+            pendingExchange.complete(respond(exchangeRequest.get()));
+            assertSame(asyncKey.join(), blockingKey.get(5, TimeUnit.SECONDS));
+            assertEquals(1, keyExchangeCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredKeyIsReplaced() {
+        createdTs = Instant.now().minus(Duration.ofHours(5));
+        KeyAgreementManager manager = new KeyAgreementManager(garminPayProxy, new EncryptionService(), Runnable::run);
+
+        KeyMaterial first = manager.getKeyMaterial();
+        KeyMaterial second = manager.getKeyMaterial();
+
+        assertNotEquals(first.getKeyId(), second.getKeyId());
+        assertEquals(2, keyExchangeCount.get());
+    }
+
+    @Test
+    void keyCloseToExpiringIsRefreshedAhead() {
+        createdTs = Instant.now().minus(Duration.ofHours(1));
+        expirationTs = Instant.now().plus(Duration.ofMinutes(1));
+        KeyAgreementManager manager = new KeyAgreementManager(garminPayProxy, new EncryptionService(), Runnable::run);
+
+        KeyMaterial first = manager.getKeyMaterial();
+        createdTs = Instant.now();
+        expirationTs = null;
+        // Still valid, so the caller keeps the current key while the replacement is negotiated
+        assertSame(first, manager.getKeyMaterial());
+        KeyMaterial refreshed = manager.getKeyMaterial();
+
+        assertNotEquals(first.getKeyId(), refreshed.getKeyId());
+        assertEquals(2, keyExchangeCount.get());
+    }
+
+    private APIResponseDTO respond(ClassicHttpRequest request) {
+        if ("/config/encryptionKeys".equals(request.getPath())) {
+            keyExchangeCount.incrementAndGet();
+            return TestUtils.exchangeKeysResponse(createdTs, expirationTs);
+        }
+        return TestUtils.rootResponse();
+    }
+}
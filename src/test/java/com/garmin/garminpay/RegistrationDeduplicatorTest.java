@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay;
+
+import com.garmin.garminpay.client.AsyncClient;
+import com.garmin.garminpay.client.Client;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.proxy.GarminPayProxy;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.garmin.garminpay.TestUtils.TESTING_PLATFORM_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class RegistrationDeduplicatorTest {
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+    private final AtomicInteger registrationCount = new AtomicInteger();
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final List<CompletableFuture<APIResponseDTO>> pendingRegistrations = new ArrayList<>();
+    private GarminPayService garminPayService;
+    private volatile int registrationStatus;
+    private volatile boolean holdRegistrations;
+
+    @BeforeEach
+    void setUp() {
+        Client client = mock(Client.class);
+        AsyncClient asyncClient = mock(AsyncClient.class);
+        GarminPayProxy garminPayProxy = GarminPayProxy.builder()
+            .client(client)
+            .asyncClient(asyncClient)
+            .baseUrl(TESTING_PLATFORM_URL)
+            .refreshExecutor(Runnable::run)
+            .build();
+        garminPayService = GarminPayService.builder().garminPayProxy(garminPayProxy).refreshExecutor(Runnable::run).build();
+        registrationStatus = HttpStatus.SC_OK;
+        holdRegistrations = false;
+
+        when(client.executeRequest(any(), any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(asyncClient.executeRequestAsync(any(), any())).thenAnswer(invocation -> respondAsync(invocation.getArgument(0)));
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneRegistration() {
+        holdRegistrations = true;
+        RegistrationDeduplicator deduplicator = deduplicator(100);
+
+        CompletableFuture<RegisterCardResponse> first = deduplicator.registerCardAsync(
+            TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL
+        );
+        CompletableFuture<RegisterCardResponse> second = deduplicator.registerCardAsync(
+            TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL
+        );
+        assertFalse(first.isDone());
+        assertEquals(1, registrationCount.get());
+
+        pendingRegistrations.get(0).complete(TestUtils.registerCardResponse());
+
+        assertEquals(first.join(), second.join());
+        assertNotSame(first.join(), second.join());
+        assertEquals(1, registrationCount.get());
+    }
+
+    @Test
+    void repeatsWithinWindowReturnTheSameResponse() {
+        RegistrationDeduplicator deduplicator = deduplicator(100);
+
+        RegisterCardResponse first = deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        nanoTime.addAndGet(WINDOW.toNanos() - 1);
+        RegisterCardResponse repeat = deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        assertEquals(first, repeat);
+        assertEquals(first, deduplicator.registerCardAsync(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL).join());
+        assertEquals(1, registrationCount.get());
+
+        nanoTime.incrementAndGet();
+        RegisterCardResponse expired = deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        assertNotEquals(first.getPushId(), expired.getPushId());
+        assertEquals(2, registrationCount.get());
+    }
+
+    @Test
+    void differentCardsAndCallbacksAreRegisteredSeparately() {
+        RegistrationDeduplicator deduplicator = deduplicator(100);
+        GarminPayCardData otherCard = card("9999449825552964", 2040);
+
+        deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        deduplicator.registerCard(otherCard, TestUtils.TESTING_CALLBACK_URL);
+        deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, URI.create("https://other.example.com/callback"));
+
+        assertEquals(3, registrationCount.get());
+    }
+
+    @Test
+    void failuresAreNotRemembered() {
+        registrationStatus = HttpStatus.SC_BAD_REQUEST;
+        RegistrationDeduplicator deduplicator = deduplicator(100);
+
+        assertThrows(GarminPayApiException.class,
+            () -> deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL));
+        registrationStatus = HttpStatus.SC_OK;
+        deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+
+        assertEquals(2, registrationCount.get());
+    }
+
+    @Test
+    void oldestResponsesAreForgottenWhenFull() {
+        RegistrationDeduplicator deduplicator = deduplicator(1);
+        GarminPayCardData otherCard = card("4111111111111111", 2025);
+
+        deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+        deduplicator.registerCard(otherCard, TestUtils.TESTING_CALLBACK_URL);
+        deduplicator.registerCard(TestUtils.TESTING_CARD_DATA, TestUtils.TESTING_CALLBACK_URL);
+
+        assertEquals(3, registrationCount.get());
+    }
+
+    private static GarminPayCardData card(String pan, int expYear) {
+        return GarminPayCardData.builder()
+            .pan(pan)
+            .cvv("123")
+            .expMonth(12)
+            .expYear(expYear)
+            .build();
+    }
+
+    private RegistrationDeduplicator deduplicator(int maxEntries) {
+        RegistrationDeduplicationSettings settings = RegistrationDeduplicationSettings.builder()
+            .enabled(true)
+            .window(WINDOW)
+            .maxEntries(maxEntries)
+            .build();
+        return new RegistrationDeduplicator(garminPayService, settings, nanoTime::get);
+    }
+
+    private CompletableFuture<APIResponseDTO> respondAsync(ClassicHttpRequest request) {
+        if (holdRegistrations && "/paymentCards".equals(request.getPath())) {
+            registrationCount.incrementAndGet();
+            CompletableFuture<APIResponseDTO> pending = new CompletableFuture<>();
+            pendingRegistrations.add(pending);
+            return pending;
+        }
+        return CompletableFuture.completedFuture(respond(request));
+    }
+
+    private APIResponseDTO respond(ClassicHttpRequest request) {
+        if ("/paymentCards".equals(request.getPath())) {
+            registrationCount.incrementAndGet();
+            if (registrationStatus != HttpStatus.SC_OK) {
+                return APIResponseDTO.builder().status(registrationStatus).content("{}").build();
+            }
+            return TestUtils.registerCardResponse();
+        }
+
+        if ("/config/encryptionKeys".equals(request.getPath())) {
+            return TestUtils.exchangeKeysResponse();
+        }
+        return TestUtils.rootResponse();
+    }
+}
@@ -5,8 +5,16 @@
  */
 package com.garmin.garminpay;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garmin.garminpay.client.GarminPayOperation;
+import com.garmin.garminpay.client.RequestContext;
 import com.garmin.garminpay.model.Address;
 import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.ExchangeKeysResponse;
+import com.garmin.garminpay.model.response.HalLink;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.RootResponse;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.jwk.Curve;
 import com.nimbusds.jose.jwk.ECKey;
@@ -14,15 +22,30 @@ import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import lombok.SneakyThrows;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.message.BasicHeader;
 import wiremock.org.apache.commons.lang3.StringUtils;
 
 public final class TestUtils {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static final String TESTING_PLATFORM_URL = "http://localhost";
+
+    public static final ClassicHttpRequest TESTING_REQUEST = ClassicRequestBuilder.post("http://testing/paymentCards").build();
+
+    public static final RequestContext TESTING_CONTEXT = RequestContext.builder().operation(GarminPayOperation.REGISTER_CARD).build();
+
+    public static final APIResponseDTO TESTING_OK_RESPONSE = APIResponseDTO.builder().status(HttpStatus.SC_OK).build();
 
     public static final Address TESTING_ADDRESS = Address.builder()
         .name("Billing Address")
@@ -95,4 +118,54 @@ public final class TestUtils {
                 h -> StringUtils.equalsIgnoreCase(expectedHeaderName, h.getName())
             );
     }
+
+    /**
+     * The root resource of a fake platform at {@link #TESTING_PLATFORM_URL}.
+     */
+    public static APIResponseDTO rootResponse() {
+        Map<String, HalLink> links = new HashMap<>();
+        links.put("self", HalLink.builder().href(TESTING_PLATFORM_URL).build());
+        links.put("health", HalLink.builder().href(TESTING_PLATFORM_URL + "/health").build());
+        links.put("encryptionKeys", HalLink.builder().href(TESTING_PLATFORM_URL + "/config/encryptionKeys").build());
+        links.put("paymentCards", HalLink.builder().href(TESTING_PLATFORM_URL + "/paymentCards").build());
+        return jsonResponse(HttpStatus.SC_OK, RootResponse.builder().links(links).build());
+    }
+
+    /**
+     * A key exchange with the testing server key, created now and without an expiration.
+     */
+    public static APIResponseDTO exchangeKeysResponse() {
+        return exchangeKeysResponse(Instant.now(), null);
+    }
+
+    /**
+     * A key exchange with the testing server key, the expiration may be null.
+     */
+    public static APIResponseDTO exchangeKeysResponse(Instant createdTs, Instant expirationTs) {
+        return jsonResponse(HttpStatus.SC_CREATED, ExchangeKeysResponse.builder()
+            .keyId(UUID.randomUUID().toString())
+            .active(true)
+            .serverPublicKey(TESTING_ENCODED_PUBLIC_ECC_KEY)
+            .createdTs(createdTs.toString())
+            .expirationTs(expirationTs == null ? null : expirationTs.toString())
+            .build());
+    }
+
+    /**
+     * A successful card registration with a new push id.
+     */
+    public static APIResponseDTO registerCardResponse() {
+        return jsonResponse(HttpStatus.SC_OK, RegisterCardResponse.builder()
+            .deepLinkUrl("https://connect.garmin.com/payment/push/ios/provision")
+            .pushId(UUID.randomUUID().toString())
+            .build());
+    }
+
+    @SneakyThrows
+    public static APIResponseDTO jsonResponse(int status, Object body) {
+        return APIResponseDTO.builder()
+            .status(status)
+            .content(OBJECT_MAPPER.writeValueAsString(body))
+            .build();
+    }
 }
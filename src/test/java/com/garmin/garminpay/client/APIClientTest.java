@@ -25,10 +25,12 @@ import com.garmin.garminpay.model.SDKVersion;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -121,4 +123,32 @@ final class APIClientTest {
         assertTrue(headerFound);
     }
 
+    @Test
+    void closeClosesDefaultHttpClient() throws IOException {
+        client.close();
+
+        verify(httpClientMock, times(1)).close();
+    }
+
+    @Test
+    void closeLeavesProvidedHttpClientOpen() throws IOException {
+        CloseableHttpClient providedClient = mock(CloseableHttpClient.class);
+        APIClient providedClientAPIClient = new APIClient(providedClient);
+
+        providedClientAPIClient.close();
+
+        verify(providedClient, never()).close();
+    }
+
+    @Test
+    void canCreateClientFromSettings() throws IOException {
+        HttpClientSettings settings = HttpClientSettings.builder()
+            .maxConnectionsPerRoute(5)
+            .maxConnectionsTotal(10)
+            .build();
+
+        try (APIClient settingsClient = APIClient.builder().settings(settings).build()) {
+            assertNotNull(settingsClient);
+        }
+    }
 }
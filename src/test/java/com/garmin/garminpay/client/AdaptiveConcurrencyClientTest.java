@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayOverloadException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import static com.garmin.garminpay.TestUtils.TESTING_CONTEXT;
+import static com.garmin.garminpay.TestUtils.TESTING_OK_RESPONSE;
+import static com.garmin.garminpay.TestUtils.TESTING_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class AdaptiveConcurrencyClientTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final List<CompletableFuture<APIResponseDTO>> pending = new ArrayList<>();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        });
+    }
+
+    @Test
+    void canShedRequestsOverTheLimit() {
+        AdaptiveConcurrencyClient limiter = limiter(2);
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+
+        CompletableFuture<APIResponseDTO> shed = limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletionException exception = assertThrows(CompletionException.class, shed::join);
+        assertInstanceOf(GarminPayOverloadException.class, exception.getCause());
+        assertEquals(2, ((GarminPayOverloadException) exception.getCause()).getLimit());
+        assertEquals(2, limiter.getInFlight());
+
+        pending.get(0).complete(TESTING_OK_RESPONSE);
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        verify(asyncDelegate, times(3)).executeRequestAsync(any(), any());
+    }
+
+    @Test
+    void canSendTokenRefreshThroughASaturatedLimit() {
+        AdaptiveConcurrencyClient limiter = limiter(2);
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        RequestContext token = RequestContext.builder().operation(GarminPayOperation.TOKEN).build();
+        when(delegate.executeRequest(any(), any())).thenReturn(TESTING_OK_RESPONSE);
+
+        assertEquals(HttpStatus.SC_OK, limiter.executeRequest(TESTING_REQUEST, token).getStatus());
+        CompletableFuture<APIResponseDTO> keys = limiter.executeRequestAsync(
+            TESTING_REQUEST, RequestContext.builder().operation(GarminPayOperation.EXCHANGE_KEYS).build()
+        );
+        assertEquals(3, limiter.getInFlight());
+        assertThrows(CompletionException.class, () -> limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join());
+
+        pending.get(2).complete(TESTING_OK_RESPONSE);
+        assertEquals(TESTING_OK_RESPONSE, keys.join());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void canRaiseLimitWhileResponsesStayFast() {
+        AdaptiveConcurrencyClient limiter = limiter(4);
+
+        for (int i = 0; i < 30; i++) {
+            respondToFullLoad(limiter, 10);
+        }
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void canLowerLimitWhenResponsesSlowDown() {
+        AdaptiveConcurrencyClient limiter = limiter(8);
+        for (int i = 0; i < 5; i++) {
+            respondToFullLoad(limiter, 10);
+        }
+        int limitWhileFast = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            respondToFullLoad(limiter, 100);
+        }
+
+        assertTrue(limiter.getLimit() <= limitWhileFast / 2);
+    }
+
+    @Test
+    void canBackOffOnOverloadAndFailures() {
+        AdaptiveConcurrencyClient limiter = limiter(10);
+        when(delegate.executeRequest(any(), any()))
+            .thenReturn(APIResponseDTO.builder().status(HttpStatus.SC_TOO_MANY_REQUESTS).build())
+            .thenThrow(new GarminPayApiException("Connection reset"));
+
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        assertEquals(9, limiter.getLimit());
+        assertThrows(GarminPayApiException.class, () -> limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void canRejectInvalidSettings() {
+        AdaptiveConcurrencySettings unordered = AdaptiveConcurrencySettings.builder().minLimit(10).initialLimit(5).build();
+        AdaptiveConcurrencySettings tolerance = AdaptiveConcurrencySettings.builder().rttTolerance(0.5).build();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new AdaptiveConcurrencyClient(delegate, asyncDelegate, unordered, GarminPayMetricsListener.NOOP));
+        assertThrows(IllegalArgumentException.class,
+            () -> new AdaptiveConcurrencyClient(delegate, asyncDelegate, tolerance, GarminPayMetricsListener.NOOP));
+    }
+
+    /**
+     * Fills the current limit with requests and completes them all after the given round trip time.
+     */
+    private void respondToFullLoad(AdaptiveConcurrencyClient limiter, long rttMillis) {
+        pending.clear();
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        new ArrayList<>(pending).forEach(response -> response.complete(TESTING_OK_RESPONSE));
+    }
+
+    private AdaptiveConcurrencyClient limiter(int initialLimit) {
+        AdaptiveConcurrencySettings settings = AdaptiveConcurrencySettings.builder()
+            .initialLimit(initialLimit)
+            .minLimit(1)
+            .maxLimit(10)
+            .build();
+        return new AdaptiveConcurrencyClient(delegate, asyncDelegate, settings, GarminPayMetricsListener.NOOP, clock::get);
+    }
+}
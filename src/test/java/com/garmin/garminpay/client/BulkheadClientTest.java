@@ -0,0 +1,256 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.garmin.garminpay.exception.GarminPayOverloadException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import static com.garmin.garminpay.TestUtils.TESTING_CONTEXT;
+import static com.garmin.garminpay.TestUtils.TESTING_OK_RESPONSE;
+import static com.garmin.garminpay.TestUtils.TESTING_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class BulkheadClientTest {
+    private final List<CompletableFuture<APIResponseDTO>> pending = new ArrayList<>();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+    private BulkheadClient bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        bulkhead = BulkheadClient.builder().client(delegate).asyncClient(asyncDelegate).maxConcurrentRequests(2).build();
+
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        });
+    }
+
+    @Test
+    void asyncRequestsBeyondTheLimitWaitForAPermit() {
+        CompletableFuture<APIResponseDTO> first = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletableFuture<APIResponseDTO> second = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletableFuture<APIResponseDTO> third = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+
+        assertEquals(2, pending.size());
+        assertEquals(0, bulkhead.getAvailablePermits());
+
+        pending.get(0).complete(TESTING_OK_RESPONSE);
+        assertSame(TESTING_OK_RESPONSE, first.join());
+        assertEquals(3, pending.size());
+        assertFalse(third.isDone());
+
+        pending.get(1).completeExceptionally(new IllegalStateException("failed"));
+        pending.get(2).complete(TESTING_OK_RESPONSE);
+        assertTrue(second.isCompletedExceptionally());
+        assertSame(TESTING_OK_RESPONSE, third.join());
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    void queuedRequestsCompletingSynchronouslyAreDrainedWithoutRecursion() {
+        bulkhead = BulkheadClient.builder().client(delegate).asyncClient(asyncDelegate).maxConcurrentRequests(1).build();
+        CompletableFuture<APIResponseDTO> first = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(TESTING_OK_RESPONSE));
+        List<CompletableFuture<APIResponseDTO>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            queued.add(bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT));
+        }
+
+        pending.get(0).complete(TESTING_OK_RESPONSE);
+
+        assertSame(TESTING_OK_RESPONSE, first.join());
+        for (CompletableFuture<APIResponseDTO> response : queued) {
+            assertTrue(response.isDone());
+            assertSame(TESTING_OK_RESPONSE, response.join());
+        }
+        assertEquals(1, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    void asyncRequestThatFailsToStartReleasesItsPermit() {
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenThrow(new IllegalStateException("rejected"));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).isCompletedExceptionally());
+        }
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    void blockingRequestsNeverExceedTheLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.executeRequest(any(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            release.await();
+            inFlight.decrementAndGet();
+            return TESTING_OK_RESPONSE;
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<APIResponseDTO>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(callers.submit(() -> bulkhead.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)));
+            }
+            while (inFlight.get() < 2) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<APIResponseDTO> response : responses) {
+                assertSame(TESTING_OK_RESPONSE, response.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, maxInFlight.get());
+            assertEquals(2, bulkhead.getAvailablePermits());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncRequestsNotGivenAPermitInTimeAreRejected() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        ScheduledFuture<?> timeout = mock(ScheduledFuture.class);
+        doReturn(timeout).when(scheduler).schedule(any(Runnable.class), anyLong(), any());
+        GarminPayMetricsListener metricsListener = mock(GarminPayMetricsListener.class);
+        bulkhead = BulkheadClient.builder()
+            .client(delegate)
+            .asyncClient(asyncDelegate)
+            .maxConcurrentRequests(2)
+            .maxWait(Duration.ofSeconds(1))
+            .scheduler(scheduler)
+            .metricsListener(metricsListener)
+            .build();
+
+        bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletableFuture<APIResponseDTO> timedOut = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletableFuture<APIResponseDTO> queued = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+
+        ArgumentCaptor<Runnable> timeouts = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(2)).schedule(timeouts.capture(), eq(Duration.ofSeconds(1).toNanos()), eq(TimeUnit.NANOSECONDS));
+        timeouts.getAllValues().get(0).run();
+
+        CompletionException exception = assertThrows(CompletionException.class, timedOut::join);
+        assertInstanceOf(GarminPayOverloadException.class, exception.getCause());
+        verify(metricsListener).onBulkheadRejection(GarminPayOperation.REGISTER_CARD);
+
+        pending.get(0).complete(TESTING_OK_RESPONSE);
+        assertEquals(3, pending.size());
+        verify(timeout).cancel(false);
+        pending.get(2).complete(TESTING_OK_RESPONSE);
+        assertSame(TESTING_OK_RESPONSE, queued.join());
+
+        timeouts.getAllValues().get(1).run();
+        assertSame(TESTING_OK_RESPONSE, queued.join());
+        pending.get(1).complete(TESTING_OK_RESPONSE);
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    void blockingRequestsNotGivenAPermitInTimeAreRejected() {
+        GarminPayMetricsListener metricsListener = mock(GarminPayMetricsListener.class);
+        bulkhead = BulkheadClient.builder()
+            .client(delegate)
+            .asyncClient(asyncDelegate)
+            .maxConcurrentRequests(2)
+            .maxWait(Duration.ZERO)
+            .scheduler(mock(ScheduledExecutorService.class))
+            .metricsListener(metricsListener)
+            .build();
+        bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+
+        GarminPayOverloadException error = assertThrows(GarminPayOverloadException.class,
+            () -> bulkhead.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(2, error.getLimit());
+        verify(metricsListener).onBulkheadRejection(GarminPayOperation.REGISTER_CARD);
+
+        pending.get(0).complete(TESTING_OK_RESPONSE);
+        when(delegate.executeRequest(any(), any())).thenReturn(TESTING_OK_RESPONSE);
+        assertSame(TESTING_OK_RESPONSE, bulkhead.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+    }
+
+    @Test
+    void exemptOperationsAreSentThroughASaturatedBulkhead() {
+        bulkhead = BulkheadClient.builder()
+            .client(delegate)
+            .asyncClient(asyncDelegate)
+            .maxConcurrentRequests(1)
+            .exemptOperations(EnumSet.of(GarminPayOperation.TOKEN, GarminPayOperation.EXCHANGE_KEYS))
+            .build();
+        RequestContext token = RequestContext.builder().operation(GarminPayOperation.TOKEN).build();
+        RequestContext exchangeKeys = RequestContext.builder().operation(GarminPayOperation.EXCHANGE_KEYS).build();
+        when(delegate.executeRequest(any(), any())).thenReturn(TESTING_OK_RESPONSE);
+
+        bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        CompletableFuture<APIResponseDTO> queued = bulkhead.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        assertEquals(0, bulkhead.getAvailablePermits());
+
+        assertSame(TESTING_OK_RESPONSE, bulkhead.executeRequest(TESTING_REQUEST, token));
+        CompletableFuture<APIResponseDTO> keys = bulkhead.executeRequestAsync(TESTING_REQUEST, exchangeKeys);
+        assertEquals(2, pending.size());
+        pending.get(1).complete(TESTING_OK_RESPONSE);
+        assertSame(TESTING_OK_RESPONSE, keys.join());
+
+        assertFalse(queued.isDone());
+        assertEquals(0, bulkhead.getAvailablePermits());
+        verify(asyncDelegate).executeRequestAsync(TESTING_REQUEST, exchangeKeys);
+    }
+
+    @Test
+    void maxConcurrentRequestsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> BulkheadClient.builder().client(delegate).maxConcurrentRequests(0).build());
+    }
+
+    @Test
+    void maxWaitRequiresAScheduler() {
+        assertThrows(IllegalArgumentException.class, () -> BulkheadClient.builder()
+            .client(delegate)
+            .maxConcurrentRequests(2)
+            .maxWait(Duration.ofSeconds(1))
+            .build());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.exception.GarminPayMaintenanceException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import static com.garmin.garminpay.TestUtils.TESTING_CONTEXT;
+import static com.garmin.garminpay.TestUtils.TESTING_OK_RESPONSE;
+import static com.garmin.garminpay.TestUtils.TESTING_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class CircuitBreakerClientTest {
+    private static final APIResponseDTO SERVER_ERROR = APIResponseDTO.builder().status(HttpStatus.SC_BAD_GATEWAY).build();
+    private static final APIResponseDTO MAINTENANCE = APIResponseDTO.builder()
+        .status(HttpStatus.SC_SERVICE_UNAVAILABLE)
+        .headers(new Header[] {new BasicHeader("maintenance-mode", "true")})
+        .build();
+    private final AtomicLong clock = new AtomicLong();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+    private CircuitBreakerClient circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        CircuitBreakerSettings settings = CircuitBreakerSettings.builder()
+            .failureThreshold(3)
+            .openDuration(Duration.ofSeconds(30))
+            .build();
+        circuitBreaker = new CircuitBreakerClient(delegate, asyncDelegate, settings, GarminPayMetricsListener.NOOP, clock::get);
+    }
+
+    @Test
+    void canOpenImmediatelyOnMaintenanceMode() {
+        when(delegate.executeRequest(any(), any())).thenReturn(MAINTENANCE);
+
+        assertEquals(MAINTENANCE, circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+
+        GarminPayMaintenanceException exception = assertThrows(
+            GarminPayMaintenanceException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals("/paymentCards", exception.getPath());
+        verify(delegate, times(1)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canOpenAfterConsecutiveFailures() {
+        when(delegate.executeRequest(any(), any()))
+            .thenReturn(SERVER_ERROR, SERVER_ERROR, TESTING_OK_RESPONSE, SERVER_ERROR, SERVER_ERROR)
+            .thenThrow(new GarminPayApiException("Connection reset"));
+
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+            assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        }
+        assertThrows(GarminPayApiException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+
+        GarminPayApiException exception = assertThrows(
+            GarminPayApiException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals(0, exception.getStatus());
+        verify(delegate, times(6)).executeRequest(any(), any());
+    }
+
+    @Test
+    void rejectionsCarryTheStatusThatOpenedTheCircuit() {
+        when(delegate.executeRequest(any(), any())).thenReturn(SERVER_ERROR);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        }
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+
+        GarminPayApiException exception = assertThrows(
+            GarminPayApiException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals(HttpStatus.SC_BAD_GATEWAY, exception.getStatus());
+        verify(delegate, times(3)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canCloseAfterSuccessfulProbe() {
+        when(delegate.executeRequest(any(), any())).thenReturn(MAINTENANCE);
+        circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertThrows(GarminPayMaintenanceException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+
+        // Only the probe is sent while the circuit is half-open
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        when(delegate.executeRequest(any(), any())).thenAnswer(invocation -> {
+            assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+            assertThrows(GarminPayMaintenanceException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+            return TESTING_OK_RESPONSE;
+        });
+
+        assertEquals(TESTING_OK_RESPONSE, circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        verify(delegate, times(2)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canReopenAfterFailedProbe() {
+        when(delegate.executeRequest(any(), any())).thenReturn(MAINTENANCE);
+        circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        when(delegate.executeRequest(any(), any())).thenThrow(new GarminPayApiException("Connection reset"));
+        assertThrows(GarminPayApiException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        GarminPayApiException exception = assertThrows(
+            GarminPayApiException.class, () -> circuitBreaker.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals(0, exception.getStatus());
+        verify(delegate, times(2)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canFailFastWithoutBlocking() {
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(MAINTENANCE));
+        circuitBreaker.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join();
+
+        CompletableFuture<APIResponseDTO> rejected = circuitBreaker.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(GarminPayMaintenanceException.class, exception.getCause());
+        verify(asyncDelegate, times(1)).executeRequestAsync(any(), any());
+        verify(delegate, never()).executeRequest(any(), any());
+    }
+}
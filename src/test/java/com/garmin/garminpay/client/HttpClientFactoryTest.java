@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+final class HttpClientFactoryTest {
+
+    @SneakyThrows
+    @Test
+    void tlsSessionSettingsLeaveTheDefaultContextAlone() {
+        SSLSessionContext defaultSessions = SSLContext.getDefault().getClientSessionContext();
+        int defaultCacheSize = defaultSessions.getSessionCacheSize();
+        int defaultTimeout = defaultSessions.getSessionTimeout();
+        HttpClientSettings settings = HttpClientSettings.builder()
+            .tlsSessionCacheSize(defaultCacheSize + 7)
+            .tlsSessionTimeout(Duration.ofSeconds(defaultTimeout + 11))
+            .build();
+
+        SSLContext sslContext = HttpClientFactory.createSslContext(settings);
+
+        assertNotSame(SSLContext.getDefault(), sslContext);
+        assertEquals(defaultCacheSize + 7, sslContext.getClientSessionContext().getSessionCacheSize());
+        assertEquals(defaultTimeout + 11, sslContext.getClientSessionContext().getSessionTimeout());
+        assertEquals(defaultCacheSize, defaultSessions.getSessionCacheSize());
+        assertEquals(defaultTimeout, defaultSessions.getSessionTimeout());
+    }
+}
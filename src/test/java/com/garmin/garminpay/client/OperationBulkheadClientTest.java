@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.garmin.garminpay.exception.GarminPayOverloadException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import static com.garmin.garminpay.TestUtils.TESTING_OK_RESPONSE;
+import static com.garmin.garminpay.TestUtils.TESTING_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class OperationBulkheadClientTest {
+    private static final RequestContext REGISTER_CARD = RequestContext.builder().operation(GarminPayOperation.REGISTER_CARD).build();
+    private static final RequestContext TOKEN = RequestContext.builder().operation(GarminPayOperation.TOKEN).build();
+    private static final RequestContext HEALTH = RequestContext.builder().operation(GarminPayOperation.HEALTH).build();
+    private final List<CompletableFuture<APIResponseDTO>> pending = new ArrayList<>();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+    private OperationBulkheadClient bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        OperationBulkheadSettings settings = OperationBulkheadSettings.builder()
+            .enabled(true)
+            .limit(GarminPayOperation.REGISTER_CARD, 2)
+            .limit(GarminPayOperation.TOKEN, 1)
+            .maxWait(GarminPayOperation.REGISTER_CARD, Duration.ZERO)
+            .build();
+        bulkheads = new OperationBulkheadClient(
+            delegate, asyncDelegate, settings, mock(ScheduledExecutorService.class), GarminPayMetricsListener.NOOP
+        );
+
+        when(delegate.executeRequest(any(), any())).thenReturn(TESTING_OK_RESPONSE);
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<APIResponseDTO> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        });
+    }
+
+    @Test
+    void tokenRequestsDoNotWaitBehindRegistrations() {
+        bulkheads.executeRequestAsync(TESTING_REQUEST, REGISTER_CARD);
+        bulkheads.executeRequestAsync(TESTING_REQUEST, REGISTER_CARD);
+        CompletableFuture<APIResponseDTO> queued = bulkheads.executeRequestAsync(TESTING_REQUEST, REGISTER_CARD);
+        assertEquals(0, bulkheads.getAvailablePermits(GarminPayOperation.REGISTER_CARD));
+        assertFalse(queued.isDone());
+        assertThrows(GarminPayOverloadException.class, () -> bulkheads.executeRequest(TESTING_REQUEST, REGISTER_CARD));
+
+        assertSame(TESTING_OK_RESPONSE, bulkheads.executeRequest(TESTING_REQUEST, TOKEN));
+        CompletableFuture<APIResponseDTO> token = bulkheads.executeRequestAsync(TESTING_REQUEST, TOKEN);
+        assertEquals(3, pending.size());
+        pending.get(2).complete(TESTING_OK_RESPONSE);
+        assertSame(TESTING_OK_RESPONSE, token.join());
+        assertEquals(1, bulkheads.getAvailablePermits(GarminPayOperation.TOKEN));
+    }
+
+    @Test
+    void operationsWithoutALimitAreSentStraightThrough() {
+        for (int i = 0; i < 5; i++) {
+            bulkheads.executeRequestAsync(TESTING_REQUEST, HEALTH);
+        }
+        assertEquals(5, pending.size());
+        assertEquals(Integer.MAX_VALUE, bulkheads.getAvailablePermits(GarminPayOperation.HEALTH));
+    }
+
+    @Test
+    void limitsMustBePositive() {
+        OperationBulkheadSettings settings = OperationBulkheadSettings.builder()
+            .limit(GarminPayOperation.REGISTER_CARD, 0)
+            .build();
+        assertThrows(IllegalArgumentException.class, () -> new OperationBulkheadClient(
+            delegate, asyncDelegate, settings, mock(ScheduledExecutorService.class), GarminPayMetricsListener.NOOP
+        ));
+    }
+}
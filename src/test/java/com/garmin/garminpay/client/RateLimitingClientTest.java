@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.garmin.garminpay.exception.GarminPayRateLimitException;
+import com.garmin.garminpay.metrics.GarminPayMetricsListener;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+
+import static com.garmin.garminpay.TestUtils.TESTING_CONTEXT;
+import static com.garmin.garminpay.TestUtils.TESTING_OK_RESPONSE;
+import static com.garmin.garminpay.TestUtils.TESTING_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class RateLimitingClientTest {
+    private static final RequestContext HEALTH = RequestContext.builder().operation(GarminPayOperation.HEALTH).build();
+    private static final APIResponseDTO TOO_MANY_REQUESTS = APIResponseDTO.builder()
+        .status(HttpStatus.SC_TOO_MANY_REQUESTS)
+        .headers(new Header[] {new BasicHeader("Retry-After", "2")})
+        .build();
+    private final AtomicLong clock = new AtomicLong();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        when(delegate.executeRequest(any(), any())).thenReturn(TESTING_OK_RESPONSE);
+        when(asyncDelegate.executeRequestAsync(any(), any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(TESTING_OK_RESPONSE));
+    }
+
+    @Test
+    void canFailFastOverTheRate() {
+        RateLimitingClient limiter = limiter(Duration.ZERO);
+
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        GarminPayRateLimitException exception = assertThrows(
+            GarminPayRateLimitException.class, () -> limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals(HttpStatus.SC_TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals("/paymentCards", exception.getPath());
+        assertEquals(Duration.ofMillis(500), exception.getRetryAfter());
+        verify(delegate, times(2)).executeRequest(any(), any());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        verify(delegate, times(3)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canLeaveOperationsWithoutRateUnlimited() {
+        RateLimitingClient limiter = limiter(Duration.ZERO);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.executeRequest(TESTING_REQUEST, HEALTH);
+        }
+        verify(delegate, times(10)).executeRequest(any(), any());
+        assertEquals(Double.POSITIVE_INFINITY, limiter.getRate(GarminPayOperation.HEALTH));
+    }
+
+    @Test
+    void canPauseAndSlowDownAfterTooManyRequests() {
+        RateLimitingClient limiter = limiter(Duration.ZERO);
+        when(delegate.executeRequest(any(), any())).thenReturn(TOO_MANY_REQUESTS, TESTING_OK_RESPONSE);
+
+        assertEquals(TOO_MANY_REQUESTS, limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertEquals(1.0, limiter.getRate(GarminPayOperation.REGISTER_CARD), 0.001);
+        GarminPayRateLimitException exception = assertThrows(
+            GarminPayRateLimitException.class, () -> limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT)
+        );
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(TESTING_OK_RESPONSE, limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+        assertThrows(GarminPayRateLimitException.class, () -> limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(2.0, limiter.getRate(GarminPayOperation.REGISTER_CARD), 0.001);
+        verify(delegate, times(2)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canPauseUnlimitedOperationsForRetryAfter() {
+        RateLimitingClient limiter = limiter(Duration.ZERO);
+        APIResponseDTO unavailable = APIResponseDTO.builder()
+            .status(HttpStatus.SC_SERVICE_UNAVAILABLE)
+            .headers(new Header[] {new BasicHeader("Retry-After", "1")})
+            .build();
+        when(delegate.executeRequest(any(), any())).thenReturn(unavailable, TESTING_OK_RESPONSE);
+
+        limiter.executeRequest(TESTING_REQUEST, HEALTH);
+        assertThrows(GarminPayRateLimitException.class, () -> limiter.executeRequest(TESTING_REQUEST, HEALTH));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(TESTING_OK_RESPONSE, limiter.executeRequest(TESTING_REQUEST, HEALTH));
+        assertEquals(Double.POSITIVE_INFINITY, limiter.getRate(GarminPayOperation.HEALTH));
+    }
+
+    @Test
+    void canQueueAsyncRequestsWithoutBlocking() {
+        RateLimitingClient limiter = limiter(Duration.ofSeconds(1));
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join();
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join();
+
+        CompletableFuture<APIResponseDTO> queued = limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(resume.capture(), eq(TimeUnit.MILLISECONDS.toNanos(500)), eq(TimeUnit.NANOSECONDS));
+        assertFalse(queued.isDone());
+        verify(asyncDelegate, times(2)).executeRequestAsync(any(), any());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        resume.getValue().run();
+        assertEquals(TESTING_OK_RESPONSE, queued.join());
+        verify(asyncDelegate, times(3)).executeRequestAsync(any(), any());
+    }
+
+    @Test
+    void canRejectAsyncRequestsOverMaxWait() {
+        RateLimitingClient limiter = limiter(Duration.ofMillis(100));
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join();
+        limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT).join();
+
+        CompletableFuture<APIResponseDTO> rejected = limiter.executeRequestAsync(TESTING_REQUEST, TESTING_CONTEXT);
+        assertTrue(rejected.isCompletedExceptionally());
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    void canWaitForPermitWhenBlocking() {
+        RateLimiterSettings settings = RateLimiterSettings.builder()
+            .enabled(true)
+            .rate(GarminPayOperation.REGISTER_CARD, 20.0)
+            .burst(Duration.ZERO)
+            .maxWait(Duration.ofSeconds(1))
+            .build();
+        RateLimitingClient limiter = new RateLimitingClient(delegate, asyncDelegate, settings, scheduler, GarminPayMetricsListener.NOOP);
+
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        long start = System.nanoTime();
+        limiter.executeRequest(TESTING_REQUEST, TESTING_CONTEXT);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        verify(delegate, times(2)).executeRequest(any(), any());
+    }
+
+    @Test
+    void canRejectInvalidSettings() {
+        RateLimiterSettings negativeRate = RateLimiterSettings.builder().rate(GarminPayOperation.TOKEN, -1.0).build();
+        RateLimiterSettings noRecovery = RateLimiterSettings.builder().recoveryPeriod(Duration.ZERO).build();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new RateLimitingClient(delegate, asyncDelegate, negativeRate, scheduler, GarminPayMetricsListener.NOOP));
+        assertThrows(IllegalArgumentException.class,
+            () -> new RateLimitingClient(delegate, asyncDelegate, noRecovery, scheduler, GarminPayMetricsListener.NOOP));
+    }
+
+    private RateLimitingClient limiter(Duration maxWait) {
+        RateLimiterSettings settings = RateLimiterSettings.builder()
+            .enabled(true)
+            .rate(GarminPayOperation.REGISTER_CARD, 2.0)
+            .maxWait(maxWait)
+            .build();
+        return new RateLimitingClient(delegate, asyncDelegate, settings, scheduler, GarminPayMetricsListener.NOOP, clock::get);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.garmin.garminpay.TestUtils;
+import com.garmin.garminpay.exception.GarminPayApiException;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.ErrorResponse;
+import com.garmin.garminpay.tracing.GarminPaySpan;
+import com.garmin.garminpay.tracing.GarminPayTracer;
+
+import static com.garmin.garminpay.TestUtils.TESTING_CONTEXT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class TracingClientTest {
+    private static final String TRACEPARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+    private final List<RecordedSpan> spans = new ArrayList<>();
+    private Client delegate;
+    private AsyncClient asyncDelegate;
+    private TracingClient tracingClient;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Client.class);
+        asyncDelegate = mock(AsyncClient.class);
+        GarminPayTracer tracer = new GarminPayTracer() {
+            @Override
+            public GarminPaySpan startHttpCall(GarminPayOperation operation, ClassicHttpRequest request) {
+                request.setHeader("traceparent", TRACEPARENT);
+                RecordedSpan span = new RecordedSpan();
+                spans.add(span);
+                return span;
+            }
+        };
+        tracingClient = new TracingClient(delegate, asyncDelegate, tracer);
+    }
+
+    @Test
+    void requestSpanIsTaggedWithResponseMetadata() {
+        APIResponseDTO response = APIResponseDTO.builder()
+            .status(HttpStatus.SC_OK)
+            .headers(new Header[] {TestUtils.CF_RAY_HEADER, TestUtils.X_REQUEST_ID_HEADER})
+            .build();
+        when(delegate.executeRequest(any(), any())).thenAnswer(invocation -> {
+            assertTrue(spans.get(0).current);
+            return response;
+        });
+        ClassicHttpRequest request = ClassicRequestBuilder.post("http://testing/paymentCards").build();
+
+        assertSame(response, tracingClient.executeRequest(request, TESTING_CONTEXT));
+
+        RecordedSpan span = spans.get(0);
+        assertEquals(TRACEPARENT, request.getFirstHeader("traceparent").getValue());
+        assertEquals("paymentCards", span.attributes.get(TracingClient.OPERATION_ATTRIBUTE));
+        assertEquals((long) HttpStatus.SC_OK, span.attributes.get(TracingClient.STATUS_CODE_ATTRIBUTE));
+        assertEquals(TestUtils.X_REQUEST_ID_HEADER.getValue(), span.attributes.get(TracingClient.REQUEST_ID_ATTRIBUTE));
+        assertEquals(TestUtils.CF_RAY_HEADER.getValue(), span.attributes.get(TracingClient.CF_RAY_ATTRIBUTE));
+        assertFalse(span.current);
+        assertTrue(span.ended);
+    }
+
+    @Test
+    void responseWithoutMetadataHeadersIsNotTaggedWithThem() {
+        when(delegate.executeRequest(any(), any())).thenReturn(APIResponseDTO.builder().status(HttpStatus.SC_OK).build());
+
+        tracingClient.executeRequest(ClassicRequestBuilder.get("http://testing/health").build(), TESTING_CONTEXT);
+
+        assertFalse(spans.get(0).attributes.containsKey(TracingClient.REQUEST_ID_ATTRIBUTE));
+        assertFalse(spans.get(0).attributes.containsKey(TracingClient.CF_RAY_ATTRIBUTE));
+    }
+
+    @Test
+    void failedAsyncRequestRecordsTheUnwrappedError() {
+        CompletableFuture<APIResponseDTO> pending = new CompletableFuture<>();
+        when(asyncDelegate.executeRequestAsync(any(), any())).thenReturn(pending);
+        GarminPayApiException failure = new GarminPayApiException("failed", ErrorResponse.builder().build());
+
+        CompletableFuture<APIResponseDTO> response = tracingClient.executeRequestAsync(
+            ClassicRequestBuilder.post("http://testing/paymentCards").build(), TESTING_CONTEXT
+        );
+        RecordedSpan span = spans.get(0);
+        assertFalse(span.ended);
+
+        pending.completeExceptionally(failure);
+
+        assertTrue(response.isCompletedExceptionally());
+        assertSame(failure, assertThrows(Exception.class, response::join).getCause());
+        assertSame(failure, span.error);
+        assertNull(span.attributes.get(TracingClient.STATUS_CODE_ATTRIBUTE));
+        assertTrue(span.ended);
+    }
+
+    @Test
+    void requestThatThrowsEndsItsSpan() {
+        when(delegate.executeRequest(any(), any())).thenThrow(new IllegalStateException("rejected"));
+
+        assertThrows(IllegalStateException.class,
+            () -> tracingClient.executeRequest(ClassicRequestBuilder.get("http://testing/health").build(), TESTING_CONTEXT));
+
+        assertInstanceOf(IllegalStateException.class, spans.get(0).error);
+        assertTrue(spans.get(0).ended);
+    }
+
+    private static final class RecordedSpan implements GarminPaySpan {
+        private final Map<String, Object> attributes = new HashMap<>();
+        private Throwable error;
+        private boolean current;
+        private boolean ended;
+
+        @Override
+        public void setAttribute(String key, String value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void setAttribute(String key, long value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public Scope makeCurrent() {
+            current = true;
+            return () -> current = false;
+        }
+
+        @Override
+        public void end() {
+            ended = true;
+        }
+    }
+}
@@ -7,12 +7,25 @@ package com.garmin.garminpay.encryption;
 
 import com.garmin.garminpay.TestUtils;
 import com.garmin.garminpay.encryption.EncryptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.crypto.AESDecrypter;
 import com.nimbusds.jwt.EncryptedJWT;
+import lombok.SneakyThrows;
+import org.apache.commons.codec.binary.Hex;
 import org.junit.jupiter.api.Test;
 
+import java.security.KeyPair;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.crypto.SecretKey;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -44,4 +57,50 @@ final class EncryptionServiceTest {
     void cannotEncryptCardDataWithNullKeyId() {
         assertThrows(IllegalArgumentException.class, () -> service.encryptCardData(TestUtils.TESTING_CARD_DATA, secretKey, null));
     }
+
+    @Test
+    void canGenerateKeyAgreementWithGeneratedClientKey() {
+        KeyPair clientKeyPair = service.generateClientKeyPair();
+
+        SecretKey fromKey = service.generateKeyAgreement(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY, clientKeyPair.getPrivate());
+        SecretKey fromEncodedKey = service.generateKeyAgreement(
+            TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY, Hex.encodeHexString(clientKeyPair.getPrivate().getEncoded())
+        );
+
+        assertArrayEquals(fromEncodedKey.getEncoded(), fromKey.getEncoded());
+        assertDoesNotThrow(() -> service.encryptCardData(TestUtils.TESTING_CARD_DATA, fromKey, TestUtils.TESTING_KEY_ID));
+    }
+
+    @SneakyThrows
+    @Test
+    void canDecryptCardDataFromEncryptionContext() {
+        CardEncryptionContext context = service.createEncryptionContext(secretKey, TestUtils.TESTING_KEY_ID);
+
+        JWEObject jwe = JWEObject.parse(context.encrypt(TestUtils.TESTING_CARD_DATA));
+        jwe.decrypt(new AESDecrypter(secretKey));
+
+        assertEquals(JWEAlgorithm.A256GCMKW, jwe.getHeader().getAlgorithm());
+        assertEquals(EncryptionMethod.A256GCM, jwe.getHeader().getEncryptionMethod());
+        assertEquals("application/jwe", jwe.getHeader().getContentType());
+        assertEquals(TestUtils.TESTING_KEY_ID, jwe.getHeader().getKeyID());
+        assertEquals(new ObjectMapper().writeValueAsString(TestUtils.TESTING_CARD_DATA), jwe.getPayload().toString());
+    }
+
+    @SneakyThrows
+    @Test
+    void canShareEncryptionContextBetweenThreads() {
+        CardEncryptionContext context = service.createEncryptionContext(secretKey, TestUtils.TESTING_KEY_ID);
+        String expectedPayload = new ObjectMapper().writeValueAsString(TestUtils.TESTING_CARD_DATA);
+
+        List<String> encrypted = IntStream.range(0, 64).parallel()
+            .mapToObj(index -> context.encrypt(TestUtils.TESTING_CARD_DATA))
+            .collect(Collectors.toList());
+
+        assertEquals(encrypted.size(), encrypted.stream().distinct().count());
+        for (String serialized : encrypted) {
+            JWEObject jwe = JWEObject.parse(serialized);
+            jwe.decrypt(new AESDecrypter(secretKey));
+            assertEquals(expectedPayload, jwe.getPayload().toString());
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+final class SensitiveDataBufferTest {
+
+    @Test
+    void canWipeWrittenBytes() {
+        SensitiveDataBuffer buffer = new SensitiveDataBuffer(32);
+        byte[] pan = "4111111111111111".getBytes(StandardCharsets.US_ASCII);
+        buffer.write(pan, 0, pan.length);
+
+        assertEquals(pan.length, buffer.size());
+        assertArrayEquals(pan, Arrays.copyOf(buffer.array(), buffer.size()));
+
+        buffer.wipe();
+        assertEquals(0, buffer.size());
+        assertArrayEquals(new byte[32], buffer.array());
+    }
+
+    @Test
+    void canDetachFullArrayWithoutCopying() {
+        SensitiveDataBuffer buffer = new SensitiveDataBuffer(4);
+        buffer.write(new byte[] {1, 2, 3, 4}, 0, 4);
+        byte[] backing = buffer.array();
+
+        byte[] detached = buffer.detach();
+
+        assertSame(backing, detached);
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, detached);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void canWipeBackingArrayWhenDetachingPartOfIt() {
+        SensitiveDataBuffer buffer = new SensitiveDataBuffer(8);
+        buffer.write(new byte[] {1, 2, 3}, 0, 3);
+        byte[] backing = buffer.array();
+
+        byte[] detached = buffer.detach();
+
+        assertArrayEquals(new byte[] {1, 2, 3}, detached);
+        assertArrayEquals(new byte[8], backing);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void canWipeReplacedArrayWhenGrowing() {
+        SensitiveDataBuffer buffer = new SensitiveDataBuffer(4);
+        buffer.write(new byte[] {1, 2, 3, 4}, 0, 4);
+        byte[] replaced = buffer.array();
+
+        buffer.write(5);
+
+        assertArrayEquals(new byte[4], replaced);
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, Arrays.copyOf(buffer.array(), buffer.size()));
+    }
+}
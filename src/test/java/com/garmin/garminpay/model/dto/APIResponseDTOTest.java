@@ -6,7 +6,10 @@
 package com.garmin.garminpay.model.dto;
 
 import com.garmin.garminpay.TestUtils;
+import com.garmin.garminpay.exception.GarminPaySDKException;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.utility.ResponseHandlingUtil;
 
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
@@ -16,7 +19,17 @@ import org.apache.hc.core5.http.io.support.ClassicResponseBuilder;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 final class APIResponseDTOTest {
     private final Header[] defaultHeaders = {
@@ -38,6 +51,44 @@ final class APIResponseDTOTest {
         assertEquals(TestUtils.X_REQUEST_ID_HEADER.getValue(), responseDTO.findXRequestId());
     }
 
+    @Test
+    void testMetadataWithoutHeaders() {
+        APIResponseDTO responseDTO = APIResponseDTO.builder().status(HttpStatus.SC_OK).build();
+
+        assertEquals("null", responseDTO.findCFRay());
+        assertEquals("null", responseDTO.findXRequestId());
+        assertFalse(responseDTO.isMaintenanceMode());
+    }
+
+    @Test
+    void testMaintenanceMode() {
+        APIResponseDTO responseDTO = APIResponseDTO.builder()
+            .status(HttpStatus.SC_SERVICE_UNAVAILABLE)
+            .headers(new Header[] {TestUtils.X_REQUEST_ID_HEADER, new BasicHeader("Maintenance-Mode", "TRUE")})
+            .build();
+
+        assertTrue(responseDTO.isMaintenanceMode());
+        assertEquals(TestUtils.X_REQUEST_ID_HEADER.getValue(), responseDTO.findXRequestId());
+    }
+
+    @Test
+    void testRetryAfter() {
+        assertEquals(Duration.ofSeconds(120), retryAfter("120"));
+        assertEquals(Duration.ZERO, retryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        Duration untilDate = retryAfter(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(5)));
+        assertTrue(untilDate.compareTo(Duration.ofMinutes(4)) > 0 && untilDate.compareTo(Duration.ofMinutes(5)) <= 0);
+        assertNull(retryAfter("soon"));
+        assertNull(APIResponseDTO.builder().status(HttpStatus.SC_TOO_MANY_REQUESTS).build().findRetryAfter());
+    }
+
+    private static Duration retryAfter(String value) {
+        return APIResponseDTO.builder()
+            .status(HttpStatus.SC_TOO_MANY_REQUESTS)
+            .headers(new Header[] {new BasicHeader(HttpHeaders.RETRY_AFTER, value)})
+            .build()
+            .findRetryAfter();
+    }
+
     @Test
     void testFromHttpResponse() {
         ClassicHttpResponse response = ClassicResponseBuilder.create(HttpStatus.SC_OK)
@@ -51,4 +102,49 @@ final class APIResponseDTOTest {
         assertEquals(TestUtils.CF_RAY_HEADER.getValue(), responseDTO.findCFRay());
         assertEquals(TestUtils.X_REQUEST_ID_HEADER.getValue(), responseDTO.findXRequestId());
     }
+
+    @Test
+    void testFromHttpResponseDeserializesSuccessfulBody() {
+        ClassicHttpResponse response = ClassicResponseBuilder.create(HttpStatus.SC_OK)
+            .setEntity("{\"deepLinkUrl\":\"https://testing\",\"pushId\":\"test\"}")
+            .setHeaders(defaultHeaders)
+            .build();
+
+        APIResponseDTO responseDTO = APIResponseDTO.fromHttpResponse(
+            response, "/", ResponseHandlingUtil.readerFor(RegisterCardResponse.class)
+        );
+
+        assertNull(responseDTO.getContent());
+        assertInstanceOf(RegisterCardResponse.class, responseDTO.getBody());
+        RegisterCardResponse registerCardResponse = ResponseHandlingUtil.parseResponse(responseDTO, RegisterCardResponse.class);
+        assertEquals("https://testing", registerCardResponse.getDeepLinkUrl());
+        assertEquals("test", registerCardResponse.getPushId());
+    }
+
+    @Test
+    void testFromHttpResponseKeepsErrorContent() {
+        ClassicHttpResponse response = ClassicResponseBuilder.create(HttpStatus.SC_BAD_REQUEST)
+            .setEntity("{\"message\":\"Bad request\"}")
+            .setHeaders(defaultHeaders)
+            .build();
+
+        APIResponseDTO responseDTO = APIResponseDTO.fromHttpResponse(
+            response, "/", ResponseHandlingUtil.readerFor(RegisterCardResponse.class)
+        );
+
+        assertNull(responseDTO.getBody());
+        assertEquals("{\"message\":\"Bad request\"}", responseDTO.getContent());
+    }
+
+    @Test
+    void testFromHttpResponseRejectsUnknownSuccessfulBody() {
+        ClassicHttpResponse response = ClassicResponseBuilder.create(HttpStatus.SC_OK)
+            .setEntity("Content")
+            .setHeaders(defaultHeaders)
+            .build();
+
+        assertThrows(GarminPaySDKException.class, () -> APIResponseDTO.fromHttpResponse(
+            response, "/", ResponseHandlingUtil.readerFor(RegisterCardResponse.class)
+        ));
+    }
 }
@@ -19,21 +19,26 @@ import com.garmin.garminpay.model.response.RegisterCardResponse;
 import com.garmin.garminpay.model.response.RootResponse;
 import com.garmin.garminpay.proxy.GarminPayProxy;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 import lombok.SneakyThrows;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 final class GarminPayProxyTest {
@@ -66,7 +71,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         garminPayProxy = new GarminPayProxy(refreshableOauthClient, testingUrl);
         garminPayProxy.refreshRootLinks();
@@ -84,7 +89,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         RootResponse rootResponse = garminPayProxy.getRootEndpoint();
 
@@ -105,7 +110,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.getRootEndpoint());
 
@@ -126,7 +131,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.getRootEndpoint());
 
@@ -145,7 +150,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         HealthResponse healthResponse = garminPayProxy.getHealthStatus();
 
@@ -166,7 +171,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.getHealthStatus());
 
@@ -187,7 +192,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.getHealthStatus());
 
@@ -209,7 +214,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         ExchangeKeysResponse exchangeKeysResponse = garminPayProxy.exchangeKeys(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY);
 
@@ -232,7 +237,7 @@ final class GarminPayProxyTest {
             .path("/config/encryptionKeys")
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.exchangeKeys(TestUtils.TESTING_ENCODED_PUBLIC_ECC_KEY));
 
@@ -253,7 +258,7 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         RegisterCardResponse registerCardResponse = garminPayProxy.registerCard("mockEncryptedCardData");
 
@@ -275,10 +280,89 @@ final class GarminPayProxyTest {
             .headers(testingHeaders)
             .build();
 
-        when(refreshableOauthClient.executeRequest(any())).thenReturn(responseDTO);
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
 
         GarminPayApiException exception = assertThrows(GarminPayApiException.class, () -> garminPayProxy.registerCard("mockEncryptedCardData"));
 
         assertEquals(HttpStatus.SC_BAD_REQUEST, exception.getStatus());
     }
+
+    @Test
+    void testCachedRootLinksAreReused() throws JsonProcessingException {
+        RegisterCardResponse successResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(TESTING_DEEP_LINK)
+            .pushId("test")
+            .build();
+
+        APIResponseDTO responseDTO = APIResponseDTO.builder()
+            .status(HttpStatus.SC_OK)
+            .content(objectMapper.writeValueAsString(successResponse))
+            .headers(testingHeaders)
+            .build();
+
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(responseDTO);
+
+        garminPayProxy.registerCard("mockEncryptedCardData");
+        garminPayProxy.registerCard("mockEncryptedCardData");
+
+        // One root request from setUp plus one request per registration
+        verify(refreshableOauthClient, times(3)).executeRequest(any(), any());
+    }
+
+    @Test
+    void testExpiredRootLinksAreRefreshed() throws JsonProcessingException {
+        GarminPayProxy expiringProxy = GarminPayProxy.builder()
+            .client(refreshableOauthClient)
+            .baseUrl(testingUrl)
+            .rootLinkTtl(Duration.ZERO)
+            .refreshExecutor(Runnable::run)
+            .build();
+
+        RootResponse rootResponse = RootResponse.builder()
+            .links(new HashMap<>(links))
+            .build();
+        HealthResponse healthResponse = HealthResponse.builder()
+            .healthStatus("OK")
+            .build();
+
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(rootResponse)).build(),
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(healthResponse)).build(),
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(rootResponse)).build(),
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(healthResponse)).build()
+        );
+
+        expiringProxy.getHealthStatus();
+        expiringProxy.getHealthStatus();
+
+        // setUp request plus a root and health request for each call
+        verify(refreshableOauthClient, times(5)).executeRequest(any(), any());
+    }
+
+    @Test
+    void testMovedLinkIsRefreshedAndRetried() throws JsonProcessingException {
+        Map<String, HalLink> movedLinks = new HashMap<>(links);
+        movedLinks.put("paymentCards", HalLink.builder().href(testingUrl + "/v2/paymentCards").build());
+
+        RootResponse movedRootResponse = RootResponse.builder()
+            .links(movedLinks)
+            .build();
+        RegisterCardResponse successResponse = RegisterCardResponse.builder()
+            .deepLinkUrl(TESTING_DEEP_LINK)
+            .pushId("test")
+            .build();
+
+        when(refreshableOauthClient.executeRequest(any(), any())).thenReturn(
+            APIResponseDTO.builder().status(HttpStatus.SC_GONE).headers(testingHeaders).build(),
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(movedRootResponse)).build(),
+            APIResponseDTO.builder().status(HttpStatus.SC_OK).content(objectMapper.writeValueAsString(successResponse)).build()
+        );
+
+        RegisterCardResponse registerCardResponse = garminPayProxy.registerCard("mockEncryptedCardData");
+
+        assertEquals("test", registerCardResponse.getPushId());
+        ArgumentCaptor<ClassicHttpRequest> requestCaptor = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+        verify(refreshableOauthClient, times(4)).executeRequest(requestCaptor.capture(), any());
+        assertEquals("/v2/paymentCards", requestCaptor.getValue().getPath());
+    }
 }
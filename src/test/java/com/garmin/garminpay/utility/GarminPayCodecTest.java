@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Garmin International, Inc.
+ * Licensed under the Garmin Pay Software License Agreement; you
+ * may not use this file except in compliance with the Garmin Pay Software License Agreement.
+ */
+package com.garmin.garminpay.utility;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.garmin.garminpay.TestUtils;
+import com.garmin.garminpay.model.GarminPayCardData;
+import com.garmin.garminpay.model.dto.APIResponseDTO;
+import com.garmin.garminpay.model.request.CreatePaymentCardRequest;
+import com.garmin.garminpay.model.response.RegisterCardResponse;
+import com.garmin.garminpay.model.response.RootResponse;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GarminPayCodecTest {
+
+    @Test
+    void readersAndWritersAreBuiltOnce() {
+        GarminPayCodec codec = GarminPayCodec.getDefault();
+
+        assertSame(codec.readerFor(RootResponse.class), codec.readerFor(RootResponse.class));
+        assertSame(codec.writerFor(GarminPayCardData.class), codec.writerFor(GarminPayCardData.class));
+        assertSame(codec.readerFor(RootResponse.class), ResponseHandlingUtil.readerFor(RootResponse.class));
+    }
+
+    @Test
+    void unknownPropertiesAreIgnoredWithoutChangingTheCallersMapper() throws JsonProcessingException {
+        ObjectMapper strictMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        GarminPayCodec codec = new GarminPayCodec(strictMapper, false);
+
+        RegisterCardResponse response = codec.readValue("{\"pushId\":\"push\",\"addedLater\":true}", RegisterCardResponse.class);
+
+        assertEquals("push", response.getPushId());
+        assertTrue(strictMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+    }
+
+    @Test
+    void injectedMapperConfigurationIsUsed() throws JsonProcessingException {
+        GarminPayCodec codec = new GarminPayCodec(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT), false);
+
+        String json = codec.writeValueAsString(CreatePaymentCardRequest.builder().encryptedData("encrypted").build());
+
+        assertTrue(json.contains("\n"));
+    }
+
+    @Test
+    void responsesAreParsedWithTheGivenCodec() throws JsonProcessingException {
+        GarminPayCodec codec = new GarminPayCodec(new ObjectMapper(), false);
+        APIResponseDTO responseDTO = APIResponseDTO.builder()
+            .status(HttpStatus.SC_OK)
+            .content("{\"deepLinkUrl\":\"https://connect.garmin.com\",\"pushId\":\"push\"}")
+            .build();
+
+        RegisterCardResponse response = ResponseHandlingUtil.parseResponse(responseDTO, RegisterCardResponse.class, codec);
+
+        assertEquals("push", response.getPushId());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    void acceleratedCodecRoundTripsCardData() throws JsonProcessingException {
+        GarminPayCodec codec = new GarminPayCodec(new ObjectMapper(), true);
+
+        String json = codec.writeValueAsString(TestUtils.TESTING_CARD_DATA);
+
+        assertEquals(GarminPayCodec.getDefault().writeValueAsString(TestUtils.TESTING_CARD_DATA), json);
+    }
+}
@@ -12,6 +12,7 @@ import com.garmin.garminpay.TestUtils;
 import com.garmin.garminpay.exception.GarminPayApiException;
 import com.garmin.garminpay.exception.GarminPayCredentialsException;
 import com.garmin.garminpay.exception.GarminPayMaintenanceException;
+import com.garmin.garminpay.exception.GarminPayRateLimitException;
 import com.garmin.garminpay.model.dto.APIResponseDTO;
 import com.garmin.garminpay.model.response.ErrorResponse;
 import com.garmin.garminpay.model.response.HealthResponse;
@@ -23,6 +24,7 @@ import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -63,6 +65,22 @@ final class ResponseHandlingUtilTest {
         assertThrows(GarminPayMaintenanceException.class, () -> ResponseHandlingUtil.parseResponse(responseDTO, HealthResponse.class));
     }
 
+    @Test
+    void canParseTooManyRequestsResponse() {
+        APIResponseDTO responseDTO = APIResponseDTO.builder()
+            .status(HttpStatus.SC_TOO_MANY_REQUESTS)
+            .headers(new Header[]{TestUtils.X_REQUEST_ID_HEADER, new BasicHeader("Retry-After", "7")})
+            .path("/paymentCards")
+            .build();
+
+        GarminPayRateLimitException exception = assertThrows(GarminPayRateLimitException.class,
+            () -> ResponseHandlingUtil.parseResponse(responseDTO, HealthResponse.class));
+        assertEquals(HttpStatus.SC_TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals("/paymentCards", exception.getPath());
+        assertEquals(TestUtils.X_REQUEST_ID_HEADER.getValue(), exception.getRequestId());
+        assertEquals(Duration.ofSeconds(7), exception.getRetryAfter());
+    }
+
     @Test
     void canParseUnauthenticatedResponseWithBody() {
         APIResponseDTO responseDTO = APIResponseDTO.builder()